@@ -7,4 +7,6 @@ import org.springframework.context.annotation.Configuration;
 public class GatewayConfiguration {
 
     // Configuraciones específicas de Spring Cloud Gateway se agregarán aquí en el futuro.
+    // El gateway debe verificar los JWT localmente con las llaves públicas de /.well-known/jwks.json
+    // (buscando la llave por el "kid" del header) en lugar de reenviar cada token a este servicio.
 }
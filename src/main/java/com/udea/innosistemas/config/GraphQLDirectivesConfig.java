@@ -1,6 +1,7 @@
 package com.udea.innosistemas.config;
 
 import com.udea.innosistemas.security.directive.AuthDirective;
+import com.udea.innosistemas.security.directive.HasRoleDirective;
 import com.udea.innosistemas.security.directive.RequiresCourseDirective;
 import com.udea.innosistemas.security.directive.RequiresTeamDirective;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,7 +11,7 @@ import org.springframework.graphql.execution.RuntimeWiringConfigurer;
 
 /**
  * Configuración para registrar las directivas personalizadas de GraphQL.
- * Registra las directivas @auth, @requiresTeam y @requiresCourse para
+ * Registra las directivas @auth, @hasRole, @requiresTeam y @requiresCourse para
  * validación de permisos a nivel de campo.
  *
  * Autor: Fábrica-Escuela de Software UdeA
@@ -22,6 +23,9 @@ public class GraphQLDirectivesConfig {
     @Autowired
     private AuthDirective authDirective;
 
+    @Autowired
+    private HasRoleDirective hasRoleDirective;
+
     @Autowired
     private RequiresTeamDirective requiresTeamDirective;
 
@@ -37,6 +41,7 @@ public class GraphQLDirectivesConfig {
     public RuntimeWiringConfigurer runtimeWiringConfigurer() {
         return wiringBuilder -> wiringBuilder
                 .directive("auth", authDirective)
+                .directive("hasRole", hasRoleDirective)
                 .directive("requiresTeam", requiresTeamDirective)
                 .directive("requiresCourse", requiresCourseDirective);
     }
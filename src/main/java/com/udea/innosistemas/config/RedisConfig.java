@@ -1,27 +1,63 @@
 package com.udea.innosistemas.config;
 
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisConfiguration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisSentinelConfiguration;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisClientConfiguration;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import redis.clients.jedis.JedisPoolConfig;
 
 import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
 
 /**
  * Configuración de Redis para gestión de caché, blacklist de tokens y sesiones.
  * Configura conexión a Redis y RedisTemplate para operaciones de datos.
  * Soporta configuración por perfiles (dev, test, prod).
  *
+ * El cliente por defecto es Lettuce con una única conexión compartida: las operaciones de todos los
+ * hilos se escriben sin esperar la respuesta de las anteriores (pipelining automático) sobre I/O no
+ * bloqueante, así que ningún hilo de Tomcat hace cola por una conexión de un pool. Jedis, con su
+ * pool de conexiones, queda disponible como alternativa ({@code innosistemas.redis.client=jedis}).
+ *
+ * La topología se elige con {@code innosistemas.redis.topology}: standalone, sentinel (failover
+ * automático del primario) o cluster (el keyspace se reparte entre varios primarios; ver
+ * {@link com.udea.innosistemas.service.RedisKeyspace} para los hash tags de las claves).
+ *
  * Autor: Fábrica-Escuela de Software UdeA
  * Versión: 1.0.0
  */
 @Configuration
-public class RedisConfig {
+public class RedisConfig implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisConfig.class);
+    static final String CLIENT_JEDIS = "jedis";
+    public static final String TOPOLOGY_STANDALONE = "standalone";
+    public static final String TOPOLOGY_SENTINEL = "sentinel";
+    public static final String TOPOLOGY_CLUSTER = "cluster";
+    private static final Duration CLUSTER_TOPOLOGY_REFRESH = Duration.ofSeconds(30);
 
     @Value("${spring.redis.host:localhost}")
     private String redisHost;
@@ -35,33 +71,218 @@ public class RedisConfig {
     @Value("${spring.redis.timeout:2000ms}")
     private String redisTimeout;
 
+    // lettuce (por defecto) o jedis
+    @Value("${innosistemas.redis.client:lettuce}")
+    private String redisClient;
+
+    // standalone (por defecto), sentinel o cluster
+    @Value("${innosistemas.redis.topology:standalone}")
+    private String topology;
+
+    @Value("${spring.redis.sentinel.master:mymaster}")
+    private String sentinelMaster;
+
+    // host:puerto separados por comas
+    @Value("${spring.redis.sentinel.nodes:}")
+    private String sentinelNodes;
+
+    // host:puerto separados por comas (basta con algunos nodos; el resto se descubre)
+    @Value("${spring.redis.cluster.nodes:}")
+    private String clusterNodes;
+
+    @Value("${spring.redis.cluster.max-redirects:3}")
+    private int clusterMaxRedirects;
+
+    // ReadFrom de Lettuce para las lecturas que toleran datos desactualizados (vacío = siempre el primario)
+    @Value("${innosistemas.redis.replica-read-from:replicaPreferred}")
+    private String replicaReadFrom;
+
+    @Value("${spring.redis.jedis.pool.max-active:8}")
+    private int jedisMaxActive;
+
+    @Value("${spring.redis.jedis.pool.max-idle:8}")
+    private int jedisMaxIdle;
+
+    @Value("${spring.redis.jedis.pool.min-idle:0}")
+    private int jedisMinIdle;
+
+    private LettuceConnectionFactory replicaConnectionFactory;
+
     /**
-     * Configura la conexión a Redis usando Jedis
+     * Configura la conexión a Redis con la topología (standalone, sentinel o cluster) y el cliente
+     * seleccionados (Lettuce por defecto, Jedis como alternativa)
      *
      * @return RedisConnectionFactory configurado
      */
     @Bean
+    @Primary
     public RedisConnectionFactory redisConnectionFactory() {
-        RedisStandaloneConfiguration redisConfig = new RedisStandaloneConfiguration();
-        redisConfig.setHostName(redisHost);
-        redisConfig.setPort(redisPort);
-
-        // Configurar password si está presente
-        if (redisPassword != null && !redisPassword.isEmpty()) {
-            redisConfig.setPassword(redisPassword);
-        }
+        RedisConfiguration redisConfig = topologyConfiguration();
 
         // Configurar timeout de conexión
         Duration timeout = parseDuration(redisTimeout);
+
+        if (CLIENT_JEDIS.equalsIgnoreCase(redisClient)) {
+            logger.info("Using Jedis Redis client ({} topology) with a pool of {} connections", topology, jedisMaxActive);
+            return jedisConnectionFactory(redisConfig, timeout);
+        }
+        logger.info("Using Lettuce Redis client ({} topology) with a shared pipelined connection", topology);
+        return lettuceConnectionFactory(redisConfig, timeout, null);
+    }
+
+    /**
+     * Configuración de la topología de Redis
+     *
+     * @return Configuración standalone, sentinel o cluster según innosistemas.redis.topology
+     */
+    RedisConfiguration topologyConfiguration() {
+        String mode = topology.trim().toLowerCase(Locale.ROOT);
+        switch (mode) {
+            case TOPOLOGY_SENTINEL: {
+                RedisSentinelConfiguration sentinelConfig =
+                        new RedisSentinelConfiguration(sentinelMaster, parseNodes(sentinelNodes, "spring.redis.sentinel.nodes"));
+                if (redisPassword != null && !redisPassword.isEmpty()) {
+                    sentinelConfig.setPassword(redisPassword);
+                }
+                return sentinelConfig;
+            }
+            case TOPOLOGY_CLUSTER: {
+                RedisClusterConfiguration clusterConfig =
+                        new RedisClusterConfiguration(parseNodes(clusterNodes, "spring.redis.cluster.nodes"));
+                clusterConfig.setMaxRedirects(clusterMaxRedirects);
+                if (redisPassword != null && !redisPassword.isEmpty()) {
+                    clusterConfig.setPassword(redisPassword);
+                }
+                return clusterConfig;
+            }
+            case TOPOLOGY_STANDALONE: {
+                RedisStandaloneConfiguration standaloneConfig = new RedisStandaloneConfiguration();
+                standaloneConfig.setHostName(redisHost);
+                standaloneConfig.setPort(redisPort);
+
+                // Configurar password si está presente
+                if (redisPassword != null && !redisPassword.isEmpty()) {
+                    standaloneConfig.setPassword(redisPassword);
+                }
+                return standaloneConfig;
+            }
+            default:
+                throw new IllegalStateException("Unknown Redis topology: " + topology);
+        }
+    }
+
+    /**
+     * Conexión Lettuce compartida por todos los hilos. Mientras Redis está desconectado los comandos
+     * se rechazan de inmediato en lugar de acumularse en memoria: el circuit breaker de Redis lo
+     * detecta enseguida y los servicios pasan al modo degradado.
+     *
+     * En cluster la topología se refresca periódicamente y ante redirecciones, de modo que un
+     * failover o un resharding no dejan comandos apuntando al nodo anterior.
+     */
+    private LettuceConnectionFactory lettuceConnectionFactory(RedisConfiguration redisConfig, Duration timeout,
+                                                              ReadFrom readFrom) {
+        SocketOptions socketOptions = SocketOptions.builder().connectTimeout(timeout).build();
+        ClientOptions clientOptions = redisConfig instanceof RedisClusterConfiguration
+                ? ClusterClientOptions.builder()
+                        .socketOptions(socketOptions)
+                        .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                        .topologyRefreshOptions(ClusterTopologyRefreshOptions.builder()
+                                .enablePeriodicRefresh(CLUSTER_TOPOLOGY_REFRESH)
+                                .enableAllAdaptiveRefreshTriggers()
+                                .build())
+                        .build()
+                : ClientOptions.builder()
+                        .socketOptions(socketOptions)
+                        .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                        .build();
+
+        LettuceClientConfiguration.LettuceClientConfigurationBuilder clientConfiguration =
+                LettuceClientConfiguration.builder()
+                        .commandTimeout(timeout)
+                        .clientOptions(clientOptions);
+        if (readFrom != null) {
+            clientConfiguration.readFrom(readFrom);
+        }
+
+        LettuceConnectionFactory lettuceConnectionFactory;
+        if (redisConfig instanceof RedisClusterConfiguration clusterConfig) {
+            lettuceConnectionFactory = new LettuceConnectionFactory(clusterConfig, clientConfiguration.build());
+        } else if (redisConfig instanceof RedisSentinelConfiguration sentinelConfig) {
+            lettuceConnectionFactory = new LettuceConnectionFactory(sentinelConfig, clientConfiguration.build());
+        } else {
+            lettuceConnectionFactory = new LettuceConnectionFactory(
+                    (RedisStandaloneConfiguration) redisConfig, clientConfiguration.build());
+        }
+        // Una sola conexión multiplexada; las operaciones bloqueantes o transaccionales usan una dedicada
+        lettuceConnectionFactory.setShareNativeConnection(true);
+        return lettuceConnectionFactory;
+    }
+
+    /**
+     * Conexiones Jedis desde un pool acotado; un hilo espera una conexión libre como máximo el timeout
+     */
+    private JedisConnectionFactory jedisConnectionFactory(RedisConfiguration redisConfig, Duration timeout) {
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(jedisMaxActive);
+        poolConfig.setMaxIdle(jedisMaxIdle);
+        poolConfig.setMinIdle(jedisMinIdle);
+        poolConfig.setMaxWait(timeout);
+
         JedisClientConfiguration.JedisClientConfigurationBuilder jedisClientConfiguration =
                 JedisClientConfiguration.builder();
         jedisClientConfiguration.connectTimeout(timeout);
         jedisClientConfiguration.readTimeout(timeout);
+        jedisClientConfiguration.usePooling().poolConfig(poolConfig);
+
+        if (redisConfig instanceof RedisClusterConfiguration clusterConfig) {
+            return new JedisConnectionFactory(clusterConfig, jedisClientConfiguration.build());
+        }
+        if (redisConfig instanceof RedisSentinelConfiguration sentinelConfig) {
+            return new JedisConnectionFactory(sentinelConfig, jedisClientConfiguration.build());
+        }
+        return new JedisConnectionFactory((RedisStandaloneConfiguration) redisConfig, jedisClientConfiguration.build());
+    }
 
-        JedisConnectionFactory jedisConnectionFactory = new JedisConnectionFactory(
-                redisConfig, jedisClientConfiguration.build());
+    /**
+     * Plantilla para lecturas que toleran datos ligeramente desactualizados (listados de sesiones y
+     * estadísticas). Con Lettuce en sentinel o cluster estas lecturas van a las réplicas según
+     * innosistemas.redis.replica-read-from y descargan al primario; en los demás casos usan la
+     * misma conexión que {@link #redisTemplate}. Las verificaciones de seguridad (blacklist,
+     * sesión activa, backoff) nunca la usan.
+     *
+     * @param connectionFactory Factory de conexión al primario
+     * @return Plantilla de lecturas en réplicas
+     */
+    @Bean
+    public StringRedisTemplate replicaRedisTemplate(RedisConnectionFactory connectionFactory) {
+        if (!replicaReadsEnabled()) {
+            return new StringRedisTemplate(connectionFactory);
+        }
+
+        ReadFrom readFrom = ReadFrom.valueOf(replicaReadFrom.trim());
+        LettuceConnectionFactory factory = lettuceConnectionFactory(topologyConfiguration(),
+                parseDuration(redisTimeout), readFrom);
+        factory.afterPropertiesSet();
+        factory.start();
+        replicaConnectionFactory = factory;
+        logger.info("Stale-tolerant Redis reads routed with ReadFrom {}", replicaReadFrom);
+        return new StringRedisTemplate(factory);
+    }
+
+    boolean replicaReadsEnabled() {
+        return !CLIENT_JEDIS.equalsIgnoreCase(redisClient)
+                && !TOPOLOGY_STANDALONE.equalsIgnoreCase(topology.trim())
+                && replicaReadFrom != null && !replicaReadFrom.isBlank();
+    }
 
-        return jedisConnectionFactory;
+    /**
+     * Cierra la conexión de lecturas en réplicas (no es un bean propio, así que Spring no la cierra)
+     */
+    @Override
+    public void destroy() {
+        if (replicaConnectionFactory != null) {
+            replicaConnectionFactory.destroy();
+        }
     }
 
     /**
@@ -72,6 +293,7 @@ public class RedisConfig {
      * @return RedisTemplate configurado
      */
     @Bean
+    @Primary
     public RedisTemplate<String, String> redisTemplate(RedisConnectionFactory connectionFactory) {
         RedisTemplate<String, String> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
@@ -87,6 +309,41 @@ public class RedisConfig {
         return template;
     }
 
+    /**
+     * Contenedor de listeners pub/sub de Redis (sincronización de la blacklist entre nodos)
+     *
+     * @param connectionFactory Factory de conexión a Redis
+     * @return RedisMessageListenerContainer configurado
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    /**
+     * Parsea una lista de nodos "host:puerto" separados por comas
+     *
+     * @param nodes Lista de nodos
+     * @param property Propiedad de origen (para el mensaje de error)
+     * @return Nodos sin espacios ni entradas vacías
+     */
+    private static Set<String> parseNodes(String nodes, String property) {
+        Set<String> parsed = new LinkedHashSet<>();
+        if (nodes != null) {
+            for (String node : nodes.split(",")) {
+                if (!node.isBlank()) {
+                    parsed.add(node.trim());
+                }
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalStateException(property + " is required for the configured Redis topology");
+        }
+        return parsed;
+    }
+
     /**
      * Parsea una duración en formato Spring (ej: "2000ms", "2s")
      *
@@ -87,6 +87,7 @@ public class SecurityConfig {
                 .authorizeHttpRequests(authz -> authz
                         // Endpoints públicos - No requieren autenticación
                         .requestMatchers("/auth/**", "/api/v1/auth/**").permitAll()
+                        .requestMatchers("/.well-known/jwks.json", "/api/v1/.well-known/jwks.json").permitAll()
                         .requestMatchers("/graphql", "/api/v1/graphql").permitAll()
                         .requestMatchers("/graphiql", "/graphiql/**", "/api/v1/graphiql", "/api/v1/graphiql/**").permitAll()
                         .requestMatchers("/actuator/health", "/api/v1/actuator/health").permitAll()
@@ -0,0 +1,52 @@
+package com.udea.innosistemas.config.properties;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Tabla de políticas de rate limiting (innosistemas.ratelimit.policies).
+ * definitions: nombre de política -> "capacidad:tokens-de-relleno:periodo".
+ * roles: rol (STUDENT, TA, PROFESSOR, ADMIN o anonymous) -> nombre de política.
+ * operations: campo raíz GraphQL o ruta REST ("login", "/auth/login") -> nombre de política;
+ * "ROL:operación" la restringe a un rol. Las claves con mayúsculas, "/" o ":" van entre corchetes.
+ *
+ * Las políticas "default" y "auth" se definen con innosistemas.ratelimit.default y .auth.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ConfigurationProperties(prefix = "innosistemas.ratelimit.policies")
+public class RateLimitPolicyProperties {
+
+    private Map<String, String> definitions = new LinkedHashMap<>();
+
+    private Map<String, String> roles = new LinkedHashMap<>();
+
+    private Map<String, String> operations = new LinkedHashMap<>();
+
+    public Map<String, String> getDefinitions() {
+        return definitions;
+    }
+
+    public void setDefinitions(Map<String, String> definitions) {
+        this.definitions = definitions;
+    }
+
+    public Map<String, String> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(Map<String, String> roles) {
+        this.roles = roles;
+    }
+
+    public Map<String, String> getOperations() {
+        return operations;
+    }
+
+    public void setOperations(Map<String, String> operations) {
+        this.operations = operations;
+    }
+}
@@ -2,12 +2,17 @@ package com.udea.innosistemas.controller;
 
 import com.udea.innosistemas.dto.AuthResponse;
 import com.udea.innosistemas.dto.LoginRequest;
+import com.udea.innosistemas.exception.LoginThrottledException;
 import com.udea.innosistemas.service.AuthenticationService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 /**
  * Controlador REST para gestionar la autenticación de usuarios
  * Proporciona endpoints para login y validación de credenciales
@@ -23,11 +28,26 @@ public class AuthController {
     private AuthenticationService authenticationService;
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<AuthResponse> login(@Valid @RequestBody LoginRequest loginRequest,
+                                              @RequestHeader(value = HttpHeaders.USER_AGENT, required = false) String userAgent) {
+        // Sin nombre de dispositivo explícito, la sesión se describe con el User-Agent del cliente
+        if (loginRequest.getDeviceName() == null) {
+            loginRequest.setDeviceName(userAgent);
+        }
         AuthResponse response = authenticationService.login(loginRequest);
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Login rechazado por backoff de la cuenta o saturación del pool de hashing
+     */
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<Map<String, String>> handleLoginThrottled(LoginThrottledException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Map.of("error", "Too Many Requests", "message", ex.getMessage()));
+    }
+
     @GetMapping("/health")
     public ResponseEntity<String> health() {
         return ResponseEntity.ok("Auth service is running");
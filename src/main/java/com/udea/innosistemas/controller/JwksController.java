@@ -0,0 +1,34 @@
+package com.udea.innosistemas.controller;
+
+import com.udea.innosistemas.security.JwtKeyRing;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controlador REST que publica las llaves públicas de firma JWT (JWKS, RFC 7517).
+ * Permite que el gateway y los servicios downstream verifiquen los tokens localmente,
+ * buscando la llave por el "kid" del header, sin llamar a este servicio en cada petición.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@RestController
+public class JwksController {
+
+    @Autowired
+    private JwtKeyRing keyRing;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, List<Map<String, Object>>>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(Map.of("keys", keyRing.getPublicJwks()));
+    }
+}
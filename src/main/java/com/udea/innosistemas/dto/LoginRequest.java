@@ -12,6 +12,9 @@ public class LoginRequest {
     @NotBlank(message = "Password es obligatorio")
     private String password;
 
+    // Descripción opcional del dispositivo (se muestra en las sesiones activas del usuario)
+    private String deviceName;
+
     public LoginRequest() {
     }
 
@@ -35,4 +38,12 @@ public class LoginRequest {
     public void setPassword(String password) {
         this.password = password;
     }
-}
\ No newline at end of file
+
+    public String getDeviceName() {
+        return deviceName;
+    }
+
+    public void setDeviceName(String deviceName) {
+        this.deviceName = deviceName;
+    }
+}
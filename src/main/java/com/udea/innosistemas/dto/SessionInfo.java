@@ -0,0 +1,71 @@
+package com.udea.innosistemas.dto;
+
+import java.time.Instant;
+
+/**
+ * DTO con la información de una sesión activa de un usuario.
+ * Incluye el dispositivo declarado en el login, la fecha de creación,
+ * el último uso (última renovación del token) y la expiración.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public class SessionInfo {
+
+    private String sessionId;
+    private String device;
+    private Instant createdAt;
+    private Instant lastSeenAt;
+    private Instant expiresAt;
+
+    public SessionInfo() {
+    }
+
+    public SessionInfo(String sessionId, String device, Instant createdAt, Instant lastSeenAt, Instant expiresAt) {
+        this.sessionId = sessionId;
+        this.device = device;
+        this.createdAt = createdAt;
+        this.lastSeenAt = lastSeenAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getDevice() {
+        return device;
+    }
+
+    public void setDevice(String device) {
+        this.device = device;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getLastSeenAt() {
+        return lastSeenAt;
+    }
+
+    public void setLastSeenAt(Instant lastSeenAt) {
+        this.lastSeenAt = lastSeenAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
@@ -31,6 +31,17 @@ public class TeamDTO {
     }
 
     public TeamDTO(Team team) {
+        this(team, null);
+    }
+
+    /**
+     * Crea el DTO con los miembros ya cargados (por ejemplo, por el DataLoader de miembros).
+     * No recorre la colección lazy de la entidad, así que no dispara una consulta por equipo.
+     *
+     * @param team Equipo
+     * @param miembros Miembros del equipo, o null para usar los de la entidad
+     */
+    public TeamDTO(Team team, List<User> miembros) {
         this.id = team.getId();
         this.nombre = team.getNombre();
         this.descripcion = team.getDescripcion();
@@ -40,23 +51,15 @@ public class TeamDTO {
         this.activo = team.isActivo();
         this.maxMiembros = team.getMaxMiembros();
         this.isVencido = team.isVencido();
-        this.puedeAgregarMiembros = team.puedeAgregarMiembros();
 
         // Convertir miembros a DTOs si están disponibles
-        if (team.getMiembros() != null) {
-            this.miembros = team.getMiembros().stream()
-                    .map(TeamMember::new)
-                    .collect(Collectors.toList());
-        }
-    }
-
-    public TeamDTO(Team team, List<User> miembros) {
-        this(team);
-        if (miembros != null) {
-            this.miembros = miembros.stream()
+        List<User> usuarios = miembros != null ? miembros : team.getMiembros();
+        if (usuarios != null) {
+            this.miembros = usuarios.stream()
                     .map(TeamMember::new)
                     .collect(Collectors.toList());
         }
+        this.puedeAgregarMiembros = maxMiembros == null || (usuarios != null && usuarios.size() < maxMiembros);
     }
 
     // Getters y Setters
@@ -0,0 +1,41 @@
+package com.udea.innosistemas.event;
+
+import com.udea.innosistemas.service.RedisCircuitBreaker;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Evento publicado en cada transición del circuit breaker de Redis.
+ * Al cerrarse el circuito (Redis recuperado) los servicios reconcilian con Redis lo que
+ * hicieron en modo degradado. Si el circuito nunca se abre (failure-threshold en 0) la
+ * recuperación se publica como CLOSED -> CLOSED.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public class RedisCircuitStateEvent extends ApplicationEvent {
+
+    private final RedisCircuitBreaker.State previousState;
+    private final RedisCircuitBreaker.State state;
+
+    public RedisCircuitStateEvent(Object source, RedisCircuitBreaker.State previousState,
+                                  RedisCircuitBreaker.State state) {
+        super(source);
+        this.previousState = previousState;
+        this.state = state;
+    }
+
+    public RedisCircuitBreaker.State getPreviousState() {
+        return previousState;
+    }
+
+    public RedisCircuitBreaker.State getState() {
+        return state;
+    }
+
+    /**
+     * @return true si la transición cierra el circuito tras un periodo en modo degradado
+     */
+    public boolean isRecovered() {
+        return state == RedisCircuitBreaker.State.CLOSED;
+    }
+}
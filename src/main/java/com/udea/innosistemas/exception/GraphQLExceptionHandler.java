@@ -13,6 +13,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.validation.BindException;
 
 import jakarta.validation.ConstraintViolationException;
+import java.util.Map;
 
 //Clase para manejar excepciones específicas en las operaciones GraphQL.
 //Proporciona respuestas de error detalladas y adecuadas según el tipo de excepción.
@@ -29,6 +30,17 @@ public class GraphQLExceptionHandler extends DataFetcherExceptionResolverAdapter
     protected GraphQLError resolveToSingleError(Throwable ex, DataFetchingEnvironment env) {
         LOG.error("GraphQL error occurred: {}", ex.getMessage(), ex);
 
+        if (ex instanceof LoginThrottledException) {
+            return GraphqlErrorBuilder.newError()
+                    .errorType(ErrorType.BAD_REQUEST)
+                    .message(ex.getMessage())
+                    .extensions(Map.of("code", "TOO_MANY_REQUESTS",
+                            "retryAfterSeconds", ((LoginThrottledException) ex).getRetryAfterSeconds()))
+                    .path(env.getExecutionStepInfo().getPath())
+                    .location(env.getField().getSourceLocation())
+                    .build();
+        }
+
         if (ex instanceof AuthenticationException) {
             return GraphqlErrorBuilder.newError()
                     .errorType(ErrorType.UNAUTHORIZED)
@@ -0,0 +1,23 @@
+package com.udea.innosistemas.exception;
+
+/**
+ * Excepción lanzada cuando un intento de login se rechaza sin verificar la contraseña:
+ * la cuenta está en backoff por intentos fallidos o el pool de hashing está saturado.
+ * Se traduce a HTTP 429 con el header Retry-After.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public class LoginThrottledException extends AuthenticationException {
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -4,6 +4,7 @@ import com.udea.innosistemas.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,5 +17,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     List<User> findByTeamId(Long teamId);
 
+    List<User> findByTeamIdIn(Collection<Long> teamIds);
+
     List<User> findByCourseId(Long courseId);
 }
\ No newline at end of file
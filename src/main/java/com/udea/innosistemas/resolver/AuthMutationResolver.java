@@ -4,6 +4,7 @@ import com.udea.innosistemas.dto.AuthResponse;
 import com.udea.innosistemas.dto.LoginRequest;
 import com.udea.innosistemas.dto.LogoutResponse;
 import com.udea.innosistemas.security.JwtTokenProvider;
+import com.udea.innosistemas.security.VerifiedToken;
 import com.udea.innosistemas.service.AuthenticationService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
@@ -77,8 +78,13 @@ public class AuthMutationResolver {
     @MutationMapping
     @PreAuthorize("isAuthenticated()")
     public LogoutResponse logout(@Argument String token) {
-        // Si no se proporciona token, extraer del header
+        // Si no se proporciona token, usar el ya verificado por el filtro JWT
         String jwt = token;
+        if (!StringUtils.hasText(jwt)) {
+            jwt = VerifiedToken.current()
+                    .map(VerifiedToken::getToken)
+                    .orElse(null);
+        }
         if (!StringUtils.hasText(jwt) && request != null) {
             jwt = extractTokenFromRequest(request);
         }
@@ -4,10 +4,14 @@ import com.udea.innosistemas.entity.User;
 import com.udea.innosistemas.entity.UserRole;
 import com.udea.innosistemas.exception.AuthenticationException;
 import com.udea.innosistemas.repository.UserRepository;
+import com.udea.innosistemas.security.CurrentUserContext;
+import com.udea.innosistemas.security.VerifiedToken;
+import com.udea.innosistemas.service.UserLookupService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
+import java.util.Optional;
+
 /**
  * Clase base abstracta para todos los resolvers GraphQL
  * Proporciona funcionalidad común para:
@@ -24,24 +28,47 @@ public abstract class BaseResolver {
     @Autowired
     protected UserRepository userRepository;
 
+    @Autowired
+    protected UserLookupService userLookupService;
+
     /**
-     * Obtiene el usuario actualmente autenticado desde el contexto de seguridad
+     * Obtiene el contexto de usuario de la operación GraphQL en curso
+     *
+     * @return CurrentUserContext compartido por la operación, o uno nuevo fuera de ella
+     */
+    protected CurrentUserContext getCurrentUserContext() {
+        return CurrentUserContext.current(userLookupService);
+    }
+
+    /**
+     * Obtiene el usuario actualmente autenticado desde el contexto de la operación.
+     * Se consulta una sola vez por operación aunque varios chequeos lo pidan.
      *
      * @return User autenticado
      * @throws AuthenticationException si no hay usuario autenticado
      * @throws UsernameNotFoundException si el usuario no existe en la BD
      */
     protected User getCurrentUser() {
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        CurrentUserContext context = getCurrentUserContext();
 
-        if (username == null || username.equals("anonymousUser")) {
+        if (!context.isAuthenticated()) {
             throw new AuthenticationException("No hay usuario autenticado");
         }
 
-        return userRepository.findByEmail(username)
+        return context.getUser()
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
     }
 
+    /**
+     * Obtiene el token JWT ya verificado de la petición en curso.
+     * Permite leer claims (userId, role, teamId, courseId) sin volver a verificar la firma.
+     *
+     * @return Optional con el token verificado, vacío si la petición no trae JWT
+     */
+    protected Optional<VerifiedToken> getVerifiedToken() {
+        return VerifiedToken.current();
+    }
+
     /**
      * Obtiene solo el ID del usuario autenticado
      *
@@ -5,16 +5,23 @@ import com.udea.innosistemas.dto.TeamMember;
 import com.udea.innosistemas.entity.Team;
 import com.udea.innosistemas.entity.User;
 import com.udea.innosistemas.service.TeamService;
+import graphql.schema.DataFetchingEnvironment;
+import jakarta.annotation.PostConstruct;
+import org.dataloader.DataLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.QueryMapping;
 import org.springframework.graphql.data.method.annotation.SchemaMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -23,6 +30,10 @@ import java.util.stream.Collectors;
  *
  * Refactorizado usando patrón Template Method (BaseResolver)
  *
+ * Los miembros de los equipos se cargan con el DataLoader "teamMembers": todas las cargas de una
+ * operación se agrupan en una sola consulta (findByTeamIdIn) y se cachean por ID de equipo durante
+ * la operación. Un curso con 120 equipos son 2 consultas (equipos y miembros) en lugar de 121.
+ *
  * Autor: Fábrica-Escuela de Software UdeA
  * Versión: 2.0.0
  */
@@ -30,10 +41,25 @@ import java.util.stream.Collectors;
 public class TeamQueryResolver extends BaseResolver {
 
     private static final Logger logger = LoggerFactory.getLogger(TeamQueryResolver.class);
+    static final String TEAM_MEMBERS_LOADER = "teamMembers";
 
     @Autowired
     private TeamService teamService;
 
+    @Autowired
+    private BatchLoaderRegistry batchLoaderRegistry;
+
+    /**
+     * Registra el DataLoader de miembros por ID de equipo. El registro crea un DataLoader nuevo
+     * por operación, así que el caché no sobrevive a la petición
+     */
+    @PostConstruct
+    void registerDataLoaders() {
+        batchLoaderRegistry.<Long, List<User>>forName(TEAM_MEMBERS_LOADER)
+                .registerMappedBatchLoader((teamIds, environment) ->
+                        Mono.fromCallable(() -> teamService.obtenerMiembrosPorEquipos(teamIds)));
+    }
+
     /**
      * Obtiene un equipo por su ID
      * Estudiantes solo pueden ver su propio equipo
@@ -41,11 +67,12 @@ public class TeamQueryResolver extends BaseResolver {
      * Usa BaseResolver para validar permisos
      *
      * @param id ID del equipo
+     * @param environment Entorno de ejecución, para obtener el DataLoader de miembros
      * @return TeamDTO
      */
     @QueryMapping
     @PreAuthorize("isAuthenticated()")
-    public TeamDTO getTeamById(@Argument Long id) {
+    public CompletableFuture<TeamDTO> getTeamById(@Argument Long id, DataFetchingEnvironment environment) {
         logger.info("Obteniendo equipo por ID: {}", id);
 
         // Validar acceso al equipo usando BaseResolver
@@ -54,10 +81,7 @@ public class TeamQueryResolver extends BaseResolver {
         Team team = teamService.obtenerTeamPorId(id)
                 .orElseThrow(() -> new IllegalArgumentException("Equipo no encontrado"));
 
-        // Obtener miembros del equipo
-        List<User> miembros = userRepository.findByTeamId(id);
-
-        return new TeamDTO(team, miembros);
+        return withMembers(team, environment);
     }
 
     /**
@@ -65,49 +89,46 @@ public class TeamQueryResolver extends BaseResolver {
      * Solo accesible para profesores y admins
      *
      * @param courseId ID del curso
+     * @param environment Entorno de ejecución, para obtener el DataLoader de miembros
      * @return Lista de TeamDTO
      */
     @QueryMapping
     @PreAuthorize("hasAnyRole('PROFESSOR', 'ADMIN', 'TA')")
-    public List<TeamDTO> getTeamsByCourse(@Argument Long courseId) {
+    public CompletableFuture<List<TeamDTO>> getTeamsByCourse(@Argument Long courseId,
+                                                             DataFetchingEnvironment environment) {
         logger.info("Obteniendo equipos del curso: {}", courseId);
 
         List<Team> teams = teamService.obtenerTeamsPorCurso(courseId);
 
-        return teams.stream()
-                .map(team -> {
-                    List<User> miembros = userRepository.findByTeamId(team.getId());
-                    return new TeamDTO(team, miembros);
-                })
-                .collect(Collectors.toList());
+        return withMembers(teams, environment);
     }
 
     /**
      * Obtiene el equipo del usuario autenticado
      *
+     * @param environment Entorno de ejecución, para obtener el DataLoader de miembros
      * @return TeamDTO o null si el usuario no tiene equipo
      */
     @QueryMapping
     @PreAuthorize("isAuthenticated()")
-    public TeamDTO getMyTeam() {
+    public CompletableFuture<TeamDTO> getMyTeam(DataFetchingEnvironment environment) {
         logger.info("Obteniendo equipo del usuario autenticado");
 
         User currentUser = getCurrentUser();
 
         if (currentUser.getTeamId() == null) {
             logger.info("Usuario {} no tiene equipo asignado", currentUser.getEmail());
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
 
         Team team = teamService.obtenerTeamPorId(currentUser.getTeamId())
                 .orElse(null);
 
         if (team == null) {
-            return null;
+            return CompletableFuture.completedFuture(null);
         }
 
-        List<User> miembros = userRepository.findByTeamId(team.getId());
-        return new TeamDTO(team, miembros);
+        return withMembers(team, environment);
     }
 
     /**
@@ -115,38 +136,58 @@ public class TeamQueryResolver extends BaseResolver {
      * Solo accesible para profesores y admins
      *
      * @param days Número de días antes de la fecha límite (default: 3)
+     * @param environment Entorno de ejecución, para obtener el DataLoader de miembros
      * @return Lista de TeamDTO
      */
     @QueryMapping
     @PreAuthorize("hasAnyRole('PROFESSOR', 'ADMIN', 'TA')")
-    public List<TeamDTO> getTeamsNearDeadline(@Argument(name = "days") Integer days) {
+    public CompletableFuture<List<TeamDTO>> getTeamsNearDeadline(@Argument(name = "days") Integer days,
+                                                                 DataFetchingEnvironment environment) {
         int diasLimite = (days != null) ? days : 3;
         logger.info("Obteniendo equipos próximos a vencer en {} días", diasLimite);
 
         List<Team> teams = teamService.obtenerTeamsProximosAVencer(diasLimite);
 
-        return teams.stream()
-                .map(team -> {
-                    List<User> miembros = userRepository.findByTeamId(team.getId());
-                    return new TeamDTO(team, miembros);
-                })
-                .collect(Collectors.toList());
+        return withMembers(teams, environment);
     }
 
     /**
      * Schema mapping para resolver el campo miembros de Team
-     * Esto se ejecuta cuando GraphQL solicita el campo miembros
+     * Esto se ejecuta cuando GraphQL solicita el campo miembros; si el equipo no trae sus miembros
+     * se piden al DataLoader junto con los de los demás equipos de la operación
      */
     @SchemaMapping(typeName = "Team", field = "miembros")
-    public List<TeamMember> miembros(TeamDTO team) {
+    public CompletableFuture<List<TeamMember>> miembros(TeamDTO team, DataFetchingEnvironment environment) {
         if (team.getMiembros() != null) {
-            return team.getMiembros();
+            return CompletableFuture.completedFuture(team.getMiembros());
         }
 
-        List<User> miembros = userRepository.findByTeamId(team.getId());
-        return miembros.stream()
-                .map(TeamMember::new)
+        DataLoader<Long, List<User>> loader = environment.getDataLoader(TEAM_MEMBERS_LOADER);
+        return loader.load(team.getId())
+                .thenApply(miembros -> miembros.stream()
+                        .map(TeamMember::new)
+                        .collect(Collectors.toList()));
+    }
+
+    private CompletableFuture<TeamDTO> withMembers(Team team, DataFetchingEnvironment environment) {
+        DataLoader<Long, List<User>> loader = environment.getDataLoader(TEAM_MEMBERS_LOADER);
+        return loader.load(team.getId())
+                .thenApply(miembros -> new TeamDTO(team, miembros));
+    }
+
+    private CompletableFuture<List<TeamDTO>> withMembers(List<Team> teams, DataFetchingEnvironment environment) {
+        DataLoader<Long, List<User>> loader = environment.getDataLoader(TEAM_MEMBERS_LOADER);
+        List<Long> teamIds = teams.stream()
+                .map(Team::getId)
                 .collect(Collectors.toList());
+        return loader.loadMany(teamIds)
+                .thenApply(miembros -> {
+                    List<TeamDTO> result = new ArrayList<>(teams.size());
+                    for (int i = 0; i < teams.size(); i++) {
+                        result.add(new TeamDTO(teams.get(i), miembros.get(i)));
+                    }
+                    return result;
+                });
     }
 
 }
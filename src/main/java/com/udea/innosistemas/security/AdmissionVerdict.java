@@ -0,0 +1,100 @@
+package com.udea.innosistemas.security;
+
+/**
+ * Veredicto de admisión de una petición autenticada: revocación del token (blacklist y época del
+ * usuario) y consumo del rate limit, evaluados juntos por
+ * {@link com.udea.innosistemas.service.RequestAdmissionService}.
+ * El filtro JWT lo deja como atributo de la petición y {@link RateLimitFilter} responde con él,
+ * sin volver a consultar el bucket.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public final class AdmissionVerdict {
+
+    /**
+     * Atributo de la petición HTTP donde el filtro JWT deja el veredicto
+     */
+    public static final String REQUEST_ATTRIBUTE = AdmissionVerdict.class.getName();
+
+    public enum Outcome {
+        /** Token vigente y dentro del rate limit */
+        ALLOWED,
+        /** Token vigente pero sin tokens en el bucket */
+        RATE_LIMITED,
+        /** Token (o su sesión) en la blacklist */
+        BLACKLISTED,
+        /** Token emitido antes de la última revocación de su usuario */
+        REVOKED
+    }
+
+    private final Outcome outcome;
+    private final long limit;
+    private final long remaining;
+    private final long retryAfterMillis;
+
+    public AdmissionVerdict(Outcome outcome, long limit, long remaining, long retryAfterMillis) {
+        this.outcome = outcome;
+        this.limit = limit;
+        this.remaining = remaining;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Veredicto de un token rechazado; el rate limit no llegó a evaluarse
+     *
+     * @param outcome BLACKLISTED o REVOKED
+     * @return Veredicto sin datos de rate limit
+     */
+    public static AdmissionVerdict rejected(Outcome outcome) {
+        return new AdmissionVerdict(outcome, -1, -1, 0);
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Indica si el token fue rechazado (blacklist o época de revocación)
+     *
+     * @return true si la petición debe seguir sin autenticar
+     */
+    public boolean isTokenRejected() {
+        return outcome == Outcome.BLACKLISTED || outcome == Outcome.REVOKED;
+    }
+
+    public boolean isRateLimited() {
+        return outcome == Outcome.RATE_LIMITED;
+    }
+
+    /**
+     * Capacidad del bucket evaluado
+     *
+     * @return Capacidad, o -1 si no se evaluó rate limit
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Tokens que quedaron en el bucket
+     *
+     * @return Tokens restantes, o -1 si no se evaluó rate limit
+     */
+    public long getRemaining() {
+        return remaining;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * Segundos a esperar antes de reintentar (header Retry-After), redondeados hacia arriba
+     *
+     * @return Segundos, al menos 1 si la petición fue limitada
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfterMillis + 999) / 1000);
+    }
+}
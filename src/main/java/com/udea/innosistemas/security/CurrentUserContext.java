@@ -0,0 +1,111 @@
+package com.udea.innosistemas.security;
+
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.service.UserLookupService;
+import graphql.schema.DataFetchingEnvironment;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+/**
+ * Usuario autenticado de una operación GraphQL, resuelto una sola vez.
+ *
+ * GraphQLSecurityInterceptor crea un contexto por operación y lo guarda en el contexto GraphQL y como
+ * atributo de la petición HTTP. La primera llamada a {@link #getUser()} consulta UserLookupService y el
+ * resultado se reutiliza en resolvers, directivas y servicios durante el resto de la operación, así que
+ * una consulta que pasa por @requiresTeam y varios chequeos de rol hace un solo findByEmail.
+ *
+ * Fuera de una operación (o por WebSocket, donde no hay petición HTTP por operación) {@link #current}
+ * devuelve un contexto nuevo para la llamada, con el mismo comportamiento que antes.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public final class CurrentUserContext {
+
+    public static final String CONTEXT_KEY = CurrentUserContext.class.getName();
+
+    private final String username;
+    private final UserLookupService userLookupService;
+    private volatile Optional<User> user;
+
+    CurrentUserContext(String username, UserLookupService userLookupService) {
+        this.username = username == null || "anonymousUser".equals(username) ? null : username;
+        this.userLookupService = userLookupService;
+    }
+
+    /**
+     * Crea el contexto del usuario del SecurityContext actual
+     *
+     * @param userLookupService Servicio con el que se resuelve el usuario
+     * @return Contexto sin resolver; anónimo si no hay autenticación
+     */
+    public static CurrentUserContext fromSecurityContext(UserLookupService userLookupService) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return new CurrentUserContext(authentication != null ? authentication.getName() : null, userLookupService);
+    }
+
+    /**
+     * Contexto de la operación a la que pertenece un campo
+     *
+     * @param environment Entorno del data fetcher
+     * @param userLookupService Servicio para el contexto de respaldo
+     * @return Contexto guardado en el contexto GraphQL, o el de {@link #current}
+     */
+    public static CurrentUserContext from(DataFetchingEnvironment environment, UserLookupService userLookupService) {
+        CurrentUserContext context = environment.getGraphQlContext().get(CONTEXT_KEY);
+        return context != null ? context : current(userLookupService);
+    }
+
+    /**
+     * Contexto de la petición en curso, para quien no recibe el DataFetchingEnvironment
+     * (métodos de controlador y servicios)
+     *
+     * @param userLookupService Servicio para el contexto de respaldo
+     * @return Contexto guardado en la petición, o uno nuevo creado desde el SecurityContext
+     */
+    public static CurrentUserContext current(UserLookupService userLookupService) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null
+                && attributes.getAttribute(CONTEXT_KEY, RequestAttributes.SCOPE_REQUEST) instanceof CurrentUserContext context) {
+            return context;
+        }
+        return fromSecurityContext(userLookupService);
+    }
+
+    /**
+     * @return true si la operación tiene un usuario autenticado (no anónimo)
+     */
+    public boolean isAuthenticated() {
+        return username != null;
+    }
+
+    /**
+     * @return Email del usuario autenticado, o null si es anónimo
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Usuario autenticado, consultado la primera vez que se pide
+     *
+     * @return Optional con el usuario, vacío si es anónimo o no existe en la BD
+     */
+    public Optional<User> getUser() {
+        Optional<User> resolved = user;
+        if (resolved == null) {
+            synchronized (this) {
+                resolved = user;
+                if (resolved == null) {
+                    resolved = username != null ? userLookupService.findByEmail(username) : Optional.empty();
+                    user = resolved;
+                }
+            }
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,136 @@
+package com.udea.innosistemas.security;
+
+import graphql.language.Field;
+import graphql.language.FragmentDefinition;
+import graphql.language.FragmentSpread;
+import graphql.language.InlineFragment;
+import graphql.language.OperationDefinition;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.GraphQLFieldsContainer;
+import graphql.schema.GraphQLList;
+import graphql.schema.GraphQLNonNull;
+import graphql.schema.GraphQLObjectType;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.GraphQLType;
+import graphql.schema.GraphQLTypeUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Costo estático de una operación GraphQL para el rate limiting.
+ * Cada campo cuesta 1 más el costo de sus subcampos; los subcampos de un campo que devuelve una
+ * lista se multiplican por innosistemas.ratelimit.graphql.list-multiplier (una lista no tiene tamaño
+ * conocido antes de ejecutarse). Los campos de introspección (__typename, __schema, __type) no cuentan.
+ * Las sumas y productos se saturan en Long.MAX_VALUE: una selección con muchas listas anidadas nunca
+ * da la vuelta a un costo pequeño. Las operaciones que superan innosistemas.ratelimit.graphql.max-cost
+ * se rechazan sin ejecutarse.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Component
+public class GraphQLQueryCostCalculator {
+
+    @Value("${innosistemas.ratelimit.graphql.list-multiplier:10}")
+    private long listMultiplier;
+
+    @Value("${innosistemas.ratelimit.graphql.max-cost:10000}")
+    private long maxCost;
+
+    /**
+     * @return Costo máximo de una operación; las más caras se rechazan sin cobrarse
+     */
+    public long getMaxCost() {
+        return maxCost;
+    }
+
+    /**
+     * Calcula el costo de una operación ya validada
+     *
+     * @param schema Esquema ejecutable
+     * @param operation Operación a ejecutar
+     * @param fragments Fragmentos del documento por nombre
+     * @return Tokens que consume la operación, al menos 1 y como máximo Long.MAX_VALUE
+     */
+    public long cost(GraphQLSchema schema, OperationDefinition operation, Map<String, FragmentDefinition> fragments) {
+        GraphQLObjectType rootType = rootType(schema, operation.getOperation());
+        if (rootType == null) {
+            return 1;
+        }
+        return Math.max(1, selectionCost(schema, operation.getSelectionSet(), rootType, fragments));
+    }
+
+    private long selectionCost(GraphQLSchema schema, SelectionSet selectionSet, GraphQLType parentType,
+                               Map<String, FragmentDefinition> fragments) {
+        if (selectionSet == null) {
+            return 0;
+        }
+        long cost = 0;
+        for (Selection<?> selection : selectionSet.getSelections()) {
+            if (selection instanceof Field field) {
+                cost = saturatedAdd(cost, fieldCost(schema, field, parentType, fragments));
+            } else if (selection instanceof InlineFragment inlineFragment) {
+                GraphQLType fragmentType = inlineFragment.getTypeCondition() != null
+                        ? schema.getType(inlineFragment.getTypeCondition().getName())
+                        : parentType;
+                cost = saturatedAdd(cost, selectionCost(schema, inlineFragment.getSelectionSet(), fragmentType, fragments));
+            } else if (selection instanceof FragmentSpread spread) {
+                FragmentDefinition fragment = fragments.get(spread.getName());
+                if (fragment != null) {
+                    cost = saturatedAdd(cost, selectionCost(schema, fragment.getSelectionSet(),
+                            schema.getType(fragment.getTypeCondition().getName()), fragments));
+                }
+            }
+        }
+        return cost;
+    }
+
+    private long fieldCost(GraphQLSchema schema, Field field, GraphQLType parentType,
+                           Map<String, FragmentDefinition> fragments) {
+        if (field.getName().startsWith("__")) {
+            return 0;
+        }
+        if (!(parentType instanceof GraphQLFieldsContainer container)) {
+            return 1;
+        }
+        GraphQLFieldDefinition definition = container.getFieldDefinition(field.getName());
+        if (definition == null) {
+            return 1;
+        }
+
+        GraphQLType type = definition.getType();
+        long multiplier = 1;
+        // [T!]! y listas anidadas: cada nivel de lista multiplica el costo de los subcampos
+        while (GraphQLTypeUtil.isWrapped(type)) {
+            if (type instanceof GraphQLList) {
+                multiplier = saturatedMultiply(multiplier, listMultiplier);
+            }
+            type = type instanceof GraphQLNonNull nonNull ? nonNull.getWrappedType() : ((GraphQLList) type).getWrappedType();
+        }
+        return saturatedAdd(1, saturatedMultiply(multiplier, selectionCost(schema, field.getSelectionSet(), type, fragments)));
+    }
+
+    private static long saturatedAdd(long a, long b) {
+        long sum = a + b;
+        // Los costos no son negativos: solo puede desbordar hacia arriba
+        return sum < 0 ? Long.MAX_VALUE : sum;
+    }
+
+    private static long saturatedMultiply(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        return high != 0 || low < 0 ? Long.MAX_VALUE : low;
+    }
+
+    private static GraphQLObjectType rootType(GraphQLSchema schema, OperationDefinition.Operation operation) {
+        return switch (operation) {
+            case MUTATION -> schema.getMutationType();
+            case SUBSCRIPTION -> schema.getSubscriptionType();
+            default -> schema.getQueryType();
+        };
+    }
+}
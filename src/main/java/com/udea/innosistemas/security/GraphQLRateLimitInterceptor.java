@@ -0,0 +1,231 @@
+package com.udea.innosistemas.security;
+
+import com.udea.innosistemas.service.RateLimitPolicy;
+import com.udea.innosistemas.service.RateLimitingService;
+import com.udea.innosistemas.service.RequestAdmissionService;
+import graphql.ExecutionResult;
+import graphql.GraphQLContext;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.AbortExecutionException;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.InstrumentationState;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.language.Field;
+import graphql.language.FragmentDefinition;
+import graphql.language.FragmentSpread;
+import graphql.language.InlineFragment;
+import graphql.language.Selection;
+import graphql.language.SelectionSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+import org.springframework.graphql.server.WebGraphQlRequest;
+import org.springframework.graphql.server.WebGraphQlResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Rate limiting de operaciones GraphQL por costo.
+ * {@link RateLimitFilter} no cobra los POST a /graphql porque el costo solo se conoce después de
+ * parsear el documento: este componente lo cobra al empezar a ejecutar la operación, ya validada.
+ * La política sale de la tabla de políticas por rol y por campo raíz (login y refreshToken usan la
+ * política "auth"); si la operación tiene varios campos raíz se aplica la más restrictiva. Se consume
+ * el costo estático de {@link GraphQLQueryCostCalculator}; una operación que supera su costo máximo se
+ * rechaza con un error QUERY_TOO_COSTLY sin cobrar ningún bucket.
+ *
+ * Con un JWT verificado el costo se cobra con {@link RequestAdmissionService}, contra el mismo bucket de
+ * usuario que las peticiones REST (el de Redis si la admisión está activa): REST y GraphQL comparten un
+ * único límite por usuario en lugar de sumar uno por canal y por nodo. Esa misma admisión comprueba la
+ * revocación del token: {@link JwtAuthenticationFilter} no la repite para los POST a /graphql.
+ *
+ * Como interceptor deja en el contexto GraphQL la clave de rate limiting y el rol de la petición y, al
+ * responder, los headers X-RateLimit-* y Retry-After del bucket realmente evaluado. Como
+ * instrumentación rechaza la operación con un error RATE_LIMITED antes de ejecutar ningún resolver.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Component
+public class GraphQLRateLimitInterceptor implements WebGraphQlInterceptor, Instrumentation {
+
+    private static final Logger LOG = LoggerFactory.getLogger(GraphQLRateLimitInterceptor.class);
+
+    static final String KEY_CONTEXT = GraphQLRateLimitInterceptor.class.getName() + ".key";
+    static final String VERDICT_CONTEXT = GraphQLRateLimitInterceptor.class.getName() + ".verdict";
+    static final String ROLE_CONTEXT = GraphQLRateLimitInterceptor.class.getName() + ".role";
+    static final String TOKEN_CONTEXT = GraphQLRateLimitInterceptor.class.getName() + ".token";
+
+    @Autowired
+    private RateLimitingService rateLimitingService;
+
+    @Autowired
+    private GraphQLQueryCostCalculator costCalculator;
+
+    @Autowired
+    private RequestAdmissionService requestAdmissionService;
+
+    @Override
+    public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
+        String key = resolveRateLimitKey();
+        if (key == null) {
+            return chain.next(request);
+        }
+
+        // El contexto GraphQL no admite null: el rol vacío resuelve la política de anónimos
+        String role = RateLimitFilter.currentRole();
+        AtomicReference<AdmissionVerdict> verdict = new AtomicReference<>();
+        Map<String, Object> context = new HashMap<>();
+        context.put(KEY_CONTEXT, key);
+        context.put(ROLE_CONTEXT, role != null ? role : "");
+        context.put(VERDICT_CONTEXT, verdict);
+        VerifiedToken.current().ifPresent(verifiedToken -> context.put(TOKEN_CONTEXT, verifiedToken));
+        request.configureExecutionInput((input, builder) -> builder.graphQLContext(context).build());
+
+        return chain.next(request).doOnNext(response -> addRateLimitHeaders(response, verdict.get()));
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(InstrumentationExecuteOperationParameters parameters,
+                                                                         InstrumentationState state) {
+        ExecutionContext executionContext = parameters.getExecutionContext();
+        GraphQLContext graphQLContext = executionContext.getGraphQLContext();
+        String key = graphQLContext.get(KEY_CONTEXT);
+        if (key == null) {
+            return SimpleInstrumentationContext.noOp();
+        }
+
+        Map<String, FragmentDefinition> fragments = executionContext.getFragmentsByName();
+        long cost = costCalculator.cost(executionContext.getGraphQLSchema(), executionContext.getOperationDefinition(),
+                fragments);
+        if (cost > costCalculator.getMaxCost()) {
+            LOG.warn("GraphQL operation rejected for key: {} (cost {} exceeds {})", key, cost, costCalculator.getMaxCost());
+            throw new AbortExecutionException(List.of(GraphqlErrorBuilder.newError()
+                    .message("Query is too costly.")
+                    .extensions(Map.of(
+                            "code", "QUERY_TOO_COSTLY",
+                            "cost", cost,
+                            "maxCost", costCalculator.getMaxCost()))
+                    .build()));
+        }
+
+        String role = graphQLContext.getOrDefault(ROLE_CONTEXT, "");
+        RateLimitPolicy policy = resolvePolicy(role, executionContext.getOperationDefinition().getSelectionSet(),
+                fragments, null);
+        if (policy == null) {
+            // Solo campos de introspección: la política del rol
+            policy = rateLimitingService.resolvePolicy(role, null);
+        }
+        // Una operación más cara que el bucket completo lo vacía, en lugar de no poder ejecutarse nunca
+        long tokens = Math.min(cost, policy.getCapacity());
+        VerifiedToken verifiedToken = graphQLContext.get(TOKEN_CONTEXT);
+        AdmissionVerdict verdict = verifiedToken != null
+                ? requestAdmissionService.admit(verifiedToken, policy, tokens)
+                : rateLimitingService.consume(key, policy, tokens);
+
+        if (verdict.isTokenRejected()) {
+            // El filtro JWT no admite las peticiones GraphQL: la revocación se comprueba aquí
+            LOG.warn("GraphQL operation rejected for key: {} ({})", key, verdict.getOutcome());
+            throw new AbortExecutionException(List.of(GraphqlErrorBuilder.newError()
+                    .message("Token revoked.")
+                    .extensions(Map.of("code", "UNAUTHENTICATED"))
+                    .build()));
+        }
+
+        AtomicReference<AdmissionVerdict> holder = graphQLContext.get(VERDICT_CONTEXT);
+        if (holder != null) {
+            holder.set(verdict);
+        }
+
+        if (verdict.isRateLimited()) {
+            LOG.warn("GraphQL rate limit exceeded for key: {} (cost {}, policy: {})", key, cost, policy.getName());
+            throw new AbortExecutionException(List.of(GraphqlErrorBuilder.newError()
+                    .message("Rate limit exceeded. Please try again later.")
+                    .extensions(Map.of(
+                            "code", "RATE_LIMITED",
+                            "cost", cost,
+                            "retryAfter", verdict.getRetryAfterSeconds()))
+                    .build()));
+        }
+        return SimpleInstrumentationContext.noOp();
+    }
+
+    /**
+     * Política más restrictiva (menor capacidad) entre los campos raíz de la operación,
+     * expandiendo los fragmentos del primer nivel
+     *
+     * @return Política, o null si la operación solo tiene campos de introspección
+     */
+    private RateLimitPolicy resolvePolicy(String role, SelectionSet selectionSet,
+                                          Map<String, FragmentDefinition> fragments, RateLimitPolicy current) {
+        if (selectionSet == null) {
+            return current;
+        }
+        for (Selection<?> selection : selectionSet.getSelections()) {
+            if (selection instanceof Field field) {
+                if (!field.getName().startsWith("__")) {
+                    RateLimitPolicy policy = rateLimitingService.resolvePolicy(role, field.getName());
+                    if (current == null || policy.getCapacity() < current.getCapacity()) {
+                        current = policy;
+                    }
+                }
+            } else if (selection instanceof InlineFragment inlineFragment) {
+                current = resolvePolicy(role, inlineFragment.getSelectionSet(), fragments, current);
+            } else if (selection instanceof FragmentSpread spread) {
+                FragmentDefinition fragment = fragments.get(spread.getName());
+                if (fragment != null) {
+                    current = resolvePolicy(role, fragment.getSelectionSet(), fragments, current);
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Clave de rate limiting de la petición: la que calculó {@link RateLimitFilter} para el POST
+     * HTTP o, sin petición HTTP (suscripciones por WebSocket), el usuario autenticado
+     *
+     * @return Clave, o null si la operación no se limita
+     */
+    private String resolveRateLimitKey() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            Object key = attributes.getAttribute(RateLimitFilter.KEY_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (key != null) {
+                return (String) key;
+            }
+        }
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !"anonymousUser".equals(authentication.getPrincipal())) {
+            return "user:" + authentication.getName();
+        }
+        return null;
+    }
+
+    private void addRateLimitHeaders(WebGraphQlResponse response, AdmissionVerdict verdict) {
+        if (verdict == null || verdict.getLimit() < 0 || verdict.getRemaining() < 0) {
+            return;
+        }
+        HttpHeaders headers = response.getResponseHeaders();
+        headers.set("X-RateLimit-Limit", String.valueOf(verdict.getLimit()));
+        headers.set("X-RateLimit-Remaining", String.valueOf(verdict.getRemaining()));
+        if (verdict.isRateLimited()) {
+            headers.set("Retry-After", String.valueOf(verdict.getRetryAfterSeconds()));
+        }
+    }
+}
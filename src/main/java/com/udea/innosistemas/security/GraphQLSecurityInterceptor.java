@@ -1,11 +1,13 @@
 package com.udea.innosistemas.security;
 
 
+import com.udea.innosistemas.service.UserLookupService;
 import graphql.GraphQLError;
 import graphql.GraphqlErrorBuilder;
 import graphql.schema.DataFetchingEnvironment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
 import org.springframework.graphql.server.WebGraphQlInterceptor;
@@ -15,12 +17,18 @@ import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+
 /**
  * Interceptor GraphQL para validación de permisos a nivel de operación.
  * Se ejecuta antes de cada operación GraphQL y valida que el usuario
  * tenga los permisos necesarios basados en su rol.
+ * Para las operaciones autenticadas deja un {@link CurrentUserContext} en el contexto GraphQL y en la
+ * petición, de modo que el usuario se consulte una sola vez por operación.
  *
  * Autor: Fábrica-Escuela de Software UdeA
  * Versión: 1.0.0
@@ -33,6 +41,9 @@ public class GraphQLSecurityInterceptor implements WebGraphQlInterceptor {
     @Value("${spring.graphql.schema.introspection.enabled:false}")
     private boolean introspectionEnabled;
 
+    @Autowired
+    private UserLookupService userLookupService;
+
     @Override
     public Mono<WebGraphQlResponse> intercept(WebGraphQlRequest request, Chain chain) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -69,6 +80,15 @@ public class GraphQLSecurityInterceptor implements WebGraphQlInterceptor {
         // Log de la operación autenticada
         LOG.info("GraphQL operation '{}' by user: {}", operationName, authentication.getName());
 
+        // Usuario de la operación, resuelto en el primer acceso desde resolvers, directivas o servicios
+        CurrentUserContext currentUser = new CurrentUserContext(authentication.getName(), userLookupService);
+        request.configureExecutionInput((input, builder) ->
+                builder.graphQLContext(Map.of(CurrentUserContext.CONTEXT_KEY, currentUser)).build());
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(CurrentUserContext.CONTEXT_KEY, currentUser, RequestAttributes.SCOPE_REQUEST);
+        }
+
         return chain.next(request);
     }
 
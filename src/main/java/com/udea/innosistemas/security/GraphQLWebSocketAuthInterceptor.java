@@ -58,13 +58,15 @@ public class GraphQLWebSocketAuthInterceptor implements ChannelInterceptor {
                 token = extractTokenFromNativeHeaders(accessor);
             }
 
-            if (token != null && tokenProvider.validateToken(token)) {
-                String username = tokenProvider.getUsernameFromJWT(token);
+            VerifiedToken verifiedToken = token != null ? tokenProvider.verifyToken(token) : null;
+
+            if (verifiedToken != null) {
+                String username = verifiedToken.getSubject();
                 logger.info("Autenticando usuario en WebSocket: {}", username);
 
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                        new UsernamePasswordAuthenticationToken(userDetails, verifiedToken, userDetails.getAuthorities());
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
                 accessor.setUser(authentication);
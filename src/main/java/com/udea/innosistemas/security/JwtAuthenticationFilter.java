@@ -1,6 +1,9 @@
 package com.udea.innosistemas.security;
 
-import com.udea.innosistemas.service.TokenBlacklistService;
+import com.udea.innosistemas.service.RateLimitPolicy;
+import com.udea.innosistemas.service.RateLimitingService;
+import com.udea.innosistemas.service.RequestAdmissionService;
+import com.udea.innosistemas.service.SecurityVersionService;
 import com.udea.innosistemas.service.UserDetailsServiceImpl;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -9,6 +12,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -20,7 +24,13 @@ import java.io.IOException;
 
 /**
  * Filtro para autenticar solicitudes HTTP usando tokens JWT.
- * Valida tokens, verifica blacklist y establece contexto de seguridad.
+ * Valida tokens, verifica blacklist y época de revocación del usuario, y establece contexto de seguridad.
+ * La revocación y el rate limit del usuario se evalúan juntos en {@link RequestAdmissionService}
+ * (un solo round trip a Redis con la admisión habilitada); en las operaciones GraphQL lo hace
+ * {@link GraphQLRateLimitInterceptor} una sola vez, con el costo de la operación.
+ * El token verificado queda disponible como atributo de la petición y como
+ * credenciales de la autenticación ({@link VerifiedToken#current()}).
+ * En modo stateless el principal se construye desde los claims, sin consultar la BD.
  *
  * Autor: Fábrica-Escuela de Software UdeA
  * Versión: 2.0.0
@@ -36,7 +46,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private UserDetailsServiceImpl customUserDetailsService;
 
     @Autowired
-    private TokenBlacklistService tokenBlacklistService;
+    private RequestAdmissionService requestAdmissionService;
+
+    @Autowired
+    private SecurityVersionService securityVersionService;
+
+    @Autowired
+    private RateLimitingService rateLimitingService;
+
+    @Value("${innosistemas.auth.stateless.enabled:false}")
+    private boolean statelessEnabled;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -45,20 +64,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = getJwtFromRequest(request);
 
             if (StringUtils.hasText(jwt)) {
-                // Verificar que el token no esté en la blacklist
-                if (tokenBlacklistService.isTokenBlacklisted(jwt)) {
-                    LOG.warn("Attempted to use blacklisted token");
-                    filterChain.doFilter(request, response);
-                    return;
-                }
+                // Parsear y verificar la firma una sola vez para toda la petición
+                VerifiedToken verifiedToken = tokenProvider.verifyToken(jwt);
 
-                // Validar el token
-                if (tokenProvider.validateToken(jwt)) {
-                    String username = tokenProvider.getUsernameFromJWT(jwt);
+                if (verifiedToken != null) {
+                    // Blacklist, "logout de todos los dispositivos" y rate limit del usuario en un solo paso.
+                    // Las operaciones GraphQL las admite GraphQLRateLimitInterceptor al cobrar su costo, antes de
+                    // ejecutar ningún resolver y con la misma comprobación de revocación: un solo round trip
+                    if (!RateLimitFilter.isGraphQLRequest(request)) {
+                        RateLimitPolicy policy = rateLimitingService.resolvePolicy(verifiedToken.getRole(),
+                                request.getServletPath());
+                        AdmissionVerdict verdict = requestAdmissionService.admit(verifiedToken, policy, 1);
+                        if (verdict.isTokenRejected()) {
+                            LOG.warn("Attempted to use revoked token: {}", verdict.getOutcome());
+                            filterChain.doFilter(request, response);
+                            return;
+                        }
 
-                    UserDetails userDetails = customUserDetailsService.loadUserByUsername(username);
+                        // RateLimitFilter responde con este veredicto sin volver a consumir el bucket
+                        request.setAttribute(AdmissionVerdict.REQUEST_ATTRIBUTE, verdict);
+                    }
+                    request.setAttribute(VerifiedToken.REQUEST_ATTRIBUTE, verifiedToken);
+                    String username = verifiedToken.getSubject();
+
+                    UserDetails userDetails = resolveUserDetails(verifiedToken);
                     UsernamePasswordAuthenticationToken authentication =
-                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                            new UsernamePasswordAuthenticationToken(userDetails, verifiedToken, userDetails.getAuthorities());
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                     SecurityContextHolder.getContext().setAuthentication(authentication);
@@ -72,6 +103,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * En modo stateless construye el principal directamente desde los claims del token
+     * mientras su versión de seguridad siga vigente. Si el rol, equipo o curso del usuario
+     * cambió (versión distinta) o el token no trae los claims necesarios, recarga el usuario desde la BD.
+     *
+     * @param verifiedToken Token ya verificado
+     * @return UserDetails del usuario autenticado
+     */
+    private UserDetails resolveUserDetails(VerifiedToken verifiedToken) {
+        if (statelessEnabled && verifiedToken.hasPrincipalClaims()) {
+            Long currentVersion = securityVersionService.getVersion(verifiedToken.getUserId());
+            if (verifiedToken.getSecurityVersion().equals(currentVersion)) {
+                return verifiedToken.toUser();
+            }
+            LOG.debug("Security version changed for user {}, reloading from database", verifiedToken.getUserId());
+        }
+        return customUserDetailsService.loadUserByUsername(verifiedToken.getSubject());
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -0,0 +1,464 @@
+package com.udea.innosistemas.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.udea.innosistemas.event.RedisCircuitStateEvent;
+import com.udea.innosistemas.service.RedisCircuitBreaker;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import javax.crypto.SecretKey;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Anillo de llaves de firma JWT con rotación de llaves asimétricas (EdDSA/Ed25519 o ES256).
+ * Cada nodo genera su propio par de llaves: la llave privada nunca sale del proceso y la pública
+ * se publica en Redis con su "kid", de modo que cualquier nodo (y cualquier servicio que lea el
+ * JWKS) puede verificar tokens localmente. Los verificadores se precalculan y se buscan por "kid".
+ *
+ * La llave activa se vuelve a publicar periódicamente y al recuperarse Redis, para que una publicación
+ * fallida no deje tokens que los demás nodos no pueden verificar.
+ *
+ * Una llave retirada se conserva para verificación hasta que expira el último token que pudo firmar.
+ * Los tokens HMAC emitidos antes (sin "kid") se aceptan por defecto (accept-legacy-hmac) para que el
+ * despliegue no cierre las sesiones abiertas, pero solo durante la vida de un refresh token desde la primera
+ * llave asimétrica publicada en el clúster; pasado ese plazo ya no pudo quedar ninguno válido y aceptarlos
+ * solo permitiría falsificarlos con el secreto compartido.
+ *
+ * Un "kid" desconocido se busca una sola vez en Redis (HGET de esa llave) y se recuerda como desconocido
+ * unos segundos, de modo que un "kid" inventado no genera una consulta por petición ni retrasa la carga
+ * de una llave recién publicada por otro nodo.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Component
+public class JwtKeyRing extends LocatorAdapter<Key> {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+    private static final String JWKS_KEY = "jwt:jwks";
+    private static final String LEGACY_HMAC_UNTIL_KEY = "jwt:legacy-hmac-until";
+    private static final String EDDSA = "EdDSA";
+    private static final String ES256 = "ES256";
+    private static final String HS256 = "HS256";
+    private static final long UNKNOWN_KID_TTL_MS = 5000L;
+    private static final long UNKNOWN_KID_MAX_SIZE = 10_000L;
+    private static final long JWKS_RELOAD_MIN_INTERVAL_MS = 5000L;
+    // Valor de HGET cuando el circuito está abierto: no se recuerda el kid como desconocido
+    private static final String UNAVAILABLE = "";
+
+    @Value("${innosistemas.auth.jwt.secret}")
+    private String jwtSecret;
+
+    @Value("${innosistemas.auth.jwt.refresh-expiration}")
+    private long maxTokenLifetimeSeconds;
+
+    @Value("${innosistemas.auth.jwt.signing.algorithm:EdDSA}")
+    private String algorithm;
+
+    @Value("${innosistemas.auth.jwt.signing.rotation-interval-ms:86400000}")
+    private long rotationIntervalMs;
+
+    @Value("${innosistemas.auth.jwt.signing.accept-legacy-hmac:true}")
+    private boolean acceptLegacyHmac;
+
+    @Autowired(required = false)
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    // Verificadores precalculados por kid (llaves propias y las publicadas por otros nodos)
+    private final Map<String, VerificationKey> verificationKeys = new ConcurrentHashMap<>();
+
+    private volatile SigningKey activeKey;
+
+    // Kids consultados en Redis sin resultado, para no repetir la consulta en cada petición
+    private final Cache<String, Boolean> unknownKeyIds = Caffeine.newBuilder()
+            .expireAfterWrite(UNKNOWN_KID_TTL_MS, TimeUnit.MILLISECONDS)
+            .maximumSize(UNKNOWN_KID_MAX_SIZE)
+            .build();
+
+    private volatile long lastJwksReloadMillis;
+
+    // Hasta cuándo se aceptan tokens HMAC sin kid (epoch ms); 0 = nunca
+    private volatile long legacyHmacUntil;
+
+    private SecretKey hmacKey;
+
+    @PostConstruct
+    void init() {
+        this.hmacKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        if (isAsymmetric()) {
+            rotate();
+            if (acceptLegacyHmac) {
+                legacyHmacUntil = resolveLegacyHmacDeadline();
+                logger.warn("Accepting legacy HMAC JWTs without key id until {}", Instant.ofEpochMilli(legacyHmacUntil));
+            }
+        } else {
+            logger.warn("JWT signing uses the shared HMAC secret; tokens cannot be verified outside this service");
+        }
+    }
+
+    /**
+     * Genera un nuevo par de llaves, lo activa para firmar y publica la llave pública.
+     * Las llaves retiradas cuyo último token ya expiró se eliminan del anillo.
+     */
+    @Scheduled(fixedDelayString = "${innosistemas.auth.jwt.signing.rotation-interval-ms:86400000}",
+            initialDelayString = "${innosistemas.auth.jwt.signing.rotation-interval-ms:86400000}")
+    public void rotate() {
+        if (!isAsymmetric()) {
+            return;
+        }
+
+        KeyPair keyPair = generateKeyPair();
+        String kid = newKeyId();
+        // Un token firmado con esta llave vive como máximo hasta el fin de su ventana más la vida del refresh token
+        long retireAt = System.currentTimeMillis() + rotationIntervalMs + maxTokenLifetimeSeconds * 1000;
+        VerificationKey verificationKey = new VerificationKey(kid, algorithm, keyPair.getPublic(), retireAt);
+
+        verificationKeys.put(kid, verificationKey);
+        this.activeKey = new SigningKey(kid, keyPair.getPrivate(), signatureAlgorithm(algorithm));
+        publish(verificationKey);
+        pruneRetiredKeys();
+        logger.info("JWT signing key rotated, active kid: {}", kid);
+    }
+
+    /**
+     * Vuelve a publicar la llave pública activa. HSET es idempotente: repara una publicación que falló
+     * al rotar y una llave perdida en Redis (reinicio sin persistencia, failover)
+     */
+    @Scheduled(fixedDelayString = "${innosistemas.auth.jwt.signing.republish-interval-ms:60000}",
+            initialDelayString = "${innosistemas.auth.jwt.signing.republish-interval-ms:60000}")
+    public void republishActiveKey() {
+        SigningKey signingKey = this.activeKey;
+        if (signingKey == null) {
+            return;
+        }
+        VerificationKey verificationKey = verificationKeys.get(signingKey.kid);
+        if (verificationKey != null) {
+            publish(verificationKey);
+        }
+    }
+
+    /**
+     * Publica la llave activa en cuanto Redis se recupera (fuera del hilo que cerró el circuito)
+     */
+    @Async
+    @EventListener
+    public void onCircuitStateChange(RedisCircuitStateEvent event) {
+        if (event.isRecovered()) {
+            republishActiveKey();
+        }
+    }
+
+    /**
+     * Firma el token con la llave activa, agregando su "kid" al header
+     *
+     * @param builder Builder del token con los claims ya establecidos
+     * @return Builder firmado
+     */
+    public JwtBuilder sign(JwtBuilder builder) {
+        SigningKey signingKey = this.activeKey;
+        if (signingKey == null) {
+            return builder.signWith(hmacKey);
+        }
+        return builder.header().keyId(signingKey.kid).and()
+                .signWith(signingKey.privateKey, signingKey.signatureAlgorithm);
+    }
+
+    /**
+     * Localiza la llave de verificación del token según el "kid" de su header
+     */
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId();
+        if (kid == null) {
+            if (!isAsymmetric() || (acceptLegacyHmac && System.currentTimeMillis() < legacyHmacUntil)) {
+                return hmacKey;
+            }
+            throw new UnsupportedJwtException("JWT without key id");
+        }
+
+        VerificationKey verificationKey = verificationKeys.get(kid);
+        if (verificationKey == null) {
+            verificationKey = loadFromRedis(kid);
+        }
+        if (verificationKey == null) {
+            throw new UnsupportedJwtException("Unknown JWT key id: " + kid);
+        }
+        return verificationKey.publicKey;
+    }
+
+    /**
+     * Llaves públicas vigentes en formato JWK (RFC 7517) para el endpoint JWKS
+     *
+     * @return Lista de JWKs
+     */
+    public List<Map<String, Object>> getPublicJwks() {
+        reloadFromRedis();
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> jwks = new ArrayList<>();
+        for (VerificationKey verificationKey : verificationKeys.values()) {
+            if (verificationKey.retireAt > now) {
+                jwks.add(toJwk(verificationKey));
+            }
+        }
+        return jwks;
+    }
+
+    /**
+     * Identificador de la llave con la que se firman los tokens nuevos
+     *
+     * @return kid activo, o null si se firma con el secreto HMAC
+     */
+    public String getActiveKeyId() {
+        SigningKey signingKey = this.activeKey;
+        return signingKey != null ? signingKey.kid : null;
+    }
+
+    private boolean isAsymmetric() {
+        return !HS256.equalsIgnoreCase(algorithm);
+    }
+
+    private KeyPair generateKeyPair() {
+        try {
+            if (ES256.equals(algorithm)) {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"), secureRandom);
+                return generator.generateKeyPair();
+            }
+            return KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate JWT signing key for " + algorithm, e);
+        }
+    }
+
+    private String newKeyId() {
+        byte[] bytes = new byte[12];
+        secureRandom.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private void publish(VerificationKey verificationKey) {
+        if (redisTemplate == null) {
+            return;
+        }
+        circuitBreaker.run("jwks.publish",
+                () -> redisTemplate.opsForHash().put(JWKS_KEY, verificationKey.kid, encode(verificationKey)),
+                () -> logger.error("JWT public key {} not published, retrying on the next republish",
+                        verificationKey.kid));
+    }
+
+    /**
+     * Fin del periodo de aceptación de tokens HMAC: la vida de un refresh token desde que el primer nodo
+     * publicó una llave asimétrica. El primer nodo fija el plazo en Redis (SETNX, sin expiración para que
+     * un reinicio posterior no lo reabra); sin Redis cada nodo cuenta desde su propio arranque
+     */
+    private long resolveLegacyHmacDeadline() {
+        long local = System.currentTimeMillis() + maxTokenLifetimeSeconds * 1000;
+        if (redisTemplate == null) {
+            return local;
+        }
+        String shared = circuitBreaker.execute("jwks.legacy-deadline", () -> {
+            redisTemplate.opsForValue().setIfAbsent(LEGACY_HMAC_UNTIL_KEY, String.valueOf(local));
+            return redisTemplate.opsForValue().get(LEGACY_HMAC_UNTIL_KEY);
+        }, () -> null);
+        try {
+            return shared != null ? Math.min(Long.parseLong(shared), local) : local;
+        } catch (NumberFormatException e) {
+            logger.warn("Ignoring malformed {}: {}", LEGACY_HMAC_UNTIL_KEY, shared);
+            return local;
+        }
+    }
+
+    private void pruneRetiredKeys() {
+        long now = System.currentTimeMillis();
+        verificationKeys.values().removeIf(key -> key.retireAt <= now);
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            Map<Object, Object> published = redisTemplate.opsForHash().entries(JWKS_KEY);
+            for (Map.Entry<Object, Object> entry : published.entrySet()) {
+                VerificationKey key = decode((String) entry.getKey(), (String) entry.getValue());
+                if (key == null || key.retireAt <= now) {
+                    redisTemplate.opsForHash().delete(JWKS_KEY, entry.getKey());
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error pruning retired JWT public keys: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Busca en Redis la llave publicada por otro nodo con el kid dado. Un kid sin llave vigente se
+     * recuerda como desconocido durante UNKNOWN_KID_TTL_MS; el resto de kids se siguen consultando
+     *
+     * @return Llave de verificación, o null si no existe o Redis no está disponible
+     */
+    private VerificationKey loadFromRedis(String kid) {
+        if (redisTemplate == null || unknownKeyIds.getIfPresent(kid) != null) {
+            return null;
+        }
+        String value = circuitBreaker.execute("jwks.lookup",
+                () -> (String) redisTemplate.opsForHash().get(JWKS_KEY, kid), () -> UNAVAILABLE);
+        if (UNAVAILABLE.equals(value)) {
+            return null;
+        }
+        VerificationKey key = value != null ? decode(kid, value) : null;
+        if (key == null || key.retireAt <= System.currentTimeMillis()) {
+            unknownKeyIds.put(kid, Boolean.TRUE);
+            return null;
+        }
+        verificationKeys.put(kid, key);
+        return key;
+    }
+
+    /**
+     * Recarga todas las llaves publicadas por los demás nodos para el endpoint JWKS, como máximo una vez
+     * cada pocos segundos; la verificación de tokens no depende de esta recarga
+     */
+    private void reloadFromRedis() {
+        long now = System.currentTimeMillis();
+        if (redisTemplate == null || now - lastJwksReloadMillis < JWKS_RELOAD_MIN_INTERVAL_MS) {
+            return;
+        }
+        lastJwksReloadMillis = now;
+        try {
+            Map<Object, Object> published = redisTemplate.opsForHash().entries(JWKS_KEY);
+            for (Map.Entry<Object, Object> entry : published.entrySet()) {
+                String kid = (String) entry.getKey();
+                if (!verificationKeys.containsKey(kid)) {
+                    VerificationKey key = decode(kid, (String) entry.getValue());
+                    if (key != null && key.retireAt > now) {
+                        verificationKeys.put(kid, key);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error loading JWT public keys from Redis: {}", e.getMessage());
+        }
+    }
+
+    // Formato en Redis: "<alg>;<retireAtMs>;<X.509 en base64>"
+    private static String encode(VerificationKey key) {
+        return key.algorithm + ";" + key.retireAt + ";"
+                + Base64.getEncoder().encodeToString(key.publicKey.getEncoded());
+    }
+
+    private static VerificationKey decode(String kid, String value) {
+        try {
+            String[] parts = value.split(";", 3);
+            String keyAlgorithm = parts[0];
+            long retireAt = Long.parseLong(parts[1]);
+            KeyFactory keyFactory = KeyFactory.getInstance(ES256.equals(keyAlgorithm) ? "EC" : "Ed25519");
+            PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(Base64.getDecoder().decode(parts[2])));
+            return new VerificationKey(kid, keyAlgorithm, publicKey, retireAt);
+        } catch (Exception e) {
+            logger.warn("Ignoring malformed JWT public key {}: {}", kid, e.getMessage());
+            return null;
+        }
+    }
+
+    private static SignatureAlgorithm signatureAlgorithm(String algorithm) {
+        return ES256.equals(algorithm) ? Jwts.SIG.ES256 : Jwts.SIG.EdDSA;
+    }
+
+    private static Map<String, Object> toJwk(VerificationKey key) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        Map<String, Object> jwk = new LinkedHashMap<>();
+        if (ES256.equals(key.algorithm)) {
+            ECPublicKey ecKey = (ECPublicKey) key.publicKey;
+            jwk.put("kty", "EC");
+            jwk.put("crv", "P-256");
+            jwk.put("x", encoder.encodeToString(unsigned(ecKey.getW().getAffineX(), 32)));
+            jwk.put("y", encoder.encodeToString(unsigned(ecKey.getW().getAffineY(), 32)));
+        } else {
+            // La codificación X.509 de Ed25519 termina con los 32 bytes de la llave
+            byte[] encoded = key.publicKey.getEncoded();
+            jwk.put("kty", "OKP");
+            jwk.put("crv", "Ed25519");
+            jwk.put("x", encoder.encodeToString(Arrays.copyOfRange(encoded, encoded.length - 32, encoded.length)));
+        }
+        jwk.put("kid", key.kid);
+        jwk.put("alg", key.algorithm);
+        jwk.put("use", "sig");
+        return jwk;
+    }
+
+    private static byte[] unsigned(BigInteger value, int length) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length == length) {
+            return bytes;
+        }
+        byte[] result = new byte[length];
+        int copy = Math.min(bytes.length, length);
+        System.arraycopy(bytes, bytes.length - copy, result, length - copy, copy);
+        return result;
+    }
+
+    private static final class SigningKey {
+        private final String kid;
+        private final PrivateKey privateKey;
+        private final SignatureAlgorithm signatureAlgorithm;
+
+        private SigningKey(String kid, PrivateKey privateKey, SignatureAlgorithm signatureAlgorithm) {
+            this.kid = kid;
+            this.privateKey = privateKey;
+            this.signatureAlgorithm = signatureAlgorithm;
+        }
+    }
+
+    private static final class VerificationKey {
+        private final String kid;
+        private final String algorithm;
+        private final PublicKey publicKey;
+        private final long retireAt;
+
+        private VerificationKey(String kid, String algorithm, PublicKey publicKey, long retireAt) {
+            this.kid = kid;
+            this.algorithm = algorithm;
+            this.publicKey = publicKey;
+            this.retireAt = retireAt;
+        }
+    }
+}
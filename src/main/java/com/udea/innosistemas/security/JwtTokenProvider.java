@@ -1,20 +1,24 @@
 package com.udea.innosistemas.security;
 
 import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.service.SecurityVersionService;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 //clase para generar y validar tokens JWT utilizados en la autenticación y autorización de usuarios.
@@ -37,17 +41,53 @@ public class JwtTokenProvider {
     @Value("${innosistemas.auth.jwt.refresh-expiration}")
     private long refreshExpirationInMs;
 
-    private SecretKey getSigningKey() {
+    @Autowired(required = false)
+    private SecurityVersionService securityVersionService;
+
+    @Autowired(required = false)
+    private VerifiedTokenCache verifiedTokenCache;
+
+    // Sin anillo de llaves se firma y verifica solo con el secreto HMAC compartido
+    @Autowired(required = false)
+    private JwtKeyRing keyRing;
+
+    // La llave y el parser se construyen una sola vez: JwtParser es inmutable y thread-safe
+    private SecretKey signingKey;
+
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
         byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        this.jwtParser = keyRing != null
+                ? Jwts.parser().keyLocator(keyRing).build()
+                : Jwts.parser().verifyWith(signingKey).build();
+    }
+
+    private JwtBuilder signed(JwtBuilder builder) {
+        return keyRing != null ? keyRing.sign(builder) : builder.signWith(signingKey);
     }
 
     public String generateToken(Authentication authentication) {
         User user = (User) authentication.getPrincipal();
-        return generateTokenWithClaims(user);
+        return generateTokenWithClaims(user, null);
     }
 
-    private String generateTokenWithClaims(User user) {
+    /**
+     * Genera el access token de una sesión: el claim "sid" permite revocar todos los tokens
+     * de la sesión con una sola entrada en la blacklist (p. ej. al desalojarla por el límite de dispositivos)
+     *
+     * @param authentication Autenticación del usuario
+     * @param sessionId ID de la sesión registrada en el login
+     * @return Access token firmado
+     */
+    public String generateToken(Authentication authentication, String sessionId) {
+        User user = (User) authentication.getPrincipal();
+        return generateTokenWithClaims(user, sessionId);
+    }
+
+    private String generateTokenWithClaims(User user, String sessionId) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs * 1000);
 
@@ -77,17 +117,43 @@ public class JwtTokenProvider {
                 .collect(Collectors.joining(","));
         claims.put("authorities", authorities);
 
-        return Jwts.builder()
+        // Versión de seguridad: permite construir el principal desde los claims (modo stateless)
+        Long securityVersion = securityVersionService != null
+                ? securityVersionService.getVersion(user.getId())
+                : null;
+        if (securityVersion != null) {
+            claims.put("sv", securityVersion);
+        }
+
+        if (sessionId != null) {
+            claims.put("sid", sessionId);
+        }
+
+        // "iat" solo tiene segundos: la época de revocación se compara con este claim
+        claims.put("iatMs", now.getTime());
+
+        return signed(Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(user.getUsername())
                 .claims(claims)
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .expiration(expiryDate))
                 .compact();
     }
 
     public String generateTokenFromUser(User user) {
-        return generateTokenWithClaims(user);
+        return generateTokenWithClaims(user, null);
+    }
+
+    /**
+     * Genera un access token de la sesión indicada (claim "sid")
+     *
+     * @param user Usuario dueño del token
+     * @param sessionId ID de la sesión, o null si el token no pertenece a ninguna
+     * @return Access token firmado
+     */
+    public String generateTokenFromUser(User user, String sessionId) {
+        return generateTokenWithClaims(user, sessionId);
     }
 
     // Deprecated: Usar generateTokenFromUser en su lugar
@@ -95,31 +161,36 @@ public class JwtTokenProvider {
     public String generateTokenFromUsername(String username) {
         Date expiryDate = new Date(System.currentTimeMillis() + jwtExpirationInMs * 1000);
 
-        return Jwts.builder()
+        return signed(Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
                 .issuedAt(new Date())
-                .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .expiration(expiryDate))
                 .compact();
     }
 
     public String getUsernameFromJWT(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return getClaims(token).getSubject();
+    }
 
-        return claims.getSubject();
+    /**
+     * Parsea y verifica la firma del token una única vez.
+     * El resultado se comparte durante toda la petición para no repetir la verificación.
+     *
+     * @param authToken Token JWT recibido
+     * @return VerifiedToken con los claims verificados, o null si el token no es válido
+     */
+    public VerifiedToken verifyToken(String authToken) {
+        // Los tokens ya verificados se reutilizan hasta su expiración (o la edad máxima de la caché)
+        if (verifiedTokenCache != null) {
+            return verifiedTokenCache.get(authToken, this::verifySignature);
+        }
+        return verifySignature(authToken);
     }
 
-    public boolean validateToken(String authToken) {
+    private VerifiedToken verifySignature(String authToken) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(authToken);
-            return true;
+            return new VerifiedToken(authToken, getClaims(authToken));
         } catch (MalformedJwtException ex) {
             logger.error("Invalid JWT token: {}", ex.getMessage());
         } catch (ExpiredJwtException ex) {
@@ -131,17 +202,15 @@ public class JwtTokenProvider {
         } catch (Exception ex) {
             logger.error("JWT token validation error: {}", ex.getMessage());
         }
-        return false;
+        return null;
     }
 
-    public Date getExpirationDateFromJWT(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public boolean validateToken(String authToken) {
+        return verifyToken(authToken) != null;
+    }
 
-        return claims.getExpiration();
+    public Date getExpirationDateFromJWT(String token) {
+        return getClaims(token).getExpiration();
     }
 
     public boolean isTokenExpired(String token) {
@@ -154,20 +223,49 @@ public class JwtTokenProvider {
         return generateRefreshTokenFromUser(user);
     }
 
+    /**
+     * Genera el refresh token de una sesión nueva: la familia de rotación es el id de la sesión
+     *
+     * @param authentication Autenticación del usuario
+     * @param sessionId ID de la sesión registrada en el login
+     * @return Refresh token firmado
+     */
+    public String generateRefreshToken(Authentication authentication, String sessionId) {
+        User user = (User) authentication.getPrincipal();
+        return generateRefreshTokenFromUser(user, sessionId, UUID.randomUUID().toString());
+    }
+
     public String generateRefreshTokenFromUser(User user) {
+        return generateRefreshTokenFromUser(user, null, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Genera un refresh token que pertenece a una familia de rotación.
+     * El primer refresh token (login) no trae familia: su propio jti la identifica.
+     *
+     * @param user Usuario dueño del token
+     * @param familyId Familia de rotación (claim "fam"), o null para iniciar una nueva
+     * @param tokenId Identificador del token (claim "jti")
+     * @return Refresh token firmado
+     */
+    public String generateRefreshTokenFromUser(User user, String familyId, String tokenId) {
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + refreshExpirationInMs * 1000);
 
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", user.getId());
         claims.put("type", "refresh");
+        claims.put("iatMs", now.getTime());
+        if (familyId != null) {
+            claims.put("fam", familyId);
+        }
 
-        return Jwts.builder()
+        return signed(Jwts.builder()
+                .id(tokenId)
                 .subject(user.getUsername())
                 .claims(claims)
                 .issuedAt(now)
-                .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .expiration(expiryDate))
                 .compact();
     }
 
@@ -176,23 +274,18 @@ public class JwtTokenProvider {
     public String generateRefreshTokenFromUsername(String username) {
         Date expiryDate = new Date(System.currentTimeMillis() + refreshExpirationInMs * 1000);
 
-        return Jwts.builder()
+        return signed(Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
                 .claim("type", "refresh")
                 .issuedAt(new Date())
-                .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .expiration(expiryDate))
                 .compact();
     }
 
     public boolean isRefreshToken(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-
+            Claims claims = getClaims(token);
             return "refresh".equals(claims.get("type", String.class));
         } catch (Exception e) {
             logger.error("Error checking if token is refresh token: {}", e.getMessage());
@@ -202,13 +295,7 @@ public class JwtTokenProvider {
 
     public String getTokenId(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-
-            return claims.getId();
+            return getClaims(token).getId();
         } catch (Exception e) {
             logger.error("Error extracting token ID: {}", e.getMessage());
             return null;
@@ -275,15 +362,15 @@ public class JwtTokenProvider {
 
     public Map<String, Object> getAllClaims(String token) {
         try {
-            Claims claims = getClaims(token);
+            VerifiedToken verifiedToken = new VerifiedToken(token, getClaims(token));
             Map<String, Object> result = new HashMap<>();
-            result.put("userId", getUserIdFromJWT(token));
-            result.put("email", getUsernameFromJWT(token));
-            result.put("role", getRoleFromJWT(token));
-            result.put("teamId", getTeamIdFromJWT(token));
-            result.put("courseId", getCourseIdFromJWT(token));
-            result.put("issuedAt", claims.getIssuedAt());
-            result.put("expiration", claims.getExpiration());
+            result.put("userId", verifiedToken.getUserId());
+            result.put("email", verifiedToken.getSubject());
+            result.put("role", verifiedToken.getRole());
+            result.put("teamId", verifiedToken.getTeamId());
+            result.put("courseId", verifiedToken.getCourseId());
+            result.put("issuedAt", verifiedToken.getIssuedAt());
+            result.put("expiration", verifiedToken.getExpiration());
             return result;
         } catch (Exception e) {
             logger.error("Error extracting all claims: {}", e.getMessage());
@@ -292,10 +379,6 @@ public class JwtTokenProvider {
     }
 
     private Claims getClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return jwtParser.parseSignedClaims(token).getPayload();
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.udea.innosistemas.security;
 
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.service.RateLimitPolicy;
 import com.udea.innosistemas.service.RateLimitingService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -20,6 +22,11 @@ import java.io.IOException;
  * Filtro de Rate Limiting que controla el número de peticiones por usuario.
  * Se ejecuta después del filtro de autenticación JWT.
  * Limita peticiones basándose en usuario autenticado o IP del cliente.
+ * Para peticiones autenticadas usa el {@link AdmissionVerdict} que dejó el filtro JWT,
+ * así que el bucket del usuario se consume una sola vez por petición.
+ * La política (tamaño y ritmo del bucket) depende del rol del usuario y de la ruta REST.
+ * Los POST a /graphql no se cobran aquí: el costo de la operación solo se conoce tras parsearla y
+ * lo cobra {@link GraphQLRateLimitInterceptor} con la clave que este filtro deja en la petición.
  *
  * Autor: Fábrica-Escuela de Software UdeA
  * Versión: 1.0.0
@@ -29,6 +36,11 @@ public class RateLimitFilter extends OncePerRequestFilter {
 
     private static final Logger LOG = LoggerFactory.getLogger(RateLimitFilter.class);
 
+    /**
+     * Atributo de la petición HTTP con la clave de rate limiting de una operación GraphQL
+     */
+    static final String KEY_ATTRIBUTE = RateLimitFilter.class.getName() + ".key";
+
     @Autowired
     private RateLimitingService rateLimitingService;
 
@@ -36,24 +48,30 @@ public class RateLimitFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
-        // Obtener clave para rate limiting (usuario o IP)
-        String key = getRateLimitKey(request);
-
-        // Verificar si es un endpoint de autenticación
-        boolean isAuthEndpoint = isAuthenticationEndpoint(request);
+        if (isGraphQLRequest(request)) {
+            // El costo de la operación GraphQL lo cobra GraphQLRateLimitInterceptor después de parsearla
+            request.setAttribute(KEY_ATTRIBUTE, getRateLimitKey(request));
+            filterChain.doFilter(request, response);
+            return;
+        }
 
-        // Aplicar rate limiting
-        boolean allowed;
-        if (isAuthEndpoint) {
-            allowed = rateLimitingService.allowAuthRequest(key);
-        } else {
-            allowed = rateLimitingService.allowRequest(key);
+        // Peticiones autenticadas: el filtro JWT ya consumió el bucket al admitir el token
+        AdmissionVerdict verdict = (AdmissionVerdict) request.getAttribute(AdmissionVerdict.REQUEST_ATTRIBUTE);
+        String key = null;
+        if (verdict == null) {
+            // Obtener clave para rate limiting (usuario o IP) y aplicar la política de su rol en esta ruta
+            key = getRateLimitKey(request);
+            RateLimitPolicy policy = rateLimitingService.resolvePolicy(currentRole(), request.getServletPath());
+            verdict = rateLimitingService.consume(key, policy, 1);
         }
 
-        if (!allowed) {
+        if (verdict.isRateLimited()) {
             // Rate limit excedido
-            LOG.warn("Rate limit exceeded for key: {} on endpoint: {}", key, request.getRequestURI());
+            LOG.warn("Rate limit exceeded for key: {} on endpoint: {}",
+                    key != null ? key : getRateLimitKey(request), request.getRequestURI());
             response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", String.valueOf(verdict.getRetryAfterSeconds()));
+            addRateLimitHeaders(response, verdict);
             response.setContentType("application/json");
             response.getWriter().write(
                     "{\"error\":\"Too Many Requests\",\"message\":\"Rate limit exceeded. Please try again later.\"}"
@@ -62,7 +80,7 @@ public class RateLimitFilter extends OncePerRequestFilter {
         }
 
         // Agregar headers informativos
-        addRateLimitHeaders(response, key);
+        addRateLimitHeaders(response, verdict);
 
         filterChain.doFilter(request, response);
     }
@@ -73,7 +91,7 @@ public class RateLimitFilter extends OncePerRequestFilter {
      * @param request HttpServletRequest
      * @return Clave única para rate limiting
      */
-    private String getRateLimitKey(HttpServletRequest request) {
+    String getRateLimitKey(HttpServletRequest request) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
         // Si el usuario está autenticado, usar su username
@@ -109,41 +127,40 @@ public class RateLimitFilter extends OncePerRequestFilter {
     }
 
     /**
-     * Verifica si el endpoint es de autenticación
+     * Verifica si la petición es una operación GraphQL por HTTP
      *
      * @param request HttpServletRequest
-     * @return true si es endpoint de auth
+     * @return true si es un POST a /graphql
      */
-    private boolean isAuthenticationEndpoint(HttpServletRequest request) {
-        String uri = request.getRequestURI();
-        String method = request.getMethod();
-
-        // GraphQL mutations de autenticación
-        if (uri.contains("/graphql") && "POST".equals(method)) {
-            // Para GraphQL necesitaríamos parsear el body, por ahora aplicar límite estricto
-            return true;
-        }
+    static boolean isGraphQLRequest(HttpServletRequest request) {
+        return "POST".equals(request.getMethod()) && request.getRequestURI().endsWith("/graphql");
+    }
 
-        // REST endpoints de autenticación
-        return uri.contains("/auth/login") ||
-               uri.contains("/auth/refresh") ||
-               uri.contains("/auth/register");
+    /**
+     * Rol del usuario autenticado para resolver su política de rate limiting
+     *
+     * @return Nombre del rol, o null si la petición es anónima
+     */
+    static String currentRole() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof User user && user.getRole() != null) {
+            return user.getRole().name();
+        }
+        return null;
     }
 
     /**
-     * Agrega headers de rate limiting a la respuesta
+     * Agrega headers de rate limiting a la respuesta a partir del bucket realmente evaluado
      *
      * @param response HttpServletResponse
-     * @param key Clave del rate limit
+     * @param verdict Veredicto con la capacidad y los tokens restantes
      */
-    private void addRateLimitHeaders(HttpServletResponse response, String key) {
-        try {
-            long availableTokens = rateLimitingService.getAvailableTokens(key);
-            response.setHeader("X-RateLimit-Remaining", String.valueOf(availableTokens));
-            response.setHeader("X-RateLimit-Limit", "100"); // Podría ser dinámico
-        } catch (Exception e) {
-            LOG.debug("Error adding rate limit headers: {}", e.getMessage());
+    private void addRateLimitHeaders(HttpServletResponse response, AdmissionVerdict verdict) {
+        if (verdict.getLimit() < 0 || verdict.getRemaining() < 0) {
+            return;
         }
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(verdict.getRemaining()));
+        response.setHeader("X-RateLimit-Limit", String.valueOf(verdict.getLimit()));
     }
 
     @Override
@@ -0,0 +1,198 @@
+package com.udea.innosistemas.security;
+
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.entity.UserRole;
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Date;
+import java.util.Optional;
+
+/**
+ * Token JWT ya parseado y con firma verificada.
+ * Se construye una sola vez por petición en {@link JwtTokenProvider#verifyToken(String)}
+ * y se comparte con el filtro, el interceptor WebSocket, las directivas y los resolvers,
+ * evitando volver a verificar la firma HMAC cada vez que se necesita un claim.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public final class VerifiedToken {
+
+    /**
+     * Atributo de la petición HTTP donde el filtro JWT deja el token verificado
+     */
+    public static final String REQUEST_ATTRIBUTE = VerifiedToken.class.getName();
+
+    private final String token;
+    private final Claims claims;
+
+    public VerifiedToken(String token, Claims claims) {
+        this.token = token;
+        this.claims = claims;
+    }
+
+    /**
+     * Obtiene el token verificado asociado a la autenticación actual, si existe.
+     * El filtro JWT y el interceptor WebSocket lo publican como credenciales
+     * de la autenticación establecida en el SecurityContext.
+     *
+     * @return Optional con el token verificado de la petición en curso
+     */
+    public static Optional<VerifiedToken> current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getCredentials() instanceof VerifiedToken) {
+            return Optional.of((VerifiedToken) authentication.getCredentials());
+        }
+        return Optional.empty();
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public Claims getClaims() {
+        return claims;
+    }
+
+    public String getSubject() {
+        return claims.getSubject();
+    }
+
+    public String getTokenId() {
+        return claims.getId();
+    }
+
+    /**
+     * Identificador usado para revocar el token: el claim "jti", o el digest SHA-256
+     * del token para los emitidos antes de que existiera el jti
+     *
+     * @return Identificador de revocación del token
+     */
+    public String getRevocationId() {
+        String tokenId = getTokenId();
+        return tokenId != null ? tokenId : "sha256:" + VerifiedTokenCache.digest(token);
+    }
+
+    /**
+     * Familia de rotación del refresh token: el claim "fam", o el propio identificador
+     * del token cuando es el primero de la familia (emitido en el login)
+     *
+     * @return Identificador de la familia de rotación
+     */
+    public String getRefreshFamilyId() {
+        String familyId = claims.get("fam", String.class);
+        return familyId != null ? familyId : getRevocationId();
+    }
+
+    /**
+     * Sesión a la que pertenece el token: el claim "sid" de los access tokens,
+     * o la familia de rotación en los refresh tokens
+     *
+     * @return ID de la sesión, o null si el token no está ligado a una sesión
+     */
+    public String getSessionId() {
+        String sessionId = claims.get("sid", String.class);
+        if (sessionId != null) {
+            return sessionId;
+        }
+        return isRefreshToken() ? getRefreshFamilyId() : null;
+    }
+
+    public Long getUserId() {
+        return getLongClaim("userId");
+    }
+
+    public String getRole() {
+        return claims.get("role", String.class);
+    }
+
+    public Long getTeamId() {
+        return getLongClaim("teamId");
+    }
+
+    public Long getCourseId() {
+        return getLongClaim("courseId");
+    }
+
+    public String getAuthorities() {
+        return claims.get("authorities", String.class);
+    }
+
+    public String getType() {
+        return claims.get("type", String.class);
+    }
+
+    public boolean isRefreshToken() {
+        return "refresh".equals(getType());
+    }
+
+    public Long getSecurityVersion() {
+        return getLongClaim("sv");
+    }
+
+    /**
+     * Indica si el token trae los claims necesarios para construir el principal sin consultar la BD
+     *
+     * @return true si incluye userId, role válido y versión de seguridad
+     */
+    public boolean hasPrincipalClaims() {
+        if (getUserId() == null || getSecurityVersion() == null || getRole() == null) {
+            return false;
+        }
+        for (UserRole role : UserRole.values()) {
+            if (role.name().equals(getRole())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Construye un usuario (no persistido) a partir de los claims verificados.
+     * Solo debe usarse cuando {@link #hasPrincipalClaims()} es true.
+     *
+     * @return User con id, email, rol, equipo y curso del token
+     */
+    public User toUser() {
+        User user = new User();
+        user.setId(getUserId());
+        user.setEmail(getSubject());
+        user.setRole(UserRole.valueOf(getRole()));
+        user.setTeamId(getTeamId());
+        user.setCourseId(getCourseId());
+        return user;
+    }
+
+    public Date getIssuedAt() {
+        return claims.getIssuedAt();
+    }
+
+    /**
+     * Instante de emisión en milisegundos: el claim "iatMs" si el token lo trae; si no, el "iat"
+     * (precisión de segundos, tokens emitidos antes de agregar el claim)
+     *
+     * @return Epoch en milisegundos, o 0 si el token no trae fecha de emisión
+     */
+    public long getIssuedAtMillis() {
+        Long issuedAtMillis = getLongClaim("iatMs");
+        if (issuedAtMillis != null) {
+            return issuedAtMillis;
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt != null ? issuedAt.getTime() : 0L;
+    }
+
+    public Date getExpiration() {
+        return claims.getExpiration();
+    }
+
+    private Long getLongClaim(String name) {
+        Object value = claims.get(name);
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,166 @@
+package com.udea.innosistemas.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Caché local y acotada de tokens JWT ya verificados.
+ * Los clientes móviles reutilizan el mismo access token en miles de peticiones; con esta caché
+ * la firma se verifica una sola vez y las siguientes peticiones reutilizan los claims.
+ *
+ * La clave es el digest SHA-256 del token (no se guarda el token como clave) y cada entrada vive
+ * hasta lo primero que ocurra entre la expiración del token y la edad máxima configurada.
+ * Las métricas de aciertos, fallos y desalojos se publican en Micrometer como "jwt.verified-tokens".
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Component
+public class VerifiedTokenCache {
+
+    public static final String CACHE_NAME = "jwt.verified-tokens";
+
+    @Value("${innosistemas.auth.token-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${innosistemas.auth.token-cache.max-age-seconds:300}")
+    private long maxAgeSeconds;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, VerifiedToken> cache;
+
+    @PostConstruct
+    void init() {
+        final long maxAgeNanos = TimeUnit.SECONDS.toNanos(maxAgeSeconds);
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        return Math.min(maxAgeNanos, nanosUntilExpiration(value));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return Math.min(maxAgeNanos, nanosUntilExpiration(value));
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        }
+    }
+
+    /**
+     * Obtiene el token verificado desde la caché
+     *
+     * @param token Token JWT en texto plano
+     * @return Token verificado, o null si no está en caché o ya expiró
+     */
+    public VerifiedToken get(String token) {
+        if (token == null) {
+            return null;
+        }
+        return cache.getIfPresent(digest(token));
+    }
+
+    /**
+     * Obtiene el token verificado desde la caché o lo verifica y lo guarda, calculando el digest
+     * una sola vez. Peticiones concurrentes con el mismo token esperan una única verificación
+     *
+     * @param token Token JWT en texto plano
+     * @param verifier Verificación de la firma; devuelve null si el token no es válido
+     * @return Token verificado, o null si el token no es válido
+     */
+    public VerifiedToken get(String token, Function<String, VerifiedToken> verifier) {
+        if (token == null) {
+            return verifier.apply(null);
+        }
+        // Un token ya expirado vive 0 ns en la caché (ver Expiry); uno inválido no se guarda
+        return cache.get(digest(token), key -> verifier.apply(token));
+    }
+
+    /**
+     * Guarda un token recién verificado en la caché
+     *
+     * @param verifiedToken Token con firma verificada
+     */
+    public void put(VerifiedToken verifiedToken) {
+        if (verifiedToken == null || verifiedToken.getToken() == null) {
+            return;
+        }
+        if (nanosUntilExpiration(verifiedToken) <= 0) {
+            return;
+        }
+        cache.put(digest(verifiedToken.getToken()), verifiedToken);
+    }
+
+    /**
+     * Elimina un token de la caché (p. ej. cuando se revoca)
+     *
+     * @param token Token JWT en texto plano
+     */
+    public void invalidate(String token) {
+        if (token != null) {
+            cache.invalidate(digest(token));
+        }
+    }
+
+    /**
+     * Elimina todas las entradas de la caché
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Número aproximado de entradas en la caché
+     *
+     * @return Cantidad de tokens cacheados
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static long nanosUntilExpiration(VerifiedToken verifiedToken) {
+        Date expiration = verifiedToken.getExpiration();
+        if (expiration == null) {
+            return 0L;
+        }
+        return TimeUnit.MILLISECONDS.toNanos(Math.max(0L, expiration.getTime() - System.currentTimeMillis()));
+    }
+
+    static String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(messageDigest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 es obligatorio en toda JVM
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
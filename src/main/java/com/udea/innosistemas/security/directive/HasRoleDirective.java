@@ -0,0 +1,81 @@
+package com.udea.innosistemas.security.directive;
+
+import graphql.schema.DataFetcher;
+import graphql.schema.FieldCoordinates;
+import graphql.schema.GraphQLFieldDefinition;
+import graphql.schema.idl.SchemaDirectiveWiring;
+import graphql.schema.idl.SchemaDirectiveWiringEnvironment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Implementación de la directiva @hasRole(roles: [...]) para GraphQL.
+ * Valida que el usuario autenticado tenga alguno de los roles indicados antes de ejecutar el campo,
+ * con la misma semántica que hasAnyRole de @PreAuthorize en el resolver.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Component
+public class HasRoleDirective implements SchemaDirectiveWiring {
+
+    private static final Logger logger = LoggerFactory.getLogger(HasRoleDirective.class);
+
+    @Override
+    public GraphQLFieldDefinition onField(SchemaDirectiveWiringEnvironment<GraphQLFieldDefinition> environment) {
+        GraphQLFieldDefinition field = environment.getElement();
+        FieldCoordinates coordinates = FieldCoordinates.coordinates(
+                environment.getFieldsContainer().getName(),
+                field.getName()
+        );
+        DataFetcher<?> originalDataFetcher = environment.getCodeRegistry().getDataFetcher(
+                coordinates,
+                field
+        );
+
+        List<?> roles = environment.getAppliedDirective().getArgument("roles").getValue();
+        Set<String> allowedAuthorities = roles.stream()
+                .map(role -> "ROLE_" + role)
+                .collect(Collectors.toUnmodifiableSet());
+
+        DataFetcher<?> roleDataFetcher = dataFetchingEnvironment -> {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+            if (authentication == null || !authentication.isAuthenticated() ||
+                "anonymousUser".equals(authentication.getName())) {
+                logger.warn("@hasRole directive blocked unauthenticated access to field: {}", field.getName());
+                throw new AccessDeniedException("Debe estar autenticado para acceder a este campo");
+            }
+
+            boolean allowed = authentication.getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .anyMatch(allowedAuthorities::contains);
+            if (!allowed) {
+                logger.warn("@hasRole directive blocked user {} on field: {} (requires {})",
+                        authentication.getName(), field.getName(), roles);
+                throw new AccessDeniedException("No tiene el rol requerido para acceder a este campo");
+            }
+
+            logger.debug("@hasRole directive validated user {} for field: {}",
+                    authentication.getName(), field.getName());
+
+            return originalDataFetcher.get(dataFetchingEnvironment);
+        };
+
+        environment.getCodeRegistry().dataFetcher(
+                coordinates,
+                roleDataFetcher
+        );
+
+        return field;
+    }
+}
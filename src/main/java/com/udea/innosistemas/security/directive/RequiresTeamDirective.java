@@ -2,7 +2,8 @@ package com.udea.innosistemas.security.directive;
 
 import com.udea.innosistemas.entity.User;
 import com.udea.innosistemas.entity.UserRole;
-import com.udea.innosistemas.repository.UserRepository;
+import com.udea.innosistemas.security.CurrentUserContext;
+import com.udea.innosistemas.service.UserLookupService;
 import graphql.schema.DataFetcher;
 import graphql.schema.FieldCoordinates;
 import graphql.schema.GraphQLFieldDefinition;
@@ -30,7 +31,7 @@ public class RequiresTeamDirective implements SchemaDirectiveWiring {
     private static final Logger logger = LoggerFactory.getLogger(RequiresTeamDirective.class);
 
     @Autowired
-    private UserRepository userRepository;
+    private UserLookupService userLookupService;
 
     @Override
     public GraphQLFieldDefinition onField(SchemaDirectiveWiringEnvironment<GraphQLFieldDefinition> environment) {
@@ -54,7 +55,7 @@ public class RequiresTeamDirective implements SchemaDirectiveWiring {
             }
 
             String username = authentication.getName();
-            User user = userRepository.findByEmail(username)
+            User user = CurrentUserContext.from(dataFetchingEnvironment, userLookupService).getUser()
                     .orElseThrow(() -> new AccessDeniedException("Usuario no encontrado"));
 
             // Profesores y admins pueden ver cualquier equipo
@@ -6,12 +6,13 @@ import com.udea.innosistemas.dto.LogoutResponse;
 import com.udea.innosistemas.dto.UserInfo;
 import com.udea.innosistemas.entity.User;
 import com.udea.innosistemas.exception.AuthenticationException;
+import com.udea.innosistemas.exception.LoginThrottledException;
 import com.udea.innosistemas.repository.UserRepository;
 import com.udea.innosistemas.security.JwtTokenProvider;
+import com.udea.innosistemas.security.VerifiedToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -33,7 +34,10 @@ public class AuthenticationService {
     private static final Logger logger = LoggerFactory.getLogger(AuthenticationService.class);
 
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private CredentialVerificationService credentialVerificationService;
+
+    @Autowired
+    private LoginAttemptService loginAttemptService;
 
     @Autowired
     private UserRepository userRepository;
@@ -42,7 +46,10 @@ public class AuthenticationService {
     private JwtTokenProvider tokenProvider;
 
     @Autowired
-    private TokenBlacklistService tokenBlacklistService;
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private RefreshTokenRotationService refreshTokenRotationService;
 
     @Autowired
     private SessionManagementService sessionManagementService;
@@ -51,24 +58,32 @@ public class AuthenticationService {
         try {
             logger.info("Attempting login for user ID");
 
-            User user = userRepository.findByEmail(loginRequest.getEmail())
-                    .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
+            // Rechazar de inmediato (sin hashing) si la cuenta está en backoff por intentos fallidos
+            loginAttemptService.checkAllowed(loginRequest.getEmail());
 
-            Authentication authentication = authenticationManager.authenticate(
+            // BCrypt en el pool acotado de hashing; el principal ya es el usuario cargado por el provider
+            Authentication authentication = credentialVerificationService.authenticate(
                     new UsernamePasswordAuthenticationToken(
                             loginRequest.getEmail(),
                             loginRequest.getPassword()
                     )
             );
+            User user = (User) authentication.getPrincipal();
 
             SecurityContextHolder.getContext().setAuthentication(authentication);
 
-            String jwt = tokenProvider.generateToken(authentication);
-            String refreshToken = tokenProvider.generateRefreshToken(authentication);
-
-            // Registrar sesión activa
+            // La sesión se identifica con la familia del refresh token: cada renovación la extiende
             String sessionId = UUID.randomUUID().toString();
-            sessionManagementService.registerSession(user.getEmail(), sessionId);
+            String jwt = tokenProvider.generateToken(authentication, sessionId);
+            String refreshToken = tokenProvider.generateRefreshToken(authentication, sessionId);
+
+            // Registrar sesión activa y limpiar los intentos fallidos en un único round trip a Redis
+            // (el segundo del login, tras la consulta del backoff)
+            boolean registered = sessionManagementService.registerSession(user.getEmail(), sessionId,
+                    loginRequest.getDeviceName(), loginAttemptService.resetKeys(loginRequest.getEmail()));
+            if (!registered) {
+                loginAttemptService.recordSuccess(loginRequest.getEmail());
+            }
 
             // Usar el nuevo constructor que incluye todos los campos
             UserInfo userInfo = new UserInfo(user);
@@ -77,8 +92,11 @@ public class AuthenticationService {
 
             return new AuthResponse(jwt, refreshToken, userInfo);
 
+        } catch (LoginThrottledException e) {
+            throw e;
         } catch (BadCredentialsException e) {
             logger.warn("Login failed - Invalid credentials");
+            loginAttemptService.recordFailure(loginRequest.getEmail());
             throw new AuthenticationException("Credenciales inválidas");
         } catch (UsernameNotFoundException e) {
             logger.warn("Login failed - User not found");
@@ -91,7 +109,7 @@ public class AuthenticationService {
 
     public boolean validateCredentials(String email, String password) {
         try {
-            authenticationManager.authenticate(
+            credentialVerificationService.authenticate(
                     new UsernamePasswordAuthenticationToken(email, password)
             );
             return true;
@@ -104,44 +122,53 @@ public class AuthenticationService {
         try {
             logger.info("Attempting to refresh token");
 
-            // Validar que el token no esté en la blacklist
-            if (tokenBlacklistService.isTokenBlacklisted(refreshToken)) {
-                logger.warn("Refresh token is blacklisted");
-                throw new AuthenticationException("Token inválido o revocado");
-            }
-
-            // Validar el refresh token
-            if (!tokenProvider.validateToken(refreshToken)) {
+            // Validar el refresh token (una única verificación de firma)
+            VerifiedToken verifiedToken = tokenProvider.verifyToken(refreshToken);
+            if (verifiedToken == null) {
                 logger.warn("Invalid refresh token");
                 throw new AuthenticationException("Token inválido");
             }
 
             // Verificar que sea un refresh token
-            if (!tokenProvider.isRefreshToken(refreshToken)) {
+            if (!verifiedToken.isRefreshToken()) {
                 logger.warn("Token is not a refresh token");
                 throw new AuthenticationException("Token no es un refresh token");
             }
 
+            // Validar que el token no haya sido revocado para todo el usuario (época en caché local)
+            if (tokenRevocationService.isRevoked(verifiedToken)) {
+                logger.warn("Refresh token was revoked for all devices");
+                throw new AuthenticationException("Token inválido o revocado");
+            }
+
             // Extraer username del token
-            String username = tokenProvider.getUsernameFromJWT(refreshToken);
+            String username = verifiedToken.getSubject();
 
             // Buscar usuario
             User user = userRepository.findByEmail(username)
                     .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
 
-            // Verificar que el usuario tenga sesiones activas
-            if (!sessionManagementService.hasActiveSessions(username)) {
-                logger.warn("User has no active sessions");
-                throw new AuthenticationException("No hay sesiones activas");
+            // Generar nuevos tokens con claims completos; el refresh token continúa la familia del anterior
+            String newTokenId = UUID.randomUUID().toString();
+            String newAccessToken = tokenProvider.generateTokenFromUser(user, verifiedToken.getRefreshFamilyId());
+            String newRefreshToken = tokenProvider.generateRefreshTokenFromUser(
+                    user, verifiedToken.getRefreshFamilyId(), newTokenId);
+
+            // Blacklist, reutilización, sesiones activas y rotación en un único round trip atómico
+            switch (refreshTokenRotationService.rotate(verifiedToken, newTokenId)) {
+                case ROTATED:
+                    break;
+                case NO_ACTIVE_SESSIONS:
+                    logger.warn("User has no active sessions");
+                    throw new AuthenticationException("No hay sesiones activas");
+                case REUSE_DETECTED:
+                    logger.warn("Refresh token reuse detected");
+                    throw new AuthenticationException("Token inválido o revocado");
+                default:
+                    logger.warn("Refresh token is blacklisted");
+                    throw new AuthenticationException("Token inválido o revocado");
             }
 
-            // Generar nuevos tokens con claims completos
-            String newAccessToken = tokenProvider.generateTokenFromUser(user);
-            String newRefreshToken = tokenProvider.generateRefreshTokenFromUser(user);
-
-            // Invalidar el refresh token anterior
-            tokenBlacklistService.blacklistToken(refreshToken, tokenProvider.getExpirationDateFromJWT(refreshToken));
-
             UserInfo userInfo = new UserInfo(user);
 
             logger.info("Token refreshed successfully for user: {}", username);
@@ -164,19 +191,17 @@ public class AuthenticationService {
             logger.info("Attempting logout");
 
             // Validar el token
-            if (!tokenProvider.validateToken(token)) {
+            VerifiedToken verifiedToken = tokenProvider.verifyToken(token);
+            if (verifiedToken == null) {
                 logger.warn("Invalid token for logout");
                 return new LogoutResponse(false, "Token inválido");
             }
 
             // Extraer username
-            String username = tokenProvider.getUsernameFromJWT(token);
+            String username = verifiedToken.getSubject();
 
-            // Agregar token a la blacklist
-            tokenBlacklistService.blacklistToken(token, tokenProvider.getExpirationDateFromJWT(token));
-
-            // Invalidar todas las sesiones del usuario
-            long sessionsInvalidated = sessionManagementService.invalidateAllUserSessions(username);
+            // Revocar el token e invalidar todas las sesiones del usuario en un único round trip a Redis
+            long sessionsInvalidated = sessionManagementService.invalidateAllUserSessions(username, verifiedToken);
 
             // Limpiar el SecurityContext
             SecurityContextHolder.clearContext();
@@ -195,9 +220,19 @@ public class AuthenticationService {
         try {
             logger.info("Attempting logout from all devices for user: {}", username);
 
+            // Revocar de una vez todos los tokens ya emitidos (una sola escritura, sin importar los dispositivos)
+            boolean revoked = tokenRevocationService.revokeAllTokens(username);
+
             // Invalidar todas las sesiones del usuario
             long sessionsInvalidated = sessionManagementService.invalidateAllUserSessions(username);
 
+            if (!revoked) {
+                // La revocación quedó solo en este nodo hasta que Redis se recupere
+                logger.warn("Logout from all devices pending for user: {}, sessions invalidated: {}", username, sessionsInvalidated);
+                return new LogoutResponse(false,
+                        "No se pudieron revocar los tokens en todos los dispositivos; se completará al recuperarse el servicio");
+            }
+
             logger.info("Logout from all devices successful for user: {}, sessions invalidated: {}", username, sessionsInvalidated);
 
             return new LogoutResponse(true, "Logout exitoso de todos los dispositivos");
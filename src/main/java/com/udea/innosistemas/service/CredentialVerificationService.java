@@ -0,0 +1,160 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.exception.AuthenticationException;
+import com.udea.innosistemas.exception.LoginThrottledException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servicio que verifica credenciales (BCrypt) en un pool de hilos dedicado y acotado.
+ * Las tormentas de login no ocupan los hilos de Tomcat con hashing: cuando el pool y su cola
+ * están llenos el intento se rechaza de inmediato con {@link LoginThrottledException} (HTTP 429).
+ * Publica en Micrometer la profundidad de la cola ("auth.password.hash.queue"), la latencia del
+ * hashing ("auth.password.hash") y los rechazos ("auth.password.hash.rejected").
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Service
+public class CredentialVerificationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CredentialVerificationService.class);
+    private static final String THROTTLED_MESSAGE = "Demasiados intentos de inicio de sesión, intenta de nuevo más tarde";
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    // 0 = un hilo por procesador disponible (BCrypt es intensivo en CPU)
+    @Value("${innosistemas.auth.password-hashing.pool-size:0}")
+    private int poolSize;
+
+    @Value("${innosistemas.auth.password-hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${innosistemas.auth.password-hashing.timeout-ms:5000}")
+    private long timeoutMs;
+
+    @Value("${innosistemas.auth.password-hashing.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+
+    private Timer hashTimer;
+
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    void init() {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        if (meterRegistry != null) {
+            Gauge.builder("auth.password.hash.queue", executor, e -> e.getQueue().size())
+                    .description("Verificaciones de contraseña en espera")
+                    .register(meterRegistry);
+            Gauge.builder("auth.password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                    .description("Verificaciones de contraseña en curso")
+                    .register(meterRegistry);
+            this.hashTimer = Timer.builder("auth.password.hash")
+                    .description("Latencia de la verificación de contraseña")
+                    .register(meterRegistry);
+            this.rejectedCounter = Counter.builder("auth.password.hash.rejected")
+                    .description("Intentos de login rechazados por saturación del pool de hashing")
+                    .register(meterRegistry);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Autentica las credenciales en el pool de hashing y espera el resultado
+     *
+     * @param authenticationRequest Usuario y contraseña a verificar
+     * @return Authentication con el usuario autenticado como principal
+     * @throws LoginThrottledException si el pool está saturado o la verificación excede el tiempo máximo
+     */
+    public Authentication authenticate(UsernamePasswordAuthenticationToken authenticationRequest) {
+        Future<Authentication> future;
+        try {
+            future = executor.submit(() -> timedAuthenticate(authenticationRequest));
+        } catch (RejectedExecutionException e) {
+            if (rejectedCounter != null) {
+                rejectedCounter.increment();
+            }
+            logger.warn("Password hashing pool saturated, rejecting login attempt");
+            throw new LoginThrottledException(THROTTLED_MESSAGE, retryAfterSeconds);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new AuthenticationException("Error durante la autenticación", cause);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            logger.warn("Password verification timed out after {} ms", timeoutMs);
+            throw new LoginThrottledException(THROTTLED_MESSAGE, retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AuthenticationException("Error durante la autenticación", e);
+        }
+    }
+
+    /**
+     * Número de verificaciones en espera en la cola del pool
+     *
+     * @return Profundidad actual de la cola
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    private Authentication timedAuthenticate(UsernamePasswordAuthenticationToken authenticationRequest) {
+        long start = System.nanoTime();
+        try {
+            return authenticationManager.authenticate(authenticationRequest);
+        } finally {
+            if (hashTimer != null) {
+                hashTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.udea.innosistemas.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.udea.innosistemas.event.RedisCircuitStateEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Almacén local y acotado que reemplaza a Redis mientras el circuito está abierto (modo degradado).
+ *
+ * Guarda, bajo las mismas claves que tendrían en Redis, los valores con expiración que los servicios
+ * de autenticación necesitan consultar en el nodo (revocaciones, intentos fallidos, backoff) y encola
+ * las escrituras que no llegaron a Redis para reproducirlas en orden cuando el circuito se cierra.
+ * Ambas estructuras están acotadas: al llenarse se descartan las entradas más antiguas, de modo que
+ * una caída larga de Redis no agota la memoria del nodo.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Service
+public class DegradedModeStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DegradedModeStore.class);
+
+    /**
+     * Valor local con su instante de expiración (epoch ms)
+     */
+    private static final class Entry {
+
+        private final String value;
+        private final long expiresAtMs;
+
+        private Entry(String value, long expiresAtMs) {
+            this.value = value;
+            this.expiresAtMs = expiresAtMs;
+        }
+
+        private long remainingMs(long now) {
+            return Math.max(expiresAtMs - now, 0);
+        }
+    }
+
+    /**
+     * Escritura pendiente de reproducir en Redis
+     */
+    private static final class PendingWrite {
+
+        private final String operation;
+        private final Runnable write;
+
+        private PendingWrite(String operation, Runnable write) {
+            this.operation = operation;
+            this.write = write;
+        }
+    }
+
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${innosistemas.redis.degraded.max-entries:50000}")
+    private long maxEntries;
+
+    @Value("${innosistemas.redis.degraded.max-pending-writes:10000}")
+    private int maxPendingWrites;
+
+    private Cache<String, Entry> entries;
+
+    private final Deque<PendingWrite> pendingWrites = new ConcurrentLinkedDeque<>();
+
+    // ConcurrentLinkedDeque.size() recorre la cola completa
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    @PostConstruct
+    void init() {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(entry.remainingMs(System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return TimeUnit.MILLISECONDS.toNanos(entry.remainingMs(System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+
+        if (meterRegistry != null) {
+            Gauge.builder("redis.degraded.entries", this, store -> store.entries.estimatedSize())
+                    .description("Valores guardados localmente durante el modo degradado")
+                    .register(meterRegistry);
+            Gauge.builder("redis.degraded.pending-writes", pendingCount, AtomicInteger::get)
+                    .description("Escrituras pendientes de reproducir en Redis")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Guarda un valor local con expiración (equivalente a SET ... PX)
+     *
+     * @param key Clave (la misma que tendría en Redis)
+     * @param value Valor
+     * @param ttlMs Tiempo de vida en milisegundos
+     */
+    public void set(String key, String value, long ttlMs) {
+        if (ttlMs > 0) {
+            entries.put(key, new Entry(value, System.currentTimeMillis() + ttlMs));
+        }
+    }
+
+    /**
+     * Obtiene un valor local vigente
+     *
+     * @param key Clave
+     * @return Valor, o null si no existe o expiró
+     */
+    public String get(String key) {
+        Entry entry = entries.getIfPresent(key);
+        return entry != null && entry.remainingMs(System.currentTimeMillis()) > 0 ? entry.value : null;
+    }
+
+    /**
+     * Tiempo de vida restante de un valor local (equivalente a PTTL)
+     *
+     * @param key Clave
+     * @return Milisegundos restantes, o 0 si no existe o expiró
+     */
+    public long getRemainingMs(String key) {
+        Entry entry = entries.getIfPresent(key);
+        return entry != null ? entry.remainingMs(System.currentTimeMillis()) : 0;
+    }
+
+    /**
+     * Incrementa un contador local; al crearlo le asigna el tiempo de vida (equivalente a INCR + EXPIRE)
+     *
+     * @param key Clave del contador
+     * @param ttlMs Tiempo de vida del contador desde su creación
+     * @return Valor del contador tras el incremento
+     */
+    public long increment(String key, long ttlMs) {
+        long now = System.currentTimeMillis();
+        Entry updated = entries.asMap().compute(key, (k, current) -> {
+            if (current == null || current.remainingMs(now) == 0) {
+                return new Entry("1", now + ttlMs);
+            }
+            return new Entry(String.valueOf(Long.parseLong(current.value) + 1), current.expiresAtMs);
+        });
+        return Long.parseLong(updated.value);
+    }
+
+    /**
+     * Borra valores locales
+     *
+     * @param keys Claves a borrar
+     */
+    public void delete(Collection<String> keys) {
+        entries.invalidateAll(keys);
+    }
+
+    /**
+     * Claves locales vigentes con un prefijo dado
+     *
+     * @param prefix Prefijo de las claves
+     * @return Claves encontradas (el almacén está acotado, así que el recorrido también)
+     */
+    public List<String> keys(String prefix) {
+        long now = System.currentTimeMillis();
+        return entries.asMap().entrySet().stream()
+                .filter(e -> e.getKey().startsWith(prefix) && e.getValue().remainingMs(now) > 0)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Encola una escritura que no llegó a Redis para reproducirla al cerrarse el circuito.
+     * La escritura debe ser idempotente y calcular sus tiempos de vida al ejecutarse.
+     * Con la cola llena se descarta la escritura más antigua.
+     *
+     * @param operation Nombre de la operación (logs)
+     * @param write Escritura en Redis
+     */
+    public void enqueue(String operation, Runnable write) {
+        pendingWrites.addLast(new PendingWrite(operation, write));
+        if (pendingCount.incrementAndGet() > maxPendingWrites) {
+            PendingWrite dropped = pendingWrites.pollFirst();
+            if (dropped != null) {
+                pendingCount.decrementAndGet();
+                logger.warn("Degraded mode write queue full, dropping pending {}", dropped.operation);
+                if (meterRegistry != null) {
+                    meterRegistry.counter("redis.degraded.writes.dropped").increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Número de escrituras pendientes de reproducir en Redis
+     *
+     * @return Escrituras en cola
+     */
+    public int getPendingWriteCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * Reproduce en Redis, en orden, las escrituras hechas en modo degradado.
+     * Si Redis vuelve a fallar la escritura en curso regresa a la cabeza de la cola y la
+     * reconciliación se detiene hasta el próximo cierre del circuito.
+     *
+     * @return Número de escrituras reproducidas
+     */
+    public synchronized int reconcile() {
+        int replayed = 0;
+        PendingWrite pending;
+        while ((pending = pendingWrites.pollFirst()) != null) {
+            PendingWrite current = pending;
+            boolean written = circuitBreaker.execute("degraded.reconcile", () -> {
+                current.write.run();
+                return true;
+            }, () -> false);
+            if (!written) {
+                pendingWrites.addFirst(current);
+                break;
+            }
+            pendingCount.decrementAndGet();
+            replayed++;
+        }
+
+        if (replayed > 0) {
+            logger.info("Reconciled {} degraded mode writes with Redis, {} pending", replayed, pendingCount.get());
+            if (meterRegistry != null) {
+                meterRegistry.counter("redis.degraded.writes.reconciled").increment(replayed);
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * Reconcilia con Redis cuando el circuito se cierra (fuera del hilo que cerró el circuito)
+     */
+    @Async
+    @EventListener
+    public void onCircuitStateChange(RedisCircuitStateEvent event) {
+        if (event.isRecovered()) {
+            reconcile();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.udea.innosistemas.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.udea.innosistemas.security.AdmissionVerdict;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limiting global para todos los nodos, con tokens prestados por lotes.
+ *
+ * El límite de cada clave vive en un token bucket de Redis (el mismo que usa el script de admisión).
+ * Cada nodo pide un lote pequeño de tokens (innosistemas.ratelimit.distributed.lease-size) con un
+ * script Lua y los gasta localmente, así que solo una de cada N peticiones llega a Redis. Mientras
+ * el bucket global está vacío el nodo rechaza sin consultar Redis hasta el siguiente relleno. Solo
+ * hay una petición de lote en vuelo por clave y nodo: las demás esperan su resultado.
+ *
+ * Un lote prestado que no se gasta antes de innosistemas.ratelimit.distributed.lease-ttl-ms se
+ * descarta; el error queda del lado de limitar de más, nunca de menos.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Service
+public class DistributedRateLimiter {
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> LEASE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/lease-tokens.lua"), List.class);
+
+    /**
+     * Tokens prestados a este nodo para una clave
+     */
+    private static final class Lease {
+
+        private long tokens;
+        private long globalRemaining;
+        private long blockedUntilNanos = System.nanoTime();
+    }
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private RedisKeyspace keyspace;
+
+    @Value("${innosistemas.ratelimit.distributed.lease-size:10}")
+    private long leaseSize;
+
+    @Value("${innosistemas.ratelimit.distributed.lease-ttl-ms:5000}")
+    private long leaseTtlMs;
+
+    @Value("${innosistemas.ratelimit.registry.max-active:100000}")
+    private long maxLeases;
+
+    private Cache<String, Lease> leases;
+
+    @PostConstruct
+    void init() {
+        this.leases = Caffeine.newBuilder()
+                .maximumSize(maxLeases)
+                .expireAfterWrite(Duration.ofMillis(leaseTtlMs))
+                .build();
+    }
+
+    /**
+     * Consume tokens del límite global de una clave
+     *
+     * @param key Clave de rate limiting (usuario o IP)
+     * @param tokens Tokens a consumir
+     * @param policy Política que aplica: tamaño y ritmo del bucket global y prefijo de su clave
+     * @return Veredicto ALLOWED o RATE_LIMITED, o null si Redis no está disponible (el llamador decide localmente)
+     */
+    public AdmissionVerdict consume(String key, RateLimitPolicy policy, long tokens) {
+        long capacity = policy.getCapacity();
+        Lease lease = leases.get(policy.bucketKey(key), k -> new Lease());
+        synchronized (lease) {
+            if (lease.tokens < tokens) {
+                long now = System.nanoTime();
+                if (now - lease.blockedUntilNanos < 0) {
+                    return rateLimited(capacity, lease, TimeUnit.NANOSECONDS.toMillis(lease.blockedUntilNanos - now));
+                }
+                if (!refill(bucketKey(key, policy), lease, Math.max(leaseSize, tokens - lease.tokens), policy)) {
+                    return null;
+                }
+                if (lease.tokens < tokens) {
+                    return rateLimited(capacity, lease, TimeUnit.NANOSECONDS.toMillis(lease.blockedUntilNanos - now));
+                }
+            }
+            lease.tokens -= tokens;
+            return new AdmissionVerdict(AdmissionVerdict.Outcome.ALLOWED, capacity,
+                    lease.globalRemaining + lease.tokens, 0);
+        }
+    }
+
+    /**
+     * Tokens globales que este nodo conoce para una clave: los que quedaban en Redis en el último
+     * lote más los prestados sin gastar
+     *
+     * @param key Clave de rate limiting (usuario o IP)
+     * @param policy Política del bucket
+     * @return Tokens disponibles, o null si este nodo no tiene un lote vigente para la clave
+     */
+    public Long getAvailableTokens(String key, RateLimitPolicy policy) {
+        Lease lease = leases.getIfPresent(policy.bucketKey(key));
+        if (lease == null) {
+            return null;
+        }
+        synchronized (lease) {
+            return lease.globalRemaining + lease.tokens;
+        }
+    }
+
+    /**
+     * Reinicia el bucket global de una clave: descarta el lote de este nodo y borra el bucket en Redis,
+     * que vuelve a empezar lleno (uso administrativo)
+     *
+     * @param key Clave de rate limiting (usuario o IP)
+     * @param policy Política del bucket
+     */
+    public void reset(String key, RateLimitPolicy policy) {
+        leases.invalidate(policy.bucketKey(key));
+        String bucketKey = bucketKey(key, policy);
+        circuitBreaker.run("ratelimit.reset", () -> redisTemplate.delete(bucketKey), () -> { });
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean refill(String bucketKey, Lease lease, long requested, RateLimitPolicy policy) {
+        List<Long> result = circuitBreaker.execute("ratelimit.lease",
+                () -> redisTemplate.execute(LEASE_SCRIPT, List.of(bucketKey),
+                        String.valueOf(policy.getCapacity()),
+                        String.valueOf(policy.getRefillTokens()),
+                        String.valueOf(policy.getRefillPeriod().toMillis()),
+                        String.valueOf(requested)),
+                () -> null);
+        if (result == null || result.size() < 3) {
+            return false;
+        }
+        lease.tokens += result.get(0);
+        lease.globalRemaining = result.get(1);
+        long retryAfterMs = result.get(2);
+        lease.blockedUntilNanos = retryAfterMs > 0
+                ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryAfterMs)
+                : System.nanoTime();
+        return true;
+    }
+
+    private static AdmissionVerdict rateLimited(long capacity, Lease lease, long retryAfterMs) {
+        return new AdmissionVerdict(AdmissionVerdict.Outcome.RATE_LIMITED, capacity, lease.tokens, Math.max(retryAfterMs, 0));
+    }
+
+    /**
+     * Clave del bucket en Redis, en la partición del usuario para las claves "user:" (la misma que
+     * usa el script de admisión) y en la de la propia clave para las de IP
+     */
+    String bucketKey(String key, RateLimitPolicy policy) {
+        String owner = key.startsWith("user:") ? key.substring("user:".length()) : key;
+        return keyspace.key(RequestAdmissionService.BUCKET_PREFIX, owner, policy.bucketKey(key));
+    }
+}
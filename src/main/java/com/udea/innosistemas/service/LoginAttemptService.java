@@ -0,0 +1,180 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.exception.LoginThrottledException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio de backoff exponencial por cuenta para intentos de login fallidos, almacenado en Redis.
+ * Tras unos intentos libres, cada fallo duplica el tiempo durante el cual la cuenta rechaza
+ * nuevos intentos sin verificar la contraseña, hasta un máximo configurado.
+ * Si Redis no está disponible no se bloquea el login (el pool de hashing sigue acotando la carga).
+ *
+ * Mientras el circuito de Redis está abierto ({@link RedisCircuitBreaker}) los fallos se cuentan en
+ * {@link DegradedModeStore}: el backoff sigue aplicándose en este nodo y se copia a Redis (con el
+ * tiempo que le quede) cuando el circuito se cierra.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Service
+public class LoginAttemptService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginAttemptService.class);
+    private static final String FAILURES_PREFIX = "login:failures:";
+    private static final String BACKOFF_PREFIX = "login:backoff:";
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private DegradedModeStore degradedStore;
+
+    @Autowired
+    private RedisKeyspace keyspace;
+
+    @Value("${innosistemas.auth.login-backoff.free-attempts:3}")
+    private long freeAttempts;
+
+    @Value("${innosistemas.auth.login-backoff.base-delay-ms:1000}")
+    private long baseDelayMs;
+
+    @Value("${innosistemas.auth.login-backoff.max-delay-ms:300000}")
+    private long maxDelayMs;
+
+    @Value("${innosistemas.auth.login-backoff.window-seconds:900}")
+    private long windowSeconds;
+
+    /**
+     * Verifica que la cuenta no esté en backoff
+     *
+     * @param email Email de la cuenta
+     * @throws LoginThrottledException si la cuenta debe esperar antes de un nuevo intento
+     */
+    public void checkAllowed(String email) {
+        if (email == null) {
+            return;
+        }
+
+        String backoffKey = keyspace.userKey(BACKOFF_PREFIX, normalize(email));
+        Long redisRemainingMs = circuitBreaker.execute("login.backoff.check",
+                () -> redisTemplate.getExpire(backoffKey, TimeUnit.MILLISECONDS), () -> null);
+        // El backoff local solo existe si la cuenta falló mientras Redis no estaba disponible
+        long remainingMs = Math.max(redisRemainingMs != null ? redisRemainingMs : 0,
+                degradedStore.getRemainingMs(backoffKey));
+
+        if (remainingMs > 0) {
+            logger.warn("Login attempt rejected, account in backoff for {} ms", remainingMs);
+            throw new LoginThrottledException("Demasiados intentos fallidos, intenta de nuevo más tarde",
+                    (remainingMs + 999) / 1000);
+        }
+    }
+
+    /**
+     * Registra un intento fallido y, pasados los intentos libres, aplica el backoff exponencial
+     *
+     * @param email Email de la cuenta
+     */
+    public void recordFailure(String email) {
+        if (email == null) {
+            return;
+        }
+
+        String account = normalize(email);
+        circuitBreaker.run("login.failure", () -> recordFailureInRedis(account), () -> recordFailureLocally(account));
+    }
+
+    private void recordFailureInRedis(String account) {
+        String failuresKey = keyspace.userKey(FAILURES_PREFIX, account);
+        Long failures = redisTemplate.opsForValue().increment(failuresKey);
+        if (failures == null) {
+            return;
+        }
+        if (failures == 1) {
+            redisTemplate.expire(failuresKey, windowSeconds, TimeUnit.SECONDS);
+        }
+        if (failures > freeAttempts) {
+            long delayMs = backoffDelayMs(failures - freeAttempts);
+            redisTemplate.opsForValue().set(keyspace.userKey(BACKOFF_PREFIX, account), String.valueOf(failures),
+                    delayMs, TimeUnit.MILLISECONDS);
+            logger.warn("Account in login backoff for {} ms after {} failures", delayMs, failures);
+        }
+    }
+
+    // Los contadores locales no se copian a Redis: solo el backoff vigente al reconciliar
+    private void recordFailureLocally(String account) {
+        long failures = degradedStore.increment(keyspace.userKey(FAILURES_PREFIX, account),
+                TimeUnit.SECONDS.toMillis(windowSeconds));
+        if (failures <= freeAttempts) {
+            return;
+        }
+
+        String backoffKey = keyspace.userKey(BACKOFF_PREFIX, account);
+        long delayMs = backoffDelayMs(failures - freeAttempts);
+        degradedStore.set(backoffKey, String.valueOf(failures), delayMs);
+        degradedStore.enqueue("login.backoff", () -> {
+            long remainingMs = degradedStore.getRemainingMs(backoffKey);
+            if (remainingMs > 0) {
+                redisTemplate.opsForValue().set(backoffKey, String.valueOf(failures), remainingMs, TimeUnit.MILLISECONDS);
+            }
+        });
+        logger.warn("Account in local login backoff for {} ms after {} failures (Redis unavailable)", delayMs, failures);
+    }
+
+    /**
+     * Limpia los intentos fallidos tras un login exitoso
+     *
+     * @param email Email de la cuenta
+     */
+    public void recordSuccess(String email) {
+        if (email == null) {
+            return;
+        }
+
+        List<String> keys = resetKeys(email);
+        degradedStore.delete(keys);
+        circuitBreaker.run("login.reset",
+                () -> redisTemplate.delete(keys),
+                () -> degradedStore.enqueue("login.reset", () -> redisTemplate.delete(keys)));
+    }
+
+    /**
+     * Claves que un login exitoso debe borrar, para incluirlas en el round trip del registro de sesión
+     *
+     * @param email Email de la cuenta
+     * @return Claves de intentos fallidos y de backoff de la cuenta
+     */
+    public List<String> resetKeys(String email) {
+        if (email == null) {
+            return List.of();
+        }
+        String account = normalize(email);
+        return List.of(keyspace.userKey(FAILURES_PREFIX, account), keyspace.userKey(BACKOFF_PREFIX, account));
+    }
+
+    /**
+     * Retardo para el n-ésimo fallo después de los intentos libres: base * 2^(n-1), acotado al máximo
+     *
+     * @param penalizedFailures Fallos por encima de los intentos libres (>= 1)
+     * @return Retardo en milisegundos
+     */
+    long backoffDelayMs(long penalizedFailures) {
+        long exponent = Math.min(penalizedFailures - 1, 30);
+        return Math.min(maxDelayMs, baseDelayMs << exponent);
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,314 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.security.AdmissionVerdict;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Motor local de token buckets sin bloqueos ni objetos por clave (innosistemas.ratelimit.engine=packed).
+ *
+ * Cada bucket es un par de longs en una tabla de direccionamiento abierto: el hash de 64 bits de la
+ * clave y el estado empaquetado (tokens e inicio del intervalo de relleno en curso). La tabla se divide
+ * en franjas de tamaño fijo y cada consumo es una lectura volátil y un compareAndSet sobre el estado,
+ * así que hilos con claves distintas no comparten nada más que la línea de caché de su par.
+ * El relleno es por intervalos, como el de bucket4j: cada periodo completo suma sus tokens de golpe.
+ *
+ * Limitaciones frente a bucket4j: dos claves con el mismo hash de 64 bits compartirían bucket (la
+ * probabilidad es despreciable con los tamaños de tabla admitidos), la capacidad efectiva se acota a
+ * {@link #MAX_TOKENS} y, con la tabla saturada, una clave nueva reutiliza el hueco usado hace más
+ * tiempo dentro de su ventana de sondeo, que vuelve a empezar lleno.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+final class PackedTokenBucketTable {
+
+    // Estado empaquetado: tokens en los bits altos, inicio del intervalo en curso (ms monotónicos desde
+    // la creación de la tabla, empezando en 1) en los bajos. 0 es un bucket sin usar, es decir, lleno
+    static final int TIME_BITS = 41;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+    static final long MAX_TOKENS = (1L << (Long.SIZE - 1 - TIME_BITS)) - 1;
+
+    // Huecos revisados desde la posición de la clave antes de reutilizar el menos reciente
+    static final int MAX_PROBES = 8;
+
+    // Los bits altos del hash eligen la franja y los bajos el hueco
+    private static final int STRIPE_SHIFT = 40;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    // Cada franja alterna hash de la clave y estado: un par ocupa 16 bytes contiguos
+    private final long[][] stripes;
+    private final int stripeMask;
+    private final int slotMask;
+    private final long baseNanos = System.nanoTime();
+    private final LongAdder reclaimed = new LongAdder();
+
+    /**
+     * @param slots Buckets totales aproximados (se redondea a potencia de 2 por franja)
+     * @param stripeCount Franjas (se redondea a potencia de 2)
+     */
+    PackedTokenBucketTable(int slots, int stripeCount) {
+        int stripeTotal = powerOfTwo(Math.max(stripeCount, 1));
+        int slotsPerStripe = powerOfTwo(Math.max(slots / stripeTotal, MAX_PROBES));
+        this.stripes = new long[stripeTotal][slotsPerStripe * 2];
+        this.stripeMask = stripeTotal - 1;
+        this.slotMask = slotsPerStripe - 1;
+    }
+
+    /**
+     * Consume tokens del bucket de una clave con la política indicada
+     *
+     * @param policy Política vigente; si cambió desde el último consumo el bucket la adopta con sus tokens
+     * @param key Clave sin el prefijo de la política
+     * @param tokens Tokens a consumir
+     * @return Veredicto ALLOWED o RATE_LIMITED con capacidad, tokens restantes y espera
+     */
+    AdmissionVerdict consume(RateLimitPolicy policy, String key, long tokens) {
+        return consume(policy, key, tokens, nowMillis());
+    }
+
+    AdmissionVerdict consume(RateLimitPolicy policy, String key, long tokens, long now) {
+        long hash = hash(policy.getBucketPrefix(), key);
+        long[] stripe = stripes[stripeOf(hash)];
+        int index = claim(stripe, hash);
+        long capacity = Math.min(policy.getCapacity(), MAX_TOKENS);
+        long refillTokens = policy.getRefillTokens();
+        long periodMillis = Math.max(policy.getRefillPeriod().toMillis(), 1);
+
+        for (;;) {
+            long state = (long) SLOTS.getVolatile(stripe, index + 1);
+            // Otra clave pudo reutilizar el hueco desde que se reservó: el estado leído sería el de su bucket
+            if ((long) SLOTS.getVolatile(stripe, index) != hash) {
+                index = claim(stripe, hash);
+                continue;
+            }
+            long available = available(state, capacity, refillTokens, periodMillis, now);
+            // Un bucket lleno empieza su intervalo de relleno con el primer consumo
+            long start = available == capacity ? now : intervalStart(state, periodMillis, now);
+
+            if (available < tokens) {
+                // Rechazar no cambia el bucket: el relleno se vuelve a calcular desde el mismo estado
+                long periods = (tokens - available + refillTokens - 1) / refillTokens;
+                long waitMillis = Math.max(start + periods * periodMillis - now, 0);
+                return new AdmissionVerdict(AdmissionVerdict.Outcome.RATE_LIMITED, capacity, available, waitMillis);
+            }
+            long remaining = available - tokens;
+            if (SLOTS.compareAndSet(stripe, index + 1, state, (remaining << TIME_BITS) | start)) {
+                return new AdmissionVerdict(AdmissionVerdict.Outcome.ALLOWED, capacity, remaining, 0);
+            }
+        }
+    }
+
+    /**
+     * Tokens disponibles para una clave sin consumir ni reservar hueco
+     *
+     * @param policy Política con la que se evalúa el bucket
+     * @param bucketKey Clave completa del bucket (con el prefijo de la política)
+     * @return Tokens disponibles, o la capacidad si la clave no tiene bucket
+     */
+    long available(RateLimitPolicy policy, String bucketKey) {
+        long hash = hash("", bucketKey);
+        long[] stripe = stripes[stripeOf(hash)];
+        int index = find(stripe, hash);
+        long capacity = Math.min(policy.getCapacity(), MAX_TOKENS);
+        if (index < 0) {
+            return capacity;
+        }
+        long state = (long) SLOTS.getVolatile(stripe, index + 1);
+        return available(state, capacity, policy.getRefillTokens(), Math.max(policy.getRefillPeriod().toMillis(), 1),
+                nowMillis());
+    }
+
+    /**
+     * Indica si una clave tiene bucket en la tabla
+     *
+     * @param bucketKey Clave completa del bucket
+     * @return true si tiene hueco asignado
+     */
+    boolean contains(String bucketKey) {
+        long hash = hash("", bucketKey);
+        return find(stripes[stripeOf(hash)], hash) >= 0;
+    }
+
+    /**
+     * Deja lleno el bucket de una clave
+     *
+     * @param bucketKey Clave completa del bucket
+     */
+    void reset(String bucketKey) {
+        long hash = hash("", bucketKey);
+        long[] stripe = stripes[stripeOf(hash)];
+        int index = find(stripe, hash);
+        if (index >= 0) {
+            SLOTS.setVolatile(stripe, index + 1, 0L);
+        }
+    }
+
+    /**
+     * Vacía la tabla. No es atómico respecto a consumos concurrentes (uso administrativo)
+     */
+    void clear() {
+        for (long[] stripe : stripes) {
+            for (int i = 0; i < stripe.length; i += 2) {
+                SLOTS.setVolatile(stripe, i + 1, 0L);
+                SLOTS.setVolatile(stripe, i, 0L);
+            }
+        }
+    }
+
+    /**
+     * Huecos ocupados, recorriendo la tabla completa
+     *
+     * @return Buckets con clave asignada
+     */
+    long size() {
+        long size = 0;
+        for (long[] stripe : stripes) {
+            for (int i = 0; i < stripe.length; i += 2) {
+                if ((long) SLOTS.getVolatile(stripe, i) != 0) {
+                    size++;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Huecos reutilizados por falta de espacio en la ventana de sondeo
+     *
+     * @return Total desde la creación de la tabla
+     */
+    long getReclaimedCount() {
+        return reclaimed.sum();
+    }
+
+    private static long available(long state, long capacity, long refillTokens, long periodMillis, long now) {
+        if (state == 0) {
+            return capacity;
+        }
+        long tokens = state >>> TIME_BITS;
+        long start = state & TIME_MASK;
+        long periods = now > start ? (now - start) / periodMillis : 0;
+        if (periods > 0) {
+            // Sin multiplicar si bastan para llenarlo: periods * refillTokens podría desbordar
+            tokens = periods >= (capacity + refillTokens - 1) / refillTokens
+                    ? capacity
+                    : tokens + periods * refillTokens;
+        }
+        // Una política con menos capacidad recorta los tokens acumulados
+        return Math.min(tokens, capacity);
+    }
+
+    private static long intervalStart(long state, long periodMillis, long now) {
+        long start = state & TIME_MASK;
+        return now > start ? start + (now - start) / periodMillis * periodMillis : start;
+    }
+
+    /**
+     * Posición del par de una clave, reservando un hueco libre o reutilizando el menos reciente de
+     * su ventana si no tiene
+     */
+    private int claim(long[] stripe, long hash) {
+        int first = (int) hash & slotMask;
+        for (;;) {
+            for (int probe = 0; probe < MAX_PROBES; probe++) {
+                int index = ((first + probe) & slotMask) << 1;
+                long current = (long) SLOTS.getVolatile(stripe, index);
+                if (current == 0) {
+                    // Otro hilo puede ganar el hueco, quizá con la misma clave
+                    current = (long) SLOTS.compareAndExchange(stripe, index, 0L, hash);
+                    if (current == 0) {
+                        return index;
+                    }
+                }
+                if (current == hash) {
+                    return index;
+                }
+            }
+            int index = reclaim(stripe, first, hash);
+            if (index >= 0) {
+                return index;
+            }
+        }
+    }
+
+    /**
+     * Reutiliza el hueco de la ventana cuyo intervalo de relleno empezó hace más tiempo. Primero se
+     * deja lleno el estado y después se cambia la clave: quien encuentre la clave nueva ya ve un bucket lleno
+     */
+    private int reclaim(long[] stripe, int first, long hash) {
+        int victim = 0;
+        long oldest = Long.MAX_VALUE;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int index = ((first + probe) & slotMask) << 1;
+            long start = (long) SLOTS.getVolatile(stripe, index + 1) & TIME_MASK;
+            if (start < oldest) {
+                oldest = start;
+                victim = index;
+            }
+        }
+        long victimHash = (long) SLOTS.getVolatile(stripe, victim);
+        long victimState = (long) SLOTS.getVolatile(stripe, victim + 1);
+        if (victimHash == hash) {
+            return victim;
+        }
+        if (SLOTS.compareAndSet(stripe, victim + 1, victimState, 0L)
+                && SLOTS.compareAndSet(stripe, victim, victimHash, hash)) {
+            reclaimed.increment();
+            return victim;
+        }
+        return -1;
+    }
+
+    private int find(long[] stripe, long hash) {
+        int first = (int) hash & slotMask;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int index = ((first + probe) & slotMask) << 1;
+            long current = (long) SLOTS.getVolatile(stripe, index);
+            if (current == hash) {
+                return index;
+            }
+            if (current == 0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private int stripeOf(long hash) {
+        return (int) (hash >>> STRIPE_SHIFT) & stripeMask;
+    }
+
+    /**
+     * Hash de 64 bits de prefijo + clave sin concatenarlos (FNV-1a con mezcla final de MurmurHash3).
+     * Es el mismo que el de la clave completa, así que "auth:" + "ip:1.2.3.4" coincide con "auth:ip:1.2.3.4".
+     * El 0 marca los huecos libres y nunca se devuelve
+     */
+    static long hash(String prefix, String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < prefix.length(); i++) {
+            hash = (hash ^ prefix.charAt(i)) * 0x100000001b3L;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash != 0 ? hash : 1;
+    }
+
+    private long nowMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - baseNanos) + 1;
+    }
+
+    private static int powerOfTwo(int value) {
+        return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+}
@@ -0,0 +1,120 @@
+package com.udea.innosistemas.service;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+
+/**
+ * Política de rate limiting: tamaño del token bucket y ritmo de relleno.
+ * Las políticas de un rol comparten el bucket general de la clave (usuario o IP); las de una
+ * operación o ruta usan un bucket propio, con el nombre de la política como prefijo de la clave.
+ * Es inmutable: una recarga de políticas crea instancias nuevas y los buckets existentes adoptan
+ * la nueva configuración conservando sus tokens.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public final class RateLimitPolicy {
+
+    private final String name;
+    private final long capacity;
+    private final long refillTokens;
+    private final Duration refillPeriod;
+    private final long refillPeriodNanos;
+    private final String bucketPrefix;
+
+    RateLimitPolicy(String name, long capacity, long refillTokens, Duration refillPeriod, String bucketPrefix) {
+        if (capacity <= 0 || refillTokens <= 0 || refillPeriod.isZero() || refillPeriod.isNegative()) {
+            throw new IllegalArgumentException("Invalid rate limit policy '" + name + "': capacity, refill tokens "
+                    + "and refill period must be positive");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.refillTokens = refillTokens;
+        this.refillPeriod = refillPeriod;
+        this.refillPeriodNanos = refillPeriod.toNanos();
+        this.bucketPrefix = bucketPrefix;
+    }
+
+    /**
+     * Crea una política a partir de su especificación "capacidad:tokens-de-relleno:periodo",
+     * por ejemplo "500:500:1m" (el periodo admite el formato de duraciones de Spring: 30s, 1m, PT1M)
+     *
+     * @param name Nombre de la política
+     * @param spec Especificación
+     * @param bucketPrefix Prefijo de la clave del bucket ("" para el bucket general)
+     * @return Política
+     * @throws IllegalArgumentException si la especificación no es válida
+     */
+    public static RateLimitPolicy parse(String name, String spec, String bucketPrefix) {
+        String[] parts = spec.trim().split(":");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid rate limit policy '" + name + "': expected "
+                    + "capacity:refill-tokens:refill-period but was '" + spec + "'");
+        }
+        try {
+            return new RateLimitPolicy(name, Long.parseLong(parts[0].trim()), Long.parseLong(parts[1].trim()),
+                    DurationStyle.detectAndParse(parts[2].trim()), bucketPrefix);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid rate limit policy '" + name + "': '" + spec + "'", e);
+        }
+    }
+
+    /**
+     * La misma política con otro prefijo de bucket
+     *
+     * @param bucketPrefix Prefijo de la clave del bucket
+     * @return Política con el prefijo indicado
+     */
+    RateLimitPolicy withBucketPrefix(String bucketPrefix) {
+        return new RateLimitPolicy(name, capacity, refillTokens, refillPeriod, bucketPrefix);
+    }
+
+    /**
+     * Clave del bucket de esta política para una clave de rate limiting
+     *
+     * @param key Clave del usuario o IP
+     * @return Clave con el prefijo de la política, o la misma clave para el bucket general
+     */
+    public String bucketKey(String key) {
+        return bucketPrefix.isEmpty() ? key : bucketPrefix + key;
+    }
+
+    /**
+     * Indica si la política tiene el mismo tamaño y ritmo que otra
+     *
+     * @param capacity Capacidad
+     * @param refillTokens Tokens por intervalo
+     * @param refillPeriodNanos Intervalo de relleno en nanosegundos
+     * @return true si coinciden
+     */
+    boolean hasLimits(long capacity, long refillTokens, long refillPeriodNanos) {
+        return this.capacity == capacity && this.refillTokens == refillTokens
+                && this.refillPeriodNanos == refillPeriodNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getRefillTokens() {
+        return refillTokens;
+    }
+
+    public Duration getRefillPeriod() {
+        return refillPeriod;
+    }
+
+    public String getBucketPrefix() {
+        return bucketPrefix;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + capacity + " tokens, " + refillTokens + " every " + refillPeriod + ")";
+    }
+}
@@ -0,0 +1,282 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.config.properties.RateLimitPolicyProperties;
+import com.udea.innosistemas.entity.UserRole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tabla de políticas de rate limiting por rol y por operación GraphQL o ruta REST.
+ *
+ * La tabla base sale de la configuración (innosistemas.ratelimit.policies, ver
+ * {@link RateLimitPolicyProperties}) y se puede cambiar en caliente con el hash de Redis
+ * "ratelimit:policies", que todos los nodos releen cada innosistemas.ratelimit.policies.reload-interval-ms.
+ * Campos del hash: "definition:&lt;nombre&gt;" -&gt; "capacidad:relleno:periodo", "role:&lt;ROL&gt;" -&gt; política
+ * y "operation:&lt;operación&gt;" (o "operation:&lt;ROL&gt;:&lt;operación&gt;") -&gt; política.
+ * Una recarga con errores se descarta completa y se conserva la tabla anterior.
+ *
+ * La tabla es inmutable y se reemplaza de una vez: resolver una política es una lectura volátil,
+ * un recorrido de los roles y como mucho una búsqueda en un HashMap, sin crear objetos.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Service
+public class RateLimitPolicyRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitPolicyRegistry.class);
+    static final String POLICIES_KEY = "ratelimit:policies";
+    public static final String DEFAULT_POLICY = "default";
+    public static final String AUTH_POLICY = "auth";
+    static final String ANONYMOUS = "anonymous";
+
+    // UserRole.values() copia el arreglo en cada llamada
+    private static final UserRole[] ROLES = UserRole.values();
+
+    /**
+     * Políticas resueltas: por rol (posición 0 = anónimo, 1 + ordinal del rol) y por operación,
+     * con la política más específica ya calculada para cada rol
+     */
+    private static final class PolicyTable {
+
+        private final RateLimitPolicy[] roles;
+        private final Map<String, RateLimitPolicy[]> operations;
+        private final RateLimitPolicy defaultPolicy;
+        private final RateLimitPolicy authPolicy;
+
+        private PolicyTable(RateLimitPolicy[] roles, Map<String, RateLimitPolicy[]> operations,
+                            RateLimitPolicy defaultPolicy, RateLimitPolicy authPolicy) {
+            this.roles = roles;
+            this.operations = operations;
+            this.defaultPolicy = defaultPolicy;
+            this.authPolicy = authPolicy;
+        }
+    }
+
+    @Value("${innosistemas.ratelimit.default.capacity:100}")
+    private long defaultCapacity;
+
+    @Value("${innosistemas.ratelimit.default.refill-tokens:100}")
+    private long defaultRefillTokens;
+
+    @Value("${innosistemas.ratelimit.default.refill-period-minutes:1}")
+    private long defaultRefillPeriodMinutes;
+
+    @Value("${innosistemas.ratelimit.auth.capacity:10}")
+    private long authCapacity;
+
+    @Value("${innosistemas.ratelimit.auth.refill-tokens:10}")
+    private long authRefillTokens;
+
+    @Value("${innosistemas.ratelimit.auth.refill-period-minutes:1}")
+    private long authRefillPeriodMinutes;
+
+    @Autowired(required = false)
+    private RateLimitPolicyProperties properties;
+
+    @Autowired(required = false)
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired(required = false)
+    private RedisCircuitBreaker circuitBreaker;
+
+    private volatile PolicyTable table;
+
+    // Overrides de Redis con los que se construyó la tabla actual
+    private Map<Object, Object> appliedOverrides = Map.of();
+
+    @PostConstruct
+    void init() {
+        this.table = build(Map.of());
+        logger.info("Rate limit policies loaded: {} roles, {} operations", ROLES.length + 1, table.operations.size());
+    }
+
+    /**
+     * Relee las políticas modificadas en Redis y reemplaza la tabla si cambiaron.
+     * Los buckets existentes conservan sus tokens al adoptar la nueva política.
+     */
+    @Scheduled(fixedDelayString = "${innosistemas.ratelimit.policies.reload-interval-ms:30000}",
+            initialDelayString = "${innosistemas.ratelimit.policies.reload-interval-ms:30000}")
+    public void reload() {
+        if (redisTemplate == null || circuitBreaker == null) {
+            return;
+        }
+        Map<Object, Object> overrides = circuitBreaker.execute("ratelimit.policies",
+                () -> redisTemplate.opsForHash().entries(POLICIES_KEY),
+                () -> null);
+        if (overrides == null || overrides.equals(appliedOverrides)) {
+            return;
+        }
+        try {
+            this.table = build(overrides);
+            this.appliedOverrides = overrides;
+            logger.info("Rate limit policies reloaded with {} overrides from Redis", overrides.size());
+        } catch (IllegalArgumentException e) {
+            logger.error("Ignoring rate limit policy overrides from Redis: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Resuelve la política que aplica a un rol en una operación
+     *
+     * @param role Nombre del rol (STUDENT, TA, PROFESSOR, ADMIN), o null/desconocido para anónimos
+     * @param operation Campo raíz GraphQL o ruta REST, o null para la política del rol
+     * @return Política de la operación para ese rol, o la del rol si la operación no tiene una propia
+     */
+    public RateLimitPolicy resolve(String role, String operation) {
+        PolicyTable current = table;
+        int slot = slotOf(role);
+        if (operation != null) {
+            RateLimitPolicy[] policies = current.operations.get(operation);
+            if (policies != null && policies[slot] != null) {
+                return policies[slot];
+            }
+        }
+        return current.roles[slot];
+    }
+
+    /**
+     * Política "default" sobre el bucket general de la clave
+     *
+     * @return Política por defecto
+     */
+    public RateLimitPolicy getDefaultPolicy() {
+        return table.defaultPolicy;
+    }
+
+    /**
+     * Política "auth" sobre su propio bucket (prefijo "auth:")
+     *
+     * @return Política de autenticación
+     */
+    public RateLimitPolicy getAuthPolicy() {
+        return table.authPolicy;
+    }
+
+    private static int slotOf(String role) {
+        if (role != null) {
+            for (int i = 0; i < ROLES.length; i++) {
+                if (ROLES[i].name().equals(role)) {
+                    return i + 1;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private PolicyTable build(Map<Object, Object> overrides) {
+        Map<String, String> definitions = new LinkedHashMap<>();
+        definitions.put(DEFAULT_POLICY, defaultCapacity + ":" + defaultRefillTokens + ":" + defaultRefillPeriodMinutes + "m");
+        definitions.put(AUTH_POLICY, authCapacity + ":" + authRefillTokens + ":" + authRefillPeriodMinutes + "m");
+        Map<String, String> roles = new LinkedHashMap<>();
+        Map<String, String> operations = new LinkedHashMap<>();
+        // Las mutations y rutas de autenticación usan el bucket estricto salvo que se configure otra cosa
+        operations.put("login", AUTH_POLICY);
+        operations.put("refreshToken", AUTH_POLICY);
+        operations.put("/auth/login", AUTH_POLICY);
+        operations.put("/auth/refresh", AUTH_POLICY);
+        operations.put("/auth/register", AUTH_POLICY);
+
+        if (properties != null) {
+            definitions.putAll(properties.getDefinitions());
+            roles.putAll(properties.getRoles());
+            operations.putAll(properties.getOperations());
+        }
+        for (Map.Entry<Object, Object> override : overrides.entrySet()) {
+            String field = String.valueOf(override.getKey());
+            String value = String.valueOf(override.getValue());
+            if (field.startsWith("definition:")) {
+                definitions.put(field.substring("definition:".length()), value);
+            } else if (field.startsWith("role:")) {
+                roles.put(field.substring("role:".length()), value);
+            } else if (field.startsWith("operation:")) {
+                operations.put(field.substring("operation:".length()), value);
+            } else {
+                throw new IllegalArgumentException("Unknown rate limit policy field: " + field);
+            }
+        }
+
+        // Las políticas de rol usan el bucket general; las de operación, uno propio con su nombre como prefijo
+        Map<String, RateLimitPolicy> rolePolicies = new HashMap<>();
+        Map<String, RateLimitPolicy> operationPolicies = new HashMap<>();
+        for (Map.Entry<String, String> definition : definitions.entrySet()) {
+            RateLimitPolicy policy = RateLimitPolicy.parse(definition.getKey(), definition.getValue(), "");
+            rolePolicies.put(definition.getKey(), policy);
+            operationPolicies.put(definition.getKey(), policy.withBucketPrefix(definition.getKey() + ":"));
+        }
+
+        RateLimitPolicy[] roleTable = new RateLimitPolicy[ROLES.length + 1];
+        roleTable[0] = policy(rolePolicies, roles.getOrDefault(ANONYMOUS, DEFAULT_POLICY));
+        for (UserRole role : ROLES) {
+            roleTable[role.ordinal() + 1] = policy(rolePolicies, roleValue(roles, role));
+        }
+
+        Map<String, RateLimitPolicy[]> operationTable = new HashMap<>();
+        // Primero las de todos los roles y después las de un rol, que son más específicas
+        for (Map.Entry<String, String> operation : operations.entrySet()) {
+            if (roleOf(operation.getKey()) == null) {
+                RateLimitPolicy[] policies = operationTable.computeIfAbsent(operation.getKey(),
+                        key -> new RateLimitPolicy[ROLES.length + 1]);
+                Arrays.fill(policies, policy(operationPolicies, operation.getValue()));
+            }
+        }
+        for (Map.Entry<String, String> operation : operations.entrySet()) {
+            UserRole role = roleOf(operation.getKey());
+            if (role != null) {
+                String name = operation.getKey().substring(operation.getKey().indexOf(':') + 1);
+                RateLimitPolicy[] policies = operationTable.computeIfAbsent(name,
+                        key -> new RateLimitPolicy[ROLES.length + 1]);
+                policies[role.ordinal() + 1] = policy(operationPolicies, operation.getValue());
+            }
+        }
+
+        return new PolicyTable(roleTable, operationTable,
+                rolePolicies.get(DEFAULT_POLICY), operationPolicies.get(AUTH_POLICY));
+    }
+
+    private static String roleValue(Map<String, String> roles, UserRole role) {
+        for (Map.Entry<String, String> entry : roles.entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(role.name())) {
+                return entry.getValue();
+            }
+        }
+        return DEFAULT_POLICY;
+    }
+
+    /**
+     * Rol de una clave "ROL:operación"; las rutas REST empiezan por "/" y nunca llevan rol
+     */
+    private static UserRole roleOf(String operationKey) {
+        int separator = operationKey.indexOf(':');
+        if (separator <= 0 || operationKey.startsWith("/")) {
+            return null;
+        }
+        String prefix = operationKey.substring(0, separator).toUpperCase(Locale.ROOT);
+        for (UserRole role : ROLES) {
+            if (role.name().equals(prefix)) {
+                return role;
+            }
+        }
+        return null;
+    }
+
+    private static RateLimitPolicy policy(Map<String, RateLimitPolicy> policies, String name) {
+        RateLimitPolicy policy = policies.get(name.trim());
+        if (policy == null) {
+            throw new IllegalArgumentException("Unknown rate limit policy: " + name);
+        }
+        return policy;
+    }
+}
@@ -1,20 +1,48 @@
 package com.udea.innosistemas.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.udea.innosistemas.security.AdmissionVerdict;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
+import io.github.bucket4j.TokensInheritanceStrategy;
+import io.github.bucket4j.local.LocalBucket;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
 import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Servicio de Rate Limiting para controlar el número de peticiones por usuario.
  * Utiliza algoritmo Token Bucket con Bucket4j y caché local en memoria.
- * Soporta diferentes límites por tipo de usuario y endpoint.
+ * Los límites salen de {@link RateLimitPolicyRegistry} (por rol y por operación GraphQL o ruta REST);
+ * cuando la tabla de políticas se recarga, cada bucket adopta la nueva política en su siguiente uso
+ * conservando sus tokens.
+ * Con innosistemas.ratelimit.mode=distributed el límite es global para todos los nodos
+ * ({@link DistributedRateLimiter}) y el bucket local solo se usa si Redis no está disponible.
+ *
+ * El registro de buckets está acotado. Un bucket sin uso durante
+ * innosistemas.ratelimit.registry.active-idle-seconds sale del registro activo: si está lleno se
+ * descarta (equivale a uno nuevo) y si no, se conserva como un solo long (tokens e instante en que
+ * estaría lleno) en el registro inactivo, que lo descarta en ese instante. Así una IP que rota
+ * X-Forwarded-For no deja un objeto Bucket vivo para siempre, y volver antes de tiempo no regala tokens.
+ *
+ * Con innosistemas.ratelimit.engine=packed los buckets locales no son objetos de bucket4j sino pares de
+ * longs en una tabla de tamaño fijo actualizada con CAS ({@link PackedTokenBucketTable}): sin bloqueos ni
+ * objetos por clave, a cambio de acotar la capacidad y de reutilizar huecos si la tabla se satura.
  *
  * Autor: Fábrica-Escuela de Software UdeA
  * Versión: 1.0.0
@@ -23,8 +51,17 @@ import java.util.concurrent.ConcurrentHashMap;
 public class RateLimitingService {
 
     private static final Logger logger = LoggerFactory.getLogger(RateLimitingService.class);
+    public static final String AUTH_KEY_PREFIX = "auth:";
+    public static final String MODE_LOCAL = "local";
+    public static final String MODE_DISTRIBUTED = "distributed";
+    public static final String ENGINE_BUCKET4J = "bucket4j";
+    public static final String ENGINE_PACKED = "packed";
 
-    private final Map<String, Bucket> localCache = new ConcurrentHashMap<>();
+    // Estado inactivo empaquetado en un long: tokens en los bits altos, instante en que estaría lleno
+    // (ms desde baseMillis) en los bajos
+    private static final int IDLE_TIME_BITS = 42;
+    private static final long IDLE_TIME_MASK = (1L << IDLE_TIME_BITS) - 1;
+    private static final long MAX_IDLE_TOKENS = (1L << (Long.SIZE - 1 - IDLE_TIME_BITS)) - 1;
 
     @Value("${innosistemas.ratelimit.enabled:true}")
     private boolean rateLimitEnabled;
@@ -47,6 +84,110 @@ public class RateLimitingService {
     @Value("${innosistemas.ratelimit.auth.refill-period-minutes:1}")
     private long authRefillPeriodMinutes;
 
+    // local: límites por nodo; distributed: límite global en Redis con tokens prestados por lotes
+    @Value("${innosistemas.ratelimit.mode:local}")
+    private String mode;
+
+    // bucket4j: un Bucket por clave en registros de Caffeine; packed: tabla de longs sin bloqueos
+    @Value("${innosistemas.ratelimit.engine:bucket4j}")
+    private String engine;
+
+    @Value("${innosistemas.ratelimit.packed.slots:131072}")
+    private int packedSlots;
+
+    @Value("${innosistemas.ratelimit.packed.stripes:64}")
+    private int packedStripes;
+
+    @Autowired(required = false)
+    private DistributedRateLimiter distributedRateLimiter;
+
+    @Autowired(required = false)
+    private RateLimitPolicyRegistry policyRegistry;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${innosistemas.ratelimit.registry.max-active:100000}")
+    private long maxActiveBuckets;
+
+    @Value("${innosistemas.ratelimit.registry.active-idle-seconds:60}")
+    private long activeIdleSeconds;
+
+    @Value("${innosistemas.ratelimit.registry.max-idle:500000}")
+    private long maxIdleBuckets;
+
+    // Buckets en uso
+    private Cache<String, LocalBucket> activeBuckets;
+
+    // Buckets inactivos aún sin llenar, empaquetados
+    private Cache<String, Long> idleBuckets;
+
+    // Motor packed; null con bucket4j
+    private PackedTokenBucketTable packedBuckets;
+
+    private final long baseMillis = System.currentTimeMillis();
+
+    // Políticas de los niveles default y auth sin tabla de políticas (la configuración de este servicio)
+    private RateLimitPolicy defaultPolicy;
+    private RateLimitPolicy authPolicy;
+
+    @PostConstruct
+    void init() {
+        this.defaultPolicy = new RateLimitPolicy(RateLimitPolicyRegistry.DEFAULT_POLICY, defaultCapacity,
+                defaultRefillTokens, Duration.ofMinutes(defaultRefillPeriodMinutes), "");
+        this.authPolicy = new RateLimitPolicy(RateLimitPolicyRegistry.AUTH_POLICY, authCapacity,
+                authRefillTokens, Duration.ofMinutes(authRefillPeriodMinutes), AUTH_KEY_PREFIX);
+        this.activeBuckets = Caffeine.newBuilder()
+                .maximumSize(maxActiveBuckets)
+                .expireAfterAccess(Duration.ofSeconds(activeIdleSeconds))
+                .scheduler(Scheduler.systemScheduler())
+                // Se ejecuta dentro de la expulsión: una petición concurrente de la misma clave ya ve el estado inactivo
+                .evictionListener((String key, LocalBucket bucket, RemovalCause cause) -> deactivate(key, bucket, cause))
+                .build();
+        this.idleBuckets = Caffeine.newBuilder()
+                .maximumSize(maxIdleBuckets)
+                .expireAfter(new Expiry<String, Long>() {
+                    @Override
+                    public long expireAfterCreate(String key, Long state, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(millisUntilFull(state));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Long state, long currentTime, long currentDuration) {
+                        return TimeUnit.MILLISECONDS.toNanos(millisUntilFull(state));
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Long state, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .scheduler(Scheduler.systemScheduler())
+                .evictionListener((String key, Long state, RemovalCause cause) -> recordEviction("idle", cause))
+                .build();
+        if (ENGINE_PACKED.equalsIgnoreCase(engine)) {
+            this.packedBuckets = new PackedTokenBucketTable(packedSlots, packedStripes);
+            logger.info("Rate limiting with packed local engine ({} slots in {} stripes)", packedSlots, packedStripes);
+        }
+
+        if (meterRegistry != null) {
+            Gauge.builder("ratelimit.buckets", this, RateLimitingService::getActiveBucketCount)
+                    .tag("state", "active")
+                    .description("Buckets de rate limiting en uso")
+                    .register(meterRegistry);
+            Gauge.builder("ratelimit.buckets", this, service -> service.idleBuckets.estimatedSize())
+                    .tag("state", "idle")
+                    .description("Buckets inactivos conservados hasta volver a llenarse")
+                    .register(meterRegistry);
+            if (packedBuckets != null) {
+                FunctionCounter.builder("ratelimit.buckets.evicted", packedBuckets, PackedTokenBucketTable::getReclaimedCount)
+                        .tags("state", "packed", "cause", RemovalCause.SIZE.name())
+                        .description("Huecos de la tabla packed reutilizados por falta de espacio")
+                        .register(meterRegistry);
+            }
+        }
+    }
+
     /**
      * Verifica si el usuario puede realizar una petición (consume 1 token)
      *
@@ -65,66 +206,111 @@ public class RateLimitingService {
      * @return true si la petición es permitida, false si excede el límite
      */
     public boolean allowRequest(String key, long tokens) {
-        if (!rateLimitEnabled) {
-            return true;
-        }
-
-        try {
-            Bucket bucket = resolveBucket(key);
-            boolean allowed = bucket.tryConsume(tokens);
-
-            if (!allowed) {
-                logger.warn("Rate limit exceeded for key: {}", key);
-            }
-
-            return allowed;
-        } catch (Exception e) {
-            logger.error("Error checking rate limit for key {}: {}", key, e.getMessage());
-            // En caso de error, permitir la petición por defecto (fail-open)
-            return true;
-        }
+        return !consume(key, false, tokens).isRateLimited();
     }
 
     /**
-     * Obtiene o crea un bucket para una clave específica
+     * Obtiene o crea el bucket de una clave, reactivando su estado inactivo si lo tiene. Si la
+     * política cambió desde que se creó (recarga de la tabla), el bucket la adopta con sus tokens actuales
      *
-     * @param key Clave única
+     * @param key Clave del bucket (con el prefijo de la política)
+     * @param policy Política vigente para la clave
      * @return Bucket configurado
      */
-    private Bucket resolveBucket(String key) {
-        return localCache.computeIfAbsent(key, k -> createNewBucket());
+    private LocalBucket resolveBucket(String key, RateLimitPolicy policy) {
+        LocalBucket bucket = activeBuckets.get(key, bucketKey -> activate(bucketKey, policy));
+        Bandwidth limit = bucket.getConfiguration().getBandwidths()[0];
+        if (!policy.hasLimits(limit.getCapacity(), limit.getRefillTokens(), limit.getRefillPeriodNanos())) {
+            bucket.replaceConfiguration(BucketConfiguration.builder().addLimit(bandwidth(policy, policy.getCapacity())).build(),
+                    TokensInheritanceStrategy.AS_IS);
+        }
+        return bucket;
     }
 
-    /**
-     * Crea un nuevo bucket con configuración por defecto
-     *
-     * @return Bucket configurado
-     */
-    private Bucket createNewBucket() {
-        Bandwidth limit = Bandwidth.builder()
-                .capacity(defaultCapacity)
-                .refillIntervally(defaultRefillTokens, Duration.ofMinutes(defaultRefillPeriodMinutes))
-                .build();
+    private LocalBucket activate(String key, RateLimitPolicy policy) {
+        Long state = idleBuckets.asMap().remove(key);
+        long tokens = state != null ? refilledTokens(state, policy) : policy.getCapacity();
         return Bucket.builder()
-                .addLimit(limit)
+                .addLimit(bandwidth(policy, tokens))
                 .build();
     }
 
     /**
-     * Crea un bucket para endpoints de autenticación (límites más estrictos)
+     * Límite de bucket4j de una política
      *
-     * @return Bucket configurado para auth
+     * @param policy Política
+     * @param initialTokens Tokens con los que empieza el bucket
+     * @return Bandwidth configurado
      */
-    private Bucket createAuthBucket() {
-        Bandwidth limit = Bandwidth.builder()
-                .capacity(authCapacity)
-                .refillIntervally(authRefillTokens, Duration.ofMinutes(authRefillPeriodMinutes))
-                .build();
-        return Bucket.builder()
-                .addLimit(limit)
+    private static Bandwidth bandwidth(RateLimitPolicy policy, long initialTokens) {
+        return Bandwidth.builder()
+                .capacity(policy.getCapacity())
+                .refillIntervally(policy.getRefillTokens(), policy.getRefillPeriod())
+                .initialTokens(initialTokens)
                 .build();
     }
 
+    /**
+     * Pasa un bucket expulsado del registro activo al inactivo, salvo que ya esté lleno
+     */
+    private void deactivate(String key, LocalBucket bucket, RemovalCause cause) {
+        recordEviction("active", cause);
+        if (key == null || bucket == null) {
+            return;
+        }
+        Bandwidth limit = bucket.getConfiguration().getBandwidths()[0];
+        long tokens = bucket.getAvailableTokens();
+        if (tokens < limit.getCapacity() && tokens >= 0 && tokens <= MAX_IDLE_TOKENS) {
+            long periodMillis = TimeUnit.NANOSECONDS.toMillis(limit.getRefillPeriodNanos());
+            long fullAt = nowMillis() + periodsToRefill(limit.getCapacity() - tokens, limit.getRefillTokens()) * periodMillis;
+            idleBuckets.put(key, (tokens << IDLE_TIME_BITS) | (fullAt & IDLE_TIME_MASK));
+        }
+    }
+
+    /**
+     * Tokens de un bucket inactivo en este instante: los que tenía más los intervalos ya transcurridos
+     * de los que necesitaba para llenarse
+     */
+    private long refilledTokens(long state, RateLimitPolicy policy) {
+        long tokens = state >>> IDLE_TIME_BITS;
+        long periodMillis = policy.getRefillPeriod().toMillis();
+        long pendingPeriods = (millisUntilFull(state) + periodMillis - 1) / periodMillis;
+        long elapsedPeriods = Math.max(periodsToRefill(policy.getCapacity() - tokens, policy.getRefillTokens()) - pendingPeriods, 0);
+        return Math.min(policy.getCapacity(), tokens + elapsedPeriods * policy.getRefillTokens());
+    }
+
+    private static long periodsToRefill(long missingTokens, long refillTokens) {
+        long refill = Math.max(refillTokens, 1);
+        return Math.max((missingTokens + refill - 1) / refill, 0);
+    }
+
+    private long millisUntilFull(long state) {
+        return Math.max((state & IDLE_TIME_MASK) - nowMillis(), 0);
+    }
+
+    private long nowMillis() {
+        return System.currentTimeMillis() - baseMillis;
+    }
+
+    private static boolean isAuthKey(String key) {
+        return key.startsWith(AUTH_KEY_PREFIX);
+    }
+
+    // Clave con el prefijo "auth:" de los métodos administrativos sin política: nivel y clave sin prefijo
+    private RateLimitPolicy tierPolicy(String key) {
+        return getPolicy(isAuthKey(key));
+    }
+
+    private static String tierKey(String key) {
+        return isAuthKey(key) ? key.substring(AUTH_KEY_PREFIX.length()) : key;
+    }
+
+    private void recordEviction(String state, RemovalCause cause) {
+        if (meterRegistry != null) {
+            meterRegistry.counter("ratelimit.buckets.evicted", "state", state, "cause", cause.name()).increment();
+        }
+    }
+
     /**
      * Verifica límite para operaciones de autenticación (login, refresh token)
      *
@@ -132,39 +318,137 @@ public class RateLimitingService {
      * @return true si permitido
      */
     public boolean allowAuthRequest(String key) {
+        return !consume(key, true, 1).isRateLimited();
+    }
+
+    /**
+     * Consume tokens del nivel default o auth y devuelve el estado del bucket
+     *
+     * @param key Clave única del usuario
+     * @param authTier true para el bucket estricto de autenticación
+     * @param tokens Número de tokens a consumir
+     * @return Veredicto ALLOWED o RATE_LIMITED con capacidad, tokens restantes y espera
+     */
+    public AdmissionVerdict consume(String key, boolean authTier, long tokens) {
+        return consume(key, getPolicy(authTier), tokens);
+    }
+
+    /**
+     * Consume tokens y devuelve el estado del bucket en una sola operación: permite responder
+     * con X-RateLimit-Remaining y Retry-After sin volver a consultar el bucket
+     *
+     * @param key Clave única del usuario
+     * @param policy Política que aplica a la petición ({@link #resolvePolicy(String, String)})
+     * @param tokens Número de tokens a consumir
+     * @return Veredicto ALLOWED o RATE_LIMITED con capacidad, tokens restantes y espera
+     */
+    public AdmissionVerdict consume(String key, RateLimitPolicy policy, long tokens) {
         if (!rateLimitEnabled) {
-            return true;
+            return new AdmissionVerdict(AdmissionVerdict.Outcome.ALLOWED, -1, -1, 0);
         }
 
+        long capacity = policy.getCapacity();
         try {
-            String authKey = "auth:" + key;
-            Bucket bucket = localCache.computeIfAbsent(authKey, k -> createAuthBucket());
-            boolean allowed = bucket.tryConsume(1);
+            if (isDistributed()) {
+                AdmissionVerdict verdict = distributedRateLimiter.consume(key, policy, tokens);
+                if (verdict != null) {
+                    if (verdict.isRateLimited()) {
+                        logger.warn("Rate limit exceeded for key: {}", policy.bucketKey(key));
+                    }
+                    return verdict;
+                }
+                // Sin Redis el límite vuelve a ser por nodo, con el bucket local
+            }
 
-            if (!allowed) {
-                logger.warn("Auth rate limit exceeded for key: {}", key);
+            if (packedBuckets != null) {
+                // La clave del bucket solo se construye para registrar un rechazo
+                AdmissionVerdict verdict = packedBuckets.consume(policy, key, tokens);
+                if (verdict.isRateLimited()) {
+                    logger.warn("Rate limit exceeded for key: {}", policy.bucketKey(key));
+                }
+                return verdict;
             }
 
-            return allowed;
+            String bucketKey = policy.bucketKey(key);
+            LocalBucket bucket = resolveBucket(bucketKey, policy);
+            ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(tokens);
+            if (probe.isConsumed()) {
+                return new AdmissionVerdict(AdmissionVerdict.Outcome.ALLOWED, capacity, probe.getRemainingTokens(), 0);
+            }
+            logger.warn("Rate limit exceeded for key: {}", bucketKey);
+            return new AdmissionVerdict(AdmissionVerdict.Outcome.RATE_LIMITED, capacity, probe.getRemainingTokens(),
+                    TimeUnit.NANOSECONDS.toMillis(probe.getNanosToWaitForRefill()));
         } catch (Exception e) {
-            logger.error("Error checking auth rate limit for key {}: {}", key, e.getMessage());
-            return true;
+            logger.error("Error checking rate limit for key {}: {}", key, e.getMessage());
+            // En caso de error, permitir la petición por defecto (fail-open)
+            return new AdmissionVerdict(AdmissionVerdict.Outcome.ALLOWED, capacity, -1, 0);
+        }
+    }
+
+    /**
+     * Resuelve la política de una petición según el rol del usuario y la operación
+     *
+     * @param role Rol del usuario autenticado, o null para anónimos
+     * @param operation Campo raíz GraphQL o ruta REST, o null para la política del rol
+     * @return Política que aplica
+     */
+    public RateLimitPolicy resolvePolicy(String role, String operation) {
+        return policyRegistry != null ? policyRegistry.resolve(role, operation) : defaultPolicy;
+    }
+
+    /**
+     * Política del nivel default o auth
+     *
+     * @param authTier true para el nivel de autenticación
+     * @return Política vigente del nivel
+     */
+    public RateLimitPolicy getPolicy(boolean authTier) {
+        if (policyRegistry != null) {
+            return authTier ? policyRegistry.getAuthPolicy() : policyRegistry.getDefaultPolicy();
         }
+        return authTier ? authPolicy : defaultPolicy;
     }
 
     /**
-     * Obtiene el número de tokens disponibles para una clave
+     * Capacidad del bucket de un nivel
+     *
+     * @param authTier true para el nivel de autenticación
+     * @return Tokens que caben en el bucket
+     */
+    public long getCapacity(boolean authTier) {
+        return getPolicy(authTier).getCapacity();
+    }
+
+    /**
+     * Tokens que se rellenan en cada intervalo
+     *
+     * @param authTier true para el nivel de autenticación
+     * @return Tokens por intervalo
+     */
+    public long getRefillTokens(boolean authTier) {
+        return getPolicy(authTier).getRefillTokens();
+    }
+
+    /**
+     * Duración del intervalo de relleno
+     *
+     * @param authTier true para el nivel de autenticación
+     * @return Intervalo de relleno
+     */
+    public Duration getRefillPeriod(boolean authTier) {
+        return getPolicy(authTier).getRefillPeriod();
+    }
+
+    /**
+     * Obtiene el número de tokens disponibles para una clave del nivel default, o del nivel auth
+     * si la clave lleva el prefijo "auth:"
      *
      * @param key Clave del usuario
      * @return Número de tokens disponibles
      */
     public long getAvailableTokens(String key) {
         try {
-            Bucket bucket = localCache.get(key);
-            if (bucket == null) {
-                return defaultCapacity;
-            }
-            return bucket.getAvailableTokens();
+            return getAvailableTokens(tierKey(key), tierPolicy(key));
         } catch (Exception e) {
             logger.error("Error getting available tokens for key {}: {}", key, e.getMessage());
             return 0;
@@ -172,25 +456,84 @@ public class RateLimitingService {
     }
 
     /**
-     * Reinicia el bucket para una clave específica (uso administrativo)
+     * Obtiene el número de tokens disponibles en el bucket de una política para una clave
+     *
+     * @param key Clave del usuario, sin el prefijo de la política
+     * @param policy Política del bucket ({@link #resolvePolicy(String, String)})
+     * @return Número de tokens disponibles
+     */
+    public long getAvailableTokens(String key, RateLimitPolicy policy) {
+        String bucketKey = policy.bucketKey(key);
+        try {
+            if (isDistributed()) {
+                Long available = distributedRateLimiter.getAvailableTokens(key, policy);
+                if (available != null) {
+                    return available;
+                }
+            }
+            if (packedBuckets != null) {
+                return packedBuckets.available(policy, bucketKey);
+            }
+            LocalBucket bucket = activeBuckets.getIfPresent(bucketKey);
+            if (bucket != null) {
+                return bucket.getAvailableTokens();
+            }
+            Long state = idleBuckets.getIfPresent(bucketKey);
+            return state != null ? refilledTokens(state, policy) : policy.getCapacity();
+        } catch (Exception e) {
+            logger.error("Error getting available tokens for key {}: {}", bucketKey, e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Reinicia el bucket para una clave específica del nivel default, o del nivel auth si la clave
+     * lleva el prefijo "auth:" (uso administrativo)
      *
      * @param key Clave del usuario
      */
     public void resetBucket(String key) {
         try {
-            localCache.remove(key);
-            logger.info("Rate limit bucket reset for key: {}", key);
+            resetBucket(tierKey(key), tierPolicy(key));
         } catch (Exception e) {
             logger.error("Error resetting bucket for key {}: {}", key, e.getMessage());
         }
     }
 
+    /**
+     * Reinicia el bucket de una política para una clave: el local, el de la tabla packed y, en modo
+     * distribuido, el global en Redis junto con el lote prestado a este nodo (uso administrativo)
+     *
+     * @param key Clave del usuario, sin el prefijo de la política
+     * @param policy Política del bucket
+     */
+    public void resetBucket(String key, RateLimitPolicy policy) {
+        String bucketKey = policy.bucketKey(key);
+        try {
+            activeBuckets.invalidate(bucketKey);
+            idleBuckets.invalidate(bucketKey);
+            if (packedBuckets != null) {
+                packedBuckets.reset(bucketKey);
+            }
+            if (distributedRateLimiter != null) {
+                distributedRateLimiter.reset(key, policy);
+            }
+            logger.info("Rate limit bucket reset for key: {}", bucketKey);
+        } catch (Exception e) {
+            logger.error("Error resetting bucket for key {}: {}", bucketKey, e.getMessage());
+        }
+    }
+
     /**
      * Limpia todos los buckets (uso administrativo)
      */
     public void clearAllBuckets() {
         try {
-            localCache.clear();
+            activeBuckets.invalidateAll();
+            idleBuckets.invalidateAll();
+            if (packedBuckets != null) {
+                packedBuckets.clear();
+            }
             logger.info("All rate limit buckets cleared");
         } catch (Exception e) {
             logger.error("Error clearing all buckets: {}", e.getMessage());
@@ -198,26 +541,93 @@ public class RateLimitingService {
     }
 
     /**
-     * Obtiene estadísticas de uso para una clave
+     * Obtiene estadísticas de uso para una clave del nivel default, o del nivel auth si la clave
+     * lleva el prefijo "auth:"
      *
      * @param key Clave del usuario
      * @return Información de uso en formato String
      */
     public String getBucketStats(String key) {
         try {
-            Bucket bucket = localCache.get(key);
-            if (bucket == null) {
-                return String.format("Key: %s - No data (bucket not created)", key);
+            return getBucketStats(tierKey(key), tierPolicy(key));
+        } catch (Exception e) {
+            logger.error("Error getting bucket stats for key {}: {}", key, e.getMessage());
+            return "Error retrieving stats";
+        }
+    }
+
+    /**
+     * Obtiene estadísticas de uso del bucket de una política para una clave
+     *
+     * @param key Clave del usuario, sin el prefijo de la política
+     * @param policy Política del bucket
+     * @return Información de uso en formato String
+     */
+    public String getBucketStats(String key, RateLimitPolicy policy) {
+        String bucketKey = policy.bucketKey(key);
+        try {
+            if (isDistributed() && distributedRateLimiter.getAvailableTokens(key, policy) != null) {
+                return String.format("Key: %s - Available tokens: %d/%d", bucketKey,
+                        getAvailableTokens(key, policy), policy.getCapacity());
+            }
+            if (packedBuckets != null) {
+                if (!packedBuckets.contains(bucketKey)) {
+                    return String.format("Key: %s - No data (bucket not created)", bucketKey);
+                }
+                return String.format("Key: %s - Available tokens: %d/%d", bucketKey,
+                        getAvailableTokens(key, policy), policy.getCapacity());
+            }
+            LocalBucket bucket = activeBuckets.getIfPresent(bucketKey);
+            if (bucket == null && idleBuckets.getIfPresent(bucketKey) == null) {
+                return String.format("Key: %s - No data (bucket not created)", bucketKey);
             }
 
-            long available = bucket.getAvailableTokens();
-            return String.format("Key: %s - Available tokens: %d/%d", key, available, defaultCapacity);
+            long available = getAvailableTokens(key, policy);
+            long capacity = bucket != null
+                    ? bucket.getConfiguration().getBandwidths()[0].getCapacity()
+                    : policy.getCapacity();
+            return String.format("Key: %s - Available tokens: %d/%d", bucketKey, available, capacity);
         } catch (Exception e) {
-            logger.error("Error getting bucket stats for key {}: {}", key, e.getMessage());
+            logger.error("Error getting bucket stats for key {}: {}", bucketKey, e.getMessage());
             return "Error retrieving stats";
         }
     }
 
+    /**
+     * Número de buckets en el registro activo, o de huecos ocupados en la tabla packed
+     *
+     * @return Buckets en uso (estimado)
+     */
+    public long getActiveBucketCount() {
+        return packedBuckets != null ? packedBuckets.size() : activeBuckets.estimatedSize();
+    }
+
+    /**
+     * Número de buckets inactivos conservados en forma compacta
+     *
+     * @return Buckets inactivos (estimado)
+     */
+    public long getIdleBucketCount() {
+        return idleBuckets.estimatedSize();
+    }
+
+    /**
+     * Ejecuta el mantenimiento pendiente de los registros (expulsiones por tamaño o inactividad)
+     */
+    void cleanUp() {
+        activeBuckets.cleanUp();
+        idleBuckets.cleanUp();
+    }
+
+    /**
+     * Indica si los límites son globales para todos los nodos
+     *
+     * @return true en modo distributed con Redis configurado
+     */
+    public boolean isDistributed() {
+        return MODE_DISTRIBUTED.equalsIgnoreCase(mode) && distributedRateLimiter != null;
+    }
+
     /**
      * Verifica si el rate limiting está habilitado
      *
@@ -0,0 +1,220 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.event.RedisCircuitStateEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker de las llamadas a Redis de los servicios de autenticación (blacklist, sesiones
+ * y backoff de login).
+ *
+ * Tras varios fallos o llamadas lentas consecutivas el circuito se abre durante una ventana
+ * configurable: mientras tanto las llamadas no esperan el timeout del cliente de Redis y pasan
+ * directo al modo degradado de cada servicio ({@link DegradedModeStore}). Vencida la ventana,
+ * una sola llamada de prueba decide si el circuito se cierra o vuelve a abrirse. Cada transición
+ * se publica como {@link RedisCircuitStateEvent}; al cerrarse, los servicios reconcilian con Redis.
+ * Con failure-threshold en 0 el circuito nunca se abre: la primera llamada exitosa después de una
+ * fallida publica un evento CLOSED -> CLOSED para que la reconciliación ocurra igual.
+ *
+ * Publica en Micrometer el estado ("redis.circuit.state": 0 cerrado, 1 abierto, 2 semiabierto),
+ * las transiciones ("redis.circuit.transitions") y las llamadas desviadas sin intentar Redis
+ * ("redis.circuit.short-circuited").
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Service
+public class RedisCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisCircuitBreaker.class);
+
+    public enum State {
+        /** Las llamadas van a Redis */
+        CLOSED,
+        /** Las llamadas pasan directo al modo degradado */
+        OPEN,
+        /** Una llamada de prueba está en curso; las demás siguen en modo degradado */
+        HALF_OPEN
+    }
+
+    @Autowired(required = false)
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    // 0 = el circuito nunca se abre: cada llamada intenta Redis y, si falla, usa el modo degradado
+    @Value("${innosistemas.redis.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    // Una llamada exitosa pero más lenta que esto cuenta como fallo (0 = no se mide la latencia)
+    @Value("${innosistemas.redis.circuit-breaker.slow-call-threshold-ms:250}")
+    private long slowCallThresholdMs;
+
+    @Value("${innosistemas.redis.circuit-breaker.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile long openedAtNanos;
+
+    @PostConstruct
+    void init() {
+        if (meterRegistry != null) {
+            Gauge.builder("redis.circuit.state", state, s -> s.get().ordinal())
+                    .description("Estado del circuit breaker de Redis (0 cerrado, 1 abierto, 2 semiabierto)")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Ejecuta una llamada a Redis protegida por el circuito
+     *
+     * @param operation Nombre de la operación (logs y métricas)
+     * @param call Llamada a Redis
+     * @param fallback Resultado en modo degradado: circuito abierto o llamada fallida
+     * @return Resultado de la llamada o del modo degradado
+     */
+    public <T> T execute(String operation, Supplier<T> call, Supplier<T> fallback) {
+        if (!allowRequest()) {
+            if (meterRegistry != null) {
+                meterRegistry.counter("redis.circuit.short-circuited", "operation", operation).increment();
+            }
+            return fallback.get();
+        }
+
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            logger.warn("Redis call {} failed, using degraded mode: {}", operation, e.getMessage());
+            recordFailure();
+            return fallback.get();
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (slowCallThresholdMs > 0 && elapsedMs >= slowCallThresholdMs) {
+            logger.warn("Slow Redis call {}: {} ms", operation, elapsedMs);
+            recordFailure();
+        } else {
+            recordSuccess();
+        }
+        return result;
+    }
+
+    /**
+     * Ejecuta una escritura en Redis protegida por el circuito
+     *
+     * @param operation Nombre de la operación (logs y métricas)
+     * @param call Escritura en Redis
+     * @param fallback Acción en modo degradado: circuito abierto o escritura fallida
+     */
+    public void run(String operation, Runnable call, Runnable fallback) {
+        execute(operation, () -> {
+            call.run();
+            return null;
+        }, () -> {
+            fallback.run();
+            return null;
+        });
+    }
+
+    /**
+     * Estado actual del circuito
+     *
+     * @return Estado del circuito
+     */
+    public State getState() {
+        return state.get();
+    }
+
+    /**
+     * Indica si los servicios están operando en modo degradado
+     *
+     * @return true si el circuito no está cerrado
+     */
+    public boolean isDegraded() {
+        return state.get() != State.CLOSED;
+    }
+
+    private boolean allowRequest() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        // Vencida la ventana, solo el hilo que gana la transición hace la llamada de prueba
+        return current == State.OPEN
+                && System.nanoTime() - openedAtNanos >= TimeUnit.MILLISECONDS.toNanos(openDurationMs)
+                && transition(State.OPEN, State.HALF_OPEN);
+    }
+
+    private void recordSuccess() {
+        if (consecutiveFailures.get() != 0 && consecutiveFailures.getAndSet(0) != 0 && failureThreshold <= 0) {
+            // Sin apertura no hay transición a CLOSED: se avisa la recuperación para reconciliar
+            recovered();
+        }
+        if (state.get() == State.HALF_OPEN) {
+            transition(State.HALF_OPEN, State.CLOSED);
+        }
+    }
+
+    private void recordFailure() {
+        State current = state.get();
+        if (current == State.HALF_OPEN) {
+            open(State.HALF_OPEN);
+        } else if (current == State.CLOSED
+                && consecutiveFailures.incrementAndGet() >= failureThreshold && failureThreshold > 0) {
+            open(State.CLOSED);
+        }
+    }
+
+    private void recovered() {
+        logger.info("Redis calls succeeding again after failures");
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(new RedisCircuitStateEvent(this, State.CLOSED, State.CLOSED));
+        }
+    }
+
+    private void open(State from) {
+        // El instante se fija antes de publicar el estado para que nadie vea OPEN con una ventana vieja
+        openedAtNanos = System.nanoTime();
+        if (transition(from, State.OPEN)) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    private boolean transition(State from, State to) {
+        if (!state.compareAndSet(from, to)) {
+            return false;
+        }
+
+        if (to == State.OPEN) {
+            logger.warn("Redis circuit breaker opened ({} -> {}), degraded mode for {} ms", from, to, openDurationMs);
+        } else {
+            logger.info("Redis circuit breaker {} -> {}", from, to);
+        }
+        if (meterRegistry != null) {
+            meterRegistry.counter("redis.circuit.transitions",
+                    "from", from.name().toLowerCase(), "to", to.name().toLowerCase()).increment();
+        }
+        if (eventPublisher != null) {
+            eventPublisher.publishEvent(new RedisCircuitStateEvent(this, from, to));
+        }
+        return true;
+    }
+}
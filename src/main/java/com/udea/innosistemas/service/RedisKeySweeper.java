@@ -0,0 +1,253 @@
+package com.udea.innosistemas.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Barridos incrementales del keyspace de Redis con SCAN, en reemplazo de KEYS.
+ * KEYS recorre todo el keyspace en una sola operación y bloquea Redis mientras tanto; aquí cada
+ * página es un SCAN acotado y el barrido se detiene al agotar su presupuesto de tiempo.
+ *
+ * El cursor se guarda en Redis al pausar, así que la siguiente ejecución (en este u otro nodo)
+ * continúa donde quedó la anterior. Un lock con lease evita que dos nodos barran lo mismo a la vez.
+ * SCAN puede devolver una clave más de una vez, por lo que los procesadores deben ser idempotentes.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Service
+public class RedisKeySweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisKeySweeper.class);
+    static final String CURSOR_PREFIX = "maintenance:sweep-cursor:";
+    static final String LOCK_PREFIX = "maintenance:sweep-lock:";
+    private static final String START_CURSOR = "0";
+
+    // Un cursor abandonado (barrido desactivado) no debe quedar para siempre en Redis
+    private static final long CURSOR_TTL_HOURS = 24;
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> SCAN_PAGE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/scan-page.lua"), List.class);
+
+    private static final RedisScript<Long> RELEASE_LOCK_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/release-lock.lua"), Long.class);
+
+    /**
+     * Procesa un lote de claves encontradas por SCAN
+     */
+    @FunctionalInterface
+    public interface KeyBatchProcessor {
+
+        /**
+         * @param keys Claves de la página (pueden repetirse entre páginas)
+         * @return Número de claves o entradas removidas
+         */
+        long process(List<String> keys);
+    }
+
+    public enum Outcome {
+        /** El recorrido llegó al final del keyspace */
+        COMPLETED,
+        /** Se agotó el presupuesto de tiempo; el cursor quedó guardado */
+        PAUSED,
+        /** Otro nodo tiene el lock del barrido */
+        SKIPPED,
+        /** Error de Redis; el cursor guardado no se modificó */
+        FAILED
+    }
+
+    /**
+     * Resultado de una ejecución de barrido
+     */
+    public static final class SweepResult {
+
+        private final Outcome outcome;
+        private final long scanned;
+        private final long removed;
+        private final int pages;
+
+        SweepResult(Outcome outcome, long scanned, long removed, int pages) {
+            this.outcome = outcome;
+            this.scanned = scanned;
+            this.removed = removed;
+            this.pages = pages;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public long getScanned() {
+            return scanned;
+        }
+
+        public long getRemoved() {
+            return removed;
+        }
+
+        public int getPages() {
+            return pages;
+        }
+
+        public boolean isComplete() {
+            return outcome == Outcome.COMPLETED;
+        }
+    }
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${innosistemas.redis.sweep.time-budget-ms:200}")
+    private long timeBudgetMs;
+
+    @Value("${innosistemas.redis.sweep.scan-count:250}")
+    private long scanCount;
+
+    private final Map<String, SweepResult> lastResults = new ConcurrentHashMap<>();
+
+    /**
+     * Avanza el barrido indicado con el presupuesto de tiempo configurado
+     *
+     * @param name Nombre del barrido (identifica su cursor, lock y métricas)
+     * @param pattern Patrón MATCH de SCAN
+     * @param processor Procesador de cada página de claves
+     * @return Resultado de esta ejecución
+     */
+    public SweepResult sweep(String name, String pattern, KeyBatchProcessor processor) {
+        return sweep(name, pattern, processor, Duration.ofMillis(timeBudgetMs));
+    }
+
+    /**
+     * Avanza el barrido indicado hasta completarlo o agotar el presupuesto de tiempo
+     *
+     * @param name Nombre del barrido (identifica su cursor, lock y métricas)
+     * @param pattern Patrón MATCH de SCAN
+     * @param processor Procesador de cada página de claves
+     * @param budget Presupuesto de tiempo de esta ejecución
+     * @return Resultado de esta ejecución
+     */
+    public SweepResult sweep(String name, String pattern, KeyBatchProcessor processor, Duration budget) {
+        String lockKey = LOCK_PREFIX + name;
+        String lockToken = UUID.randomUUID().toString();
+        // El lease cubre el presupuesto más la última página en curso
+        long leaseMs = budget.toMillis() * 2 + 5000;
+
+        Boolean acquired;
+        try {
+            acquired = redisTemplate.opsForValue().setIfAbsent(lockKey, lockToken, leaseMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            logger.error("Error acquiring sweep lock {}: {}", name, e.getMessage());
+            return record(name, new SweepResult(Outcome.FAILED, 0, 0, 0));
+        }
+        if (!Boolean.TRUE.equals(acquired)) {
+            logger.debug("Sweep {} is running on another node, skipping", name);
+            return record(name, new SweepResult(Outcome.SKIPPED, 0, 0, 0));
+        }
+
+        long scanned = 0;
+        long removed = 0;
+        int pages = 0;
+        try {
+            String cursorKey = CURSOR_PREFIX + name;
+            String stored = redisTemplate.opsForValue().get(cursorKey);
+            String cursor = stored != null ? stored : START_CURSOR;
+            long deadline = System.nanoTime() + budget.toNanos();
+
+            do {
+                List<?> page = redisTemplate.execute(SCAN_PAGE_SCRIPT, List.of(),
+                        cursor, pattern, String.valueOf(scanCount));
+                cursor = String.valueOf(page.get(0));
+                List<String> keys = toKeys(page.get(1));
+                pages++;
+                if (!keys.isEmpty()) {
+                    scanned += keys.size();
+                    removed += processor.process(keys);
+                }
+            } while (!START_CURSOR.equals(cursor) && System.nanoTime() < deadline);
+
+            Outcome outcome;
+            if (START_CURSOR.equals(cursor)) {
+                redisTemplate.delete(cursorKey);
+                outcome = Outcome.COMPLETED;
+            } else {
+                redisTemplate.opsForValue().set(cursorKey, cursor, CURSOR_TTL_HOURS, TimeUnit.HOURS);
+                outcome = Outcome.PAUSED;
+            }
+            logger.debug("Sweep {} {}: {} keys scanned, {} removed in {} pages",
+                    name, outcome, scanned, removed, pages);
+            return record(name, new SweepResult(outcome, scanned, removed, pages));
+        } catch (Exception e) {
+            logger.error("Error sweeping {}: {}", name, e.getMessage(), e);
+            return record(name, new SweepResult(Outcome.FAILED, scanned, removed, pages));
+        } finally {
+            releaseLock(lockKey, lockToken);
+        }
+    }
+
+    /**
+     * Procesador que elimina con UNLINK (la memoria se libera en segundo plano) todas las claves del lote
+     *
+     * @return Procesador de borrado por lotes
+     */
+    public KeyBatchProcessor unlinkAll() {
+        return keys -> {
+            Long unlinked = redisTemplate.unlink(keys);
+            return unlinked != null ? unlinked : 0;
+        };
+    }
+
+    /**
+     * Resultado de la última ejecución del barrido en este nodo
+     *
+     * @param name Nombre del barrido
+     * @return Último resultado, o null si no se ha ejecutado
+     */
+    public SweepResult getLastResult(String name) {
+        return lastResults.get(name);
+    }
+
+    private SweepResult record(String name, SweepResult result) {
+        lastResults.put(name, result);
+        if (meterRegistry != null) {
+            meterRegistry.counter("redis.sweep.runs", "sweep", name,
+                    "outcome", result.getOutcome().name().toLowerCase()).increment();
+            meterRegistry.counter("redis.sweep.keys.scanned", "sweep", name).increment(result.getScanned());
+            meterRegistry.counter("redis.sweep.keys.removed", "sweep", name).increment(result.getRemoved());
+        }
+        return result;
+    }
+
+    private void releaseLock(String lockKey, String lockToken) {
+        try {
+            redisTemplate.execute(RELEASE_LOCK_SCRIPT, List.of(lockKey), lockToken);
+        } catch (Exception e) {
+            // El lease expira solo
+            logger.warn("Error releasing sweep lock {}: {}", lockKey, e.getMessage());
+        }
+    }
+
+    private static List<String> toKeys(Object keys) {
+        if (!(keys instanceof List<?> list)) {
+            return List.of();
+        }
+        return list.stream().map(String::valueOf).toList();
+    }
+}
@@ -0,0 +1,186 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.config.RedisConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Nombres de las claves de Redis de autenticación (sesiones, blacklist, backoff de login y
+ * familias de refresh tokens) conscientes de los hash tags de Redis Cluster.
+ *
+ * En Redis Cluster un script Lua solo puede tocar claves de un mismo slot. Cada usuario se asigna
+ * a una partición y todas sus claves, junto con la partición correspondiente de los índices
+ * globales (usuarios activos e índice de la blacklist), llevan el hash tag {@code {<partición>}}:
+ * los scripts de login, logout y renovación siguen siendo un único round trip atómico. Las
+ * consultas globales recorren las particiones (una por slot). La partición se calcula sobre el
+ * usuario en minúsculas, así que el email del login y el de la cuenta caen siempre en la misma.
+ *
+ * Con una sola partición (standalone y sentinel por defecto) las claves conservan sus nombres
+ * sin hash tag. Cambiar el número de particiones cambia los nombres: las sesiones se vuelven a
+ * registrar en el siguiente login.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Component
+public class RedisKeyspace {
+
+    private static final int DEFAULT_CLUSTER_SHARDS = 64;
+
+    @Value("${innosistemas.redis.topology:standalone}")
+    private String topology;
+
+    // 0 = automático: 1 (sin hash tags) en standalone y sentinel, 64 en cluster
+    @Value("${innosistemas.redis.keyspace.shards:0}")
+    private int shards;
+
+    @PostConstruct
+    void init() {
+        if (shards <= 0) {
+            shards = isCluster() ? DEFAULT_CLUSTER_SHARDS : 1;
+        }
+    }
+
+    /**
+     * Indica si las claves llevan hash tag de partición
+     *
+     * @return true si hay más de una partición
+     */
+    public boolean isSharded() {
+        return shards > 1;
+    }
+
+    /**
+     * Número de particiones del keyspace
+     *
+     * @return Particiones (al menos 1)
+     */
+    public int getShards() {
+        return Math.max(shards, 1);
+    }
+
+    /**
+     * Indica si un SCAN recorre todo el keyspace. En Redis Cluster cada nodo tiene su propio
+     * keyspace y un script sin claves se ejecuta en uno solo de ellos.
+     *
+     * @return false en Redis Cluster
+     */
+    public boolean isScannable() {
+        return !isCluster();
+    }
+
+    /**
+     * Partición de un usuario
+     *
+     * @param owner Usuario dueño de la clave (null = partición 0)
+     * @return Partición entre 0 y {@link #getShards()} - 1
+     */
+    public int shardOf(String owner) {
+        if (owner == null || !isSharded()) {
+            return 0;
+        }
+        return Math.floorMod(owner.trim().toLowerCase(Locale.ROOT).hashCode(), shards);
+    }
+
+    /**
+     * Clave de un usuario, p. ej. {@code session:data:{12}ana@udea.edu.co}
+     *
+     * @param prefix Prefijo de la clave
+     * @param username Usuario
+     * @return Clave en la partición del usuario
+     */
+    public String userKey(String prefix, String username) {
+        return key(prefix, username, username);
+    }
+
+    /**
+     * Clave de un elemento que pertenece a un usuario, p. ej. {@code token:blacklist:{12}<jti>}
+     *
+     * @param prefix Prefijo de la clave
+     * @param owner Usuario dueño del elemento
+     * @param id Identificador del elemento
+     * @return Clave en la partición del usuario
+     */
+    public String key(String prefix, String owner, String id) {
+        return key(prefix, shardOf(owner), id);
+    }
+
+    /**
+     * Clave de un elemento en una partición dada
+     *
+     * @param prefix Prefijo de la clave
+     * @param shard Partición
+     * @param id Identificador del elemento
+     * @return Clave en la partición
+     */
+    public String key(String prefix, int shard, String id) {
+        return isSharded() ? prefix + tag(shard) + id : prefix + id;
+    }
+
+    /**
+     * Partición de un índice global que corresponde a un usuario, p. ej. {@code session:active-users:{12}}
+     *
+     * @param indexKey Nombre del índice global
+     * @param owner Usuario
+     * @return Clave de la partición del índice
+     */
+    public String indexKey(String indexKey, String owner) {
+        return indexKey(indexKey, shardOf(owner));
+    }
+
+    /**
+     * Partición de un índice global
+     *
+     * @param indexKey Nombre del índice global
+     * @param shard Partición
+     * @return Clave de la partición del índice
+     */
+    public String indexKey(String indexKey, int shard) {
+        return isSharded() ? indexKey + ":" + tag(shard) : indexKey;
+    }
+
+    /**
+     * Todas las particiones de un índice global
+     *
+     * @param indexKey Nombre del índice global
+     * @return Claves de las particiones, en orden
+     */
+    public List<String> indexKeys(String indexKey) {
+        List<String> keys = new ArrayList<>(getShards());
+        for (int shard = 0; shard < getShards(); shard++) {
+            keys.add(indexKey(indexKey, shard));
+        }
+        return keys;
+    }
+
+    /**
+     * Identificador de una clave sin su prefijo ni su hash tag (inverso de {@link #key})
+     *
+     * @param prefix Prefijo de la clave
+     * @param key Clave completa
+     * @return Identificador del elemento o del usuario
+     */
+    public String idOf(String prefix, String key) {
+        String id = key.substring(prefix.length());
+        if (id.startsWith("{")) {
+            int end = id.indexOf('}');
+            if (end > 0) {
+                return id.substring(end + 1);
+            }
+        }
+        return id;
+    }
+
+    private boolean isCluster() {
+        return RedisConfig.TOPOLOGY_CLUSTER.equalsIgnoreCase(topology);
+    }
+
+    private static String tag(int shard) {
+        return "{" + shard + "}";
+    }
+}
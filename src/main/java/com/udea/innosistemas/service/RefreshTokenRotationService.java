@@ -0,0 +1,111 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.security.VerifiedToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Servicio de rotación de refresh tokens por familias con detección de reutilización.
+ * Cada familia guarda en Redis el jti del único refresh token vigente. Un script Lua verifica
+ * la blacklist, la familia y la sesión de la familia y rota el token de forma atómica, en un solo
+ * round trip: dos renovaciones paralelas con el mismo token no pueden tener éxito a la vez,
+ * y presentar un token ya rotado revoca toda la familia: termina su sesión y pone su id en la
+ * blacklist, así que los access tokens con ese "sid" dejan de ser aceptados de inmediato.
+ * Rotar extiende la sesión y su último uso.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Service
+public class RefreshTokenRotationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenRotationService.class);
+    private static final String FAMILY_PREFIX = "token:refresh-family:";
+
+    private static final RedisScript<Long> ROTATE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/rotate-refresh-token.lua"), Long.class);
+
+    /**
+     * Resultado de la rotación
+     */
+    public enum Result {
+        ROTATED,
+        REVOKED,
+        REUSE_DETECTED,
+        NO_ACTIVE_SESSIONS
+    }
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private RedisKeyspace keyspace;
+
+    @Value("${innosistemas.auth.jwt.refresh-expiration}")
+    private long refreshExpirationInSeconds;
+
+    // Misma duración de sesión que usa SessionManagementService al registrarla
+    @Value("${innosistemas.auth.jwt.expiration}")
+    private long sessionTtlSeconds;
+
+    /**
+     * Rota atómicamente el refresh token presentado por uno nuevo de la misma familia
+     *
+     * @param presented Refresh token presentado (ya verificado)
+     * @param newTokenId jti del nuevo refresh token
+     * @return Resultado de la rotación
+     */
+    public Result rotate(VerifiedToken presented, String newTokenId) {
+        String familyId = presented.getRefreshFamilyId();
+        String username = presented.getSubject();
+        // Todas en la partición del usuario: el script no cruza slots en Redis Cluster
+        List<String> keys = List.of(
+                keyspace.key(FAMILY_PREFIX, username, familyId),
+                keyspace.userKey(SessionManagementService.SESSION_EXPIRY_PREFIX, username),
+                keyspace.key(TokenBlacklistService.BLACKLIST_PREFIX, username, presented.getRevocationId()),
+                keyspace.userKey(SessionManagementService.SESSION_DATA_PREFIX, username),
+                keyspace.indexKey(SessionManagementService.ACTIVE_USERS_KEY, username),
+                keyspace.key(TokenBlacklistService.BLACKLIST_PREFIX, username, familyId),
+                keyspace.indexKey(TokenBlacklistService.BLACKLIST_INDEX, username));
+
+        Long code = redisTemplate.execute(ROTATE_SCRIPT, keys,
+                presented.getRevocationId(),
+                newTokenId,
+                String.valueOf(refreshExpirationInSeconds * 1000),
+                familyId,
+                String.valueOf(System.currentTimeMillis()),
+                String.valueOf(sessionTtlSeconds * 1000),
+                username,
+                TokenBlacklistService.BLACKLIST_CHANNEL);
+
+        Result result = toResult(code);
+        if (result == Result.REUSE_DETECTED) {
+            logger.warn("Refresh token reuse detected, family and session revoked: {}", familyId);
+        }
+        return result;
+    }
+
+    private static Result toResult(Long code) {
+        if (code == null) {
+            throw new IllegalStateException("Refresh token rotation script returned no result");
+        }
+        if (code == 1L) {
+            return Result.ROTATED;
+        }
+        if (code == -1L) {
+            return Result.REUSE_DETECTED;
+        }
+        if (code == -2L) {
+            return Result.NO_ACTIVE_SESSIONS;
+        }
+        return Result.REVOKED;
+    }
+}
@@ -0,0 +1,151 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.security.AdmissionVerdict;
+import com.udea.innosistemas.security.VerifiedToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Servicio de admisión de peticiones autenticadas.
+ * Decide en un solo paso si el token sigue vigente (blacklist por jti y por sesión, época de
+ * revocación del usuario) y consume el rate limit del usuario.
+ *
+ * Con innosistemas.auth.admission.enabled las tres comprobaciones se hacen en Redis con un único
+ * script Lua (un round trip por petición) y el token bucket es compartido por todos los nodos.
+ * Sin admisión en Redis, o con el circuito de Redis abierto, se usan los servicios locales:
+ * filtro de Bloom de la blacklist, época cacheada y bucket en memoria.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Service
+public class RequestAdmissionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestAdmissionService.class);
+    static final String BUCKET_PREFIX = "ratelimit:bucket:";
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ADMIT_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/admit-request.lua"), List.class);
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private RedisKeyspace keyspace;
+
+    @Autowired
+    private TokenBlacklistService tokenBlacklistService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private RateLimitingService rateLimitingService;
+
+    @Value("${innosistemas.auth.admission.enabled:false}")
+    private boolean admissionEnabled;
+
+    /**
+     * Evalúa la admisión de una petición autenticada consumiendo 1 token
+     *
+     * @param verifiedToken Token ya verificado
+     * @param policy Política de rate limiting de la petición
+     * @return Veredicto de admisión
+     */
+    public AdmissionVerdict admit(VerifiedToken verifiedToken, RateLimitPolicy policy) {
+        return admit(verifiedToken, policy, 1);
+    }
+
+    /**
+     * Evalúa la admisión de una petición autenticada
+     *
+     * @param verifiedToken Token ya verificado
+     * @param policy Política de rate limiting de la petición
+     * @param tokens Tokens a consumir (el costo de la operación en GraphQL); 0 solo valida el token
+     * @return Veredicto de admisión, sin datos de rate limit si no se consumieron tokens
+     */
+    public AdmissionVerdict admit(VerifiedToken verifiedToken, RateLimitPolicy policy, long tokens) {
+        // La misma clave que usa RateLimitFilter para un usuario autenticado
+        String rateLimitKey = "user:" + verifiedToken.getSubject();
+        if (!admissionEnabled) {
+            return admitLocally(verifiedToken, rateLimitKey, policy, tokens);
+        }
+        return circuitBreaker.execute("admission",
+                () -> admitInRedis(verifiedToken, rateLimitKey, policy, tokens),
+                () -> admitLocally(verifiedToken, rateLimitKey, policy, tokens));
+    }
+
+    @SuppressWarnings("unchecked")
+    private AdmissionVerdict admitInRedis(VerifiedToken verifiedToken, String rateLimitKey, RateLimitPolicy policy,
+                                          long tokens) {
+        String username = verifiedToken.getSubject();
+        String revocationId = verifiedToken.getRevocationId();
+        String sessionId = verifiedToken.getSessionId() != null ? verifiedToken.getSessionId() : revocationId;
+        // Todas en la partición del usuario: el script no cruza slots en Redis Cluster
+        List<String> keys = List.of(
+                keyspace.key(TokenBlacklistService.BLACKLIST_PREFIX, username, revocationId),
+                keyspace.key(TokenBlacklistService.BLACKLIST_PREFIX, username, sessionId),
+                keyspace.userKey(TokenRevocationService.REVOKED_BEFORE_PREFIX, username),
+                keyspace.key(BUCKET_PREFIX, username, policy.bucketKey(rateLimitKey)));
+
+        boolean limited = rateLimitingService.isRateLimitEnabled() && tokens > 0;
+        long capacity = limited ? policy.getCapacity() : 0;
+        List<Long> result = redisTemplate.execute(ADMIT_SCRIPT, keys,
+                String.valueOf(verifiedToken.getIssuedAtMillis()),
+                String.valueOf(capacity),
+                String.valueOf(policy.getRefillTokens()),
+                String.valueOf(policy.getRefillPeriod().toMillis()),
+                String.valueOf(tokens));
+        if (result == null || result.size() < 3) {
+            throw new IllegalStateException("Admission script returned no result");
+        }
+
+        long code = result.get(0);
+        if (code == -1L) {
+            return AdmissionVerdict.rejected(AdmissionVerdict.Outcome.BLACKLISTED);
+        }
+        if (code == -2L) {
+            return AdmissionVerdict.rejected(AdmissionVerdict.Outcome.REVOKED);
+        }
+        if (code == 0L) {
+            logger.warn("Rate limit exceeded for key: {}", rateLimitKey);
+        }
+        return new AdmissionVerdict(code == 1L ? AdmissionVerdict.Outcome.ALLOWED : AdmissionVerdict.Outcome.RATE_LIMITED,
+                limited ? capacity : -1, result.get(1), result.get(2));
+    }
+
+    private AdmissionVerdict admitLocally(VerifiedToken verifiedToken, String rateLimitKey, RateLimitPolicy policy,
+                                          long tokens) {
+        if (tokenBlacklistService.isTokenBlacklisted(verifiedToken)) {
+            return AdmissionVerdict.rejected(AdmissionVerdict.Outcome.BLACKLISTED);
+        }
+        if (tokenRevocationService.isRevoked(verifiedToken)) {
+            return AdmissionVerdict.rejected(AdmissionVerdict.Outcome.REVOKED);
+        }
+        if (tokens <= 0) {
+            return new AdmissionVerdict(AdmissionVerdict.Outcome.ALLOWED, -1, -1, 0);
+        }
+        return rateLimitingService.consume(rateLimitKey, policy, tokens);
+    }
+
+    /**
+     * Indica si la admisión se evalúa en Redis con un solo script
+     *
+     * @return true si innosistemas.auth.admission.enabled está activo
+     */
+    public boolean isAdmissionEnabled() {
+        return admissionEnabled;
+    }
+}
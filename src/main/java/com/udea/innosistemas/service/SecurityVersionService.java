@@ -0,0 +1,101 @@
+package com.udea.innosistemas.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+
+/**
+ * Servicio que mantiene la "versión de seguridad" de cada usuario en Redis.
+ * La versión viaja en el claim "sv" del JWT; cuando cambia el rol, el equipo o el curso
+ * del usuario se incrementa, y los tokens emitidos antes dejan de servir para construir
+ * el principal sin consultar la base de datos (modo stateless).
+ * Las versiones se cachean localmente por un tiempo corto para no agregar un round trip por petición.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Service
+public class SecurityVersionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SecurityVersionService.class);
+    private static final String VERSION_PREFIX = "user:security-version:";
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Value("${innosistemas.auth.stateless.version-cache-ttl-seconds:5}")
+    private long versionCacheTtlSeconds;
+
+    @Value("${innosistemas.auth.stateless.version-cache-max-size:50000}")
+    private long versionCacheMaxSize;
+
+    private Cache<Long, Long> localVersions;
+
+    @PostConstruct
+    void init() {
+        this.localVersions = Caffeine.newBuilder()
+                .maximumSize(versionCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(versionCacheTtlSeconds))
+                .build();
+    }
+
+    /**
+     * Obtiene la versión de seguridad vigente de un usuario
+     *
+     * @param userId ID del usuario
+     * @return Versión actual (0 si nunca ha cambiado), o null si Redis no está disponible
+     */
+    public Long getVersion(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+
+        Long cached = localVersions.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            String value = redisTemplate.opsForValue().get(VERSION_PREFIX + userId);
+            long version = value != null ? Long.parseLong(value) : 0L;
+            localVersions.put(userId, version);
+            return version;
+        } catch (Exception e) {
+            logger.error("Error reading security version for user {}: {}", userId, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Incrementa la versión de seguridad de un usuario (cambio de rol, equipo o curso).
+     * Los tokens emitidos con la versión anterior obligan a recargar el usuario desde la BD.
+     *
+     * @param userId ID del usuario
+     */
+    public void bumpVersion(Long userId) {
+        if (userId == null) {
+            return;
+        }
+
+        try {
+            Long version = redisTemplate.opsForValue().increment(VERSION_PREFIX + userId);
+            if (version != null) {
+                localVersions.put(userId, version);
+            } else {
+                localVersions.invalidate(userId);
+            }
+            logger.info("Security version bumped for user {}: {}", userId, version);
+        } catch (Exception e) {
+            localVersions.invalidate(userId);
+            logger.error("Error bumping security version for user {}: {}", userId, e.getMessage());
+        }
+    }
+}
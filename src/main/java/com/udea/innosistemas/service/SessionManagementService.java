@@ -1,114 +1,287 @@
 package com.udea.innosistemas.service;
 
+import com.udea.innosistemas.dto.SessionInfo;
+import com.udea.innosistemas.security.VerifiedToken;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 
 /**
  * Servicio para gestionar sesiones activas de usuarios utilizando Redis.
  * Permite trackear sesiones concurrentes, limitar dispositivos simultáneos y gestionar sesiones activas.
  * Proporciona funcionalidades de auditoría y control de sesiones por usuario.
  *
+ * El límite de dispositivos se aplica en el mismo script del registro: sobre el límite se desaloja
+ * la sesión usada hace más tiempo y se revocan sus tokens (por su id de sesión), de modo que el
+ * estado de cada usuario en Redis queda acotado.
+ *
+ * Cada usuario tiene un hash indexado por id de sesión (creación, último uso y dispositivo) y un
+ * sorted set con la expiración de cada sesión: buscar, remover o contar sesiones son operaciones
+ * O(1)/O(log n) en el servidor, sin traer el conjunto completo. El id de sesión es la familia
+ * del refresh token emitido en el login, de modo que cada renovación extiende su propia sesión.
+ *
+ * Un sorted set global guarda, por usuario, la expiración de su sesión más reciente: contar los
+ * usuarios activos es un ZCOUNT y nunca recorre el keyspace. La poda de sesiones expiradas avanza
+ * por páginas de SCAN con presupuesto de tiempo ({@link RedisKeySweeper}).
+ *
+ * Registrar, cerrar o renovar sesiones es siempre un único script Lua: la contabilidad posterior a
+ * un login exitoso (registro de la sesión y limpieza de los intentos fallidos) y la del logout pagan un
+ * solo round trip cada una. El login completo hace además la consulta previa del backoff
+ * ({@link LoginAttemptService#checkAllowed(String)}), que debe ir antes del hashing de la contraseña,
+ * y la lectura de la versión de seguridad del usuario si no está en la caché local: en total, dos
+ * round trips con la versión cacheada y tres sin ella.
+ *
+ * Las llamadas pasan por {@link RedisCircuitBreaker}. En modo degradado el login y el logout no
+ * fallan: sus scripts se encolan en {@link DegradedModeStore} y se ejecutan, en orden, cuando Redis
+ * se recupera (la revocación del logout se refleja de inmediato en este nodo). Las consultas
+ * responden vacío sin esperar el timeout de Redis.
+ *
+ * Las claves de cada usuario y la partición de los índices globales que le corresponde comparten
+ * hash tag ({@link RedisKeyspace}): en Redis Cluster cada script sigue tocando un solo slot. Los
+ * listados y las estadísticas leen de las réplicas cuando están configuradas; la verificación de
+ * una sesión activa siempre lee del primario.
+ *
  * Autor: Fábrica-Escuela de Software UdeA
- * Versión: 1.0.0
+ * Versión: 2.3.0
  */
 @Service
 public class SessionManagementService {
 
     private static final Logger logger = LoggerFactory.getLogger(SessionManagementService.class);
-    private static final String SESSION_PREFIX = "session:user:";
-    private static final String SESSION_COUNT_PREFIX = "session:count:";
+    static final String SESSION_DATA_PREFIX = "session:data:";
+    static final String SESSION_EXPIRY_PREFIX = "session:expiry:";
+    static final String ACTIVE_USERS_KEY = "session:active-users";
+    // Contadores de la versión 1.x, sin TTL
+    static final String LEGACY_COUNT_PREFIX = "session:count:";
+
+    static final String EXPIRED_SESSIONS_SWEEP = "expired-sessions";
+    static final String LEGACY_COUNTERS_SWEEP = "legacy-session-counters";
+
+    private static final int MAX_DEVICE_LENGTH = 200;
+
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> REGISTER_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/register-session.lua"), List.class);
+
+    private static final RedisScript<Long> END_SESSIONS_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/end-sessions.lua"), Long.class);
+
+    private static final RedisScript<Long> REMOVE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/remove-session.lua"), Long.class);
+
+    private static final RedisScript<Long> PRUNE_SCRIPT =
+            RedisScript.of(new ClassPathResource("redis/prune-sessions.lua"), Long.class);
 
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
 
+    @Autowired
+    private RedisKeySweeper keySweeper;
+
+    @Autowired
+    private TokenBlacklistService tokenBlacklistService;
+
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private DegradedModeStore degradedStore;
+
+    @Autowired
+    private RedisKeyspace keyspace;
+
+    // Lecturas que toleran un leve retraso de replicación (listados y estadísticas)
+    @Autowired(required = false)
+    private StringRedisTemplate replicaRedisTemplate;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
     @Value("${innosistemas.auth.jwt.expiration}")
     private long jwtExpirationInMs;
 
+    @Value("${innosistemas.auth.session.max-devices:5}")
+    private int maxDevices;
+
+    // Se desactiva en cuanto un barrido completo no encuentra más contadores heredados
+    private volatile boolean legacyCountersPending = true;
+
     /**
      * Registra una nueva sesión para un usuario
      *
      * @param username Nombre de usuario
-     * @param sessionId ID único de la sesión (puede ser el token o un UUID)
+     * @param sessionId ID único de la sesión (familia del refresh token)
      * @return true si la sesión fue registrada exitosamente
      */
     public boolean registerSession(String username, String sessionId) {
-        try {
-            String sessionKey = SESSION_PREFIX + username;
-            String value = sessionId + ":" + Instant.now().toEpochMilli();
+        return registerSession(username, sessionId, null);
+    }
 
-            // Agregar sesión al conjunto de sesiones activas del usuario
-            redisTemplate.opsForSet().add(sessionKey, value);
+    /**
+     * Registra una nueva sesión para un usuario con la descripción de su dispositivo.
+     * En el mismo round trip se podan las sesiones ya expiradas del usuario y, si supera el
+     * límite de dispositivos, se desalojan sus sesiones menos usadas recientemente.
+     *
+     * @param username Nombre de usuario
+     * @param sessionId ID único de la sesión (familia del refresh token)
+     * @param device Descripción del dispositivo (puede ser null)
+     * @return true si la sesión fue registrada exitosamente
+     */
+    public boolean registerSession(String username, String sessionId, String device) {
+        return registerSession(username, sessionId, device, List.of());
+    }
 
-            // Establecer expiración en el conjunto
-            redisTemplate.expire(sessionKey, jwtExpirationInMs, TimeUnit.SECONDS);
+    /**
+     * Registra una nueva sesión (aplicando el límite de dispositivos) y borra en el mismo round trip
+     * las claves indicadas (el login exitoso limpia así sus intentos fallidos sin otra llamada a Redis)
+     *
+     * @param username Nombre de usuario
+     * @param sessionId ID único de la sesión (familia del refresh token)
+     * @param device Descripción del dispositivo (puede ser null)
+     * @param keysToClear Claves a borrar junto con el registro
+     * @return true si la sesión fue registrada exitosamente
+     */
+    public boolean registerSession(String username, String sessionId, String device, Collection<String> keysToClear) {
+        try {
+            List<String> keys = new ArrayList<>(4 + keysToClear.size());
+            keys.add(keyspace.userKey(SESSION_DATA_PREFIX, username));
+            keys.add(keyspace.userKey(SESSION_EXPIRY_PREFIX, username));
+            keys.add(keyspace.indexKey(ACTIVE_USERS_KEY, username));
+            keys.add(keyspace.indexKey(TokenBlacklistService.BLACKLIST_INDEX, username));
+            keys.addAll(keysToClear);
 
-            // Incrementar contador de sesiones
-            incrementSessionCount(username);
+            Object[] args = {
+                    sessionId,
+                    String.valueOf(Instant.now().toEpochMilli()),
+                    String.valueOf(sessionTtlMillis()),
+                    normalizeDevice(device),
+                    username,
+                    String.valueOf(Math.max(maxDevices, 0)),
+                    // Las revocaciones de las sesiones desalojadas quedan en la partición del usuario
+                    keyspace.key(TokenBlacklistService.BLACKLIST_PREFIX, username, ""),
+                    TokenBlacklistService.BLACKLIST_CHANNEL
+            };
 
-            logger.info("Session registered for user: {}, sessionId: {}", username, sessionId);
-            return true;
+            return circuitBreaker.execute("session.register", () -> {
+                runRegisterScript(username, sessionId, keys, args);
+                return true;
+            }, () -> {
+                // El login continúa; el registro (con su instante original) se reproduce al recuperarse Redis
+                degradedStore.delete(keysToClear);
+                degradedStore.enqueue("session.register", () -> runRegisterScript(username, sessionId, keys, args));
+                logger.warn("Redis unavailable, session registration queued for user: {}", username);
+                return true;
+            });
         } catch (Exception e) {
             logger.error("Error registering session for user {}: {}", username, e.getMessage(), e);
             return false;
         }
     }
 
+    private void runRegisterScript(String username, String sessionId, List<String> keys, Object[] args) {
+        List<?> result = redisTemplate.execute(REGISTER_SCRIPT, keys, args);
+
+        Object activeSessions = result != null && !result.isEmpty() ? result.get(0) : null;
+        if (result != null && result.size() > 1) {
+            List<?> evicted = result.subList(1, result.size());
+            logger.info("Device limit reached for user: {}, evicted sessions: {}", username, evicted);
+            if (meterRegistry != null) {
+                meterRegistry.counter("sessions.evicted").increment(evicted.size());
+            }
+        }
+
+        logger.info("Session registered for user: {}, sessionId: {}, active sessions: {}",
+                username, sessionId, activeSessions);
+    }
+
     /**
      * Remueve una sesión específica de un usuario
      *
      * @param username Nombre de usuario
      * @param sessionId ID de la sesión a remover
-     * @return true si la sesión fue removida exitosamente
+     * @return true si la sesión existía y fue removida
      */
     public boolean removeSession(String username, String sessionId) {
-        try {
-            String sessionKey = SESSION_PREFIX + username;
-            Set<String> sessions = redisTemplate.opsForSet().members(sessionKey);
-
-            if (sessions != null) {
-                // Buscar y remover la sesión que coincida con el sessionId
-                sessions.stream()
-                        .filter(s -> s.startsWith(sessionId + ":"))
-                        .forEach(s -> redisTemplate.opsForSet().remove(sessionKey, s));
-
-                decrementSessionCount(username);
+        List<String> keys = sessionKeys(username);
+        return circuitBreaker.execute("session.remove", () -> {
+            Long removed = redisTemplate.execute(REMOVE_SCRIPT, keys, sessionId, username);
+            if (removed != null && removed > 0) {
                 logger.info("Session removed for user: {}, sessionId: {}", username, sessionId);
                 return true;
             }
             return false;
-        } catch (Exception e) {
-            logger.error("Error removing session for user {}: {}", username, e.getMessage(), e);
+        }, () -> {
+            degradedStore.enqueue("session.remove", () -> redisTemplate.execute(REMOVE_SCRIPT, keys, sessionId, username));
+            logger.warn("Redis unavailable, session removal queued for user: {}", username);
             return false;
-        }
+        });
     }
 
     /**
      * Invalida todas las sesiones de un usuario
      *
      * @param username Nombre de usuario
-     * @return Número de sesiones invalidadas
+     * @return Número de sesiones activas invalidadas
      */
     public long invalidateAllUserSessions(String username) {
+        return circuitBreaker.execute("session.end-all", () -> {
+            long count = endSessions(username, List.of(), "", "0");
+            logger.info("All sessions invalidated for user: {}, count: {}", username, count);
+            return count;
+        }, () -> {
+            degradedStore.enqueue("session.end-all", () -> endSessions(username, List.of(), "", "0"));
+            logger.warn("Redis unavailable, session invalidation queued for user: {}", username);
+            return 0L;
+        });
+    }
+
+    /**
+     * Invalida todas las sesiones de un usuario y agrega a la blacklist el token presentado
+     * en el logout, con un único script (y un solo round trip) para ambas operaciones
+     *
+     * @param username Nombre de usuario
+     * @param revokedToken Token presentado en el logout
+     * @return Número de sesiones activas invalidadas
+     */
+    public long invalidateAllUserSessions(String username, VerifiedToken revokedToken) {
         try {
-            String sessionKey = SESSION_PREFIX + username;
-            Set<String> sessions = redisTemplate.opsForSet().members(sessionKey);
-
-            if (sessions != null && !sessions.isEmpty()) {
-                long count = sessions.size();
-                redisTemplate.delete(sessionKey);
-                resetSessionCount(username);
-                logger.info("All sessions invalidated for user: {}, count: {}", username, count);
-                return count;
-            }
-            return 0;
+            String revocationId = revokedToken.getRevocationId();
+            long expiresAt = revokedToken.getExpiration() != null ? revokedToken.getExpiration().getTime() : 0;
+            List<String> blacklistKeys = List.of(
+                    keyspace.key(TokenBlacklistService.BLACKLIST_PREFIX, username, revocationId),
+                    keyspace.indexKey(TokenBlacklistService.BLACKLIST_INDEX, username));
+
+            long count = circuitBreaker.execute("session.logout", () -> {
+                long ended = endSessions(username, blacklistKeys, revocationId, String.valueOf(expiresAt));
+                logger.info("Token revoked and all sessions invalidated for user: {}, count: {}", username, ended);
+                return ended;
+            }, () -> {
+                // La revocación rige desde ya en este nodo; el script se reproduce al recuperarse Redis
+                degradedStore.set(blacklistKeys.get(0), "revoked", expiresAt - System.currentTimeMillis());
+                degradedStore.enqueue("session.logout",
+                        () -> endSessions(username, blacklistKeys, revocationId, String.valueOf(expiresAt)));
+                logger.warn("Redis unavailable, logout queued for user: {}", username);
+                return 0L;
+            });
+            tokenBlacklistService.onTokenRevoked(revokedToken);
+            return count;
         } catch (Exception e) {
             logger.error("Error invalidating sessions for user {}: {}", username, e.getMessage(), e);
             return 0;
@@ -116,20 +289,17 @@ public class SessionManagementService {
     }
 
     /**
-     * Obtiene el número de sesiones activas de un usuario
+     * Obtiene el número de sesiones activas (no expiradas) de un usuario
      *
      * @param username Nombre de usuario
      * @return Número de sesiones activas
      */
     public long getActiveSessionCount(String username) {
-        try {
-            String sessionKey = SESSION_PREFIX + username;
-            Long count = redisTemplate.opsForSet().size(sessionKey);
-            return count != null ? count : 0;
-        } catch (Exception e) {
-            logger.error("Error getting session count for user {}: {}", username, e.getMessage(), e);
-            return 0;
-        }
+        return circuitBreaker.execute("session.count", () -> {
+            Long count = readTemplate().opsForZSet().count(keyspace.userKey(SESSION_EXPIRY_PREFIX, username),
+                    Instant.now().toEpochMilli() + 1, Double.POSITIVE_INFINITY);
+            return count != null ? count : 0L;
+        }, () -> 0L);
     }
 
     /**
@@ -143,19 +313,51 @@ public class SessionManagementService {
     }
 
     /**
-     * Obtiene todas las sesiones activas de un usuario
+     * Obtiene los IDs de las sesiones activas de un usuario
      *
      * @param username Nombre de usuario
      * @return Conjunto de IDs de sesión
      */
     public Set<String> getUserSessions(String username) {
-        try {
-            String sessionKey = SESSION_PREFIX + username;
-            return redisTemplate.opsForSet().members(sessionKey);
-        } catch (Exception e) {
-            logger.error("Error getting sessions for user {}: {}", username, e.getMessage(), e);
-            return Set.of();
+        return circuitBreaker.execute("session.list", () -> {
+            Set<String> sessions = readTemplate().opsForZSet().rangeByScore(
+                    keyspace.userKey(SESSION_EXPIRY_PREFIX, username),
+                    Instant.now().toEpochMilli() + 1, Double.POSITIVE_INFINITY);
+            return sessions != null ? sessions : Set.<String>of();
+        }, Set::of);
+    }
+
+    /**
+     * Obtiene el detalle de las sesiones activas de un usuario (dispositivo, creación, último uso y expiración),
+     * ordenadas de la más reciente a la más antigua por último uso
+     *
+     * @param username Nombre de usuario
+     * @return Lista de sesiones activas
+     */
+    public List<SessionInfo> getSessionDetails(String username) {
+        return circuitBreaker.execute("session.details", () -> loadSessionDetails(username), List::of);
+    }
+
+    private List<SessionInfo> loadSessionDetails(String username) {
+        RedisTemplate<String, String> template = readTemplate();
+        Set<ZSetOperations.TypedTuple<String>> expirations = template.opsForZSet().rangeByScoreWithScores(
+                keyspace.userKey(SESSION_EXPIRY_PREFIX, username),
+                Instant.now().toEpochMilli() + 1, Double.POSITIVE_INFINITY);
+        if (expirations == null || expirations.isEmpty()) {
+            return List.of();
         }
+
+        Map<Object, Object> data = template.opsForHash().entries(keyspace.userKey(SESSION_DATA_PREFIX, username));
+        List<SessionInfo> sessions = new ArrayList<>();
+        for (ZSetOperations.TypedTuple<String> expiration : expirations) {
+            String sessionId = expiration.getValue();
+            Object value = data.get(sessionId);
+            if (sessionId != null && expiration.getScore() != null && value != null) {
+                sessions.add(toSessionInfo(sessionId, (String) value, expiration.getScore().longValue()));
+            }
+        }
+        sessions.sort(Comparator.comparing(SessionInfo::getLastSeenAt).reversed());
+        return sessions;
     }
 
     /**
@@ -166,92 +368,131 @@ public class SessionManagementService {
      * @return true si la sesión está activa
      */
     public boolean isSessionActive(String username, String sessionId) {
-        try {
-            String sessionKey = SESSION_PREFIX + username;
-            Set<String> sessions = redisTemplate.opsForSet().members(sessionKey);
-
-            if (sessions != null) {
-                return sessions.stream().anyMatch(s -> s.startsWith(sessionId + ":"));
-            }
-            return false;
-        } catch (Exception e) {
-            logger.error("Error checking session status: {}", e.getMessage(), e);
-            return false;
-        }
+        return circuitBreaker.execute("session.check", () -> {
+            Double expiresAt = redisTemplate.opsForZSet()
+                    .score(keyspace.userKey(SESSION_EXPIRY_PREFIX, username), sessionId);
+            return expiresAt != null && expiresAt > Instant.now().toEpochMilli();
+        }, () -> false);
     }
 
     /**
-     * Limpia sesiones expiradas (normalmente Redis lo hace automáticamente)
+     * Limpia sesiones expiradas (Redis expira las claves completas, pero no las entradas de un
+     * usuario que sigue teniendo otras sesiones vivas). Cada ejecución avanza el barrido SCAN
+     * dentro de su presupuesto de tiempo y retoma desde el cursor guardado en la siguiente.
+     * El barrido también reindexa en el índice global a los usuarios con sesiones previas a él.
+     *
+     * @return Resultado del barrido de sesiones
      */
-    public void cleanupExpiredSessions() {
+    @Scheduled(fixedDelayString = "${innosistemas.auth.session.cleanup-interval-ms:300000}",
+            initialDelayString = "${innosistemas.auth.session.cleanup-interval-ms:300000}")
+    public RedisKeySweeper.SweepResult cleanupExpiredSessions() {
         try {
-            Set<String> keys = redisTemplate.keys(SESSION_PREFIX + "*");
-            if (keys != null) {
-                long cleaned = 0;
-                for (String key : keys) {
-                    Set<String> sessions = redisTemplate.opsForSet().members(key);
-                    if (sessions != null) {
-                        long now = Instant.now().toEpochMilli();
-                        for (String session : sessions) {
-                            String[] parts = session.split(":");
-                            if (parts.length >= 2) {
-                                long timestamp = Long.parseLong(parts[parts.length - 1]);
-                                if (now - timestamp > jwtExpirationInMs * 1000) {
-                                    redisTemplate.opsForSet().remove(key, session);
-                                    cleaned++;
-                                }
-                            }
-                        }
-                    }
-                }
-                logger.info("Cleaned up {} expired sessions", cleaned);
+            long now = Instant.now().toEpochMilli();
+            for (String indexKey : keyspace.indexKeys(ACTIVE_USERS_KEY)) {
+                redisTemplate.opsForZSet().removeRangeByScore(indexKey, Double.NEGATIVE_INFINITY, now);
             }
         } catch (Exception e) {
-            logger.error("Error cleaning up expired sessions: {}", e.getMessage(), e);
+            logger.error("Error pruning active users index: {}", e.getMessage());
         }
-    }
 
-    // Métodos privados para gestión de contadores
-
-    private void incrementSessionCount(String username) {
-        try {
-            String countKey = SESSION_COUNT_PREFIX + username;
-            redisTemplate.opsForValue().increment(countKey);
-        } catch (Exception e) {
-            logger.error("Error incrementing session count: {}", e.getMessage());
+        if (!keyspace.isScannable()) {
+            // Sin SCAN global en cluster: cada registro poda las sesiones expiradas del usuario
+            // y sus claves expiran con su última sesión
+            return new RedisKeySweeper.SweepResult(RedisKeySweeper.Outcome.SKIPPED, 0, 0, 0);
         }
-    }
 
-    private void decrementSessionCount(String username) {
-        try {
-            String countKey = SESSION_COUNT_PREFIX + username;
-            redisTemplate.opsForValue().decrement(countKey);
-        } catch (Exception e) {
-            logger.error("Error decrementing session count: {}", e.getMessage());
+        RedisKeySweeper.SweepResult result =
+                keySweeper.sweep(EXPIRED_SESSIONS_SWEEP, SESSION_EXPIRY_PREFIX + "*", this::pruneExpiredSessions);
+        if (result.getRemoved() > 0) {
+            logger.info("Cleaned up {} expired sessions ({})", result.getRemoved(), result.getOutcome());
         }
-    }
 
-    private void resetSessionCount(String username) {
-        try {
-            String countKey = SESSION_COUNT_PREFIX + username;
-            redisTemplate.delete(countKey);
-        } catch (Exception e) {
-            logger.error("Error resetting session count: {}", e.getMessage());
+        if (legacyCountersPending) {
+            RedisKeySweeper.SweepResult legacy =
+                    keySweeper.sweep(LEGACY_COUNTERS_SWEEP, LEGACY_COUNT_PREFIX + "*", keySweeper.unlinkAll());
+            if (legacy.isComplete() && legacy.getScanned() == 0) {
+                legacyCountersPending = false;
+            }
         }
+        return result;
     }
 
     /**
-     * Obtiene estadísticas de sesiones
+     * Obtiene estadísticas de sesiones desde el índice global (O(log n), sin recorrer el keyspace)
      *
      * @return Número total de usuarios con sesiones activas
      */
     public long getTotalActiveUsers() {
-        try {
-            Set<String> keys = redisTemplate.keys(SESSION_PREFIX + "*");
-            return keys != null ? keys.size() : 0;
-        } catch (Exception e) {
-            logger.error("Error getting total active users: {}", e.getMessage(), e);
-            return 0;
+        return circuitBreaker.execute("session.active-users", () -> {
+            long now = Instant.now().toEpochMilli();
+            long total = 0;
+            for (String indexKey : keyspace.indexKeys(ACTIVE_USERS_KEY)) {
+                Long count = readTemplate().opsForZSet().count(indexKey, now + 1, Double.POSITIVE_INFINITY);
+                total += count != null ? count : 0L;
+            }
+            return total;
+        }, () -> 0L);
+    }
+
+    /**
+     * Duración de una sesión desde el login o su última renovación
+     *
+     * @return Duración en milisegundos
+     */
+    long sessionTtlMillis() {
+        return jwtExpirationInMs * 1000;
+    }
+
+    private long endSessions(String username, List<String> blacklistKeys, String revocationId, String expiresAt) {
+        List<String> keys = new ArrayList<>(sessionKeys(username));
+        keys.addAll(blacklistKeys);
+
+        Long count = redisTemplate.execute(END_SESSIONS_SCRIPT, keys,
+                username,
+                String.valueOf(Instant.now().toEpochMilli()),
+                revocationId,
+                expiresAt,
+                TokenBlacklistService.BLACKLIST_CHANNEL);
+        return count != null ? count : 0;
+    }
+
+    private long pruneExpiredSessions(List<String> expiryKeys) {
+        String now = String.valueOf(Instant.now().toEpochMilli());
+        long pruned = 0;
+        for (String expiryKey : expiryKeys) {
+            String username = keyspace.idOf(SESSION_EXPIRY_PREFIX, expiryKey);
+            Long count = redisTemplate.execute(PRUNE_SCRIPT, sessionKeys(username), now, username);
+            pruned += count != null ? count : 0;
         }
+        return pruned;
+    }
+
+    // Hash de sesiones, sorted set de expiración y partición del índice global: un mismo slot
+    private List<String> sessionKeys(String username) {
+        return List.of(keyspace.userKey(SESSION_DATA_PREFIX, username),
+                keyspace.userKey(SESSION_EXPIRY_PREFIX, username),
+                keyspace.indexKey(ACTIVE_USERS_KEY, username));
+    }
+
+    private RedisTemplate<String, String> readTemplate() {
+        return replicaRedisTemplate != null ? replicaRedisTemplate : redisTemplate;
+    }
+
+    private static String normalizeDevice(String device) {
+        if (device == null) {
+            return "";
+        }
+        String trimmed = device.trim();
+        return trimmed.length() > MAX_DEVICE_LENGTH ? trimmed.substring(0, MAX_DEVICE_LENGTH) : trimmed;
+    }
+
+    // Formato en Redis: "<creadoMs>;<últimoUsoMs>;<dispositivo>"
+    private static SessionInfo toSessionInfo(String sessionId, String value, long expiresAtMillis) {
+        String[] parts = value.split(";", 3);
+        long createdAt = Long.parseLong(parts[0]);
+        long lastSeenAt = parts.length > 1 ? Long.parseLong(parts[1]) : createdAt;
+        String device = parts.length > 2 && !parts[2].isEmpty() ? parts[2] : null;
+        return new SessionInfo(sessionId, device, Instant.ofEpochMilli(createdAt),
+                Instant.ofEpochMilli(lastSeenAt), Instant.ofEpochMilli(expiresAtMillis));
     }
 }
@@ -9,9 +9,15 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -35,6 +41,12 @@ public class TeamService {
     @Autowired
     private TeamEventService teamEventService;
 
+    @Autowired
+    private SecurityVersionService securityVersionService;
+
+    @Autowired
+    private UserLookupService userLookupService;
+
     /**
      * Crea un nuevo equipo
      *
@@ -188,6 +200,7 @@ public class TeamService {
         // Asignar el usuario al equipo
         usuario.setTeamId(teamId);
         userRepository.save(usuario);
+        invalidarUsuariosTrasCommit(List.of(usuario));
 
         // Procesar evento de miembro unido
         teamEventService.procesarEventoMiembroUnido(team, usuario);
@@ -219,6 +232,7 @@ public class TeamService {
         // Remover al usuario del equipo
         usuario.setTeamId(null);
         userRepository.save(usuario);
+        invalidarUsuariosTrasCommit(List.of(usuario));
 
         // Procesar evento de miembro abandona
         teamEventService.procesarEventoMiembroAbandona(team, usuario);
@@ -240,6 +254,7 @@ public class TeamService {
         List<User> miembros = userRepository.findByTeamId(teamId);
         miembros.forEach(u -> u.setTeamId(null));
         userRepository.saveAll(miembros);
+        invalidarUsuariosTrasCommit(miembros);
 
         // Marcar el equipo como inactivo en lugar de eliminarlo físicamente
         team.setActivo(false);
@@ -259,4 +274,50 @@ public class TeamService {
         LocalDateTime limite = ahora.plusDays(dias);
         return teamRepository.findTeamsProximosAVencer(ahora, limite);
     }
+
+    /**
+     * Obtiene los miembros de varios equipos con una sola consulta
+     *
+     * @param teamIds IDs de los equipos
+     * @return Miembros por ID de equipo; los equipos sin miembros tienen una lista vacía
+     */
+    public Map<Long, List<User>> obtenerMiembrosPorEquipos(Collection<Long> teamIds) {
+        Map<Long, List<User>> miembros = new HashMap<>();
+        if (teamIds.isEmpty()) {
+            return miembros;
+        }
+        teamIds.forEach(teamId -> miembros.put(teamId, new ArrayList<>()));
+        for (User user : userRepository.findByTeamIdIn(teamIds)) {
+            miembros.computeIfAbsent(user.getTeamId(), teamId -> new ArrayList<>()).add(user);
+        }
+        return miembros;
+    }
+
+    /**
+     * Incrementa la versión de seguridad y descarta de la caché cercana a los usuarios modificados cuando
+     * la transacción confirma. Hacerlo antes permitiría que otra petición recargara el usuario sin el cambio
+     * (y lo volviera a cachear con la versión nueva), y un rollback dejaría invalidados tokens vigentes.
+     * Sin transacción activa se invalida de inmediato.
+     *
+     * @param usuarios Usuarios cuyo equipo cambió
+     */
+    private void invalidarUsuariosTrasCommit(Collection<User> usuarios) {
+        List<Long> ids = usuarios.stream().map(User::getId).toList();
+        List<String> emails = usuarios.stream().map(User::getEmail).toList();
+        Runnable invalidar = () -> {
+            ids.forEach(securityVersionService::bumpVersion);
+            emails.forEach(userLookupService::evict);
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidar.run();
+                }
+            });
+        } else {
+            invalidar.run();
+        }
+    }
 }
@@ -1,12 +1,28 @@
 package com.udea.innosistemas.service;
 
+import com.udea.innosistemas.event.RedisCircuitStateEvent;
+import com.udea.innosistemas.security.VerifiedToken;
+import com.udea.innosistemas.security.VerifiedTokenCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -14,32 +30,108 @@ import java.util.concurrent.TimeUnit;
  * Permite invalidar tokens antes de su expiración natural (logout, cambio de contraseña, etc.).
  * Utiliza Redis para almacenamiento distribuido y expira automáticamente los tokens.
  *
+ * Los tokens se revocan por su identificador (claim "jti") y no por el JWT completo.
+ * Cada nodo mantiene un filtro de Bloom local, sincronizado por pub/sub de Redis, de modo que
+ * la respuesta habitual ("no revocado") no requiere ninguna llamada de red; solo un positivo
+ * del filtro se confirma contra Redis.
+ *
+ * Las llamadas a Redis pasan por {@link RedisCircuitBreaker}. En modo degradado un positivo del
+ * filtro (o la falta de filtro) se trata como revocado sin esperar el timeout de Redis, y las
+ * revocaciones se guardan en {@link DegradedModeStore}: siguen vigentes en el nodo aunque el filtro
+ * se reconstruya y se escriben en Redis cuando el circuito se cierra.
+ *
+ * Cada entrada de la blacklist y su índice viven en la partición del usuario dueño del token
+ * ({@link RedisKeyspace}), de modo que el script de logout y el de rotación no cruzan slots en
+ * Redis Cluster.
+ *
  * Autor: Fábrica-Escuela de Software UdeA
  * Versión: 1.0.0
  */
 @Service
-public class TokenBlacklistService {
+public class TokenBlacklistService implements MessageListener {
 
     private static final Logger logger = LoggerFactory.getLogger(TokenBlacklistService.class);
-    private static final String BLACKLIST_PREFIX = "token:blacklist:";
+    static final String BLACKLIST_PREFIX = "token:blacklist:";
+    // Índice de jti revocados con score = expiración (ms); sirve para reconstruir el filtro de Bloom
+    static final String BLACKLIST_INDEX = "token:blacklist-index";
+    public static final String BLACKLIST_CHANNEL = "token:blacklist:events";
+    private static final int CLEAR_BATCH_SIZE = 500;
+    private static final String REVOKED = "revoked";
 
     @Autowired
     private RedisTemplate<String, String> redisTemplate;
 
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private DegradedModeStore degradedStore;
+
+    @Autowired
+    private RedisKeyspace keyspace;
+
+    @Autowired(required = false)
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired(required = false)
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${innosistemas.auth.blacklist.bloom.expected-insertions:100000}")
+    private long bloomExpectedInsertions;
+
+    @Value("${innosistemas.auth.blacklist.bloom.false-positive-rate:0.001}")
+    private double bloomFalsePositiveRate;
+
+    // Null hasta la primera carga exitosa; mientras tanto toda consulta va a Redis
+    private volatile TokenBloomFilter bloomFilter;
+
+    // Filtro en construcción: recibe las revocaciones que llegan durante la reconstrucción
+    private volatile TokenBloomFilter rebuildingFilter;
+
+    @PostConstruct
+    void init() {
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(BLACKLIST_CHANNEL));
+        }
+        rebuildBloomFilter();
+    }
+
     /**
-     * Agrega un token a la blacklist
+     * Revoca un token verificado usando su jti (o el digest del token si no trae jti)
      *
-     * @param token Token a invalidar
+     * @param verifiedToken Token a invalidar
+     */
+    public void blacklistToken(VerifiedToken verifiedToken) {
+        // Sacar el token de la caché local de tokens verificados antes de revocarlo en Redis
+        if (verifiedTokenCache != null) {
+            verifiedTokenCache.invalidate(verifiedToken.getToken());
+        }
+        blacklistToken(verifiedToken.getSubject(), verifiedToken.getRevocationId(), verifiedToken.getExpiration());
+    }
+
+    /**
+     * Agrega a la blacklist un token de un usuario; la entrada queda en la partición del usuario
+     * ({@link RedisKeyspace}), junto a sus sesiones
+     *
+     * @param username Usuario dueño del token (subject)
+     * @param tokenId Identificador (jti) del token a invalidar
      * @param expirationDate Fecha de expiración del token
      */
-    public void blacklistToken(String token, Date expirationDate) {
+    public void blacklistToken(String username, String tokenId, Date expirationDate) {
         try {
-            String key = BLACKLIST_PREFIX + token;
-            long ttl = expirationDate.getTime() - System.currentTimeMillis();
+            long expiresAt = expirationDate.getTime();
+            long ttl = expiresAt - System.currentTimeMillis();
 
             if (ttl > 0) {
-                redisTemplate.opsForValue().set(key, "revoked", ttl, TimeUnit.MILLISECONDS);
-                logger.info("Token added to blacklist with TTL: {} ms", ttl);
+                circuitBreaker.run("blacklist.add", () -> {
+                    writeRevocation(username, tokenId, expiresAt);
+                    logger.info("Token added to blacklist with TTL: {} ms", ttl);
+                }, () -> {
+                    degradedStore.set(keyspace.key(BLACKLIST_PREFIX, username, tokenId), REVOKED, ttl);
+                    degradedStore.enqueue("blacklist.add", () -> writeRevocation(username, tokenId, expiresAt));
+                    logger.warn("Redis unavailable, token revoked locally until reconciliation");
+                });
+                addToBloomFilter(tokenId);
             } else {
                 logger.warn("Token already expired, not adding to blacklist");
             }
@@ -48,33 +140,84 @@ public class TokenBlacklistService {
         }
     }
 
+    // Idempotente: también la reproduce la reconciliación, con el TTL restante en ese momento
+    private void writeRevocation(String username, String tokenId, long expiresAt) {
+        long ttl = expiresAt - System.currentTimeMillis();
+        if (ttl <= 0) {
+            return;
+        }
+        redisTemplate.opsForValue().set(keyspace.key(BLACKLIST_PREFIX, username, tokenId), REVOKED,
+                ttl, TimeUnit.MILLISECONDS);
+        redisTemplate.opsForZSet().add(keyspace.indexKey(BLACKLIST_INDEX, username), tokenId, expiresAt);
+        redisTemplate.convertAndSend(BLACKLIST_CHANNEL, tokenId);
+    }
+
     /**
-     * Verifica si un token está en la blacklist
+     * Refleja en este nodo una revocación que otro camino ya escribió en Redis (el script de logout):
+     * saca el token de la caché de tokens verificados y lo agrega al filtro de Bloom local
      *
-     * @param token Token a verificar
+     * @param verifiedToken Token revocado
+     */
+    void onTokenRevoked(VerifiedToken verifiedToken) {
+        if (verifiedTokenCache != null) {
+            verifiedTokenCache.invalidate(verifiedToken.getToken());
+        }
+        addToBloomFilter(verifiedToken.getRevocationId());
+    }
+
+    /**
+     * Verifica si un token verificado está revocado, por su jti o por la sesión a la que pertenece
+     * (una sesión desalojada revoca de una vez todos sus tokens)
+     *
+     * @param verifiedToken Token a verificar
      * @return true si el token está revocado, false en caso contrario
      */
-    public boolean isTokenBlacklisted(String token) {
-        try {
-            String key = BLACKLIST_PREFIX + token;
-            Boolean exists = redisTemplate.hasKey(key);
-            return Boolean.TRUE.equals(exists);
-        } catch (Exception e) {
-            logger.error("Error checking token blacklist: {}", e.getMessage(), e);
-            // En caso de error de Redis, rechazar el token por seguridad
+    public boolean isTokenBlacklisted(VerifiedToken verifiedToken) {
+        String username = verifiedToken.getSubject();
+        if (isTokenBlacklisted(username, verifiedToken.getRevocationId())) {
             return true;
         }
+        String sessionId = verifiedToken.getSessionId();
+        return sessionId != null && !sessionId.equals(verifiedToken.getRevocationId())
+                && isTokenBlacklisted(username, sessionId);
+    }
+
+    /**
+     * Verifica si un token de un usuario está en la blacklist; la entrada se busca en la
+     * partición del usuario ({@link RedisKeyspace})
+     *
+     * @param username Usuario dueño del token (subject)
+     * @param tokenId Identificador (jti) del token a verificar
+     * @return true si el token está revocado, false en caso contrario
+     */
+    public boolean isTokenBlacklisted(String username, String tokenId) {
+        // Un negativo del filtro de Bloom es definitivo: no hace falta consultar Redis
+        TokenBloomFilter filter = this.bloomFilter;
+        if (filter != null && tokenId != null && !filter.mightContain(tokenId)) {
+            return false;
+        }
+
+        String key = keyspace.key(BLACKLIST_PREFIX, username, tokenId);
+        // Sin Redis se rechazan las revocaciones hechas en modo degradado y los positivos del filtro;
+        // sin filtro, un token desconocido se admite en lugar de rechazar a todos los usuarios
+        return circuitBreaker.execute("blacklist.check",
+                () -> Boolean.TRUE.equals(redisTemplate.hasKey(key)),
+                () -> degradedStore.get(key) != null || (filter != null && filter.mightContain(tokenId)));
     }
 
     /**
-     * Remueve un token de la blacklist (uso administrativo)
+     * Remueve un token de la blacklist (uso administrativo). Sin el usuario dueño del token se
+     * busca en todas las particiones.
      *
-     * @param token Token a remover
+     * @param tokenId Identificador (jti) del token a remover
      */
-    public void removeTokenFromBlacklist(String token) {
+    public void removeTokenFromBlacklist(String tokenId) {
         try {
-            String key = BLACKLIST_PREFIX + token;
-            redisTemplate.delete(key);
+            for (int shard = 0; shard < keyspace.getShards(); shard++) {
+                String key = keyspace.key(BLACKLIST_PREFIX, shard, tokenId);
+                redisTemplate.delete(key);
+                redisTemplate.opsForZSet().remove(keyspace.indexKey(BLACKLIST_INDEX, shard), tokenId);
+            }
             logger.info("Token removed from blacklist");
         } catch (Exception e) {
             logger.error("Error removing token from blacklist: {}", e.getMessage(), e);
@@ -82,17 +225,114 @@ public class TokenBlacklistService {
     }
 
     /**
-     * Limpia todos los tokens blacklisted (uso administrativo)
+     * Limpia todos los tokens blacklisted (uso administrativo).
+     * Recorre el índice de jti por lotes con UNLINK en lugar de buscar las claves con KEYS:
+     * cada lote sale del índice al borrarse, así que una limpieza interrumpida se retoma sola.
      */
     public void clearBlacklist() {
         try {
-            var keys = redisTemplate.keys(BLACKLIST_PREFIX + "*");
-            if (keys != null && !keys.isEmpty()) {
-                redisTemplate.delete(keys);
-                logger.info("Blacklist cleared: {} tokens removed", keys.size());
+            ZSetOperations<String, String> index = redisTemplate.opsForZSet();
+            long removed = 0;
+            for (int shard = 0; shard < keyspace.getShards(); shard++) {
+                int current = shard;
+                String indexKey = keyspace.indexKey(BLACKLIST_INDEX, shard);
+                Set<String> batch = index.range(indexKey, 0, CLEAR_BATCH_SIZE - 1);
+                while (batch != null && !batch.isEmpty()) {
+                    List<String> keys = batch.stream()
+                            .map(tokenId -> keyspace.key(BLACKLIST_PREFIX, current, tokenId))
+                            .toList();
+                    redisTemplate.unlink(keys);
+                    index.remove(indexKey, batch.toArray());
+                    removed += batch.size();
+                    batch = index.range(indexKey, 0, CLEAR_BATCH_SIZE - 1);
+                }
+            }
+            if (bloomFilter != null) {
+                bloomFilter = newBloomFilter();
             }
+            logger.info("Blacklist cleared: {} tokens removed", removed);
         } catch (Exception e) {
             logger.error("Error clearing blacklist: {}", e.getMessage(), e);
         }
     }
+
+    /**
+     * Reconstruye el filtro de Bloom local desde el índice de Redis.
+     * Los filtros de Bloom no permiten eliminar elementos, así que la reconstrucción periódica
+     * descarta los tokens ya expirados y recupera revocaciones perdidas si se cortó la suscripción pub/sub.
+     * Si Redis no está disponible se conserva el filtro anterior.
+     */
+    @Scheduled(fixedDelayString = "${innosistemas.auth.blacklist.bloom.rebuild-interval-ms:60000}",
+            initialDelayString = "${innosistemas.auth.blacklist.bloom.rebuild-interval-ms:60000}")
+    public void rebuildBloomFilter() {
+        TokenBloomFilter filter = newBloomFilter();
+        rebuildingFilter = filter;
+        try {
+            Integer loaded = circuitBreaker.execute("blacklist.rebuild", () -> loadRevokedIds(filter), () -> null);
+            if (loaded == null) {
+                logger.warn("Redis unavailable, keeping previous blacklist Bloom filter");
+                return;
+            }
+            // Las revocaciones hechas en modo degradado pueden no estar aún en el índice de Redis
+            degradedStore.keys(BLACKLIST_PREFIX)
+                    .forEach(key -> filter.put(keyspace.idOf(BLACKLIST_PREFIX, key)));
+            bloomFilter = filter;
+            logger.debug("Blacklist Bloom filter rebuilt with {} entries", loaded);
+        } finally {
+            rebuildingFilter = null;
+        }
+    }
+
+    /**
+     * Al cerrarse el circuito recupera las revocaciones que otros nodos publicaron mientras
+     * este no recibía eventos de Redis
+     */
+    @Async
+    @EventListener
+    public void onCircuitStateChange(RedisCircuitStateEvent event) {
+        if (event.isRecovered()) {
+            rebuildBloomFilter();
+        }
+    }
+
+    private int loadRevokedIds(TokenBloomFilter filter) {
+        long now = System.currentTimeMillis();
+        ZSetOperations<String, String> index = redisTemplate.opsForZSet();
+        int loaded = 0;
+        for (String indexKey : keyspace.indexKeys(BLACKLIST_INDEX)) {
+            index.removeRangeByScore(indexKey, 0, now);
+            Set<String> revokedIds = index.rangeByScore(indexKey, now, Double.POSITIVE_INFINITY);
+            if (revokedIds != null) {
+                revokedIds.forEach(filter::put);
+                loaded += revokedIds.size();
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Recibe las revocaciones publicadas por otros nodos y las agrega al filtro local
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        addToBloomFilter(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void addToBloomFilter(String tokenId) {
+        if (tokenId == null) {
+            return;
+        }
+        TokenBloomFilter current = bloomFilter;
+        if (current != null) {
+            current.put(tokenId);
+        }
+        TokenBloomFilter rebuilding = rebuildingFilter;
+        if (rebuilding != null) {
+            rebuilding.put(tokenId);
+        }
+    }
+
+    private TokenBloomFilter newBloomFilter() {
+        return new TokenBloomFilter(bloomExpectedInsertions, bloomFalsePositiveRate);
+    }
 }
@@ -0,0 +1,104 @@
+package com.udea.innosistemas.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom local y thread-safe para identificadores (jti) de tokens revocados.
+ * Responde "seguro no está" sin tocar la red; un positivo solo indica que hay que confirmar en Redis.
+ * No soporta eliminación: se reconstruye periódicamente para descartar tokens ya expirados.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+public final class TokenBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashFunctions;
+
+    /**
+     * Crea un filtro dimensionado para la cantidad esperada de elementos y la tasa de falsos positivos
+     *
+     * @param expectedInsertions Número esperado de tokens revocados simultáneamente
+     * @param falsePositiveRate Tasa de falsos positivos deseada (ej: 0.001)
+     */
+    public TokenBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1L, expectedInsertions);
+        double p = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        m = Math.max(64L, ((m + 63) / 64) * 64);
+
+        this.bitCount = m;
+        this.bits = new AtomicLongArray((int) (m / 64));
+        this.hashFunctions = Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+    }
+
+    /**
+     * Agrega un identificador al filtro
+     *
+     * @param id Identificador del token
+     */
+    public void put(String id) {
+        long hash1 = hash(id, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(id, 0xC2B2AE3D27D4EB4FL) | 1L;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Math.floorMod(hash1 + i * hash2, bitCount);
+            setBit(index);
+        }
+    }
+
+    /**
+     * Indica si el identificador podría estar en el filtro
+     *
+     * @param id Identificador del token
+     * @return false si es seguro que no está; true si podría estar (confirmar en Redis)
+     */
+    public boolean mightContain(String id) {
+        long hash1 = hash(id, 0x9E3779B97F4A7C15L);
+        long hash2 = hash(id, 0xC2B2AE3D27D4EB4FL) | 1L;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+    }
+
+    // FNV-1a de 64 bits con semilla y mezcla final (fmix64 de MurmurHash3)
+    private static long hash(String id, long seed) {
+        long h = 0xCBF29CE484222325L ^ seed;
+        for (byte b : id.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB93FE1A85A53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
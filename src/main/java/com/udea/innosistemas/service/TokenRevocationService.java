@@ -0,0 +1,170 @@
+package com.udea.innosistemas.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.udea.innosistemas.security.VerifiedToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio que mantiene, por usuario, la "época de revocación" de sus tokens en Redis.
+ * Cerrar sesión en todos los dispositivos escribe una sola clave con el instante de revocación
+ * (milisegundos epoch) y todo token emitido hasta ese instante (claim "iatMs", o "iat" en tokens
+ * anteriores) deja de ser válido, sin importar cuántos dispositivos tenga el usuario ni agregar
+ * entradas a la blacklist. Un token emitido al volver a iniciar sesión en el mismo segundo sigue vigente.
+ *
+ * Sin Redis la época se guarda en {@link DegradedModeStore} y la escritura se encola para cuando
+ * el circuito se cierre, igual que la blacklist.
+ *
+ * La época se cachea localmente por un tiempo corto y los demás nodos descartan su copia
+ * al recibir el evento publicado por pub/sub de Redis. La clave vive en la partición del usuario
+ * ({@link RedisKeyspace}) para que el script de admisión la lea junto a la blacklist y el bucket.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Service
+public class TokenRevocationService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+    static final String REVOKED_BEFORE_PREFIX = "token:revoked-before:";
+    public static final String REVOCATION_CHANNEL = "token:revoked-before:events";
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private RedisKeyspace keyspace;
+
+    @Autowired
+    private RedisCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private DegradedModeStore degradedStore;
+
+    @Autowired(required = false)
+    private RedisMessageListenerContainer listenerContainer;
+
+    // Pasado el refresh token más largo, ningún token emitido antes de la revocación sigue vigente
+    @Value("${innosistemas.auth.jwt.refresh-expiration}")
+    private long refreshExpirationInSeconds;
+
+    @Value("${innosistemas.auth.revocation.cache-ttl-seconds:5}")
+    private long cacheTtlSeconds;
+
+    @Value("${innosistemas.auth.revocation.cache-max-size:50000}")
+    private long cacheMaxSize;
+
+    private Cache<String, Long> localEpochs;
+
+    @PostConstruct
+    void init() {
+        this.localEpochs = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .build();
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(REVOCATION_CHANNEL));
+        }
+    }
+
+    /**
+     * Revoca todos los tokens emitidos hasta ahora para un usuario (una sola escritura en Redis).
+     * Si Redis no está disponible la época queda vigente en este nodo y la escritura se encola.
+     *
+     * @param username Nombre de usuario (subject del token)
+     * @return true si la época quedó escrita en Redis; false si quedó pendiente de reconciliar
+     */
+    public boolean revokeAllTokens(String username) {
+        if (username == null) {
+            return false;
+        }
+
+        long revokedBefore = System.currentTimeMillis();
+        String key = keyspace.userKey(REVOKED_BEFORE_PREFIX, username);
+        String value = String.valueOf(revokedBefore);
+        localEpochs.put(username, revokedBefore);
+        Runnable write = () -> {
+            redisTemplate.opsForValue().set(key, value, refreshExpirationInSeconds, TimeUnit.SECONDS);
+            redisTemplate.convertAndSend(REVOCATION_CHANNEL, username);
+        };
+
+        return circuitBreaker.execute("revocation.revoke-all", () -> {
+            write.run();
+            logger.info("All tokens revoked for user: {}", username);
+            return true;
+        }, () -> {
+            degradedStore.set(key, value, TimeUnit.SECONDS.toMillis(refreshExpirationInSeconds));
+            degradedStore.enqueue("revocation.revoke-all", write);
+            logger.warn("Redis unavailable, revocation of all tokens for user {} queued", username);
+            return false;
+        });
+    }
+
+    /**
+     * Verifica si un token fue emitido antes de la última revocación de su usuario.
+     * Se compara en milisegundos, así que un token emitido justo después de la revocación
+     * (aunque sea en el mismo segundo) sigue vigente.
+     *
+     * @param verifiedToken Token ya verificado
+     * @return true si el token quedó revocado por la época del usuario
+     */
+    public boolean isRevoked(VerifiedToken verifiedToken) {
+        long revokedBefore = getRevokedBefore(verifiedToken.getSubject());
+        if (revokedBefore <= 0) {
+            return false;
+        }
+        long issuedAt = verifiedToken.getIssuedAtMillis();
+        return issuedAt <= 0 || issuedAt <= revokedBefore;
+    }
+
+    /**
+     * Obtiene la época de revocación vigente de un usuario
+     *
+     * @param username Nombre de usuario
+     * @return Milisegundos epoch de la última revocación, o 0 si no hay
+     */
+    public long getRevokedBefore(String username) {
+        if (username == null) {
+            return 0L;
+        }
+
+        Long cached = localEpochs.getIfPresent(username);
+        if (cached != null) {
+            return cached;
+        }
+
+        String key = keyspace.userKey(REVOKED_BEFORE_PREFIX, username);
+        // Sin Redis solo se conoce la época revocada en este nodo mientras el circuito estuvo abierto
+        return circuitBreaker.execute("revocation.check", () -> {
+            long revokedBefore = parseEpoch(redisTemplate.opsForValue().get(key));
+            localEpochs.put(username, revokedBefore);
+            return revokedBefore;
+        }, () -> parseEpoch(degradedStore.get(key)));
+    }
+
+    private static long parseEpoch(String value) {
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    /**
+     * Recibe las revocaciones hechas en otros nodos y descarta la época cacheada localmente
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        localEpochs.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+}
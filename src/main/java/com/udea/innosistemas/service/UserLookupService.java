@@ -0,0 +1,218 @@
+package com.udea.innosistemas.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.entity.UserRole;
+import com.udea.innosistemas.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Carga de usuarios por email con coalescencia de consultas concurrentes (single-flight).
+ * Una carga de página dispara varias peticiones GraphQL a la vez y cada una busca al mismo
+ * usuario: la primera consulta a la BD queda "en vuelo" y las demás esperan su resultado
+ * en lugar de abrir otra conexión del pool. El resultado se conserva en una caché cercana
+ * de vida muy corta para absorber la ráfaga completa.
+ *
+ * La caché y la consulta en vuelo guardan una copia inmutable del usuario, nunca la entidad JPA:
+ * cada llamada recibe su propia instancia desacoplada, así que modificarla no afecta a las demás
+ * peticiones ni a la caché.
+ *
+ * Los usuarios no encontrados no se cachean. Quien modifique un usuario debe llamar a
+ * {@link #evict(String)}; en otros nodos la entrada expira sola tras el TTL configurado.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Service
+public class UserLookupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserLookupService.class);
+    public static final String CACHE_NAME = "users.near-cache";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${innosistemas.auth.user-lookup.near-cache-ttl-ms:2000}")
+    private long nearCacheTtlMs;
+
+    @Value("${innosistemas.auth.user-lookup.near-cache-max-size:10000}")
+    private long nearCacheMaxSize;
+
+    // Consultas en curso por email: las llamadas concurrentes comparten el mismo futuro
+    private final ConcurrentMap<String, CompletableFuture<Optional<UserSnapshot>>> inFlight = new ConcurrentHashMap<>();
+
+    private Cache<String, UserSnapshot> nearCache;
+
+    private Counter coalescedCounter;
+
+    @PostConstruct
+    void init() {
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(nearCacheMaxSize)
+                .expireAfterWrite(Duration.ofMillis(nearCacheTtlMs))
+                .recordStats()
+                .build();
+
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, nearCache, CACHE_NAME);
+            this.coalescedCounter = Counter.builder("users.lookup.coalesced")
+                    .description("Búsquedas de usuario que esperaron una consulta ya en curso")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Busca un usuario por email compartiendo la consulta con las búsquedas concurrentes del mismo email
+     *
+     * @param email Email del usuario
+     * @return Optional con una copia desacoplada del usuario, vacío si no existe
+     */
+    public Optional<User> findByEmail(String email) {
+        if (email == null) {
+            return Optional.empty();
+        }
+
+        UserSnapshot cached = nearCache.getIfPresent(email);
+        if (cached != null) {
+            return Optional.of(cached.toUser());
+        }
+
+        CompletableFuture<Optional<UserSnapshot>> flight = new CompletableFuture<>();
+        CompletableFuture<Optional<UserSnapshot>> existing = inFlight.putIfAbsent(email, flight);
+        if (existing != null) {
+            if (coalescedCounter != null) {
+                coalescedCounter.increment();
+            }
+            return await(existing).map(UserSnapshot::toUser);
+        }
+
+        try {
+            // La consulta anterior pudo terminar entre la lectura de la caché y el registro del vuelo
+            cached = nearCache.getIfPresent(email);
+            Optional<UserSnapshot> user = cached != null
+                    ? Optional.of(cached)
+                    : userRepository.findByEmail(email).map(UserSnapshot::of);
+            user.ifPresent(snapshot -> nearCache.put(email, snapshot));
+            flight.complete(user);
+            return user.map(UserSnapshot::toUser);
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(email, flight);
+        }
+    }
+
+    /**
+     * Descarta el usuario de la caché cercana (tras modificar su rol, equipo o curso)
+     *
+     * @param email Email del usuario
+     */
+    public void evict(String email) {
+        if (email != null) {
+            nearCache.invalidate(email);
+        }
+    }
+
+    /**
+     * Número de consultas a la BD en curso (una por email)
+     *
+     * @return Cantidad de consultas en vuelo
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private static Optional<UserSnapshot> await(CompletableFuture<Optional<UserSnapshot>> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            logger.debug("Coalesced user lookup failed: {}", cause != null ? cause.getMessage() : e.getMessage());
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Copia inmutable de los campos de un usuario; cada acierto construye un User nuevo
+     */
+    private static final class UserSnapshot {
+        private final Long id;
+        private final String email;
+        private final String password;
+        private final UserRole role;
+        private final LocalDateTime createdAt;
+        private final LocalDateTime updatedAt;
+        private final boolean enabled;
+        private final boolean accountNonExpired;
+        private final boolean accountNonLocked;
+        private final boolean credentialsNonExpired;
+        private final Long teamId;
+        private final Long courseId;
+        private final String firstName;
+        private final String lastName;
+
+        private UserSnapshot(User user) {
+            this.id = user.getId();
+            this.email = user.getEmail();
+            this.password = user.getPassword();
+            this.role = user.getRole();
+            this.createdAt = user.getCreatedAt();
+            this.updatedAt = user.getUpdatedAt();
+            this.enabled = user.isEnabled();
+            this.accountNonExpired = user.isAccountNonExpired();
+            this.accountNonLocked = user.isAccountNonLocked();
+            this.credentialsNonExpired = user.isCredentialsNonExpired();
+            this.teamId = user.getTeamId();
+            this.courseId = user.getCourseId();
+            this.firstName = user.getFirstName();
+            this.lastName = user.getLastName();
+        }
+
+        private static UserSnapshot of(User user) {
+            return new UserSnapshot(user);
+        }
+
+        private User toUser() {
+            User user = new User();
+            user.setId(id);
+            user.setEmail(email);
+            user.setPassword(password);
+            user.setRole(role);
+            user.setCreatedAt(createdAt);
+            user.setUpdatedAt(updatedAt);
+            user.setEnabled(enabled);
+            user.setAccountNonExpired(accountNonExpired);
+            user.setAccountNonLocked(accountNonLocked);
+            user.setCredentialsNonExpired(credentialsNonExpired);
+            user.setTeamId(teamId);
+            user.setCourseId(courseId);
+            user.setFirstName(firstName);
+            user.setLastName(lastName);
+            return user;
+        }
+    }
+}
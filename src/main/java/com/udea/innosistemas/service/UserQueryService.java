@@ -7,10 +7,10 @@ import com.udea.innosistemas.entity.User;
 import com.udea.innosistemas.entity.UserRole;
 import com.udea.innosistemas.exception.AuthenticationException;
 import com.udea.innosistemas.repository.UserRepository;
+import com.udea.innosistemas.security.CurrentUserContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
@@ -34,6 +34,9 @@ public class UserQueryService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private UserLookupService userLookupService;
+
     /**
      * Obtiene la información del usuario actualmente autenticado.
      *
@@ -42,14 +45,15 @@ public class UserQueryService {
      */
     public UserInfo getCurrentUser() {
         try {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
+            CurrentUserContext context = CurrentUserContext.current(userLookupService);
+            String username = context.getUsername();
 
-            if (username == null || username.equals("anonymousUser")) {
+            if (!context.isAuthenticated()) {
                 logger.warn("Attempted to get current user without authentication");
                 throw new AuthenticationException("No hay usuario autenticado");
             }
 
-            User user = userRepository.findByEmail(username)
+            User user = context.getUser()
                     .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
 
             logger.info("Retrieved current user info for: {}", username);
@@ -72,14 +76,15 @@ public class UserQueryService {
      */
     public UserPermissions getUserPermissions() {
         try {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
+            CurrentUserContext context = CurrentUserContext.current(userLookupService);
+            String username = context.getUsername();
 
-            if (username == null || username.equals("anonymousUser")) {
+            if (!context.isAuthenticated()) {
                 logger.warn("Attempted to get permissions without authentication");
                 throw new AuthenticationException("No hay usuario autenticado");
             }
 
-            User user = userRepository.findByEmail(username)
+            User user = context.getUser()
                     .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
 
             // Generar lista de permisos basados en el rol
@@ -112,14 +117,15 @@ public class UserQueryService {
      */
     public List<TeamMember> getTeamMembers(Long teamId) {
         try {
-            String username = SecurityContextHolder.getContext().getAuthentication().getName();
+            CurrentUserContext context = CurrentUserContext.current(userLookupService);
+            String username = context.getUsername();
 
-            if (username == null || username.equals("anonymousUser")) {
+            if (!context.isAuthenticated()) {
                 logger.warn("Attempted to get team members without authentication");
                 throw new AuthenticationException("No hay usuario autenticado");
             }
 
-            User currentUser = userRepository.findByEmail(username)
+            User currentUser = context.getUser()
                     .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
 
             // Validar permisos: estudiantes solo pueden ver su propio equipo
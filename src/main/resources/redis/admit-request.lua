@@ -0,0 +1,71 @@
+-- Admisión de una petición autenticada en un solo round trip: blacklist del token (por jti y por
+-- sesión), época de revocación del usuario y consumo del token bucket de rate limiting.
+-- Todas las claves viven en la partición del usuario (mismo slot en Redis Cluster).
+--
+-- KEYS[1] entrada de blacklist del jti del token
+-- KEYS[2] entrada de blacklist de la sesión del token (puede repetir KEYS[1])
+-- KEYS[3] época de revocación del usuario (milisegundos epoch)
+-- KEYS[4] hash del token bucket (tokens, inicio del intervalo de relleno en ms)
+-- ARGV[1] instante de emisión del token en milisegundos epoch (0 si no trae)
+-- ARGV[2] capacidad del bucket (0 = rate limiting deshabilitado)
+-- ARGV[3] tokens que se rellenan por intervalo
+-- ARGV[4] duración del intervalo de relleno en milisegundos
+-- ARGV[5] tokens que consume la petición
+--
+-- Retorna: {veredicto, tokens restantes, ms hasta poder reintentar}
+-- veredicto: 1 admitida, 0 rate limit excedido, -1 token revocado, -2 revocado por época
+
+if redis.call('EXISTS', KEYS[1]) == 1 or redis.call('EXISTS', KEYS[2]) == 1 then
+    return {-1, 0, 0}
+end
+
+local revokedBefore = tonumber(redis.call('GET', KEYS[3]) or '0')
+if revokedBefore > 0 then
+    local issuedAt = tonumber(ARGV[1])
+    if issuedAt <= 0 or issuedAt <= revokedBefore then
+        return {-2, 0, 0}
+    end
+end
+
+local capacity = tonumber(ARGV[2])
+if capacity <= 0 then
+    return {1, -1, 0}
+end
+
+local refillTokens = tonumber(ARGV[3])
+local period = tonumber(ARGV[4])
+local cost = tonumber(ARGV[5])
+
+-- Reloj del servidor: todos los nodos de la aplicación comparten la misma referencia
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local state = redis.call('HMGET', KEYS[4], 'tokens', 'refilled')
+local tokens = tonumber(state[1])
+local refilled = tonumber(state[2])
+if not tokens or not refilled then
+    tokens = capacity
+    refilled = now
+else
+    -- Relleno por intervalos completos, igual que el bucket local (refillIntervally)
+    local periods = math.floor((now - refilled) / period)
+    if periods > 0 then
+        tokens = math.min(capacity, tokens + periods * refillTokens)
+        refilled = refilled + periods * period
+    end
+end
+
+local verdict = 0
+local retryAfter = 0
+if tokens >= cost then
+    tokens = tokens - cost
+    verdict = 1
+else
+    local missing = math.ceil((cost - tokens) / refillTokens)
+    retryAfter = (refilled + missing * period) - now
+end
+
+redis.call('HSET', KEYS[4], 'tokens', tokens, 'refilled', refilled)
+-- Pasado el tiempo de rellenarse por completo el bucket equivale a uno nuevo
+redis.call('PEXPIRE', KEYS[4], math.ceil(capacity / refillTokens) * period)
+return {verdict, tokens, retryAfter}
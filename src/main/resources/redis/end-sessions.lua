@@ -0,0 +1,31 @@
+-- Cierre atómico de todas las sesiones de un usuario y, opcionalmente, revocación del token
+-- presentado en el logout: toda la contabilidad del logout en un solo round trip.
+--
+-- KEYS[1] hash de sesiones del usuario
+-- KEYS[2] sorted set de expiración del usuario
+-- KEYS[3] índice global de usuarios activos
+-- KEYS[4] entrada de blacklist del token (opcional)
+-- KEYS[5] índice de la blacklist (opcional, junto con KEYS[4])
+-- ARGV[1] nombre de usuario
+-- ARGV[2] instante actual en milisegundos
+-- ARGV[3] id de revocación (jti) del token
+-- ARGV[4] expiración del token en milisegundos
+-- ARGV[5] canal pub/sub de la blacklist
+--
+-- Retorna: número de sesiones activas que se cerraron
+
+local now = tonumber(ARGV[2])
+
+if #KEYS >= 5 then
+    local expiresAt = tonumber(ARGV[4])
+    if expiresAt > now then
+        redis.call('SET', KEYS[4], 'revoked', 'PX', expiresAt - now)
+        redis.call('ZADD', KEYS[5], expiresAt, ARGV[3])
+        redis.call('PUBLISH', ARGV[5], ARGV[3])
+    end
+end
+
+local active = redis.call('ZCOUNT', KEYS[2], '(' .. ARGV[2], '+inf')
+redis.call('DEL', KEYS[1], KEYS[2])
+redis.call('ZREM', KEYS[3], ARGV[1])
+return active
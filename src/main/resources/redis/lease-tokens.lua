@@ -0,0 +1,47 @@
+-- Préstamo de un lote de tokens del bucket global de rate limiting a un nodo.
+-- El bucket tiene el mismo formato que el de admit-request.lua, así que ambos caminos comparten
+-- el límite de una misma clave.
+--
+-- KEYS[1] hash del token bucket (tokens, inicio del intervalo de relleno en ms)
+-- ARGV[1] capacidad del bucket
+-- ARGV[2] tokens que se rellenan por intervalo
+-- ARGV[3] duración del intervalo de relleno en milisegundos
+-- ARGV[4] tokens solicitados (tamaño del lote)
+--
+-- Retorna: {tokens prestados, tokens que quedan en el bucket, ms hasta el siguiente relleno si no alcanzó}
+
+local capacity = tonumber(ARGV[1])
+local refillTokens = tonumber(ARGV[2])
+local period = tonumber(ARGV[3])
+local requested = tonumber(ARGV[4])
+
+-- Reloj del servidor: todos los nodos de la aplicación comparten la misma referencia
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local state = redis.call('HMGET', KEYS[1], 'tokens', 'refilled')
+local tokens = tonumber(state[1])
+local refilled = tonumber(state[2])
+if not tokens or not refilled then
+    tokens = capacity
+    refilled = now
+else
+    -- Relleno por intervalos completos, igual que el bucket local (refillIntervally)
+    local periods = math.floor((now - refilled) / period)
+    if periods > 0 then
+        tokens = math.min(capacity, tokens + periods * refillTokens)
+        refilled = refilled + periods * period
+    end
+end
+
+local granted = math.min(requested, tokens)
+tokens = tokens - granted
+local retryAfter = 0
+if granted < requested then
+    retryAfter = (refilled + period) - now
+end
+
+redis.call('HSET', KEYS[1], 'tokens', tokens, 'refilled', refilled)
+-- Pasado el tiempo de rellenarse por completo el bucket equivale a uno nuevo
+redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / refillTokens) * period)
+return {granted, tokens, retryAfter}
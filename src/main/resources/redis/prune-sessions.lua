@@ -0,0 +1,23 @@
+-- Poda atómica de las sesiones expiradas de un usuario, reindexándolo en el índice global.
+--
+-- KEYS[1] hash de sesiones del usuario (sessionId -> "creadoMs;vistoMs;dispositivo")
+-- KEYS[2] sorted set de expiración del usuario (sessionId -> expiraMs)
+-- KEYS[3] índice global de usuarios activos (usuario -> expiración de su última sesión)
+-- ARGV[1] instante actual en milisegundos
+-- ARGV[2] nombre de usuario
+--
+-- Retorna: número de sesiones podadas
+
+local expired = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', ARGV[1])
+if #expired > 0 then
+    redis.call('HDEL', KEYS[1], unpack(expired))
+    redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', ARGV[1])
+end
+
+local latest = redis.call('ZREVRANGE', KEYS[2], 0, 0, 'WITHSCORES')
+if #latest == 0 then
+    redis.call('ZREM', KEYS[3], ARGV[2])
+else
+    redis.call('ZADD', KEYS[3], latest[2], ARGV[2])
+end
+return #expired
@@ -0,0 +1,73 @@
+-- Registro atómico de una sesión en el índice por usuario, podando las sesiones ya expiradas
+-- y aplicando el límite de dispositivos simultáneos.
+-- Concentra en un solo round trip toda la contabilidad de Redis posterior a un login exitoso.
+--
+-- KEYS[1] hash de sesiones del usuario (sessionId -> "creadoMs;vistoMs;dispositivo")
+-- KEYS[2] sorted set de expiración del usuario (sessionId -> expiraMs)
+-- KEYS[3] índice global de usuarios activos (usuario -> expiración de su última sesión)
+-- KEYS[4] índice de la blacklist (id revocado -> expiraMs)
+-- KEYS[5..n] claves a borrar en el mismo round trip (p. ej. los intentos fallidos del login)
+-- ARGV[1] id de la sesión
+-- ARGV[2] instante actual en milisegundos
+-- ARGV[3] duración de la sesión en milisegundos
+-- ARGV[4] descripción del dispositivo (puede ser vacía)
+-- ARGV[5] nombre de usuario
+-- ARGV[6] máximo de sesiones simultáneas por usuario (0 = sin límite)
+-- ARGV[7] prefijo de las entradas de la blacklist, con el hash tag de la partición del usuario
+-- ARGV[8] canal pub/sub de la blacklist
+--
+-- Retorna: { sesiones activas del usuario tras el registro, ids de las sesiones desalojadas... }
+
+local now = tonumber(ARGV[2])
+local ttl = tonumber(ARGV[3])
+local maxDevices = tonumber(ARGV[6])
+
+if #KEYS > 4 then
+    redis.call('DEL', unpack(KEYS, 5))
+end
+
+local expired = redis.call('ZRANGEBYSCORE', KEYS[2], '-inf', now)
+if #expired > 0 then
+    redis.call('HDEL', KEYS[1], unpack(expired))
+    redis.call('ZREMRANGEBYSCORE', KEYS[2], '-inf', now)
+end
+
+-- Sobre el límite se desalojan las sesiones usadas hace más tiempo. El conjunto está acotado
+-- por el propio límite, así que recorrerlo completo es barato.
+local evicted = {}
+if maxDevices > 0 and not redis.call('ZSCORE', KEYS[2], ARGV[1]) then
+    local active = redis.call('ZCARD', KEYS[2])
+    if active >= maxDevices then
+        local members = redis.call('ZRANGE', KEYS[2], 0, -1, 'WITHSCORES')
+        local candidates = {}
+        for i = 1, #members, 2 do
+            local expiresAt = tonumber(members[i + 1])
+            local data = redis.call('HGET', KEYS[1], members[i])
+            local lastSeen = data and tonumber(string.match(data, '^[^;]*;([^;]*);')) or (expiresAt - ttl)
+            candidates[#candidates + 1] = { id = members[i], lastSeen = lastSeen, expiresAt = expiresAt }
+        end
+        table.sort(candidates, function(a, b) return a.lastSeen < b.lastSeen end)
+
+        for i = 1, active - maxDevices + 1 do
+            local victim = candidates[i]
+            redis.call('ZREM', KEYS[2], victim.id)
+            redis.call('HDEL', KEYS[1], victim.id)
+            -- Los tokens de la sesión llevan su id ("sid" o familia del refresh token): se revocan por ese id
+            -- hasta la expiración de la sesión, que nunca es anterior a la de sus tokens
+            redis.call('SET', ARGV[7] .. victim.id, 'revoked', 'PX', math.max(victim.expiresAt - now, 1))
+            redis.call('ZADD', KEYS[4], victim.expiresAt, victim.id)
+            redis.call('PUBLISH', ARGV[8], victim.id)
+            evicted[#evicted + 1] = victim.id
+        end
+    end
+end
+
+redis.call('HSET', KEYS[1], ARGV[1], ARGV[2] .. ';' .. ARGV[2] .. ';' .. ARGV[4])
+redis.call('ZADD', KEYS[2], now + ttl, ARGV[1])
+redis.call('ZADD', KEYS[3], 'GT', now + ttl, ARGV[5])
+
+-- La sesión recién registrada es la que expira más tarde: las claves viven lo mismo que ella
+redis.call('PEXPIRE', KEYS[1], ttl)
+redis.call('PEXPIRE', KEYS[2], ttl)
+
+return { redis.call('ZCARD', KEYS[2]), unpack(evicted) }
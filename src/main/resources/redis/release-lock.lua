@@ -0,0 +1,11 @@
+-- Libera un lock solo si sigue perteneciendo a quien lo tomó (el lease pudo expirar y pasar a otro nodo).
+--
+-- KEYS[1] clave del lock
+-- ARGV[1] token del dueño
+--
+-- Retorna: 1 liberado, 0 el lock ya no era del dueño
+
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
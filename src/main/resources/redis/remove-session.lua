@@ -0,0 +1,20 @@
+-- Remoción atómica de una sesión, manteniendo el índice global de usuarios activos.
+--
+-- KEYS[1] hash de sesiones del usuario
+-- KEYS[2] sorted set de expiración del usuario
+-- KEYS[3] índice global de usuarios activos (usuario -> expiración de su última sesión)
+-- ARGV[1] id de la sesión
+-- ARGV[2] nombre de usuario
+--
+-- Retorna: 1 si la sesión existía, 0 en caso contrario
+
+local removed = redis.call('ZREM', KEYS[2], ARGV[1])
+redis.call('HDEL', KEYS[1], ARGV[1])
+
+local latest = redis.call('ZREVRANGE', KEYS[2], 0, 0, 'WITHSCORES')
+if #latest == 0 then
+    redis.call('ZREM', KEYS[3], ARGV[2])
+else
+    redis.call('ZADD', KEYS[3], latest[2], ARGV[2])
+end
+return removed
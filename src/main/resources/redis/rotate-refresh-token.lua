@@ -0,0 +1,69 @@
+-- Rotación atómica de un refresh token dentro de su familia, con detección de reutilización.
+-- La familia identifica la sesión abierta en el login: la rotación solo procede si esa sesión
+-- sigue activa, y al rotar se extiende su expiración y se actualiza su último uso.
+--
+-- KEYS[1] familia de rotación (guarda el jti del único refresh token vigente)
+-- KEYS[2] sorted set de expiración de las sesiones del usuario
+-- KEYS[3] entrada de blacklist del token presentado
+-- KEYS[4] hash de sesiones del usuario
+-- KEYS[5] índice global de usuarios activos
+-- KEYS[6] entrada de blacklist de la familia (los access tokens la llevan como "sid")
+-- KEYS[7] índice de la blacklist en la partición del usuario
+-- ARGV[1] jti del token presentado
+-- ARGV[2] jti del nuevo refresh token
+-- ARGV[3] TTL de la familia en milisegundos
+-- ARGV[4] id de la sesión (familia)
+-- ARGV[5] instante actual en milisegundos
+-- ARGV[6] duración de la sesión en milisegundos
+-- ARGV[7] nombre de usuario
+-- ARGV[8] canal pub/sub de la blacklist
+--
+-- Retorna: 1 rotado, 0 token revocado, -1 reutilización detectada, -2 sesión inactiva
+
+if redis.call('EXISTS', KEYS[3]) == 1 then
+    return 0
+end
+
+local current = redis.call('GET', KEYS[1])
+if current and current ~= ARGV[1] then
+    -- Un token ya rotado se volvió a usar: se revoca toda la familia conservando su TTL, se termina
+    -- su sesión y se revocan por su id los tokens emitidos en ella (access y refresh) hasta que
+    -- el último refresh token posible de la familia expire
+    redis.call('SET', KEYS[1], 'revoked', 'KEEPTTL')
+    local revokedUntil = tonumber(ARGV[5]) + tonumber(ARGV[3])
+    redis.call('SET', KEYS[6], 'revoked', 'PX', ARGV[3])
+    redis.call('ZADD', KEYS[7], revokedUntil, ARGV[4])
+    redis.call('PUBLISH', ARGV[8], ARGV[4])
+
+    redis.call('ZREM', KEYS[2], ARGV[4])
+    redis.call('HDEL', KEYS[4], ARGV[4])
+    local latest = redis.call('ZREVRANGE', KEYS[2], 0, 0, 'WITHSCORES')
+    if #latest == 0 then
+        redis.call('ZREM', KEYS[5], ARGV[7])
+    else
+        redis.call('ZADD', KEYS[5], latest[2], ARGV[7])
+    end
+    return -1
+end
+
+local now = tonumber(ARGV[5])
+local ttl = tonumber(ARGV[6])
+local expiresAt = redis.call('ZSCORE', KEYS[2], ARGV[4])
+if not expiresAt or tonumber(expiresAt) <= now then
+    return -2
+end
+
+redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+
+redis.call('ZADD', KEYS[2], now + ttl, ARGV[4])
+redis.call('ZADD', KEYS[5], 'GT', now + ttl, ARGV[7])
+local data = redis.call('HGET', KEYS[4], ARGV[4])
+if data then
+    local createdAt, device = string.match(data, '^([^;]*);[^;]*;(.*)$')
+    if createdAt then
+        redis.call('HSET', KEYS[4], ARGV[4], createdAt .. ';' .. ARGV[5] .. ';' .. device)
+    end
+end
+redis.call('PEXPIRE', KEYS[2], ttl)
+redis.call('PEXPIRE', KEYS[4], ttl)
+return 1
@@ -0,0 +1,10 @@
+-- Una página de SCAN sobre el keyspace, sin bloquear Redis como lo haría KEYS.
+-- El script no declara claves: solo recorre el keyspace del nodo que lo ejecuta.
+--
+-- ARGV[1] cursor de SCAN ("0" para empezar)
+-- ARGV[2] patrón MATCH
+-- ARGV[3] COUNT sugerido por página
+--
+-- Retorna: { siguiente cursor ("0" = recorrido completo), claves encontradas }
+
+return redis.call('SCAN', ARGV[1], 'MATCH', ARGV[2], 'COUNT', ARGV[3])
@@ -0,0 +1,129 @@
+package com.udea.innosistemas.config;
+
+import com.udea.innosistemas.service.DegradedModeStore;
+import com.udea.innosistemas.service.RedisCircuitBreaker;
+import com.udea.innosistemas.service.RedisKeyspace;
+import com.udea.innosistemas.service.SessionManagementService;
+import com.udea.innosistemas.service.TokenBlacklistService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH del cliente de Redis con 500 peticiones concurrentes contra un Redis local
+ * (REDIS_HOST / REDIS_PORT, por defecto localhost:6379; basta con {@code docker compose up redis}).
+ *
+ * Compara Lettuce (una conexión compartida con pipelining automático) con Jedis (pool de
+ * spring.redis.jedis.pool.max-active conexiones) en las consultas del camino de cada petición:
+ * verificación de la blacklist sin filtro de Bloom (siempre consulta Redis) y sesión activa.
+ * Las fábricas se crean con {@link RedisConfig}, igual que en la aplicación. Solo lee claves
+ * de usuarios sintéticos que no existen, así que no deja datos en Redis.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(500)
+public class RedisClientBenchmark {
+
+    private static final int USERS = 1000;
+
+    @Param({"lettuce", "jedis"})
+    public String client;
+
+    private RedisConnectionFactory connectionFactory;
+    private TokenBlacklistService tokenBlacklistService;
+    private SessionManagementService sessionManagementService;
+
+    private String[] emails;
+    private String[] tokenIds;
+
+    @Setup
+    public void setUp() throws Exception {
+        RedisConfig redisConfig = new RedisConfig();
+        ReflectionTestUtils.setField(redisConfig, "redisHost", System.getenv().getOrDefault("REDIS_HOST", "localhost"));
+        ReflectionTestUtils.setField(redisConfig, "redisPort",
+                Integer.parseInt(System.getenv().getOrDefault("REDIS_PORT", "6379")));
+        ReflectionTestUtils.setField(redisConfig, "redisPassword", "");
+        ReflectionTestUtils.setField(redisConfig, "redisTimeout", "2000ms");
+        ReflectionTestUtils.setField(redisConfig, "redisClient", client);
+        ReflectionTestUtils.setField(redisConfig, "topology", "standalone");
+        ReflectionTestUtils.setField(redisConfig, "jedisMaxActive", 8);
+        ReflectionTestUtils.setField(redisConfig, "jedisMaxIdle", 8);
+        ReflectionTestUtils.setField(redisConfig, "jedisMinIdle", 0);
+
+        connectionFactory = redisConfig.redisConnectionFactory();
+        ((InitializingBean) connectionFactory).afterPropertiesSet();
+        ((SmartLifecycle) connectionFactory).start();
+        RedisTemplate<String, String> redisTemplate = redisConfig.redisTemplate(connectionFactory);
+
+        RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker();
+        DegradedModeStore degradedStore = new DegradedModeStore();
+        ReflectionTestUtils.setField(degradedStore, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(degradedStore, "maxEntries", 1000L);
+        ReflectionTestUtils.setField(degradedStore, "maxPendingWrites", 1000);
+        degradedStore.init();
+        RedisKeyspace keyspace = new RedisKeyspace();
+
+        tokenBlacklistService = new TokenBlacklistService();
+        ReflectionTestUtils.setField(tokenBlacklistService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(tokenBlacklistService, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(tokenBlacklistService, "degradedStore", degradedStore);
+        ReflectionTestUtils.setField(tokenBlacklistService, "keyspace", keyspace);
+
+        sessionManagementService = new SessionManagementService();
+        ReflectionTestUtils.setField(sessionManagementService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(sessionManagementService, "tokenBlacklistService", tokenBlacklistService);
+        ReflectionTestUtils.setField(sessionManagementService, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(sessionManagementService, "degradedStore", degradedStore);
+        ReflectionTestUtils.setField(sessionManagementService, "keyspace", keyspace);
+
+        emails = new String[USERS];
+        tokenIds = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            emails[i] = "benchmark" + i + "@udea.edu.co";
+            tokenIds[i] = "benchmark-jti-" + i;
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        ((DisposableBean) connectionFactory).destroy();
+    }
+
+    @Benchmark
+    public boolean blacklistCheck() {
+        int user = ThreadLocalRandom.current().nextInt(USERS);
+        return tokenBlacklistService.isTokenBlacklisted(emails[user], tokenIds[user]);
+    }
+
+    @Benchmark
+    public boolean sessionCheck() {
+        int user = ThreadLocalRandom.current().nextInt(USERS);
+        return sessionManagementService.isSessionActive(emails[user], "session-" + user);
+    }
+}
@@ -0,0 +1,108 @@
+package com.udea.innosistemas.config;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisConfigTest {
+
+    private RedisConfig redisConfig;
+
+    @BeforeEach
+    void setUp() {
+        redisConfig = new RedisConfig();
+        ReflectionTestUtils.setField(redisConfig, "redisHost", "localhost");
+        ReflectionTestUtils.setField(redisConfig, "redisPort", 6379);
+        ReflectionTestUtils.setField(redisConfig, "redisPassword", "");
+        ReflectionTestUtils.setField(redisConfig, "redisTimeout", "1500ms");
+        ReflectionTestUtils.setField(redisConfig, "redisClient", "lettuce");
+        ReflectionTestUtils.setField(redisConfig, "topology", "standalone");
+        ReflectionTestUtils.setField(redisConfig, "replicaReadFrom", "replicaPreferred");
+        ReflectionTestUtils.setField(redisConfig, "jedisMaxActive", 8);
+        ReflectionTestUtils.setField(redisConfig, "jedisMaxIdle", 8);
+        ReflectionTestUtils.setField(redisConfig, "jedisMinIdle", 0);
+    }
+
+    @Test
+    void shouldCreateSharedLettuceConnectionByDefault() {
+        RedisConnectionFactory factory = redisConfig.redisConnectionFactory();
+
+        LettuceConnectionFactory lettuce = assertInstanceOf(LettuceConnectionFactory.class, factory);
+        assertTrue(lettuce.getShareNativeConnection());
+        assertEquals(Duration.ofMillis(1500), lettuce.getClientConfiguration().getCommandTimeout());
+        ClientOptions options = lettuce.getClientConfiguration().getClientOptions().orElseThrow();
+        // Sin conexión los comandos fallan de inmediato para que el circuit breaker lo detecte
+        assertEquals(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS, options.getDisconnectedBehavior());
+    }
+
+    @Test
+    void shouldCreatePooledJedisFactory_whenJedisSelected() {
+        ReflectionTestUtils.setField(redisConfig, "redisClient", "jedis");
+        ReflectionTestUtils.setField(redisConfig, "jedisMaxActive", 16);
+
+        RedisConnectionFactory factory = redisConfig.redisConnectionFactory();
+
+        JedisConnectionFactory jedis = assertInstanceOf(JedisConnectionFactory.class, factory);
+        assertTrue(jedis.getUsePool());
+        assertEquals(16, jedis.getPoolConfig().getMaxTotal());
+        assertEquals(Duration.ofMillis(1500), jedis.getPoolConfig().getMaxWaitDuration());
+    }
+
+    @Test
+    void shouldCreateSentinelFactory_whenSentinelTopologySelected() {
+        ReflectionTestUtils.setField(redisConfig, "topology", "sentinel");
+        ReflectionTestUtils.setField(redisConfig, "sentinelMaster", "mymaster");
+        ReflectionTestUtils.setField(redisConfig, "sentinelNodes", "sentinel-1:26379, sentinel-2:26379");
+
+        LettuceConnectionFactory lettuce =
+                assertInstanceOf(LettuceConnectionFactory.class, redisConfig.redisConnectionFactory());
+
+        assertNotNull(lettuce.getSentinelConfiguration());
+        assertEquals("mymaster", lettuce.getSentinelConfiguration().getMaster().getName());
+        assertEquals(2, lettuce.getSentinelConfiguration().getSentinels().size());
+        assertTrue(redisConfig.replicaReadsEnabled());
+    }
+
+    @Test
+    void shouldCreateClusterFactoryWithTopologyRefresh_whenClusterTopologySelected() {
+        ReflectionTestUtils.setField(redisConfig, "topology", "cluster");
+        ReflectionTestUtils.setField(redisConfig, "clusterNodes", "node-1:7000,node-2:7001,node-3:7002");
+        ReflectionTestUtils.setField(redisConfig, "clusterMaxRedirects", 3);
+
+        LettuceConnectionFactory lettuce =
+                assertInstanceOf(LettuceConnectionFactory.class, redisConfig.redisConnectionFactory());
+
+        assertNotNull(lettuce.getClusterConfiguration());
+        assertEquals(3, lettuce.getClusterConfiguration().getClusterNodes().size());
+        ClusterClientOptions options = assertInstanceOf(ClusterClientOptions.class,
+                lettuce.getClientConfiguration().getClientOptions().orElseThrow());
+        assertTrue(options.getTopologyRefreshOptions().isPeriodicRefreshEnabled());
+    }
+
+    @Test
+    void shouldFail_whenClusterNodesMissing() {
+        ReflectionTestUtils.setField(redisConfig, "topology", "cluster");
+        ReflectionTestUtils.setField(redisConfig, "clusterNodes", "");
+
+        assertThrows(IllegalStateException.class, () -> redisConfig.redisConnectionFactory());
+    }
+
+    @Test
+    void shouldNotRouteReadsToReplicas_whenStandaloneOrJedis() {
+        assertFalse(redisConfig.replicaReadsEnabled());
+
+        ReflectionTestUtils.setField(redisConfig, "topology", "cluster");
+        ReflectionTestUtils.setField(redisConfig, "redisClient", "jedis");
+
+        assertFalse(redisConfig.replicaReadsEnabled());
+    }
+}
@@ -1,5 +1,6 @@
 package com.udea.innosistemas.controller;
 
+import com.udea.innosistemas.exception.LoginThrottledException;
 import com.udea.innosistemas.service.AuthenticationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,12 +10,15 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -53,4 +57,16 @@ class AuthControllerTest {
                         .content("{}")) //
                 .andExpect(status().is4xxClientError());
     }
+
+    @Test
+    void deberiaRetornarTooManyRequestsSiLoginEstaLimitado() throws Exception {
+        when(authenticationService.login(any()))
+                .thenThrow(new LoginThrottledException("Demasiados intentos fallidos, intenta de nuevo más tarde", 8));
+
+        mockMvc.perform(post("/auth/login")
+                        .contentType("application/json")
+                        .content("{\"email\":\"estudiante@udea.edu.co\",\"password\":\"password123\"}"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "8"));
+    }
 }
@@ -0,0 +1,62 @@
+package com.udea.innosistemas.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionInfoTest {
+
+    @Test
+    void testDefaultConstructor() {
+        // Arrange & Act
+        SessionInfo sessionInfo = new SessionInfo();
+
+        // Assert
+        assertNull(sessionInfo.getSessionId());
+        assertNull(sessionInfo.getDevice());
+        assertNull(sessionInfo.getCreatedAt());
+        assertNull(sessionInfo.getLastSeenAt());
+        assertNull(sessionInfo.getExpiresAt());
+    }
+
+    @Test
+    void testParameterizedConstructor() {
+        // Arrange
+        Instant createdAt = Instant.ofEpochMilli(1000);
+        Instant lastSeenAt = Instant.ofEpochMilli(2000);
+        Instant expiresAt = Instant.ofEpochMilli(3000);
+
+        // Act
+        SessionInfo sessionInfo = new SessionInfo("session-1", "Firefox en Linux", createdAt, lastSeenAt, expiresAt);
+
+        // Assert
+        assertEquals("session-1", sessionInfo.getSessionId());
+        assertEquals("Firefox en Linux", sessionInfo.getDevice());
+        assertEquals(createdAt, sessionInfo.getCreatedAt());
+        assertEquals(lastSeenAt, sessionInfo.getLastSeenAt());
+        assertEquals(expiresAt, sessionInfo.getExpiresAt());
+    }
+
+    @Test
+    void testSetters() {
+        // Arrange
+        SessionInfo sessionInfo = new SessionInfo();
+        Instant now = Instant.now();
+
+        // Act
+        sessionInfo.setSessionId("session-2");
+        sessionInfo.setDevice("Android");
+        sessionInfo.setCreatedAt(now);
+        sessionInfo.setLastSeenAt(now);
+        sessionInfo.setExpiresAt(now.plusSeconds(60));
+
+        // Assert
+        assertEquals("session-2", sessionInfo.getSessionId());
+        assertEquals("Android", sessionInfo.getDevice());
+        assertEquals(now, sessionInfo.getCreatedAt());
+        assertEquals(now, sessionInfo.getLastSeenAt());
+        assertEquals(now.plusSeconds(60), sessionInfo.getExpiresAt());
+    }
+}
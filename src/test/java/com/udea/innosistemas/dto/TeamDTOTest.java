@@ -87,6 +87,31 @@ class TeamDTOTest {
         assertEquals(2, dto.getMiembros().size());
     }
 
+    @Test
+    void testConstructorWithLoadedMembersIgnoresEntityCollection() {
+        // Arrange
+        Team team = new Team();
+        team.setId(4L);
+        team.setNombre("Equipo Lleno");
+        team.setMaxMiembros(2);
+        team.setMiembros(null);
+
+        User user1 = new User();
+        user1.setId(1L);
+        user1.setEmail("carlos.rodriguez@udea.edu.co");
+
+        User user2 = new User();
+        user2.setId(2L);
+        user2.setEmail("ana.garcia@udea.edu.co");
+
+        // Act
+        TeamDTO dto = new TeamDTO(team, Arrays.asList(user1, user2));
+
+        // Assert
+        assertEquals(2, dto.getMiembros().size());
+        assertFalse(dto.isPuedeAgregarMiembros());
+    }
+
     @Test
     void testConstructorWithNullMembersList() {
         // Arrange
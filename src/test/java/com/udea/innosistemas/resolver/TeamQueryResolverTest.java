@@ -0,0 +1,181 @@
+package com.udea.innosistemas.resolver;
+
+import com.udea.innosistemas.entity.Team;
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.repository.TeamRepository;
+import com.udea.innosistemas.repository.UserRepository;
+import com.udea.innosistemas.security.directive.HasRoleDirective;
+import com.udea.innosistemas.service.TeamService;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.GraphQLContext;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.dataloader.DataLoaderRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.graphql.execution.DefaultBatchLoaderRegistry;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitario para TeamQueryResolver utilizando el patrón AAA (Arrange-Act-Assert).
+ * Ejecuta consultas de equipos sobre el esquema real (schema.graphqls y team.graphqls) con el DataLoader
+ * de miembros registrado y cuenta las consultas al repositorio de usuarios. También verifica que la
+ * directiva @hasRole del esquema aplique los mismos roles que @PreAuthorize.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TeamQueryResolver - Test unitario con patrón AAA")
+class TeamQueryResolverTest {
+
+    @Mock
+    private TeamRepository teamRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private TeamService teamService;
+
+    private DefaultBatchLoaderRegistry batchLoaderRegistry;
+    private GraphQL graphQL;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        TeamQueryResolver resolver = new TeamQueryResolver();
+        batchLoaderRegistry = new DefaultBatchLoaderRegistry();
+        ReflectionTestUtils.setField(resolver, "teamService", teamService);
+        ReflectionTestUtils.setField(resolver, "batchLoaderRegistry", batchLoaderRegistry);
+        resolver.registerDataLoaders();
+
+        String sdl = readSchema("graphql/schema.graphqls") + "\n" + readSchema("graphql/team.graphqls");
+        RuntimeWiring wiring = RuntimeWiring.newRuntimeWiring()
+                .directive("hasRole", new HasRoleDirective())
+                .type("Query", builder -> builder.dataFetcher("getTeamsByCourse", environment ->
+                        resolver.getTeamsByCourse(Long.valueOf(environment.<String>getArgument("courseId")), environment)))
+                .type("Team", builder -> builder.dataFetcher("miembros", environment ->
+                        resolver.miembros(environment.getSource(), environment)))
+                .build();
+        graphQL = GraphQL.newGraphQL(new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl), wiring))
+                .build();
+        authenticateAs("ROLE_PROFESSOR");
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void authenticateAs(String authority) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "usuario@udea.edu.co", null, List.of(new SimpleGrantedAuthority(authority))));
+    }
+
+    private static String readSchema(String path) throws IOException {
+        return new String(new ClassPathResource(path).getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private ExecutionResult execute(String query) {
+        GraphQLContext context = GraphQLContext.newContext().build();
+        DataLoaderRegistry dataLoaderRegistry = new DataLoaderRegistry();
+        batchLoaderRegistry.registerDataLoaders(dataLoaderRegistry, context);
+        return graphQL.execute(ExecutionInput.newExecutionInput(query)
+                .graphQLContext(context)
+                .dataLoaderRegistry(dataLoaderRegistry)
+                .build());
+    }
+
+    private static Team team(Long id, Long courseId) {
+        Team team = new Team();
+        team.setId(id);
+        team.setNombre("Equipo " + id);
+        team.setCourseId(courseId);
+        team.setActivo(true);
+        return team;
+    }
+
+    private static User member(Long id, Long teamId) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("miembro" + id + "@udea.edu.co");
+        user.setTeamId(teamId);
+        return user;
+    }
+
+    @Test
+    @DisplayName("Equipos de varios cursos - Debe cargar los miembros de todos con una sola consulta")
+    void getTeamsByCourse_WhenSeveralTeams_ShouldBatchMemberLookups() {
+        // Arrange
+        when(teamRepository.findByCourseId(101L)).thenReturn(List.of(team(1L, 101L), team(2L, 101L)));
+        when(teamRepository.findByCourseId(102L)).thenReturn(List.of(team(3L, 102L)));
+        when(userRepository.findByTeamIdIn(anyCollection()))
+                .thenReturn(List.of(member(1L, 1L), member(2L, 1L), member(3L, 3L)));
+
+        // Act
+        ExecutionResult result = execute("{ a: getTeamsByCourse(courseId: 101) { id miembros { email } } "
+                + "b: getTeamsByCourse(courseId: 102) { id miembros { email } } }");
+
+        // Assert
+        assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+        Map<String, List<Map<String, List<?>>>> data = result.getData();
+        assertEquals(2, data.get("a").get(0).get("miembros").size());
+        assertEquals(0, data.get("a").get(1).get("miembros").size(), "Un equipo sin miembros recibe una lista vacía");
+        assertEquals(1, data.get("b").get(0).get("miembros").size());
+        verify(userRepository, times(1)).findByTeamIdIn(argThat((Collection<Long> ids) ->
+                Set.copyOf(ids).equals(Set.of(1L, 2L, 3L))));
+        verify(userRepository, never()).findByTeamId(anyLong());
+    }
+
+    @Test
+    @DisplayName("Curso sin equipos - No debe consultar miembros")
+    void getTeamsByCourse_WhenNoTeams_ShouldNotQueryMembers() {
+        // Arrange
+        when(teamRepository.findByCourseId(101L)).thenReturn(List.of());
+
+        // Act
+        ExecutionResult result = execute("{ getTeamsByCourse(courseId: 101) { id miembros { email } } }");
+
+        // Assert
+        assertTrue(result.getErrors().isEmpty(), result.getErrors().toString());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Estudiante - La directiva @hasRole debe rechazar los equipos del curso sin consultarlos")
+    void getTeamsByCourse_WhenStudent_ShouldBeRejectedBySchemaDirective() {
+        // Arrange
+        authenticateAs("ROLE_STUDENT");
+
+        // Act
+        ExecutionResult result = execute("{ getTeamsByCourse(courseId: 101) { id } }");
+
+        // Assert
+        assertFalse(result.getErrors().isEmpty());
+        verifyNoInteractions(teamRepository, userRepository);
+    }
+}
@@ -0,0 +1,106 @@
+package com.udea.innosistemas.security;
+
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.entity.UserRole;
+import com.udea.innosistemas.service.UserLookupService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitario para CurrentUserContext utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica que el usuario se consulte una sola vez por contexto y que los servicios reciban
+ * el contexto guardado en la petición.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CurrentUserContext - Test unitario con patrón AAA")
+class CurrentUserContextTest {
+
+    private static final String EMAIL = "estudiante@udea.edu.co";
+
+    @Mock
+    private UserLookupService userLookupService;
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Usuario autenticado - Debe consultarlo una sola vez aunque se pida varias veces")
+    void getUser_WhenCalledRepeatedly_ShouldLookupOnce() {
+        // Arrange
+        User user = new User();
+        user.setEmail(EMAIL);
+        user.setRole(UserRole.STUDENT);
+        when(userLookupService.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        CurrentUserContext context = new CurrentUserContext(EMAIL, userLookupService);
+
+        // Act
+        Optional<User> first = context.getUser();
+        Optional<User> second = context.getUser();
+
+        // Assert
+        assertTrue(context.isAuthenticated());
+        assertSame(user, first.orElseThrow());
+        assertSame(user, second.orElseThrow());
+        verify(userLookupService, times(1)).findByEmail(EMAIL);
+    }
+
+    @Test
+    @DisplayName("Usuario anónimo - No debe consultar la base de datos")
+    void getUser_WhenAnonymous_ShouldNotLookup() {
+        // Arrange
+        CurrentUserContext context = new CurrentUserContext("anonymousUser", userLookupService);
+
+        // Act
+        Optional<User> user = context.getUser();
+
+        // Assert
+        assertFalse(context.isAuthenticated());
+        assertNull(context.getUsername());
+        assertTrue(user.isEmpty());
+        verify(userLookupService, never()).findByEmail(anyString());
+    }
+
+    @Test
+    @DisplayName("Contexto de la petición - Debe reutilizar el guardado y crear uno nuevo si no hay")
+    void current_WhenRequestAttribute_ShouldReuseIt() {
+        // Arrange
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(EMAIL, null));
+        CurrentUserContext fallback = CurrentUserContext.current(userLookupService);
+        CurrentUserContext stored = new CurrentUserContext(EMAIL, userLookupService);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        RequestContextHolder.getRequestAttributes()
+                .setAttribute(CurrentUserContext.CONTEXT_KEY, stored, RequestAttributes.SCOPE_REQUEST);
+
+        // Act
+        CurrentUserContext first = CurrentUserContext.current(userLookupService);
+        CurrentUserContext second = CurrentUserContext.current(userLookupService);
+
+        // Assert
+        assertEquals(EMAIL, fallback.getUsername());
+        assertNotSame(stored, fallback);
+        assertSame(stored, first);
+        assertSame(stored, second);
+    }
+}
@@ -0,0 +1,133 @@
+package com.udea.innosistemas.security;
+
+import graphql.language.Document;
+import graphql.language.FragmentDefinition;
+import graphql.language.OperationDefinition;
+import graphql.parser.Parser;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test unitario para GraphQLQueryCostCalculator utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica el costo estático de operaciones sobre el esquema real (campos, listas y fragmentos) y que
+ * el costo de listas anidadas se sature en lugar de desbordar.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@DisplayName("GraphQLQueryCostCalculator - Test unitario con patrón AAA")
+class GraphQLQueryCostCalculatorTest {
+
+    private GraphQLQueryCostCalculator costCalculator;
+    private GraphQLSchema schema;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        costCalculator = new GraphQLQueryCostCalculator();
+        ReflectionTestUtils.setField(costCalculator, "listMultiplier", 10L);
+        ReflectionTestUtils.setField(costCalculator, "maxCost", 10000L);
+        String sdl = new String(new ClassPathResource("graphql/schema.graphqls").getInputStream().readAllBytes(),
+                StandardCharsets.UTF_8);
+        schema = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl), RuntimeWiring.MOCKED_WIRING);
+    }
+
+    private long cost(String query) {
+        return cost(schema, query);
+    }
+
+    private long cost(GraphQLSchema schema, String query) {
+        Document document = Parser.parse(query);
+        return costCalculator.cost(schema, document.getDefinitionsOfType(OperationDefinition.class).get(0),
+                fragments(document));
+    }
+
+    private static Map<String, FragmentDefinition> fragments(Document document) {
+        return document.getDefinitionsOfType(FragmentDefinition.class).stream()
+                .collect(Collectors.toMap(FragmentDefinition::getName, Function.identity()));
+    }
+
+    @Test
+    @DisplayName("Consulta de un objeto - Debe costar un token por campo")
+    void cost_WhenObjectQuery_ShouldCountFields() {
+        // Act
+        long cost = cost("{ getCurrentUser { id email role } }");
+
+        // Assert
+        assertEquals(4, cost);
+    }
+
+    @Test
+    @DisplayName("Consulta de una lista - Debe multiplicar el costo de los subcampos")
+    void cost_WhenListQuery_ShouldMultiplySubfields() {
+        // Act
+        long cost = cost("{ getTeamMembers(teamId: 1) { id email fullName } }");
+
+        // Assert
+        assertEquals(31, cost);
+    }
+
+    @Test
+    @DisplayName("Fragmentos - Deben costar lo mismo que los campos que expanden")
+    void cost_WhenFragments_ShouldExpandThem() {
+        // Act
+        long spread = cost("query { getTeamMembers(teamId: 1) { ...member } } fragment member on TeamMember { id email }");
+        long inline = cost("query { getTeamMembers(teamId: 1) { ... on TeamMember { id email } } }");
+
+        // Assert
+        assertEquals(21, spread);
+        assertEquals(21, inline);
+    }
+
+    @Test
+    @DisplayName("Introspección y escalares - __typename no cuenta y el costo mínimo es 1")
+    void cost_WhenTypenameOnly_ShouldCostOne() {
+        // Act
+        long typename = cost("{ __typename }");
+        long hello = cost("{ hello __typename }");
+
+        // Assert
+        assertEquals(1, typename);
+        assertEquals(1, hello);
+    }
+
+    @Test
+    @DisplayName("Listas anidadas - El costo no debe bajar al crecer la profundidad, aunque desborde un long")
+    void cost_WhenNestedLists_ShouldNeverDecrease() {
+        // Arrange
+        GraphQLSchema nested = new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(
+                "type Query { nodes: [Node!]! } type Node { id: ID children: [Node!]! }"), RuntimeWiring.MOCKED_WIRING);
+        long previous = 0;
+
+        for (int depth = 1; depth <= 40; depth++) {
+            StringBuilder query = new StringBuilder("{ nodes { id ");
+            for (int level = 1; level < depth; level++) {
+                query.append("children { id ");
+            }
+            query.append("}".repeat(depth)).append(" }");
+
+            // Act
+            long cost = cost(nested, query.toString());
+
+            // Assert
+            assertTrue(cost >= previous, "Profundidad " + depth + ": " + cost + " < " + previous);
+            assertTrue(cost > costCalculator.getMaxCost() || depth < 5);
+            previous = cost;
+        }
+        assertEquals(Long.MAX_VALUE, previous);
+    }
+}
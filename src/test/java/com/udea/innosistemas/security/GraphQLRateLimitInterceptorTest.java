@@ -0,0 +1,220 @@
+package com.udea.innosistemas.security;
+
+import com.udea.innosistemas.service.RateLimitPolicy;
+import com.udea.innosistemas.service.RateLimitingService;
+import com.udea.innosistemas.service.RequestAdmissionService;
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.GraphQLError;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitario para GraphQLRateLimitInterceptor utilizando el patrón AAA (Arrange-Act-Assert).
+ * Ejecuta operaciones sobre el esquema real con la instrumentación registrada y verifica la
+ * política y el costo cobrados, y el rechazo antes de ejecutar resolvers.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("GraphQLRateLimitInterceptor - Test unitario con patrón AAA")
+class GraphQLRateLimitInterceptorTest {
+
+    private static final String KEY = "user:estudiante@udea.edu.co";
+    private static final String ROLE = "STUDENT";
+    private static final RateLimitPolicy DEFAULT = RateLimitPolicy.parse("default", "100:100:1m", "");
+    private static final RateLimitPolicy AUTH = RateLimitPolicy.parse("auth", "10:10:1m", "auth:");
+
+    @Mock
+    private RateLimitingService rateLimitingService;
+
+    @Mock
+    private RequestAdmissionService requestAdmissionService;
+
+    @Spy
+    private GraphQLQueryCostCalculator costCalculator = new GraphQLQueryCostCalculator();
+
+    @InjectMocks
+    private GraphQLRateLimitInterceptor interceptor;
+
+    private GraphQL graphQL;
+    private AtomicReference<AdmissionVerdict> verdict;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(costCalculator, "listMultiplier", 10L);
+        ReflectionTestUtils.setField(costCalculator, "maxCost", 10000L);
+        String sdl = new String(new ClassPathResource("graphql/schema.graphqls").getInputStream().readAllBytes(),
+                StandardCharsets.UTF_8);
+        graphQL = GraphQL.newGraphQL(new SchemaGenerator().makeExecutableSchema(new SchemaParser().parse(sdl),
+                        RuntimeWiring.MOCKED_WIRING))
+                .instrumentation(interceptor)
+                .build();
+        verdict = new AtomicReference<>();
+    }
+
+    private ExecutionResult execute(String query) {
+        return graphQL.execute(ExecutionInput.newExecutionInput(query)
+                .graphQLContext(Map.of(GraphQLRateLimitInterceptor.KEY_CONTEXT, KEY,
+                        GraphQLRateLimitInterceptor.ROLE_CONTEXT, ROLE,
+                        GraphQLRateLimitInterceptor.VERDICT_CONTEXT, verdict))
+                .build());
+    }
+
+    @Test
+    @DisplayName("Consulta normal - Debe cobrar su costo con la política del rol")
+    void execute_WhenQuery_ShouldChargeCostWithRolePolicy() {
+        // Arrange
+        AdmissionVerdict allowed = new AdmissionVerdict(AdmissionVerdict.Outcome.ALLOWED, 100, 79, 0);
+        when(rateLimitingService.resolvePolicy(ROLE, "getTeamMembers")).thenReturn(DEFAULT);
+        when(rateLimitingService.consume(KEY, DEFAULT, 21)).thenReturn(allowed);
+
+        // Act
+        execute("{ getTeamMembers(teamId: 1) { id email } }");
+
+        // Assert
+        verify(rateLimitingService).consume(KEY, DEFAULT, 21);
+        assertSame(allowed, verdict.get());
+    }
+
+    @Test
+    @DisplayName("Mutation login - Debe cobrarse con la política de su operación")
+    void execute_WhenLogin_ShouldChargeOperationPolicy() {
+        // Arrange
+        when(rateLimitingService.resolvePolicy(ROLE, "login")).thenReturn(AUTH);
+        when(rateLimitingService.consume(KEY, AUTH, 2))
+                .thenReturn(new AdmissionVerdict(AdmissionVerdict.Outcome.ALLOWED, 10, 8, 0));
+
+        // Act
+        execute("mutation { login(email: \"estudiante@udea.edu.co\", password: \"x\") { token } }");
+
+        // Assert
+        verify(rateLimitingService).consume(KEY, AUTH, 2);
+        verify(rateLimitingService, never()).consume(anyString(), eq(DEFAULT), anyLong());
+    }
+
+    @Test
+    @DisplayName("Varios campos raíz - Debe aplicar la política más restrictiva, también dentro de fragmentos")
+    void execute_WhenSeveralRootFields_ShouldUseMostRestrictivePolicy() {
+        // Arrange
+        when(rateLimitingService.resolvePolicy(ROLE, "hello")).thenReturn(DEFAULT);
+        when(rateLimitingService.resolvePolicy(ROLE, "getCurrentUser")).thenReturn(AUTH);
+        when(rateLimitingService.consume(KEY, AUTH, 3))
+                .thenReturn(new AdmissionVerdict(AdmissionVerdict.Outcome.ALLOWED, 10, 7, 0));
+
+        // Act
+        execute("query { hello ...root } fragment root on Query { getCurrentUser { id } }");
+
+        // Assert
+        verify(rateLimitingService).consume(KEY, AUTH, 3);
+    }
+
+    @Test
+    @DisplayName("Operación más cara que el bucket - Debe cobrar como máximo la capacidad")
+    void execute_WhenCostExceedsCapacity_ShouldChargeCapacity() {
+        // Arrange
+        when(rateLimitingService.resolvePolicy(ROLE, "getTeamMembers")).thenReturn(AUTH);
+        when(rateLimitingService.consume(KEY, AUTH, 10))
+                .thenReturn(new AdmissionVerdict(AdmissionVerdict.Outcome.ALLOWED, 10, 0, 0));
+
+        // Act
+        execute("{ getTeamMembers(teamId: 1) { id email } }");
+
+        // Assert
+        verify(rateLimitingService).consume(KEY, AUTH, 10);
+    }
+
+    @Test
+    @DisplayName("Bucket agotado - Debe abortar la operación con un error RATE_LIMITED")
+    void execute_WhenRateLimited_ShouldAbortWithError() {
+        // Arrange
+        when(rateLimitingService.resolvePolicy(ROLE, "getCurrentUser")).thenReturn(DEFAULT);
+        when(rateLimitingService.consume(KEY, DEFAULT, 2))
+                .thenReturn(new AdmissionVerdict(AdmissionVerdict.Outcome.RATE_LIMITED, 100, 1, 1500));
+
+        // Act
+        ExecutionResult result = execute("{ getCurrentUser { id } }");
+
+        // Assert
+        assertNull(result.getData());
+        assertEquals(1, result.getErrors().size());
+        GraphQLError error = result.getErrors().get(0);
+        assertEquals("RATE_LIMITED", error.getExtensions().get("code"));
+        assertEquals(2L, error.getExtensions().get("retryAfter"));
+        assertTrue(verdict.get().isRateLimited());
+    }
+
+    @Test
+    @DisplayName("Operación más cara que el máximo - Debe rechazarse sin cobrar ningún bucket")
+    void execute_WhenCostExceedsMaxCost_ShouldRejectWithoutCharging() {
+        // Arrange
+        ReflectionTestUtils.setField(costCalculator, "maxCost", 20L);
+
+        // Act
+        ExecutionResult result = execute("{ getTeamMembers(teamId: 1) { id email } }");
+
+        // Assert
+        assertNull(result.getData());
+        assertEquals(1, result.getErrors().size());
+        assertEquals("QUERY_TOO_COSTLY", result.getErrors().get(0).getExtensions().get("code"));
+        verifyNoInteractions(rateLimitingService);
+    }
+
+    @Test
+    @DisplayName("Petición con JWT - Debe cobrar el costo en el bucket de admisión compartido con REST")
+    void execute_WhenVerifiedToken_ShouldChargeAdmissionBucket() {
+        // Arrange
+        VerifiedToken verifiedToken = new VerifiedToken("header.payload.signature",
+                Jwts.claims().subject("estudiante@udea.edu.co").build());
+        when(rateLimitingService.resolvePolicy(ROLE, "getTeamMembers")).thenReturn(DEFAULT);
+        when(requestAdmissionService.admit(verifiedToken, DEFAULT, 21))
+                .thenReturn(new AdmissionVerdict(AdmissionVerdict.Outcome.ALLOWED, 100, 79, 0));
+
+        // Act
+        ExecutionResult result = graphQL.execute(ExecutionInput.newExecutionInput("{ getTeamMembers(teamId: 1) { id email } }")
+                .graphQLContext(Map.of(GraphQLRateLimitInterceptor.KEY_CONTEXT, KEY,
+                        GraphQLRateLimitInterceptor.ROLE_CONTEXT, ROLE,
+                        GraphQLRateLimitInterceptor.VERDICT_CONTEXT, verdict,
+                        GraphQLRateLimitInterceptor.TOKEN_CONTEXT, verifiedToken))
+                .build());
+
+        // Assert
+        assertTrue(result.getErrors().isEmpty());
+        verify(requestAdmissionService).admit(verifiedToken, DEFAULT, 21);
+        verify(rateLimitingService, never()).consume(anyString(), any(RateLimitPolicy.class), anyLong());
+        assertEquals(79L, verdict.get().getRemaining());
+    }
+
+    @Test
+    @DisplayName("Sin clave de rate limiting - No debe consultar ningún bucket")
+    void execute_WhenNoKey_ShouldNotCharge() {
+        // Act
+        graphQL.execute("{ hello }");
+
+        // Assert
+        verifyNoInteractions(rateLimitingService);
+    }
+}
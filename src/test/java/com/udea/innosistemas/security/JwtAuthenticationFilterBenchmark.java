@@ -0,0 +1,130 @@
+package com.udea.innosistemas.security;
+
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.entity.UserRole;
+import com.udea.innosistemas.repository.UserRepository;
+import com.udea.innosistemas.service.RateLimitingService;
+import com.udea.innosistemas.service.RequestAdmissionService;
+import com.udea.innosistemas.service.SecurityVersionService;
+import com.udea.innosistemas.service.UserDetailsServiceImpl;
+import com.udea.innosistemas.service.UserLookupService;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Benchmark JMH del camino completo de JwtAuthenticationFilter: extracción del header,
+ * verificación de firma, admisión (blacklist, época de revocación y rate limit) y carga del principal.
+ * El repositorio y los servicios respaldados por Redis son mocks "stub only" (no registran
+ * invocaciones) para que el benchmark mida solo la cadena de autenticación.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-with-at-least-256-bits-for-hmac-sha";
+
+    @Param({"false", "true"})
+    private boolean statelessEnabled;
+
+    @Param({"false", "true"})
+    private boolean verifiedTokenCacheEnabled;
+
+    private JwtAuthenticationFilter filter;
+    private FilterChain filterChain;
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() throws Exception {
+        User user = new User("estudiante@udea.edu.co", "password123", UserRole.STUDENT);
+        user.setId(7L);
+        user.setTeamId(3L);
+        user.setCourseId(11L);
+
+        UserRepository userRepository = mock(UserRepository.class, withSettings().stubOnly());
+        when(userRepository.findByEmail(anyString())).thenReturn(Optional.of(user));
+        UserLookupService userLookupService = new UserLookupService();
+        ReflectionTestUtils.setField(userLookupService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userLookupService, "nearCacheTtlMs", 2000L);
+        ReflectionTestUtils.setField(userLookupService, "nearCacheMaxSize", 10000L);
+        ReflectionTestUtils.invokeMethod(userLookupService, "init");
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl();
+        ReflectionTestUtils.setField(userDetailsService, "userLookupService", userLookupService);
+
+        SecurityVersionService securityVersionService = mock(SecurityVersionService.class, withSettings().stubOnly());
+        when(securityVersionService.getVersion(anyLong())).thenReturn(0L);
+        RequestAdmissionService requestAdmissionService = mock(RequestAdmissionService.class, withSettings().stubOnly());
+        when(requestAdmissionService.admit(any(VerifiedToken.class), any(), anyLong()))
+                .thenReturn(new AdmissionVerdict(AdmissionVerdict.Outcome.ALLOWED, 100, 99, 0));
+        RateLimitingService rateLimitingService = mock(RateLimitingService.class, withSettings().stubOnly());
+
+        JwtTokenProvider tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 3600L);
+        ReflectionTestUtils.setField(tokenProvider, "refreshExpirationInMs", 86400L);
+        ReflectionTestUtils.setField(tokenProvider, "securityVersionService", securityVersionService);
+        if (verifiedTokenCacheEnabled) {
+            VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache();
+            ReflectionTestUtils.setField(verifiedTokenCache, "maxSize", 10000L);
+            ReflectionTestUtils.setField(verifiedTokenCache, "maxAgeSeconds", 300L);
+            verifiedTokenCache.init();
+            ReflectionTestUtils.setField(tokenProvider, "verifiedTokenCache", verifiedTokenCache);
+        }
+        tokenProvider.init();
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "tokenProvider", tokenProvider);
+        ReflectionTestUtils.setField(filter, "customUserDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "requestAdmissionService", requestAdmissionService);
+        ReflectionTestUtils.setField(filter, "securityVersionService", securityVersionService);
+        ReflectionTestUtils.setField(filter, "rateLimitingService", rateLimitingService);
+        ReflectionTestUtils.setField(filter, "statelessEnabled", statelessEnabled);
+
+        filterChain = (request, response) -> { };
+        authorizationHeader = "Bearer " + tokenProvider.generateTokenFromUser(user);
+    }
+
+    @Benchmark
+    public Authentication authenticate() throws Exception {
+        // OncePerRequestFilter marca la petición como ya filtrada: se necesita una petición nueva por invocación
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/graphql");
+        request.addHeader("Authorization", authorizationHeader);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), filterChain);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.udea.innosistemas.security;
+
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.entity.UserRole;
+import com.udea.innosistemas.service.RedisCircuitBreaker;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitario para JwtKeyRing utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica la firma asimétrica con kid, la rotación de llaves, el JWKS, la republicación de la llave
+ * activa y la ventana de compatibilidad HMAC.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@DisplayName("JwtKeyRing - Test unitario con patrón AAA")
+class JwtKeyRingTest {
+
+    private static final String SECRET = "test-secret-key-with-at-least-256-bits-for-hmac-sha-signing";
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        testUser = new User("estudiante@udea.edu.co", "password123", UserRole.STUDENT);
+        testUser.setId(7L);
+    }
+
+    private JwtKeyRing keyRing(String algorithm) {
+        return keyRing(algorithm, true, null);
+    }
+
+    private JwtKeyRing keyRing(String algorithm, boolean acceptLegacyHmac, RedisTemplate<String, String> redisTemplate) {
+        JwtKeyRing keyRing = new JwtKeyRing();
+        ReflectionTestUtils.setField(keyRing, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(keyRing, "maxTokenLifetimeSeconds", 86400L);
+        ReflectionTestUtils.setField(keyRing, "algorithm", algorithm);
+        ReflectionTestUtils.setField(keyRing, "rotationIntervalMs", 3600000L);
+        ReflectionTestUtils.setField(keyRing, "acceptLegacyHmac", acceptLegacyHmac);
+        ReflectionTestUtils.setField(keyRing, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(keyRing, "circuitBreaker", new RedisCircuitBreaker());
+        keyRing.init();
+        return keyRing;
+    }
+
+    private static String legacyToken(String subject) {
+        return Jwts.builder()
+                .subject(subject)
+                .expiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    private JwtTokenProvider provider(JwtKeyRing keyRing) {
+        JwtTokenProvider tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 3600L);
+        ReflectionTestUtils.setField(tokenProvider, "refreshExpirationInMs", 86400L);
+        ReflectionTestUtils.setField(tokenProvider, "keyRing", keyRing);
+        tokenProvider.init();
+        return tokenProvider;
+    }
+
+    private static JwsHeader header(JwtKeyRing keyRing, String token) {
+        return Jwts.parser().keyLocator(keyRing).build().parseSignedClaims(token).getHeader();
+    }
+
+    @Test
+    @DisplayName("Firma EdDSA - Debe incluir el kid activo y verificarse con la llave pública")
+    void sign_WhenEdDsa_ShouldIncludeKidAndVerify() {
+        // Arrange
+        JwtKeyRing keyRing = keyRing("EdDSA");
+        JwtTokenProvider tokenProvider = provider(keyRing);
+
+        // Act
+        String token = tokenProvider.generateTokenFromUser(testUser);
+
+        // Assert
+        assertEquals("EdDSA", header(keyRing, token).getAlgorithm());
+        assertEquals(keyRing.getActiveKeyId(), header(keyRing, token).getKeyId());
+        assertNotNull(tokenProvider.verifyToken(token));
+    }
+
+    @Test
+    @DisplayName("Firma ES256 - Debe verificarse con la llave pública")
+    void sign_WhenEs256_ShouldVerify() {
+        // Arrange
+        JwtKeyRing keyRing = keyRing("ES256");
+        JwtTokenProvider tokenProvider = provider(keyRing);
+
+        // Act
+        String token = tokenProvider.generateRefreshTokenFromUser(testUser);
+
+        // Assert
+        assertEquals("ES256", header(keyRing, token).getAlgorithm());
+        assertTrue(tokenProvider.verifyToken(token).isRefreshToken());
+    }
+
+    @Test
+    @DisplayName("Rotación - Los tokens firmados con la llave anterior deben seguir siendo válidos")
+    void rotate_ShouldKeepPreviousKeyForVerification() {
+        // Arrange
+        JwtKeyRing keyRing = keyRing("EdDSA");
+        JwtTokenProvider tokenProvider = provider(keyRing);
+        String before = tokenProvider.generateTokenFromUser(testUser);
+        String previousKid = keyRing.getActiveKeyId();
+
+        // Act
+        keyRing.rotate();
+        String after = tokenProvider.generateTokenFromUser(testUser);
+
+        // Assert
+        assertNotEquals(previousKid, keyRing.getActiveKeyId());
+        assertNotNull(tokenProvider.verifyToken(before));
+        assertNotNull(tokenProvider.verifyToken(after));
+        assertEquals(2, keyRing.getPublicJwks().size());
+    }
+
+    @Test
+    @DisplayName("Kid desconocido - Debe rechazar el token")
+    void verify_WhenUnknownKid_ShouldReturnNull() {
+        // Arrange
+        JwtTokenProvider tokenProvider = provider(keyRing("EdDSA"));
+        JwtKeyRing otherRing = keyRing("EdDSA");
+        String foreign = otherRing.sign(Jwts.builder()
+                .subject(testUser.getEmail())
+                .expiration(new Date(System.currentTimeMillis() + 60000))).compact();
+
+        // Act & Assert
+        assertNull(tokenProvider.verifyToken(foreign));
+    }
+
+    @Test
+    @DisplayName("Kid publicado por otro nodo - Debe cargarse aunque otro kid desconocido se acabe de consultar")
+    @SuppressWarnings("unchecked")
+    void verify_WhenNewKidAfterUnknownKid_ShouldLoadItFromRedis() {
+        // Arrange
+        RedisTemplate<String, String> otherRedis = mock(RedisTemplate.class);
+        HashOperations<String, Object, Object> otherHash = mock(HashOperations.class);
+        when(otherRedis.opsForHash()).thenReturn(otherHash);
+        JwtKeyRing otherRing = keyRing("EdDSA", false, otherRedis);
+        ArgumentCaptor<Object> published = ArgumentCaptor.forClass(Object.class);
+        verify(otherHash).put(eq("jwt:jwks"), eq(otherRing.getActiveKeyId()), published.capture());
+
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.get("jwt:jwks", otherRing.getActiveKeyId())).thenReturn(published.getValue());
+        JwtTokenProvider tokenProvider = provider(keyRing("EdDSA", false, redisTemplate));
+        String forged = Jwts.builder()
+                .header().keyId("inventado").and()
+                .subject(testUser.getEmail())
+                .expiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+        String foreign = otherRing.sign(Jwts.builder()
+                .subject(testUser.getEmail())
+                .expiration(new Date(System.currentTimeMillis() + 60000))).compact();
+
+        // Act
+        VerifiedToken first = tokenProvider.verifyToken(forged);
+        VerifiedToken second = tokenProvider.verifyToken(forged);
+        VerifiedToken verified = tokenProvider.verifyToken(foreign);
+
+        // Assert
+        assertNull(first);
+        assertNull(second);
+        assertNotNull(verified);
+        verify(hashOperations, times(1)).get("jwt:jwks", "inventado");
+        verify(hashOperations, times(1)).get("jwt:jwks", otherRing.getActiveKeyId());
+    }
+
+    @Test
+    @DisplayName("Token HMAC anterior a la migración - Debe seguir siendo válido")
+    void verify_WhenLegacyHmacToken_ShouldBeAccepted() {
+        // Arrange
+        JwtTokenProvider tokenProvider = provider(keyRing("EdDSA"));
+        String legacy = legacyToken(testUser.getEmail());
+
+        // Act & Assert
+        assertNotNull(tokenProvider.verifyToken(legacy));
+    }
+
+    @Test
+    @DisplayName("Token HMAC sin compatibilidad o fuera de plazo - Debe rechazarse")
+    void verify_WhenLegacyHmacDisabledOrExpiredWindow_ShouldBeRejected() {
+        // Arrange
+        JwtTokenProvider strict = provider(keyRing("EdDSA", false, null));
+        JwtKeyRing expiredRing = keyRing("EdDSA");
+        ReflectionTestUtils.setField(expiredRing, "legacyHmacUntil", System.currentTimeMillis() - 1);
+        JwtTokenProvider expired = provider(expiredRing);
+        String legacy = legacyToken(testUser.getEmail());
+
+        // Act & Assert
+        assertNull(strict.verifyToken(legacy));
+        assertNull(expired.verifyToken(legacy));
+    }
+
+    @Test
+    @DisplayName("Publicación fallida al rotar - Debe reintentarse al republicar la llave activa")
+    @SuppressWarnings("unchecked")
+    void republishActiveKey_WhenPublishFailed_ShouldRetry() {
+        // Arrange
+        RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+        HashOperations<String, Object, Object> hashOperations = mock(HashOperations.class);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        doThrow(new RuntimeException("Redis down")).doNothing()
+                .when(hashOperations).put(eq("jwt:jwks"), anyString(), anyString());
+        JwtKeyRing keyRing = keyRing("EdDSA", false, redisTemplate);
+
+        // Act
+        keyRing.republishActiveKey();
+
+        // Assert
+        verify(hashOperations, times(2)).put(eq("jwt:jwks"), eq(keyRing.getActiveKeyId()), anyString());
+    }
+
+    @Test
+    @DisplayName("JWKS - Debe exponer la llave pública Ed25519 sin material privado")
+    void getPublicJwks_ShouldExposeOkpKey() {
+        // Arrange
+        JwtKeyRing keyRing = keyRing("EdDSA");
+
+        // Act
+        List<Map<String, Object>> jwks = keyRing.getPublicJwks();
+
+        // Assert
+        assertEquals(1, jwks.size());
+        Map<String, Object> jwk = jwks.get(0);
+        assertEquals("OKP", jwk.get("kty"));
+        assertEquals("Ed25519", jwk.get("crv"));
+        assertEquals(keyRing.getActiveKeyId(), jwk.get("kid"));
+        assertEquals(32, Base64.getUrlDecoder().decode((String) jwk.get("x")).length);
+        assertFalse(jwk.containsKey("d"));
+    }
+}
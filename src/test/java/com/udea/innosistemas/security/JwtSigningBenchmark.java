@@ -0,0 +1,98 @@
+package com.udea.innosistemas.security;
+
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH que compara el throughput de emisión y verificación de tokens
+ * firmados con HS256 (secreto compartido) frente a EdDSA/Ed25519 (anillo de llaves).
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtSigningBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-with-at-least-256-bits-for-hmac-sha";
+
+    private SecretKey hmacKey;
+    private KeyPair edKeyPair;
+    private JwtParser hmacParser;
+    private JwtParser edParser;
+    private String hmacToken;
+    private String edToken;
+
+    @Setup
+    public void setUp() throws Exception {
+        hmacKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        edKeyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        hmacParser = Jwts.parser().verifyWith(hmacKey).build();
+        edParser = Jwts.parser().verifyWith(edKeyPair.getPublic()).build();
+        hmacToken = mintHs256();
+        edToken = mintEdDsa();
+    }
+
+    @Benchmark
+    public String mintHs256() {
+        return claims().signWith(hmacKey).compact();
+    }
+
+    @Benchmark
+    public String mintEdDsa() {
+        return claims().header().keyId("bench").and()
+                .signWith(edKeyPair.getPrivate(), Jwts.SIG.EdDSA).compact();
+    }
+
+    @Benchmark
+    public Object verifyHs256() {
+        return hmacParser.parseSignedClaims(hmacToken).getPayload();
+    }
+
+    @Benchmark
+    public Object verifyEdDsa() {
+        return edParser.parseSignedClaims(edToken).getPayload();
+    }
+
+    private static JwtBuilder claims() {
+        Date now = new Date();
+        return Jwts.builder()
+                .subject("estudiante@udea.edu.co")
+                .claim("userId", 7L)
+                .claim("role", "STUDENT")
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + 3600_000L));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtSigningBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
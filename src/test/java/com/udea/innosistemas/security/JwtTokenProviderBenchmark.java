@@ -0,0 +1,81 @@
+package com.udea.innosistemas.security;
+
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.entity.UserRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH de JwtTokenProvider: emisión de tokens, validación y extracción de claims,
+ * con y sin la caché de tokens verificados.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-with-at-least-256-bits-for-hmac-sha";
+
+    @Param({"false", "true"})
+    private boolean verifiedTokenCacheEnabled;
+
+    private JwtTokenProvider tokenProvider;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 3600L);
+        ReflectionTestUtils.setField(tokenProvider, "refreshExpirationInMs", 86400L);
+        if (verifiedTokenCacheEnabled) {
+            VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache();
+            ReflectionTestUtils.setField(verifiedTokenCache, "maxSize", 10000L);
+            ReflectionTestUtils.setField(verifiedTokenCache, "maxAgeSeconds", 300L);
+            verifiedTokenCache.init();
+            ReflectionTestUtils.setField(tokenProvider, "verifiedTokenCache", verifiedTokenCache);
+        }
+        tokenProvider.init();
+
+        user = new User("estudiante@udea.edu.co", "password123", UserRole.STUDENT);
+        user.setId(7L);
+        user.setTeamId(3L);
+        user.setCourseId(11L);
+        token = tokenProvider.generateTokenFromUser(user);
+    }
+
+    @Benchmark
+    public String generateTokenFromUser() {
+        return tokenProvider.generateTokenFromUser(user);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public Map<String, Object> getAllClaims() {
+        return tokenProvider.getAllClaims(token);
+    }
+}
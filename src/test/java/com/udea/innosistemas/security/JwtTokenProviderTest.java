@@ -0,0 +1,180 @@
+package com.udea.innosistemas.security;
+
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.entity.UserRole;
+import com.udea.innosistemas.service.SecurityVersionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test unitario para JwtTokenProvider utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica la generación de tokens y la verificación única de firma con VerifiedToken.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@DisplayName("JwtTokenProvider - Test unitario con patrón AAA")
+class JwtTokenProviderTest {
+
+    private JwtTokenProvider tokenProvider;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret",
+                "test-secret-key-with-at-least-256-bits-for-hmac-sha-signing");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 3600L);
+        ReflectionTestUtils.setField(tokenProvider, "refreshExpirationInMs", 86400L);
+        tokenProvider.init();
+
+        testUser = new User("estudiante@udea.edu.co", "password123", UserRole.STUDENT);
+        testUser.setId(7L);
+        testUser.setTeamId(3L);
+        testUser.setCourseId(11L);
+    }
+
+    @Test
+    @DisplayName("Verificar token válido - Debe exponer todos los claims")
+    void verifyToken_WhenValidToken_ShouldExposeClaims() {
+        // Arrange
+        String token = tokenProvider.generateTokenFromUser(testUser);
+
+        // Act
+        VerifiedToken verifiedToken = tokenProvider.verifyToken(token);
+
+        // Assert
+        assertNotNull(verifiedToken);
+        assertEquals(token, verifiedToken.getToken());
+        assertEquals("estudiante@udea.edu.co", verifiedToken.getSubject());
+        assertEquals(7L, verifiedToken.getUserId());
+        assertEquals("STUDENT", verifiedToken.getRole());
+        assertEquals(3L, verifiedToken.getTeamId());
+        assertEquals(11L, verifiedToken.getCourseId());
+        assertFalse(verifiedToken.isRefreshToken());
+        assertNotNull(verifiedToken.getExpiration());
+    }
+
+    @Test
+    @DisplayName("Access token de una sesión - Debe llevar su id en el claim sid")
+    void generateTokenFromUser_WithSession_ShouldExposeSessionId() {
+        // Arrange
+        String token = tokenProvider.generateTokenFromUser(testUser, "session-1");
+
+        // Act
+        VerifiedToken verifiedToken = tokenProvider.verifyToken(token);
+
+        // Assert
+        assertEquals("session-1", verifiedToken.getSessionId());
+        assertNull(tokenProvider.verifyToken(tokenProvider.generateTokenFromUser(testUser)).getSessionId());
+    }
+
+    @Test
+    @DisplayName("Construir principal desde claims - Debe reflejar rol, equipo y curso")
+    void toUser_WhenTokenHasSecurityVersion_ShouldBuildPrincipal() {
+        // Arrange
+        SecurityVersionService securityVersionService = mock(SecurityVersionService.class);
+        when(securityVersionService.getVersion(7L)).thenReturn(2L);
+        ReflectionTestUtils.setField(tokenProvider, "securityVersionService", securityVersionService);
+        String token = tokenProvider.generateTokenFromUser(testUser);
+
+        // Act
+        VerifiedToken verifiedToken = tokenProvider.verifyToken(token);
+        User principal = verifiedToken.toUser();
+
+        // Assert
+        assertTrue(verifiedToken.hasPrincipalClaims());
+        assertEquals(2L, verifiedToken.getSecurityVersion());
+        assertEquals(7L, principal.getId());
+        assertEquals("estudiante@udea.edu.co", principal.getUsername());
+        assertEquals(UserRole.STUDENT, principal.getRole());
+        assertEquals(3L, principal.getTeamId());
+        assertEquals(11L, principal.getCourseId());
+    }
+
+    @Test
+    @DisplayName("Token sin versión de seguridad - No debe permitir principal stateless")
+    void hasPrincipalClaims_WhenNoSecurityVersion_ShouldReturnFalse() {
+        // Arrange
+        String token = tokenProvider.generateTokenFromUser(testUser);
+
+        // Act
+        VerifiedToken verifiedToken = tokenProvider.verifyToken(token);
+
+        // Assert
+        assertNull(verifiedToken.getSecurityVersion());
+        assertFalse(verifiedToken.hasPrincipalClaims());
+    }
+
+    @Test
+    @DisplayName("Verificar refresh token - Debe identificar el tipo")
+    void verifyToken_WhenRefreshToken_ShouldBeRefreshType() {
+        // Arrange
+        String token = tokenProvider.generateRefreshTokenFromUser(testUser);
+
+        // Act
+        VerifiedToken verifiedToken = tokenProvider.verifyToken(token);
+
+        // Assert
+        assertNotNull(verifiedToken);
+        assertTrue(verifiedToken.isRefreshToken());
+        assertTrue(tokenProvider.isRefreshToken(token));
+    }
+
+    @Test
+    @DisplayName("Refresh token rotado - Debe conservar la familia del token anterior")
+    void verifyToken_WhenRotatedRefreshToken_ShouldKeepFamily() {
+        // Arrange
+        VerifiedToken first = tokenProvider.verifyToken(tokenProvider.generateRefreshTokenFromUser(testUser));
+        String rotated = tokenProvider.generateRefreshTokenFromUser(testUser, first.getRefreshFamilyId(), "jti-2");
+
+        // Act
+        VerifiedToken verifiedToken = tokenProvider.verifyToken(rotated);
+
+        // Assert
+        assertEquals(first.getTokenId(), first.getRefreshFamilyId());
+        assertEquals(first.getTokenId(), verifiedToken.getRefreshFamilyId());
+        assertEquals("jti-2", verifiedToken.getTokenId());
+    }
+
+    @Test
+    @DisplayName("Verificar token alterado - Debe retornar null")
+    void verifyToken_WhenTamperedToken_ShouldReturnNull() {
+        // Arrange
+        String token = tokenProvider.generateTokenFromUser(testUser);
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        // Act & Assert
+        assertNull(tokenProvider.verifyToken(tampered));
+        assertNull(tokenProvider.verifyToken("not.a.jwt"));
+        assertNull(tokenProvider.verifyToken(null));
+        assertFalse(tokenProvider.validateToken(tampered));
+    }
+
+    @Test
+    @DisplayName("Obtener todos los claims - Debe retornar los valores del token")
+    void getAllClaims_WhenValidToken_ShouldReturnClaims() {
+        // Arrange
+        String token = tokenProvider.generateTokenFromUser(testUser);
+
+        // Act
+        Map<String, Object> claims = tokenProvider.getAllClaims(token);
+
+        // Assert
+        assertEquals(7L, claims.get("userId"));
+        assertEquals("estudiante@udea.edu.co", claims.get("email"));
+        assertEquals("STUDENT", claims.get("role"));
+        assertEquals(3L, claims.get("teamId"));
+        assertEquals(11L, claims.get("courseId"));
+        assertNotNull(claims.get("issuedAt"));
+        assertNotNull(claims.get("expiration"));
+    }
+}
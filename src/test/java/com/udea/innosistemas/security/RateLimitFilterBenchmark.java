@@ -0,0 +1,89 @@
+package com.udea.innosistemas.security;
+
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.entity.UserRole;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH de la obtención de la clave de rate limiting en RateLimitFilter:
+ * usuario autenticado, cadena X-Forwarded-For, X-Real-IP y dirección remota.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitFilterBenchmark {
+
+    private RateLimitFilter filter;
+    private MockHttpServletRequest forwardedRequest;
+    private MockHttpServletRequest realIpRequest;
+    private MockHttpServletRequest remoteAddrRequest;
+    private UsernamePasswordAuthenticationToken authentication;
+
+    @Setup
+    public void setUp() {
+        filter = new RateLimitFilter();
+
+        forwardedRequest = new MockHttpServletRequest("GET", "/api/v1/graphql");
+        forwardedRequest.addHeader("X-Forwarded-For", "203.0.113.7, 10.0.0.12, 10.0.0.1");
+
+        realIpRequest = new MockHttpServletRequest("GET", "/api/v1/graphql");
+        realIpRequest.addHeader("X-Real-IP", "203.0.113.7");
+
+        remoteAddrRequest = new MockHttpServletRequest("GET", "/api/v1/graphql");
+        remoteAddrRequest.setRemoteAddr("203.0.113.7");
+
+        User user = new User("estudiante@udea.edu.co", "password123", UserRole.STUDENT);
+        authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public String authenticatedUser() {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        try {
+            return filter.getRateLimitKey(remoteAddrRequest);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Benchmark
+    public String xForwardedFor() {
+        return filter.getRateLimitKey(forwardedRequest);
+    }
+
+    @Benchmark
+    public String xRealIp() {
+        return filter.getRateLimitKey(realIpRequest);
+    }
+
+    @Benchmark
+    public String remoteAddr() {
+        return filter.getRateLimitKey(remoteAddrRequest);
+    }
+}
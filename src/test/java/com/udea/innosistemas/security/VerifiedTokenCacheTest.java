@@ -0,0 +1,129 @@
+package com.udea.innosistemas.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test unitario para VerifiedTokenCache utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica el almacenamiento por digest, la invalidación y las métricas de la caché.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@DisplayName("VerifiedTokenCache - Test unitario con patrón AAA")
+class VerifiedTokenCacheTest {
+
+    private VerifiedTokenCache verifiedTokenCache;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        verifiedTokenCache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(verifiedTokenCache, "maxSize", 100L);
+        ReflectionTestUtils.setField(verifiedTokenCache, "maxAgeSeconds", 300L);
+        ReflectionTestUtils.setField(verifiedTokenCache, "meterRegistry", meterRegistry);
+        verifiedTokenCache.init();
+    }
+
+    private VerifiedToken verifiedToken(String token, long expiresInMillis) {
+        Claims claims = Jwts.claims()
+                .subject("estudiante@udea.edu.co")
+                .expiration(new Date(System.currentTimeMillis() + expiresInMillis))
+                .build();
+        return new VerifiedToken(token, claims);
+    }
+
+    @Test
+    @DisplayName("Guardar token vigente - Debe retornarlo en la siguiente consulta")
+    void put_WhenTokenNotExpired_ShouldBeReturnedByGet() {
+        // Arrange
+        VerifiedToken token = verifiedToken("token.valido", 60000);
+
+        // Act
+        verifiedTokenCache.put(token);
+
+        // Assert
+        assertSame(token, verifiedTokenCache.get("token.valido"));
+        assertNull(verifiedTokenCache.get("otro.token"));
+    }
+
+    @Test
+    @DisplayName("Consultar con verificación - Debe verificar el token una sola vez y no cachear los inválidos")
+    void getWithVerifier_ShouldVerifyOnceAndSkipInvalidTokens() {
+        // Arrange
+        VerifiedToken token = verifiedToken("token.nuevo", 60000);
+        AtomicInteger verifications = new AtomicInteger();
+
+        // Act
+        VerifiedToken first = verifiedTokenCache.get("token.nuevo", t -> {
+            verifications.incrementAndGet();
+            return token;
+        });
+        VerifiedToken second = verifiedTokenCache.get("token.nuevo", t -> {
+            verifications.incrementAndGet();
+            return null;
+        });
+        VerifiedToken invalid = verifiedTokenCache.get("token.invalido", t -> null);
+
+        // Assert
+        assertSame(token, first);
+        assertSame(token, second);
+        assertEquals(1, verifications.get());
+        assertNull(invalid);
+        assertNull(verifiedTokenCache.get("token.invalido"));
+    }
+
+    @Test
+    @DisplayName("Guardar token expirado - No debe cachearse")
+    void put_WhenTokenExpired_ShouldNotBeCached() {
+        // Arrange
+        VerifiedToken token = verifiedToken("token.expirado", -1000);
+
+        // Act
+        verifiedTokenCache.put(token);
+
+        // Assert
+        assertNull(verifiedTokenCache.get("token.expirado"));
+    }
+
+    @Test
+    @DisplayName("Invalidar token - Debe eliminarlo de la caché")
+    void invalidate_ShouldRemoveEntry() {
+        // Arrange
+        verifiedTokenCache.put(verifiedToken("token.revocado", 60000));
+
+        // Act
+        verifiedTokenCache.invalidate("token.revocado");
+
+        // Assert
+        assertNull(verifiedTokenCache.get("token.revocado"));
+    }
+
+    @Test
+    @DisplayName("Consultas a la caché - Debe publicar métricas de aciertos y fallos")
+    void get_ShouldRecordHitAndMissMetrics() {
+        // Arrange
+        verifiedTokenCache.put(verifiedToken("token.metricas", 60000));
+
+        // Act
+        verifiedTokenCache.get("token.metricas");
+        verifiedTokenCache.get("token.inexistente");
+
+        // Assert
+        assertEquals(1.0, meterRegistry.get("cache.gets")
+                .tag("cache", VerifiedTokenCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets")
+                .tag("cache", VerifiedTokenCache.CACHE_NAME).tag("result", "miss").functionCounter().count());
+    }
+}
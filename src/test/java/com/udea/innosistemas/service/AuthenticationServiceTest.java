@@ -6,19 +6,24 @@ import com.udea.innosistemas.dto.LogoutResponse;
 import com.udea.innosistemas.entity.User;
 import com.udea.innosistemas.entity.UserRole;
 import com.udea.innosistemas.exception.AuthenticationException;
+import com.udea.innosistemas.exception.LoginThrottledException;
 import com.udea.innosistemas.repository.UserRepository;
 import com.udea.innosistemas.security.JwtTokenProvider;
+import com.udea.innosistemas.security.VerifiedToken;
+import io.jsonwebtoken.ClaimsBuilder;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 
 import java.time.LocalDateTime;
@@ -41,7 +46,10 @@ import static org.mockito.Mockito.*;
 class AuthenticationServiceTest {
 
     @Mock
-    private AuthenticationManager authenticationManager;
+    private CredentialVerificationService credentialVerificationService;
+
+    @Mock
+    private LoginAttemptService loginAttemptService;
 
     @Mock
     private UserRepository userRepository;
@@ -52,6 +60,12 @@ class AuthenticationServiceTest {
     @Mock
     private TokenBlacklistService tokenBlacklistService;
 
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Mock
+    private RefreshTokenRotationService refreshTokenRotationService;
+
     @Mock
     private SessionManagementService sessionManagementService;
 
@@ -87,6 +101,28 @@ class AuthenticationServiceTest {
         loginRequest = new LoginRequest("estudiante@udea.edu.co", "password123");
         testToken = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.test.token";
         testRefreshToken = "eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.refresh.token";
+
+        // El provider de autenticación deja el usuario cargado como principal
+        lenient().when(authentication.getPrincipal()).thenReturn(testUser);
+    }
+
+    // Los claims JWT guardan la expiración con precisión de segundos
+    private Date expirationInOneDay() {
+        return new Date((System.currentTimeMillis() / 1000 + 86400) * 1000);
+    }
+
+    private VerifiedToken tokenFor(String token) {
+        return argThat(verified -> verified != null && token.equals(verified.getToken()));
+    }
+
+    private VerifiedToken verifiedToken(String token, String type, Date expiration) {
+        ClaimsBuilder claims = Jwts.claims()
+                .subject(testUser.getEmail())
+                .expiration(expiration);
+        if (type != null) {
+            claims.add("type", type);
+        }
+        return new VerifiedToken(token, claims.build());
     }
 
     // ==================== LOGIN TESTS ====================
@@ -95,12 +131,11 @@ class AuthenticationServiceTest {
     @DisplayName("Login exitoso - Debe retornar AuthResponse con tokens válidos")
     void login_WhenValidCredentials_ShouldReturnAuthResponse() {
         // Arrange
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
-        when(tokenProvider.generateToken(authentication)).thenReturn(testToken);
-        when(tokenProvider.generateRefreshToken(authentication)).thenReturn(testRefreshToken);
-        when(sessionManagementService.registerSession(anyString(), anyString())).thenReturn(true);
+        when(tokenProvider.generateToken(eq(authentication), anyString())).thenReturn(testToken);
+        when(tokenProvider.generateRefreshToken(eq(authentication), anyString())).thenReturn(testRefreshToken);
+        when(sessionManagementService.registerSession(anyString(), anyString(), any(), anyList())).thenReturn(true);
 
         // Act
         AuthResponse response = authenticationService.login(loginRequest);
@@ -114,19 +149,19 @@ class AuthenticationServiceTest {
         assertEquals(testUser.getRole(), response.getUserInfo().getRole(), "El role debe coincidir");
         assertEquals(testUser.getId(), response.getUserInfo().getId(), "El ID debe coincidir");
 
-        verify(userRepository).findByEmail(loginRequest.getEmail());
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(tokenProvider).generateToken(authentication);
-        verify(tokenProvider).generateRefreshToken(authentication);
-        verify(sessionManagementService).registerSession(eq(testUser.getEmail()), anyString());
+        verify(credentialVerificationService).authenticate(any(UsernamePasswordAuthenticationToken.class));
+        ArgumentCaptor<String> sessionId = ArgumentCaptor.forClass(String.class);
+        verify(tokenProvider).generateRefreshToken(eq(authentication), sessionId.capture());
+        // La sesión se identifica con la familia del refresh token emitido y el access token la lleva en "sid"
+        verify(tokenProvider).generateToken(authentication, sessionId.getValue());
+        verify(sessionManagementService).registerSession(eq(testUser.getEmail()), eq(sessionId.getValue()), isNull(), anyList());
     }
 
     @Test
     @DisplayName("Login con credenciales inválidas - Debe lanzar AuthenticationException")
     void login_WhenInvalidCredentials_ShouldThrowAuthenticationException() {
         // Arrange
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenThrow(new BadCredentialsException("Invalid credentials"));
 
         // Act & Assert
@@ -135,17 +170,18 @@ class AuthenticationServiceTest {
         });
 
         assertEquals("Credenciales inválidas", exception.getMessage());
-        verify(userRepository).findByEmail(loginRequest.getEmail());
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(tokenProvider, never()).generateToken(any());
-        verify(sessionManagementService, never()).registerSession(anyString(), anyString());
+        verify(credentialVerificationService).authenticate(any(UsernamePasswordAuthenticationToken.class));
+        verify(loginAttemptService).recordFailure(loginRequest.getEmail());
+        verify(tokenProvider, never()).generateToken(any(), anyString());
+        verify(sessionManagementService, never()).registerSession(anyString(), anyString(), any(), anyList());
     }
 
     @Test
     @DisplayName("Login con usuario no encontrado - Debe lanzar AuthenticationException")
     void login_WhenUserNotFound_ShouldThrowAuthenticationException() {
         // Arrange
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.empty());
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenThrow(new UsernameNotFoundException("Usuario no encontrado"));
 
         // Act & Assert
         AuthenticationException exception = assertThrows(AuthenticationException.class, () -> {
@@ -153,16 +189,30 @@ class AuthenticationServiceTest {
         });
 
         assertEquals("Usuario no encontrado", exception.getMessage());
-        verify(userRepository).findByEmail(loginRequest.getEmail());
-        verify(authenticationManager, never()).authenticate(any());
+        verify(userRepository, never()).findByEmail(anyString());
+    }
+
+    @Test
+    @DisplayName("Login con cuenta en backoff - Debe rechazar sin verificar la contraseña")
+    void login_WhenAccountInBackoff_ShouldThrowLoginThrottledException() {
+        // Arrange
+        doThrow(new LoginThrottledException("Demasiados intentos fallidos, intenta de nuevo más tarde", 4))
+                .when(loginAttemptService).checkAllowed(loginRequest.getEmail());
+
+        // Act & Assert
+        LoginThrottledException exception = assertThrows(LoginThrottledException.class, () -> {
+            authenticationService.login(loginRequest);
+        });
+
+        assertEquals(4, exception.getRetryAfterSeconds());
+        verify(credentialVerificationService, never()).authenticate(any());
     }
 
     @Test
     @DisplayName("Login con excepción inesperada - Debe lanzar AuthenticationException genérica")
     void login_WhenUnexpectedException_ShouldThrowAuthenticationException() {
         // Arrange
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert
@@ -171,7 +221,6 @@ class AuthenticationServiceTest {
         });
 
         assertEquals("Error durante la autenticación", exception.getMessage());
-        verify(userRepository).findByEmail(loginRequest.getEmail());
     }
 
     // ==================== VALIDATE CREDENTIALS TESTS ====================
@@ -182,7 +231,7 @@ class AuthenticationServiceTest {
         // Arrange
         String email = "estudiante@udea.edu.co";
         String password = "password123";
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
 
         // Act
@@ -190,7 +239,7 @@ class AuthenticationServiceTest {
 
         // Assert
         assertTrue(result, "Las credenciales válidas deben retornar true");
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
+        verify(credentialVerificationService).authenticate(any(UsernamePasswordAuthenticationToken.class));
     }
 
     @Test
@@ -199,7 +248,7 @@ class AuthenticationServiceTest {
         // Arrange
         String email = "estudiante@udea.edu.co";
         String password = "wrongPassword";
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenThrow(new BadCredentialsException("Invalid credentials"));
 
         // Act
@@ -207,7 +256,7 @@ class AuthenticationServiceTest {
 
         // Assert
         assertFalse(result, "Las credenciales inválidas deben retornar false");
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
+        verify(credentialVerificationService).authenticate(any(UsernamePasswordAuthenticationToken.class));
     }
 
     // ==================== REFRESH TOKEN TESTS ====================
@@ -218,18 +267,13 @@ class AuthenticationServiceTest {
         // Arrange
         String newAccessToken = "new.access.token";
         String newRefreshToken = "new.refresh.token";
-        Date expirationDate = new Date(System.currentTimeMillis() + 86400000);
+        Date expirationDate = expirationInOneDay();
 
-        when(tokenBlacklistService.isTokenBlacklisted(testRefreshToken)).thenReturn(false);
-        when(tokenProvider.validateToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.isRefreshToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.getUsernameFromJWT(testRefreshToken)).thenReturn(testUser.getEmail());
+        when(tokenProvider.verifyToken(testRefreshToken)).thenReturn(verifiedToken(testRefreshToken, "refresh", expirationDate));
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
-        when(sessionManagementService.hasActiveSessions(testUser.getEmail())).thenReturn(true);
-        when(tokenProvider.generateTokenFromUser(testUser)).thenReturn(newAccessToken);
-        when(tokenProvider.generateRefreshTokenFromUser(testUser)).thenReturn(newRefreshToken);
-        when(tokenProvider.getExpirationDateFromJWT(testRefreshToken)).thenReturn(expirationDate);
-        doNothing().when(tokenBlacklistService).blacklistToken(testRefreshToken, expirationDate);
+        when(refreshTokenRotationService.rotate(tokenFor(testRefreshToken), anyString())).thenReturn(RefreshTokenRotationService.Result.ROTATED);
+        when(tokenProvider.generateTokenFromUser(eq(testUser), anyString())).thenReturn(newAccessToken);
+        when(tokenProvider.generateRefreshTokenFromUser(eq(testUser), anyString(), anyString())).thenReturn(newRefreshToken);
 
         // Act
         AuthResponse response = authenticationService.refreshToken(testRefreshToken);
@@ -241,22 +285,20 @@ class AuthenticationServiceTest {
         assertNotNull(response.getUserInfo(), "UserInfo no debe ser null");
         assertEquals(testUser.getEmail(), response.getUserInfo().getEmail(), "El email debe coincidir");
 
-        verify(tokenBlacklistService).isTokenBlacklisted(testRefreshToken);
-        verify(tokenProvider).validateToken(testRefreshToken);
-        verify(tokenProvider).isRefreshToken(testRefreshToken);
-        verify(tokenProvider).getUsernameFromJWT(testRefreshToken);
+        verify(tokenProvider).verifyToken(testRefreshToken);
         verify(userRepository).findByEmail(testUser.getEmail());
-        verify(sessionManagementService).hasActiveSessions(testUser.getEmail());
-        verify(tokenProvider).generateTokenFromUser(testUser);
-        verify(tokenProvider).generateRefreshTokenFromUser(testUser);
-        verify(tokenBlacklistService).blacklistToken(testRefreshToken, expirationDate);
+        verify(refreshTokenRotationService).rotate(tokenFor(testRefreshToken), anyString());
+        verify(tokenProvider).generateTokenFromUser(eq(testUser), anyString());
+        verify(tokenProvider).generateRefreshTokenFromUser(eq(testUser), anyString(), anyString());
     }
 
     @Test
     @DisplayName("Refresh token en blacklist - Debe lanzar AuthenticationException")
     void refreshToken_WhenTokenBlacklisted_ShouldThrowAuthenticationException() {
         // Arrange
-        when(tokenBlacklistService.isTokenBlacklisted(testRefreshToken)).thenReturn(true);
+        when(tokenProvider.verifyToken(testRefreshToken)).thenReturn(verifiedToken(testRefreshToken, "refresh", expirationInOneDay()));
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(refreshTokenRotationService.rotate(tokenFor(testRefreshToken), anyString())).thenReturn(RefreshTokenRotationService.Result.REVOKED);
 
         // Act & Assert
         AuthenticationException exception = assertThrows(AuthenticationException.class, () -> {
@@ -264,16 +306,31 @@ class AuthenticationServiceTest {
         });
 
         assertEquals("Token inválido o revocado", exception.getMessage());
-        verify(tokenBlacklistService).isTokenBlacklisted(testRefreshToken);
-        verify(tokenProvider, never()).validateToken(any());
+        verify(refreshTokenRotationService).rotate(tokenFor(testRefreshToken), anyString());
+    }
+
+    @Test
+    @DisplayName("Refresh token ya rotado - Debe detectar la reutilización y lanzar AuthenticationException")
+    void refreshToken_WhenReuseDetected_ShouldThrowAuthenticationException() {
+        // Arrange
+        when(tokenProvider.verifyToken(testRefreshToken)).thenReturn(verifiedToken(testRefreshToken, "refresh", expirationInOneDay()));
+        when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
+        when(refreshTokenRotationService.rotate(tokenFor(testRefreshToken), anyString())).thenReturn(RefreshTokenRotationService.Result.REUSE_DETECTED);
+
+        // Act & Assert
+        AuthenticationException exception = assertThrows(AuthenticationException.class, () -> {
+            authenticationService.refreshToken(testRefreshToken);
+        });
+
+        assertEquals("Token inválido o revocado", exception.getMessage());
+        verify(tokenBlacklistService, never()).blacklistToken(any(VerifiedToken.class));
     }
 
     @Test
     @DisplayName("Refresh token inválido - Debe lanzar AuthenticationException")
     void refreshToken_WhenInvalidToken_ShouldThrowAuthenticationException() {
         // Arrange
-        when(tokenBlacklistService.isTokenBlacklisted(testRefreshToken)).thenReturn(false);
-        when(tokenProvider.validateToken(testRefreshToken)).thenReturn(false);
+        when(tokenProvider.verifyToken(testRefreshToken)).thenReturn(null);
 
         // Act & Assert
         AuthenticationException exception = assertThrows(AuthenticationException.class, () -> {
@@ -281,17 +338,15 @@ class AuthenticationServiceTest {
         });
 
         assertEquals("Token inválido", exception.getMessage());
-        verify(tokenBlacklistService).isTokenBlacklisted(testRefreshToken);
-        verify(tokenProvider).validateToken(testRefreshToken);
+        verify(tokenBlacklistService, never()).isTokenBlacklisted(any(VerifiedToken.class));
+        verify(tokenProvider).verifyToken(testRefreshToken);
     }
 
     @Test
     @DisplayName("Refresh token con tipo incorrecto - Debe lanzar AuthenticationException")
     void refreshToken_WhenNotRefreshTokenType_ShouldThrowAuthenticationException() {
         // Arrange
-        when(tokenBlacklistService.isTokenBlacklisted(testRefreshToken)).thenReturn(false);
-        when(tokenProvider.validateToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.isRefreshToken(testRefreshToken)).thenReturn(false);
+        when(tokenProvider.verifyToken(testRefreshToken)).thenReturn(verifiedToken(testRefreshToken, null, new Date(System.currentTimeMillis() + 86400000)));
 
         // Act & Assert
         AuthenticationException exception = assertThrows(AuthenticationException.class, () -> {
@@ -299,17 +354,13 @@ class AuthenticationServiceTest {
         });
 
         assertEquals("Token no es un refresh token", exception.getMessage());
-        verify(tokenProvider).isRefreshToken(testRefreshToken);
     }
 
     @Test
     @DisplayName("Refresh token con usuario no encontrado - Debe lanzar AuthenticationException")
     void refreshToken_WhenUserNotFound_ShouldThrowAuthenticationException() {
         // Arrange
-        when(tokenBlacklistService.isTokenBlacklisted(testRefreshToken)).thenReturn(false);
-        when(tokenProvider.validateToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.isRefreshToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.getUsernameFromJWT(testRefreshToken)).thenReturn(testUser.getEmail());
+        when(tokenProvider.verifyToken(testRefreshToken)).thenReturn(verifiedToken(testRefreshToken, "refresh", new Date(System.currentTimeMillis() + 86400000)));
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.empty());
 
         // Act & Assert
@@ -325,12 +376,9 @@ class AuthenticationServiceTest {
     @DisplayName("Refresh token sin sesiones activas - Debe lanzar AuthenticationException")
     void refreshToken_WhenNoActiveSessions_ShouldThrowAuthenticationException() {
         // Arrange
-        when(tokenBlacklistService.isTokenBlacklisted(testRefreshToken)).thenReturn(false);
-        when(tokenProvider.validateToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.isRefreshToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.getUsernameFromJWT(testRefreshToken)).thenReturn(testUser.getEmail());
+        when(tokenProvider.verifyToken(testRefreshToken)).thenReturn(verifiedToken(testRefreshToken, "refresh", new Date(System.currentTimeMillis() + 86400000)));
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
-        when(sessionManagementService.hasActiveSessions(testUser.getEmail())).thenReturn(false);
+        when(refreshTokenRotationService.rotate(tokenFor(testRefreshToken), anyString())).thenReturn(RefreshTokenRotationService.Result.NO_ACTIVE_SESSIONS);
 
         // Act & Assert
         AuthenticationException exception = assertThrows(AuthenticationException.class, () -> {
@@ -338,7 +386,7 @@ class AuthenticationServiceTest {
         });
 
         assertEquals("No hay sesiones activas", exception.getMessage());
-        verify(sessionManagementService).hasActiveSessions(testUser.getEmail());
+        verify(refreshTokenRotationService).rotate(tokenFor(testRefreshToken), anyString());
     }
 
     // ==================== LOGOUT TESTS ====================
@@ -347,12 +395,9 @@ class AuthenticationServiceTest {
     @DisplayName("Logout exitoso - Debe retornar LogoutResponse exitoso")
     void logout_WhenValidToken_ShouldReturnSuccessResponse() {
         // Arrange
-        Date expirationDate = new Date(System.currentTimeMillis() + 86400000);
-        when(tokenProvider.validateToken(testToken)).thenReturn(true);
-        when(tokenProvider.getUsernameFromJWT(testToken)).thenReturn(testUser.getEmail());
-        when(tokenProvider.getExpirationDateFromJWT(testToken)).thenReturn(expirationDate);
-        doNothing().when(tokenBlacklistService).blacklistToken(testToken, expirationDate);
-        when(sessionManagementService.invalidateAllUserSessions(testUser.getEmail())).thenReturn(3L);
+        Date expirationDate = expirationInOneDay();
+        when(tokenProvider.verifyToken(testToken)).thenReturn(verifiedToken(testToken, null, expirationDate));
+        when(sessionManagementService.invalidateAllUserSessions(eq(testUser.getEmail()), tokenFor(testToken))).thenReturn(3L);
 
         // Act
         LogoutResponse response = authenticationService.logout(testToken);
@@ -362,17 +407,15 @@ class AuthenticationServiceTest {
         assertTrue(response.isSuccess(), "El logout debe ser exitoso");
         assertEquals("Logout exitoso", response.getMessage(), "El mensaje debe coincidir");
 
-        verify(tokenProvider).validateToken(testToken);
-        verify(tokenProvider).getUsernameFromJWT(testToken);
-        verify(tokenBlacklistService).blacklistToken(testToken, expirationDate);
-        verify(sessionManagementService).invalidateAllUserSessions(testUser.getEmail());
+        verify(tokenProvider).verifyToken(testToken);
+        verify(sessionManagementService).invalidateAllUserSessions(eq(testUser.getEmail()), tokenFor(testToken));
     }
 
     @Test
     @DisplayName("Logout con token inválido - Debe retornar LogoutResponse fallido")
     void logout_WhenInvalidToken_ShouldReturnFailureResponse() {
         // Arrange
-        when(tokenProvider.validateToken(testToken)).thenReturn(false);
+        when(tokenProvider.verifyToken(testToken)).thenReturn(null);
 
         // Act
         LogoutResponse response = authenticationService.logout(testToken);
@@ -382,16 +425,16 @@ class AuthenticationServiceTest {
         assertFalse(response.isSuccess(), "El logout no debe ser exitoso");
         assertEquals("Token inválido", response.getMessage(), "El mensaje debe coincidir");
 
-        verify(tokenProvider).validateToken(testToken);
-        verify(tokenBlacklistService, never()).blacklistToken(anyString(), any());
-        verify(sessionManagementService, never()).invalidateAllUserSessions(anyString());
+        verify(tokenProvider).verifyToken(testToken);
+        verify(tokenBlacklistService, never()).blacklistToken(any(VerifiedToken.class));
+        verify(sessionManagementService, never()).invalidateAllUserSessions(anyString(), any(VerifiedToken.class));
     }
 
     @Test
     @DisplayName("Logout con excepción - Debe retornar LogoutResponse fallido")
     void logout_WhenExceptionOccurs_ShouldReturnFailureResponse() {
         // Arrange
-        when(tokenProvider.validateToken(testToken)).thenThrow(new RuntimeException("Database error"));
+        when(tokenProvider.verifyToken(testToken)).thenThrow(new RuntimeException("Database error"));
 
         // Act
         LogoutResponse response = authenticationService.logout(testToken);
@@ -401,7 +444,7 @@ class AuthenticationServiceTest {
         assertFalse(response.isSuccess(), "El logout no debe ser exitoso");
         assertEquals("Error durante el logout", response.getMessage(), "El mensaje debe coincidir");
 
-        verify(tokenProvider).validateToken(testToken);
+        verify(tokenProvider).verifyToken(testToken);
     }
 
     // ==================== LOGOUT FROM ALL DEVICES TESTS ====================
@@ -411,6 +454,7 @@ class AuthenticationServiceTest {
     void logoutFromAllDevices_WhenValidUsername_ShouldReturnSuccessResponse() {
         // Arrange
         String username = testUser.getEmail();
+        when(tokenRevocationService.revokeAllTokens(username)).thenReturn(true);
         when(sessionManagementService.invalidateAllUserSessions(username)).thenReturn(5L);
 
         // Act
@@ -422,9 +466,43 @@ class AuthenticationServiceTest {
         assertEquals("Logout exitoso de todos los dispositivos", response.getMessage(),
                 "El mensaje debe coincidir");
 
+        verify(tokenRevocationService).revokeAllTokens(username);
         verify(sessionManagementService).invalidateAllUserSessions(username);
     }
 
+    @Test
+    @DisplayName("Logout de todos los dispositivos sin Redis - Debe invalidar las sesiones y reportar el fallo")
+    void logoutFromAllDevices_WhenRevocationPending_ShouldReturnFailureResponse() {
+        // Arrange
+        String username = testUser.getEmail();
+        when(tokenRevocationService.revokeAllTokens(username)).thenReturn(false);
+        when(sessionManagementService.invalidateAllUserSessions(username)).thenReturn(5L);
+
+        // Act
+        LogoutResponse response = authenticationService.logoutFromAllDevices(username);
+
+        // Assert
+        assertNotNull(response, "La respuesta no debe ser null");
+        assertFalse(response.isSuccess(), "El logout no debe reportarse como exitoso");
+        verify(sessionManagementService).invalidateAllUserSessions(username);
+    }
+
+    @Test
+    @DisplayName("Refresh token anterior a un logout de todos los dispositivos - Debe lanzar AuthenticationException")
+    void refreshToken_WhenRevokedForAllDevices_ShouldThrowAuthenticationException() {
+        // Arrange
+        when(tokenProvider.verifyToken(testRefreshToken)).thenReturn(verifiedToken(testRefreshToken, "refresh", expirationInOneDay()));
+        when(tokenRevocationService.isRevoked(tokenFor(testRefreshToken))).thenReturn(true);
+
+        // Act & Assert
+        AuthenticationException exception = assertThrows(AuthenticationException.class, () -> {
+            authenticationService.refreshToken(testRefreshToken);
+        });
+
+        assertEquals("Token inválido o revocado", exception.getMessage());
+        verify(tokenProvider, never()).generateTokenFromUser(any(), anyString());
+    }
+
     @Test
     @DisplayName("Logout de todos los dispositivos con excepción - Debe retornar LogoutResponse fallido")
     void logoutFromAllDevices_WhenExceptionOccurs_ShouldReturnFailureResponse() {
@@ -469,35 +547,26 @@ class AuthenticationServiceTest {
     @DisplayName("Escenario completo: Login, Refresh y Logout - Debe funcionar correctamente")
     void completeAuthenticationFlow_ShouldWorkCorrectly() {
         // Arrange
-        Date expirationDate = new Date(System.currentTimeMillis() + 86400000);
+        Date expirationDate = expirationInOneDay();
         String newAccessToken = "new.access.token";
         String newRefreshToken = "new.refresh.token";
 
         // Setup para login
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
-        when(tokenProvider.generateToken(authentication)).thenReturn(testToken);
-        when(tokenProvider.generateRefreshToken(authentication)).thenReturn(testRefreshToken);
-        when(sessionManagementService.registerSession(anyString(), anyString())).thenReturn(true);
+        when(tokenProvider.generateToken(eq(authentication), anyString())).thenReturn(testToken);
+        when(tokenProvider.generateRefreshToken(eq(authentication), anyString())).thenReturn(testRefreshToken);
+        when(sessionManagementService.registerSession(anyString(), anyString(), any(), anyList())).thenReturn(true);
 
         // Setup para refresh token
-        when(tokenBlacklistService.isTokenBlacklisted(testRefreshToken)).thenReturn(false);
-        when(tokenProvider.validateToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.isRefreshToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.getUsernameFromJWT(testRefreshToken)).thenReturn(testUser.getEmail());
-        when(sessionManagementService.hasActiveSessions(testUser.getEmail())).thenReturn(true);
-        when(tokenProvider.generateTokenFromUser(testUser)).thenReturn(newAccessToken);
-        when(tokenProvider.generateRefreshTokenFromUser(testUser)).thenReturn(newRefreshToken);
-        when(tokenProvider.getExpirationDateFromJWT(testRefreshToken)).thenReturn(expirationDate);
-        doNothing().when(tokenBlacklistService).blacklistToken(eq(testRefreshToken), any());
+        when(tokenProvider.verifyToken(testRefreshToken)).thenReturn(verifiedToken(testRefreshToken, "refresh", expirationDate));
+        when(refreshTokenRotationService.rotate(tokenFor(testRefreshToken), anyString())).thenReturn(RefreshTokenRotationService.Result.ROTATED);
+        when(tokenProvider.generateTokenFromUser(eq(testUser), anyString())).thenReturn(newAccessToken);
+        when(tokenProvider.generateRefreshTokenFromUser(eq(testUser), anyString(), anyString())).thenReturn(newRefreshToken);
 
         // Setup para logout
-        when(tokenProvider.validateToken(newAccessToken)).thenReturn(true);
-        when(tokenProvider.getUsernameFromJWT(newAccessToken)).thenReturn(testUser.getEmail());
-        when(tokenProvider.getExpirationDateFromJWT(newAccessToken)).thenReturn(expirationDate);
-        doNothing().when(tokenBlacklistService).blacklistToken(eq(newAccessToken), any());
-        when(sessionManagementService.invalidateAllUserSessions(testUser.getEmail())).thenReturn(1L);
+        when(tokenProvider.verifyToken(newAccessToken)).thenReturn(verifiedToken(newAccessToken, null, expirationDate));
+        when(sessionManagementService.invalidateAllUserSessions(eq(testUser.getEmail()), tokenFor(newAccessToken))).thenReturn(1L);
 
         // Act
         // 1. Login
@@ -523,12 +592,10 @@ class AuthenticationServiceTest {
         assertTrue(logoutResponse.isSuccess());
 
         // Verificar interacciones
-        verify(userRepository, times(2)).findByEmail(testUser.getEmail());
-        verify(sessionManagementService).registerSession(anyString(), anyString());
-        verify(sessionManagementService).hasActiveSessions(testUser.getEmail());
-        verify(sessionManagementService).invalidateAllUserSessions(testUser.getEmail());
-        verify(tokenBlacklistService).blacklistToken(eq(testRefreshToken), any());
-        verify(tokenBlacklistService).blacklistToken(eq(newAccessToken), any());
+        verify(userRepository, times(1)).findByEmail(testUser.getEmail());
+        verify(sessionManagementService).registerSession(anyString(), anyString(), any(), anyList());
+        verify(refreshTokenRotationService).rotate(tokenFor(testRefreshToken), anyString());
+        verify(sessionManagementService).invalidateAllUserSessions(eq(testUser.getEmail()), tokenFor(newAccessToken));
     }
 
     // ==================== EDGE CASES AND ADDITIONAL COVERAGE ====================
@@ -537,12 +604,11 @@ class AuthenticationServiceTest {
     @DisplayName("Login con sesión no registrada - Debe lanzar excepción si registerSession falla")
     void login_WhenSessionRegistrationFails_ShouldStillReturnAuthResponse() {
         // Arrange
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
-        when(tokenProvider.generateToken(authentication)).thenReturn(testToken);
-        when(tokenProvider.generateRefreshToken(authentication)).thenReturn(testRefreshToken);
-        when(sessionManagementService.registerSession(anyString(), anyString())).thenReturn(false);
+        when(tokenProvider.generateToken(eq(authentication), anyString())).thenReturn(testToken);
+        when(tokenProvider.generateRefreshToken(eq(authentication), anyString())).thenReturn(testRefreshToken);
+        when(sessionManagementService.registerSession(anyString(), anyString(), any(), anyList())).thenReturn(false);
 
         // Act
         AuthResponse response = authenticationService.login(loginRequest);
@@ -551,7 +617,7 @@ class AuthenticationServiceTest {
         assertNotNull(response, "La respuesta no debe ser null aunque falle el registro de sesión");
         assertEquals(testToken, response.getToken());
         assertEquals(testRefreshToken, response.getRefreshToken());
-        verify(sessionManagementService).registerSession(eq(testUser.getEmail()), anyString());
+        verify(sessionManagementService).registerSession(eq(testUser.getEmail()), anyString(), any(), anyList());
     }
 
     @Test
@@ -559,8 +625,7 @@ class AuthenticationServiceTest {
     void login_WhenUserDisabled_ShouldThrowAuthenticationException() {
         // Arrange
         testUser.setEnabled(false);
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenThrow(new BadCredentialsException("User is disabled"));
 
         // Act & Assert
@@ -569,7 +634,7 @@ class AuthenticationServiceTest {
         });
 
         assertEquals("Credenciales inválidas", exception.getMessage());
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
+        verify(credentialVerificationService).authenticate(any(UsernamePasswordAuthenticationToken.class));
     }
 
     @Test
@@ -577,8 +642,7 @@ class AuthenticationServiceTest {
     void login_WhenAccountLocked_ShouldThrowAuthenticationException() {
         // Arrange
         testUser.setAccountNonLocked(false);
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenThrow(new BadCredentialsException("Account is locked"));
 
         // Act & Assert
@@ -587,14 +651,14 @@ class AuthenticationServiceTest {
         });
 
         assertEquals("Credenciales inválidas", exception.getMessage());
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
+        verify(credentialVerificationService).authenticate(any(UsernamePasswordAuthenticationToken.class));
     }
 
     @Test
     @DisplayName("Validar credenciales con email null - Debe retornar false")
     void validateCredentials_WhenEmailNull_ShouldReturnFalse() {
         // Arrange
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenThrow(new BadCredentialsException("Email cannot be null"));
 
         // Act
@@ -602,14 +666,14 @@ class AuthenticationServiceTest {
 
         // Assert
         assertFalse(result, "Debe retornar false cuando el email es null");
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
+        verify(credentialVerificationService).authenticate(any(UsernamePasswordAuthenticationToken.class));
     }
 
     @Test
     @DisplayName("Validar credenciales con password null - Debe retornar false")
     void validateCredentials_WhenPasswordNull_ShouldReturnFalse() {
         // Arrange
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenThrow(new BadCredentialsException("Password cannot be null"));
 
         // Act
@@ -617,14 +681,14 @@ class AuthenticationServiceTest {
 
         // Assert
         assertFalse(result, "Debe retornar false cuando el password es null");
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
+        verify(credentialVerificationService).authenticate(any(UsernamePasswordAuthenticationToken.class));
     }
 
     @Test
     @DisplayName("Validar credenciales con email vacío - Debe retornar false")
     void validateCredentials_WhenEmailEmpty_ShouldReturnFalse() {
         // Arrange
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenThrow(new BadCredentialsException("Email cannot be empty"));
 
         // Act
@@ -632,20 +696,16 @@ class AuthenticationServiceTest {
 
         // Assert
         assertFalse(result, "Debe retornar false cuando el email está vacío");
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
+        verify(credentialVerificationService).authenticate(any(UsernamePasswordAuthenticationToken.class));
     }
 
     @Test
     @DisplayName("Refresh token con excepción inesperada - Debe lanzar AuthenticationException")
     void refreshToken_WhenUnexpectedException_ShouldThrowAuthenticationException() {
         // Arrange
-        when(tokenBlacklistService.isTokenBlacklisted(testRefreshToken)).thenReturn(false);
-        when(tokenProvider.validateToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.isRefreshToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.getUsernameFromJWT(testRefreshToken)).thenReturn(testUser.getEmail());
+        when(tokenProvider.verifyToken(testRefreshToken)).thenReturn(verifiedToken(testRefreshToken, "refresh", new Date(System.currentTimeMillis() + 86400000)));
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
-        when(sessionManagementService.hasActiveSessions(testUser.getEmail())).thenReturn(true);
-        when(tokenProvider.generateTokenFromUser(testUser)).thenThrow(new RuntimeException("Token generation failed"));
+        when(tokenProvider.generateTokenFromUser(eq(testUser), anyString())).thenThrow(new RuntimeException("Token generation failed"));
 
         // Act & Assert
         AuthenticationException exception = assertThrows(AuthenticationException.class, () -> {
@@ -653,15 +713,14 @@ class AuthenticationServiceTest {
         });
 
         assertEquals("Error al renovar el token", exception.getMessage());
-        verify(tokenProvider).generateTokenFromUser(testUser);
+        verify(tokenProvider).generateTokenFromUser(eq(testUser), anyString());
     }
 
     @Test
     @DisplayName("Refresh token null - Debe lanzar AuthenticationException")
     void refreshToken_WhenTokenNull_ShouldThrowAuthenticationException() {
         // Arrange
-        when(tokenBlacklistService.isTokenBlacklisted(null)).thenReturn(false);
-        when(tokenProvider.validateToken(null)).thenReturn(false);
+        when(tokenProvider.verifyToken(null)).thenReturn(null);
 
         // Act & Assert
         AuthenticationException exception = assertThrows(AuthenticationException.class, () -> {
@@ -676,8 +735,7 @@ class AuthenticationServiceTest {
     void refreshToken_WhenTokenEmpty_ShouldThrowAuthenticationException() {
         // Arrange
         String emptyToken = "";
-        when(tokenBlacklistService.isTokenBlacklisted(emptyToken)).thenReturn(false);
-        when(tokenProvider.validateToken(emptyToken)).thenReturn(false);
+        when(tokenProvider.verifyToken(emptyToken)).thenReturn(null);
 
         // Act & Assert
         AuthenticationException exception = assertThrows(AuthenticationException.class, () -> {
@@ -691,7 +749,7 @@ class AuthenticationServiceTest {
     @DisplayName("Logout con token null - Debe retornar LogoutResponse fallido")
     void logout_WhenTokenNull_ShouldReturnFailureResponse() {
         // Arrange
-        when(tokenProvider.validateToken(null)).thenReturn(false);
+        when(tokenProvider.verifyToken(null)).thenReturn(null);
 
         // Act
         LogoutResponse response = authenticationService.logout(null);
@@ -700,7 +758,7 @@ class AuthenticationServiceTest {
         assertNotNull(response);
         assertFalse(response.isSuccess());
         assertEquals("Token inválido", response.getMessage());
-        verify(tokenProvider).validateToken(null);
+        verify(tokenProvider).verifyToken(null);
     }
 
     @Test
@@ -708,7 +766,7 @@ class AuthenticationServiceTest {
     void logout_WhenTokenEmpty_ShouldReturnFailureResponse() {
         // Arrange
         String emptyToken = "";
-        when(tokenProvider.validateToken(emptyToken)).thenReturn(false);
+        when(tokenProvider.verifyToken(emptyToken)).thenReturn(null);
 
         // Act
         LogoutResponse response = authenticationService.logout(emptyToken);
@@ -723,9 +781,9 @@ class AuthenticationServiceTest {
     @DisplayName("Logout con excepción en blacklist - Debe retornar LogoutResponse fallido")
     void logout_WhenBlacklistFails_ShouldReturnFailureResponse() {
         // Arrange
-        when(tokenProvider.validateToken(testToken)).thenReturn(true);
-        when(tokenProvider.getUsernameFromJWT(testToken)).thenReturn(testUser.getEmail());
-        when(tokenProvider.getExpirationDateFromJWT(testToken))
+        when(tokenProvider.verifyToken(testToken))
+                .thenReturn(verifiedToken(testToken, null, new Date(System.currentTimeMillis() + 86400000)));
+        when(sessionManagementService.invalidateAllUserSessions(eq(testUser.getEmail()), tokenFor(testToken)))
                 .thenThrow(new RuntimeException("Redis connection error"));
 
         // Act
@@ -741,12 +799,9 @@ class AuthenticationServiceTest {
     @DisplayName("Logout exitoso sin sesiones activas - Debe retornar LogoutResponse exitoso")
     void logout_WhenNoActiveSessions_ShouldStillReturnSuccessResponse() {
         // Arrange
-        Date expirationDate = new Date(System.currentTimeMillis() + 86400000);
-        when(tokenProvider.validateToken(testToken)).thenReturn(true);
-        when(tokenProvider.getUsernameFromJWT(testToken)).thenReturn(testUser.getEmail());
-        when(tokenProvider.getExpirationDateFromJWT(testToken)).thenReturn(expirationDate);
-        doNothing().when(tokenBlacklistService).blacklistToken(testToken, expirationDate);
-        when(sessionManagementService.invalidateAllUserSessions(testUser.getEmail())).thenReturn(0L);
+        Date expirationDate = expirationInOneDay();
+        when(tokenProvider.verifyToken(testToken)).thenReturn(verifiedToken(testToken, null, expirationDate));
+        when(sessionManagementService.invalidateAllUserSessions(eq(testUser.getEmail()), tokenFor(testToken))).thenReturn(0L);
 
         // Act
         LogoutResponse response = authenticationService.logout(testToken);
@@ -755,7 +810,7 @@ class AuthenticationServiceTest {
         assertNotNull(response);
         assertTrue(response.isSuccess());
         assertEquals("Logout exitoso", response.getMessage());
-        verify(sessionManagementService).invalidateAllUserSessions(testUser.getEmail());
+        verify(sessionManagementService).invalidateAllUserSessions(eq(testUser.getEmail()), tokenFor(testToken));
     }
 
     @Test
@@ -812,12 +867,11 @@ class AuthenticationServiceTest {
     void login_WithDifferentRoles_ShouldReturnCorrectRoleInResponse() {
         // Arrange - Probar con PROFESSOR
         testUser.setRole(UserRole.PROFESSOR);
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
-        when(tokenProvider.generateToken(authentication)).thenReturn(testToken);
-        when(tokenProvider.generateRefreshToken(authentication)).thenReturn(testRefreshToken);
-        when(sessionManagementService.registerSession(anyString(), anyString())).thenReturn(true);
+        when(tokenProvider.generateToken(eq(authentication), anyString())).thenReturn(testToken);
+        when(tokenProvider.generateRefreshToken(eq(authentication), anyString())).thenReturn(testRefreshToken);
+        when(sessionManagementService.registerSession(anyString(), anyString(), any(), anyList())).thenReturn(true);
 
         // Act
         AuthResponse response = authenticationService.login(loginRequest);
@@ -832,20 +886,15 @@ class AuthenticationServiceTest {
     @DisplayName("Refresh token verifica UserInfo completo - Debe incluir todos los campos")
     void refreshToken_ShouldReturnCompleteUserInfo() {
         // Arrange
-        Date expirationDate = new Date(System.currentTimeMillis() + 86400000);
+        Date expirationDate = expirationInOneDay();
         String newAccessToken = "new.access.token";
         String newRefreshToken = "new.refresh.token";
 
-        when(tokenBlacklistService.isTokenBlacklisted(testRefreshToken)).thenReturn(false);
-        when(tokenProvider.validateToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.isRefreshToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.getUsernameFromJWT(testRefreshToken)).thenReturn(testUser.getEmail());
+        when(tokenProvider.verifyToken(testRefreshToken)).thenReturn(verifiedToken(testRefreshToken, "refresh", expirationDate));
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
-        when(sessionManagementService.hasActiveSessions(testUser.getEmail())).thenReturn(true);
-        when(tokenProvider.generateTokenFromUser(testUser)).thenReturn(newAccessToken);
-        when(tokenProvider.generateRefreshTokenFromUser(testUser)).thenReturn(newRefreshToken);
-        when(tokenProvider.getExpirationDateFromJWT(testRefreshToken)).thenReturn(expirationDate);
-        doNothing().when(tokenBlacklistService).blacklistToken(testRefreshToken, expirationDate);
+        when(refreshTokenRotationService.rotate(tokenFor(testRefreshToken), anyString())).thenReturn(RefreshTokenRotationService.Result.ROTATED);
+        when(tokenProvider.generateTokenFromUser(eq(testUser), anyString())).thenReturn(newAccessToken);
+        when(tokenProvider.generateRefreshTokenFromUser(eq(testUser), anyString(), anyString())).thenReturn(newRefreshToken);
 
         // Act
         AuthResponse response = authenticationService.refreshToken(testRefreshToken);
@@ -865,12 +914,11 @@ class AuthenticationServiceTest {
     @DisplayName("Login verifica UserInfo completo - Debe incluir todos los campos del usuario")
     void login_ShouldReturnCompleteUserInfo() {
         // Arrange
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
-        when(tokenProvider.generateToken(authentication)).thenReturn(testToken);
-        when(tokenProvider.generateRefreshToken(authentication)).thenReturn(testRefreshToken);
-        when(sessionManagementService.registerSession(anyString(), anyString())).thenReturn(true);
+        when(tokenProvider.generateToken(eq(authentication), anyString())).thenReturn(testToken);
+        when(tokenProvider.generateRefreshToken(eq(authentication), anyString())).thenReturn(testRefreshToken);
+        when(sessionManagementService.registerSession(anyString(), anyString(), any(), anyList())).thenReturn(true);
 
         // Act
         AuthResponse response = authenticationService.login(loginRequest);
@@ -891,20 +939,15 @@ class AuthenticationServiceTest {
     void refreshToken_WhenUserHasNoTeam_ShouldStillWork() {
         // Arrange
         testUser.setTeamId(null);
-        Date expirationDate = new Date(System.currentTimeMillis() + 86400000);
+        Date expirationDate = expirationInOneDay();
         String newAccessToken = "new.access.token";
         String newRefreshToken = "new.refresh.token";
 
-        when(tokenBlacklistService.isTokenBlacklisted(testRefreshToken)).thenReturn(false);
-        when(tokenProvider.validateToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.isRefreshToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.getUsernameFromJWT(testRefreshToken)).thenReturn(testUser.getEmail());
+        when(tokenProvider.verifyToken(testRefreshToken)).thenReturn(verifiedToken(testRefreshToken, "refresh", expirationDate));
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
-        when(sessionManagementService.hasActiveSessions(testUser.getEmail())).thenReturn(true);
-        when(tokenProvider.generateTokenFromUser(testUser)).thenReturn(newAccessToken);
-        when(tokenProvider.generateRefreshTokenFromUser(testUser)).thenReturn(newRefreshToken);
-        when(tokenProvider.getExpirationDateFromJWT(testRefreshToken)).thenReturn(expirationDate);
-        doNothing().when(tokenBlacklistService).blacklistToken(testRefreshToken, expirationDate);
+        when(refreshTokenRotationService.rotate(tokenFor(testRefreshToken), anyString())).thenReturn(RefreshTokenRotationService.Result.ROTATED);
+        when(tokenProvider.generateTokenFromUser(eq(testUser), anyString())).thenReturn(newAccessToken);
+        when(tokenProvider.generateRefreshTokenFromUser(eq(testUser), anyString(), anyString())).thenReturn(newRefreshToken);
 
         // Act
         AuthResponse response = authenticationService.refreshToken(testRefreshToken);
@@ -921,12 +964,11 @@ class AuthenticationServiceTest {
     void login_WhenUserHasNoCourse_ShouldStillWork() {
         // Arrange
         testUser.setCourseId(null);
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
-        when(tokenProvider.generateToken(authentication)).thenReturn(testToken);
-        when(tokenProvider.generateRefreshToken(authentication)).thenReturn(testRefreshToken);
-        when(sessionManagementService.registerSession(anyString(), anyString())).thenReturn(true);
+        when(tokenProvider.generateToken(eq(authentication), anyString())).thenReturn(testToken);
+        when(tokenProvider.generateRefreshToken(eq(authentication), anyString())).thenReturn(testRefreshToken);
+        when(sessionManagementService.registerSession(anyString(), anyString(), any(), anyList())).thenReturn(true);
 
         // Act
         AuthResponse response = authenticationService.login(loginRequest);
@@ -943,12 +985,11 @@ class AuthenticationServiceTest {
     void login_WithAdminRole_ShouldReturnAdminRoleInResponse() {
         // Arrange
         testUser.setRole(UserRole.ADMIN);
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
-        when(tokenProvider.generateToken(authentication)).thenReturn(testToken);
-        when(tokenProvider.generateRefreshToken(authentication)).thenReturn(testRefreshToken);
-        when(sessionManagementService.registerSession(anyString(), anyString())).thenReturn(true);
+        when(tokenProvider.generateToken(eq(authentication), anyString())).thenReturn(testToken);
+        when(tokenProvider.generateRefreshToken(eq(authentication), anyString())).thenReturn(testRefreshToken);
+        when(sessionManagementService.registerSession(anyString(), anyString(), any(), anyList())).thenReturn(true);
 
         // Act
         AuthResponse response = authenticationService.login(loginRequest);
@@ -964,12 +1005,11 @@ class AuthenticationServiceTest {
     void login_WithTARole_ShouldReturnTARoleInResponse() {
         // Arrange
         testUser.setRole(UserRole.TA);
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
-        when(tokenProvider.generateToken(authentication)).thenReturn(testToken);
-        when(tokenProvider.generateRefreshToken(authentication)).thenReturn(testRefreshToken);
-        when(sessionManagementService.registerSession(anyString(), anyString())).thenReturn(true);
+        when(tokenProvider.generateToken(eq(authentication), anyString())).thenReturn(testToken);
+        when(tokenProvider.generateRefreshToken(eq(authentication), anyString())).thenReturn(testRefreshToken);
+        when(sessionManagementService.registerSession(anyString(), anyString(), any(), anyList())).thenReturn(true);
 
         // Act
         AuthResponse response = authenticationService.login(loginRequest);
@@ -986,20 +1026,15 @@ class AuthenticationServiceTest {
         // Arrange
         testUser.setFirstName("NuevoNombre");
         testUser.setLastName("NuevoApellido");
-        Date expirationDate = new Date(System.currentTimeMillis() + 86400000);
+        Date expirationDate = expirationInOneDay();
         String newAccessToken = "new.access.token";
         String newRefreshToken = "new.refresh.token";
 
-        when(tokenBlacklistService.isTokenBlacklisted(testRefreshToken)).thenReturn(false);
-        when(tokenProvider.validateToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.isRefreshToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.getUsernameFromJWT(testRefreshToken)).thenReturn(testUser.getEmail());
+        when(tokenProvider.verifyToken(testRefreshToken)).thenReturn(verifiedToken(testRefreshToken, "refresh", expirationDate));
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
-        when(sessionManagementService.hasActiveSessions(testUser.getEmail())).thenReturn(true);
-        when(tokenProvider.generateTokenFromUser(testUser)).thenReturn(newAccessToken);
-        when(tokenProvider.generateRefreshTokenFromUser(testUser)).thenReturn(newRefreshToken);
-        when(tokenProvider.getExpirationDateFromJWT(testRefreshToken)).thenReturn(expirationDate);
-        doNothing().when(tokenBlacklistService).blacklistToken(testRefreshToken, expirationDate);
+        when(refreshTokenRotationService.rotate(tokenFor(testRefreshToken), anyString())).thenReturn(RefreshTokenRotationService.Result.ROTATED);
+        when(tokenProvider.generateTokenFromUser(eq(testUser), anyString())).thenReturn(newAccessToken);
+        when(tokenProvider.generateRefreshTokenFromUser(eq(testUser), anyString(), anyString())).thenReturn(newRefreshToken);
 
         // Act
         AuthResponse response = authenticationService.refreshToken(testRefreshToken);
@@ -1014,12 +1049,9 @@ class AuthenticationServiceTest {
     @DisplayName("Logout con múltiples sesiones - Debe invalidar todas las sesiones")
     void logout_WhenMultipleSessions_ShouldInvalidateAllSessions() {
         // Arrange
-        Date expirationDate = new Date(System.currentTimeMillis() + 86400000);
-        when(tokenProvider.validateToken(testToken)).thenReturn(true);
-        when(tokenProvider.getUsernameFromJWT(testToken)).thenReturn(testUser.getEmail());
-        when(tokenProvider.getExpirationDateFromJWT(testToken)).thenReturn(expirationDate);
-        doNothing().when(tokenBlacklistService).blacklistToken(testToken, expirationDate);
-        when(sessionManagementService.invalidateAllUserSessions(testUser.getEmail())).thenReturn(5L);
+        Date expirationDate = expirationInOneDay();
+        when(tokenProvider.verifyToken(testToken)).thenReturn(verifiedToken(testToken, null, expirationDate));
+        when(sessionManagementService.invalidateAllUserSessions(eq(testUser.getEmail()), tokenFor(testToken))).thenReturn(5L);
 
         // Act
         LogoutResponse response = authenticationService.logout(testToken);
@@ -1028,7 +1060,7 @@ class AuthenticationServiceTest {
         assertNotNull(response);
         assertTrue(response.isSuccess());
         assertEquals("Logout exitoso", response.getMessage());
-        verify(sessionManagementService).invalidateAllUserSessions(testUser.getEmail());
+        verify(sessionManagementService).invalidateAllUserSessions(eq(testUser.getEmail()), tokenFor(testToken));
     }
 
     @Test
@@ -1037,7 +1069,7 @@ class AuthenticationServiceTest {
         // Arrange
         String specialEmail = "test+tag@udea.edu.co";
         String password = "password123";
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
 
         // Act
@@ -1045,7 +1077,7 @@ class AuthenticationServiceTest {
 
         // Assert
         assertTrue(result);
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
+        verify(credentialVerificationService).authenticate(any(UsernamePasswordAuthenticationToken.class));
     }
 
     @Test
@@ -1056,12 +1088,11 @@ class AuthenticationServiceTest {
                 "estudiante@udea.edu.co",
                 "P@ssw0rd!#$%&*"
         );
-        when(userRepository.findByEmail(specialPasswordRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
-        when(tokenProvider.generateToken(authentication)).thenReturn(testToken);
-        when(tokenProvider.generateRefreshToken(authentication)).thenReturn(testRefreshToken);
-        when(sessionManagementService.registerSession(anyString(), anyString())).thenReturn(true);
+        when(tokenProvider.generateToken(eq(authentication), anyString())).thenReturn(testToken);
+        when(tokenProvider.generateRefreshToken(eq(authentication), anyString())).thenReturn(testRefreshToken);
+        when(sessionManagementService.registerSession(anyString(), anyString(), any(), anyList())).thenReturn(true);
 
         // Act
         AuthResponse response = authenticationService.login(specialPasswordRequest);
@@ -1069,27 +1100,22 @@ class AuthenticationServiceTest {
         // Assert
         assertNotNull(response);
         assertEquals(testToken, response.getToken());
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
+        verify(credentialVerificationService).authenticate(any(UsernamePasswordAuthenticationToken.class));
     }
 
     @Test
     @DisplayName("Refresh token con sesión única - Debe funcionar correctamente")
     void refreshToken_WhenSingleSession_ShouldWork() {
         // Arrange
-        Date expirationDate = new Date(System.currentTimeMillis() + 86400000);
+        Date expirationDate = expirationInOneDay();
         String newAccessToken = "new.access.token";
         String newRefreshToken = "new.refresh.token";
 
-        when(tokenBlacklistService.isTokenBlacklisted(testRefreshToken)).thenReturn(false);
-        when(tokenProvider.validateToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.isRefreshToken(testRefreshToken)).thenReturn(true);
-        when(tokenProvider.getUsernameFromJWT(testRefreshToken)).thenReturn(testUser.getEmail());
+        when(tokenProvider.verifyToken(testRefreshToken)).thenReturn(verifiedToken(testRefreshToken, "refresh", expirationDate));
         when(userRepository.findByEmail(testUser.getEmail())).thenReturn(Optional.of(testUser));
-        when(sessionManagementService.hasActiveSessions(testUser.getEmail())).thenReturn(true);
-        when(tokenProvider.generateTokenFromUser(testUser)).thenReturn(newAccessToken);
-        when(tokenProvider.generateRefreshTokenFromUser(testUser)).thenReturn(newRefreshToken);
-        when(tokenProvider.getExpirationDateFromJWT(testRefreshToken)).thenReturn(expirationDate);
-        doNothing().when(tokenBlacklistService).blacklistToken(testRefreshToken, expirationDate);
+        when(refreshTokenRotationService.rotate(tokenFor(testRefreshToken), anyString())).thenReturn(RefreshTokenRotationService.Result.ROTATED);
+        when(tokenProvider.generateTokenFromUser(eq(testUser), anyString())).thenReturn(newAccessToken);
+        when(tokenProvider.generateRefreshTokenFromUser(eq(testUser), anyString(), anyString())).thenReturn(newRefreshToken);
 
         // Act
         AuthResponse response = authenticationService.refreshToken(testRefreshToken);
@@ -1098,7 +1124,6 @@ class AuthenticationServiceTest {
         assertNotNull(response);
         assertEquals(newAccessToken, response.getToken());
         assertEquals(newRefreshToken, response.getRefreshToken());
-        verify(tokenBlacklistService).blacklistToken(testRefreshToken, expirationDate);
     }
 
     @Test
@@ -1107,12 +1132,11 @@ class AuthenticationServiceTest {
         // Arrange
         testUser.setTeamId(100L);
         testUser.setCourseId(200L);
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
-        when(tokenProvider.generateToken(authentication)).thenReturn(testToken);
-        when(tokenProvider.generateRefreshToken(authentication)).thenReturn(testRefreshToken);
-        when(sessionManagementService.registerSession(anyString(), anyString())).thenReturn(true);
+        when(tokenProvider.generateToken(eq(authentication), anyString())).thenReturn(testToken);
+        when(tokenProvider.generateRefreshToken(eq(authentication), anyString())).thenReturn(testRefreshToken);
+        when(sessionManagementService.registerSession(anyString(), anyString(), any(), anyList())).thenReturn(true);
 
         // Act
         AuthResponse response = authenticationService.login(loginRequest);
@@ -1130,7 +1154,7 @@ class AuthenticationServiceTest {
         // Arrange
         String email = "estudiante@udea.edu.co";
         String password = "password123";
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+        when(credentialVerificationService.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
 
         // Act
@@ -1142,6 +1166,6 @@ class AuthenticationServiceTest {
         assertTrue(result1);
         assertTrue(result2);
         assertTrue(result3);
-        verify(authenticationManager, times(3)).authenticate(any(UsernamePasswordAuthenticationToken.class));
+        verify(credentialVerificationService, times(3)).authenticate(any(UsernamePasswordAuthenticationToken.class));
     }
 }
@@ -0,0 +1,111 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.exception.LoginThrottledException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitario para CredentialVerificationService utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica la ejecución en el pool de hashing y el rechazo inmediato cuando está saturado.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CredentialVerificationService - Test unitario con patrón AAA")
+class CredentialVerificationServiceTest {
+
+    @Mock
+    private AuthenticationManager authenticationManager;
+
+    @Mock
+    private Authentication authentication;
+
+    @InjectMocks
+    private CredentialVerificationService credentialVerificationService;
+
+    private UsernamePasswordAuthenticationToken request;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(credentialVerificationService, "poolSize", 1);
+        ReflectionTestUtils.setField(credentialVerificationService, "queueCapacity", 1);
+        ReflectionTestUtils.setField(credentialVerificationService, "timeoutMs", 5000L);
+        ReflectionTestUtils.setField(credentialVerificationService, "retryAfterSeconds", 2L);
+        credentialVerificationService.init();
+        request = new UsernamePasswordAuthenticationToken("estudiante@udea.edu.co", "password123");
+    }
+
+    @AfterEach
+    void tearDown() {
+        credentialVerificationService.shutdown();
+    }
+
+    @Test
+    @DisplayName("Credenciales válidas - Debe retornar la autenticación del pool")
+    void authenticate_WhenValid_ShouldReturnAuthentication() {
+        // Arrange
+        when(authenticationManager.authenticate(request)).thenReturn(authentication);
+
+        // Act & Assert
+        assertSame(authentication, credentialVerificationService.authenticate(request));
+    }
+
+    @Test
+    @DisplayName("Credenciales inválidas - Debe propagar la excepción original")
+    void authenticate_WhenInvalid_ShouldPropagateException() {
+        // Arrange
+        when(authenticationManager.authenticate(request)).thenThrow(new BadCredentialsException("Bad credentials"));
+
+        // Act & Assert
+        assertThrows(BadCredentialsException.class, () -> credentialVerificationService.authenticate(request));
+    }
+
+    @Test
+    @DisplayName("Pool y cola llenos - Debe rechazar de inmediato con LoginThrottledException")
+    void authenticate_WhenSaturated_ShouldRejectImmediately() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(authenticationManager.authenticate(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return authentication;
+        });
+        CompletableFuture<Authentication> running = CompletableFuture.supplyAsync(() -> credentialVerificationService.authenticate(request));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Authentication> queued = CompletableFuture.supplyAsync(() -> credentialVerificationService.authenticate(request));
+        while (credentialVerificationService.getQueueDepth() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // Act
+        LoginThrottledException exception = assertThrows(LoginThrottledException.class,
+                () -> credentialVerificationService.authenticate(request));
+
+        // Assert
+        assertEquals(2L, exception.getRetryAfterSeconds());
+        release.countDown();
+        assertSame(authentication, running.get(5, TimeUnit.SECONDS));
+        assertSame(authentication, queued.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,137 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.event.RedisCircuitStateEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test unitario para DegradedModeStore utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica los valores locales con expiración, la cola acotada de escrituras y su reconciliación con Redis.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DegradedModeStore - Test unitario con patrón AAA")
+class DegradedModeStoreTest {
+
+    @Spy
+    private RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker();
+
+    @InjectMocks
+    private DegradedModeStore degradedStore;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(degradedStore, "maxEntries", 100L);
+        ReflectionTestUtils.setField(degradedStore, "maxPendingWrites", 3);
+        degradedStore.init();
+    }
+
+    @Test
+    @DisplayName("Valor local - Debe leerse mientras no expire y listarse por prefijo")
+    void set_ShouldKeepValueUntilExpiration() throws InterruptedException {
+        // Arrange
+        degradedStore.set("token:blacklist:jti-1", "revoked", 60000);
+        degradedStore.set("token:blacklist:jti-2", "revoked", 1);
+        degradedStore.set("login:backoff:a@udea.edu.co", "4", 60000);
+
+        // Act
+        Thread.sleep(5);
+
+        // Assert
+        assertEquals("revoked", degradedStore.get("token:blacklist:jti-1"));
+        assertNull(degradedStore.get("token:blacklist:jti-2"));
+        assertTrue(degradedStore.getRemainingMs("login:backoff:a@udea.edu.co") > 59000);
+        assertEquals(List.of("token:blacklist:jti-1"), degradedStore.keys("token:blacklist:"));
+    }
+
+    @Test
+    @DisplayName("Contador local - Debe incrementarse y borrarse como en Redis")
+    void increment_ShouldCountUntilDeleted() {
+        // Act
+        degradedStore.increment("login:failures:a@udea.edu.co", 60000);
+        long failures = degradedStore.increment("login:failures:a@udea.edu.co", 60000);
+        degradedStore.delete(List.of("login:failures:a@udea.edu.co"));
+
+        // Assert
+        assertEquals(2L, failures);
+        assertNull(degradedStore.get("login:failures:a@udea.edu.co"));
+    }
+
+    @Test
+    @DisplayName("Cola llena - Debe descartar la escritura más antigua")
+    void enqueue_WhenFull_ShouldDropOldest() {
+        // Arrange
+        List<String> written = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            String write = "write-" + i;
+            degradedStore.enqueue("test", () -> written.add(write));
+        }
+
+        // Act
+        int reconciled = degradedStore.reconcile();
+
+        // Assert
+        assertEquals(3, reconciled);
+        assertEquals(List.of("write-2", "write-3", "write-4"), written);
+        assertEquals(0, degradedStore.getPendingWriteCount());
+    }
+
+    @Test
+    @DisplayName("Redis falla durante la reconciliación - Debe detenerse y conservar el orden de lo pendiente")
+    void reconcile_WhenRedisFailsAgain_ShouldKeepRemainingWrites() {
+        // Arrange
+        List<String> written = new ArrayList<>();
+        boolean[] redisDown = {false};
+        degradedStore.enqueue("test", () -> written.add("write-1"));
+        degradedStore.enqueue("test", () -> {
+            if (redisDown[0]) {
+                throw new RuntimeException("Connection refused");
+            }
+            written.add("write-2");
+        });
+        degradedStore.enqueue("test", () -> written.add("write-3"));
+        redisDown[0] = true;
+
+        // Act
+        int firstPass = degradedStore.reconcile();
+        redisDown[0] = false;
+        int secondPass = degradedStore.reconcile();
+
+        // Assert
+        assertEquals(1, firstPass);
+        assertEquals(2, secondPass);
+        assertEquals(List.of("write-1", "write-2", "write-3"), written);
+    }
+
+    @Test
+    @DisplayName("Circuito cerrado - Debe reconciliar solo al recuperarse Redis")
+    void onCircuitStateChange_ShouldReconcileOnRecovery() {
+        // Arrange
+        List<String> written = new ArrayList<>();
+        degradedStore.enqueue("test", () -> written.add("write-1"));
+
+        // Act
+        degradedStore.onCircuitStateChange(new RedisCircuitStateEvent(circuitBreaker,
+                RedisCircuitBreaker.State.CLOSED, RedisCircuitBreaker.State.OPEN));
+        int pendingWhileOpen = degradedStore.getPendingWriteCount();
+        degradedStore.onCircuitStateChange(new RedisCircuitStateEvent(circuitBreaker,
+                RedisCircuitBreaker.State.HALF_OPEN, RedisCircuitBreaker.State.CLOSED));
+
+        // Assert
+        assertEquals(1, pendingWhileOpen);
+        assertEquals(List.of("write-1"), written);
+    }
+}
@@ -0,0 +1,150 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.security.AdmissionVerdict;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitario para DistributedRateLimiter utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica que los tokens se pidan a Redis por lotes, que un bucket global vacío se rechace
+ * sin volver a Redis hasta el relleno y que sin Redis el llamador decida localmente.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DistributedRateLimiter - Test unitario con patrón AAA")
+class DistributedRateLimiterTest {
+
+    private static final String KEY = "user:estudiante@udea.edu.co";
+    private static final Duration PERIOD = Duration.ofMinutes(1);
+    private static final RateLimitPolicy POLICY = new RateLimitPolicy("default", 100, 100, PERIOD, "");
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Spy
+    private RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker();
+
+    @Spy
+    private RedisKeyspace keyspace = new RedisKeyspace();
+
+    @InjectMocks
+    private DistributedRateLimiter distributedRateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(distributedRateLimiter, "leaseSize", 10L);
+        ReflectionTestUtils.setField(distributedRateLimiter, "leaseTtlMs", 60000L);
+        ReflectionTestUtils.setField(distributedRateLimiter, "maxLeases", 1000L);
+        distributedRateLimiter.init();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void leaseReturns(Long granted, Long remaining, Long retryAfterMs) {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of(granted, remaining, retryAfterMs));
+    }
+
+    @Test
+    @DisplayName("Consumir varias veces - Debe pedir un solo lote a Redis y gastarlo localmente")
+    @SuppressWarnings("unchecked")
+    void consume_WhenLeaseAvailable_ShouldSpendLocally() {
+        // Arrange
+        leaseReturns(10L, 90L, 0L);
+
+        // Act
+        AdmissionVerdict verdict = null;
+        for (int i = 0; i < 10; i++) {
+            verdict = distributedRateLimiter.consume(KEY, POLICY, 1);
+        }
+
+        // Assert
+        assertEquals(AdmissionVerdict.Outcome.ALLOWED, verdict.getOutcome());
+        assertEquals(90L, verdict.getRemaining());
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class),
+                eq(List.of("ratelimit:bucket:" + KEY)), eq("100"), eq("100"), eq("60000"), eq("10"));
+    }
+
+    @Test
+    @DisplayName("Bucket global vacío - Debe rechazar sin volver a Redis hasta el relleno")
+    @SuppressWarnings("unchecked")
+    void consume_WhenGlobalBucketEmpty_ShouldRejectWithoutRedis() {
+        // Arrange
+        leaseReturns(0L, 0L, 30000L);
+
+        // Act
+        AdmissionVerdict first = distributedRateLimiter.consume(KEY, POLICY, 1);
+        AdmissionVerdict second = distributedRateLimiter.consume(KEY, POLICY, 1);
+
+        // Assert
+        assertTrue(first.isRateLimited());
+        assertTrue(second.isRateLimited());
+        assertTrue(second.getRetryAfterMillis() > 0, "Debe esperar al relleno del bucket global");
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Redis caído - Debe devolver null para que se aplique el bucket local")
+    @SuppressWarnings("unchecked")
+    void consume_WhenRedisFails_ShouldReturnNull() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RuntimeException("Connection refused"));
+
+        // Act
+        AdmissionVerdict verdict = distributedRateLimiter.consume(KEY, POLICY, 1);
+
+        // Assert
+        assertNull(verdict);
+    }
+
+    @Test
+    @DisplayName("Reiniciar bucket - Debe descartar el lote local y borrar el bucket global")
+    void reset_ShouldDropLeaseAndDeleteGlobalBucket() {
+        // Arrange
+        leaseReturns(10L, 90L, 0L);
+        distributedRateLimiter.consume(KEY, POLICY, 1);
+        Long before = distributedRateLimiter.getAvailableTokens(KEY, POLICY);
+
+        // Act
+        distributedRateLimiter.reset(KEY, POLICY);
+
+        // Assert
+        assertEquals(99L, before);
+        assertNull(distributedRateLimiter.getAvailableTokens(KEY, POLICY));
+        verify(redisTemplate).delete("ratelimit:bucket:" + KEY);
+    }
+
+    @Test
+    @DisplayName("Clave de usuario - Debe compartir el bucket del script de admisión")
+    void bucketKey_ShouldMatchAdmissionBucket() {
+        // Arrange
+        ReflectionTestUtils.setField(keyspace, "topology", "cluster");
+        ReflectionTestUtils.setField(keyspace, "shards", 16);
+        String tag = "{" + keyspace.shardOf("estudiante@udea.edu.co") + "}";
+
+        // Act
+        String bucketKey = distributedRateLimiter.bucketKey(KEY,
+                new RateLimitPolicy("auth", 10, 10, PERIOD, RateLimitingService.AUTH_KEY_PREFIX));
+
+        // Assert
+        assertEquals("ratelimit:bucket:" + tag + "auth:" + KEY, bucketKey);
+    }
+}
@@ -0,0 +1,175 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.exception.LoginThrottledException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitario para LoginAttemptService utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica el backoff exponencial por cuenta y su almacenamiento en Redis.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LoginAttemptService - Test unitario con patrón AAA")
+class LoginAttemptServiceTest {
+
+    private static final String EMAIL = "estudiante@udea.edu.co";
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Spy
+    private RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker();
+
+    @Spy
+    private DegradedModeStore degradedStore = new DegradedModeStore();
+
+    @Spy
+    private RedisKeyspace keyspace = new RedisKeyspace();
+
+    @InjectMocks
+    private LoginAttemptService loginAttemptService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(loginAttemptService, "freeAttempts", 3L);
+        ReflectionTestUtils.setField(loginAttemptService, "baseDelayMs", 1000L);
+        ReflectionTestUtils.setField(loginAttemptService, "maxDelayMs", 60000L);
+        ReflectionTestUtils.setField(loginAttemptService, "windowSeconds", 900L);
+        ReflectionTestUtils.setField(degradedStore, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(degradedStore, "maxEntries", 100L);
+        ReflectionTestUtils.setField(degradedStore, "maxPendingWrites", 100);
+        degradedStore.init();
+    }
+
+    @Test
+    @DisplayName("Retardo de backoff - Debe duplicarse por fallo y respetar el máximo")
+    void backoffDelayMs_ShouldDoubleAndCap() {
+        // Act & Assert
+        assertEquals(1000L, loginAttemptService.backoffDelayMs(1));
+        assertEquals(2000L, loginAttemptService.backoffDelayMs(2));
+        assertEquals(8000L, loginAttemptService.backoffDelayMs(4));
+        assertEquals(60000L, loginAttemptService.backoffDelayMs(20));
+        assertEquals(60000L, loginAttemptService.backoffDelayMs(100));
+    }
+
+    @Test
+    @DisplayName("Cuenta en backoff - Debe lanzar LoginThrottledException con Retry-After")
+    void checkAllowed_WhenInBackoff_ShouldThrow() {
+        // Arrange
+        when(redisTemplate.getExpire("login:backoff:" + EMAIL, TimeUnit.MILLISECONDS)).thenReturn(2500L);
+
+        // Act & Assert
+        LoginThrottledException exception = assertThrows(LoginThrottledException.class,
+                () -> loginAttemptService.checkAllowed("Estudiante@UdeA.edu.co"));
+        assertEquals(3L, exception.getRetryAfterSeconds());
+    }
+
+    @Test
+    @DisplayName("Cuenta sin backoff o Redis caído - Debe permitir el intento")
+    void checkAllowed_WhenNoBackoffOrRedisFails_ShouldAllow() {
+        // Arrange
+        when(redisTemplate.getExpire(anyString(), eq(TimeUnit.MILLISECONDS)))
+                .thenReturn(-2L)
+                .thenThrow(new RuntimeException("Redis connection failed"));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> loginAttemptService.checkAllowed(EMAIL));
+        assertDoesNotThrow(() -> loginAttemptService.checkAllowed(EMAIL));
+    }
+
+    @Test
+    @DisplayName("Fallo dentro de los intentos libres - No debe aplicar backoff")
+    void recordFailure_WhenWithinFreeAttempts_ShouldNotSetBackoff() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.increment("login:failures:" + EMAIL)).thenReturn(1L);
+
+        // Act
+        loginAttemptService.recordFailure(EMAIL);
+
+        // Assert
+        verify(redisTemplate).expire("login:failures:" + EMAIL, 900L, TimeUnit.SECONDS);
+        verify(valueOperations, never()).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    @DisplayName("Fallo por encima de los intentos libres - Debe aplicar backoff exponencial")
+    void recordFailure_WhenOverFreeAttempts_ShouldSetBackoff() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.increment("login:failures:" + EMAIL)).thenReturn(5L);
+
+        // Act
+        loginAttemptService.recordFailure(EMAIL);
+
+        // Assert
+        verify(valueOperations).set("login:backoff:" + EMAIL, "5", 2000L, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    @DisplayName("Fallos con Redis caído - Debe aplicar el backoff en el nodo y copiarlo a Redis al recuperarse")
+    void recordFailure_WhenRedisFails_ShouldApplyLocalBackoffAndReconcile() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.increment("login:failures:" + EMAIL)).thenThrow(new RuntimeException("Read timed out"));
+        when(redisTemplate.getExpire("login:backoff:" + EMAIL, TimeUnit.MILLISECONDS)).thenReturn(-2L);
+        for (int i = 0; i < 4; i++) {
+            loginAttemptService.recordFailure(EMAIL);
+        }
+
+        // Act
+        LoginThrottledException exception = assertThrows(LoginThrottledException.class,
+                () -> loginAttemptService.checkAllowed(EMAIL));
+        int reconciled = degradedStore.reconcile();
+
+        // Assert
+        assertEquals(1L, exception.getRetryAfterSeconds());
+        assertEquals(1, reconciled);
+        verify(valueOperations).set(eq("login:backoff:" + EMAIL), eq("4"), longThat(ms -> ms > 0 && ms <= 1000L),
+                eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    @DisplayName("Login exitoso - Debe limpiar fallos y backoff")
+    void recordSuccess_ShouldDeleteKeys() {
+        // Act
+        loginAttemptService.recordSuccess(EMAIL);
+
+        // Assert
+        verify(redisTemplate).delete(List.of("login:failures:" + EMAIL, "login:backoff:" + EMAIL));
+    }
+
+    @Test
+    @DisplayName("Claves a limpiar - Deben normalizar el email sin consultar Redis")
+    void resetKeys_ShouldNormalizeEmailWithoutRedis() {
+        // Act
+        List<String> keys = loginAttemptService.resetKeys("  Estudiante@UdeA.edu.co ");
+
+        // Assert
+        assertEquals(List.of("login:failures:" + EMAIL, "login:backoff:" + EMAIL), keys);
+        assertTrue(loginAttemptService.resetKeys(null).isEmpty());
+        verifyNoInteractions(redisTemplate);
+    }
+}
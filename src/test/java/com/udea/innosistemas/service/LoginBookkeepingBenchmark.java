@@ -0,0 +1,173 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.security.VerifiedToken;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark JMH de la contabilidad de Redis del login y del logout contra un Redis local
+ * (REDIS_HOST / REDIS_PORT, por defecto localhost:6379; basta con {@code docker compose up redis}).
+ *
+ * Compara el camino por comandos sueltos con el de un solo script por operación:
+ * login = limpiar intentos fallidos + registrar sesión (2 round trips frente a 1) y
+ * logout = blacklist del token + cierre de sesiones (4 round trips frente a 1).
+ * Solo toca las claves de sus usuarios sintéticos y las borra al terminar.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginBookkeepingBenchmark {
+
+    private static final int USERS = 1000;
+    private static final String DEVICE = "Firefox en Linux";
+
+    private JedisConnectionFactory connectionFactory;
+    private RedisTemplate<String, String> redisTemplate;
+    private LoginAttemptService loginAttemptService;
+    private TokenBlacklistService tokenBlacklistService;
+    private SessionManagementService sessionManagementService;
+
+    private String[] emails;
+    private VerifiedToken[] logoutTokens;
+    private String[] revocationIds;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(
+                System.getenv().getOrDefault("REDIS_HOST", "localhost"),
+                Integer.parseInt(System.getenv().getOrDefault("REDIS_PORT", "6379")));
+        connectionFactory = new JedisConnectionFactory(configuration);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new StringRedisSerializer());
+        redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        redisTemplate.setHashValueSerializer(new StringRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+
+        RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker();
+        DegradedModeStore degradedStore = new DegradedModeStore();
+        ReflectionTestUtils.setField(degradedStore, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(degradedStore, "maxEntries", 1000L);
+        ReflectionTestUtils.setField(degradedStore, "maxPendingWrites", 1000);
+        degradedStore.init();
+        RedisKeyspace keyspace = new RedisKeyspace();
+
+        loginAttemptService = new LoginAttemptService();
+        ReflectionTestUtils.setField(loginAttemptService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(loginAttemptService, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(loginAttemptService, "degradedStore", degradedStore);
+        ReflectionTestUtils.setField(loginAttemptService, "keyspace", keyspace);
+
+        tokenBlacklistService = new TokenBlacklistService();
+        ReflectionTestUtils.setField(tokenBlacklistService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(tokenBlacklistService, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(tokenBlacklistService, "degradedStore", degradedStore);
+        ReflectionTestUtils.setField(tokenBlacklistService, "keyspace", keyspace);
+        ReflectionTestUtils.setField(tokenBlacklistService, "bloomExpectedInsertions", 100_000L);
+        ReflectionTestUtils.setField(tokenBlacklistService, "bloomFalsePositiveRate", 0.001);
+
+        sessionManagementService = new SessionManagementService();
+        ReflectionTestUtils.setField(sessionManagementService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(sessionManagementService, "tokenBlacklistService", tokenBlacklistService);
+        ReflectionTestUtils.setField(sessionManagementService, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(sessionManagementService, "degradedStore", degradedStore);
+        ReflectionTestUtils.setField(sessionManagementService, "keyspace", keyspace);
+        ReflectionTestUtils.setField(sessionManagementService, "jwtExpirationInMs", 86400L);
+
+        Date expiration = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+        emails = new String[USERS];
+        logoutTokens = new VerifiedToken[USERS];
+        revocationIds = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            emails[i] = "benchmark" + i + "@udea.edu.co";
+            logoutTokens[i] = new VerifiedToken("benchmark.token." + i, Jwts.claims()
+                    .subject(emails[i])
+                    .id("benchmark-jti-" + i)
+                    .expiration(expiration)
+                    .build());
+            revocationIds[i] = logoutTokens[i].getRevocationId();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            keys.add(SessionManagementService.SESSION_DATA_PREFIX + emails[i]);
+            keys.add(SessionManagementService.SESSION_EXPIRY_PREFIX + emails[i]);
+            keys.add(TokenBlacklistService.BLACKLIST_PREFIX + revocationIds[i]);
+        }
+        redisTemplate.delete(keys);
+        redisTemplate.opsForZSet().remove(SessionManagementService.ACTIVE_USERS_KEY, (Object[]) emails);
+        redisTemplate.opsForZSet().remove(TokenBlacklistService.BLACKLIST_INDEX, (Object[]) revocationIds);
+    }
+
+    @TearDown
+    public void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    private int nextUser() {
+        next = (next + 1) % USERS;
+        return next;
+    }
+
+    @Benchmark
+    public boolean loginSeparateCommands() {
+        int user = nextUser();
+        loginAttemptService.recordSuccess(emails[user]);
+        return sessionManagementService.registerSession(emails[user], "session-" + user, DEVICE);
+    }
+
+    @Benchmark
+    public boolean loginSingleRoundTrip() {
+        int user = nextUser();
+        return sessionManagementService.registerSession(emails[user], "session-" + user, DEVICE,
+                loginAttemptService.resetKeys(emails[user]));
+    }
+
+    @Benchmark
+    public long logoutSeparateCommands() {
+        int user = nextUser();
+        tokenBlacklistService.blacklistToken(logoutTokens[user]);
+        return sessionManagementService.invalidateAllUserSessions(emails[user]);
+    }
+
+    @Benchmark
+    public long logoutSingleRoundTrip() {
+        int user = nextUser();
+        return sessionManagementService.invalidateAllUserSessions(emails[user], logoutTokens[user]);
+    }
+}
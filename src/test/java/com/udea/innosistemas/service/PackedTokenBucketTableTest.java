@@ -0,0 +1,151 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.security.AdmissionVerdict;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test unitario para PackedTokenBucketTable utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica el consumo y el relleno por intervalos con un reloj controlado, la adopción de una
+ * política nueva, la reutilización de huecos con la tabla saturada y el consumo concurrente.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@DisplayName("PackedTokenBucketTable - Test unitario con patrón AAA")
+class PackedTokenBucketTableTest {
+
+    private static final String KEY = "user:estudiante@udea.edu.co";
+    private static final RateLimitPolicy POLICY = new RateLimitPolicy("default", 10, 5, Duration.ofSeconds(1), "");
+
+    private PackedTokenBucketTable table;
+
+    @BeforeEach
+    void setUp() {
+        table = new PackedTokenBucketTable(1024, 4);
+    }
+
+    @Test
+    @DisplayName("Consumir hasta agotar - Debe rechazar con la espera hasta el siguiente intervalo")
+    void consume_WhenExhausted_ShouldRejectWithWait() {
+        // Arrange
+        table.consume(POLICY, KEY, 10, 1);
+
+        // Act
+        AdmissionVerdict verdict = table.consume(POLICY, KEY, 1, 401);
+
+        // Assert
+        assertEquals(AdmissionVerdict.Outcome.RATE_LIMITED, verdict.getOutcome());
+        assertEquals(10L, verdict.getLimit());
+        assertEquals(0L, verdict.getRemaining());
+        assertEquals(600L, verdict.getRetryAfterMillis());
+    }
+
+    @Test
+    @DisplayName("Relleno por intervalos - Debe sumar los tokens de cada periodo completo sin superar la capacidad")
+    void consume_WhenPeriodsElapse_ShouldRefillByInterval() {
+        // Arrange
+        table.consume(POLICY, KEY, 10, 1);
+
+        // Act
+        AdmissionVerdict afterOnePeriod = table.consume(POLICY, KEY, 1, 1001);
+        AdmissionVerdict afterManyPeriods = table.consume(POLICY, KEY, 1, 60001);
+
+        // Assert
+        assertEquals(4L, afterOnePeriod.getRemaining());
+        assertEquals(9L, afterManyPeriods.getRemaining());
+    }
+
+    @Test
+    @DisplayName("Cambio de política - El bucket debe adoptarla conservando sus tokens")
+    void consume_WhenPolicyChanges_ShouldKeepTokens() {
+        // Arrange
+        RateLimitPolicy larger = new RateLimitPolicy("professor", 50, 50, Duration.ofSeconds(1), "");
+        RateLimitPolicy smaller = new RateLimitPolicy("strict", 3, 3, Duration.ofSeconds(1), "");
+        table.consume(POLICY, KEY, 4, 1);
+
+        // Act
+        AdmissionVerdict grown = table.consume(larger, KEY, 1, 2);
+        AdmissionVerdict shrunk = table.consume(smaller, KEY, 1, 3);
+
+        // Assert
+        assertEquals(50L, grown.getLimit());
+        assertEquals(5L, grown.getRemaining());
+        assertEquals(2L, shrunk.getRemaining(), "Una capacidad menor recorta los tokens acumulados");
+    }
+
+    @Test
+    @DisplayName("Prefijo de política - Debe usar el mismo bucket que la clave completa")
+    void consume_WhenPolicyPrefix_ShouldMatchFullKey() {
+        // Arrange
+        RateLimitPolicy auth = new RateLimitPolicy("auth", 10, 10, Duration.ofMinutes(1), "auth:");
+        table.consume(auth, "ip:203.0.113.7", 3);
+
+        // Act
+        long available = table.available(auth, "auth:ip:203.0.113.7");
+        table.reset("auth:ip:203.0.113.7");
+
+        // Assert
+        assertEquals(7L, available);
+        assertEquals(10L, table.available(auth, "auth:ip:203.0.113.7"));
+        assertEquals(10L, table.available(auth, "ip:203.0.113.7"), "El bucket general no se toca");
+    }
+
+    @Test
+    @DisplayName("Tabla saturada - Debe reutilizar huecos sin crecer")
+    void consume_WhenTableFull_ShouldReclaimSlots() {
+        // Arrange
+        PackedTokenBucketTable small = new PackedTokenBucketTable(PackedTokenBucketTable.MAX_PROBES, 1);
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            small.consume(POLICY, "ip:203.0.113." + i, 1, i + 1);
+        }
+        AdmissionVerdict newest = small.consume(POLICY, "ip:203.0.113.99", 1, 200);
+
+        // Assert
+        assertEquals(PackedTokenBucketTable.MAX_PROBES, small.size());
+        assertTrue(small.getReclaimedCount() >= 100 - PackedTokenBucketTable.MAX_PROBES);
+        assertEquals(8L, newest.getRemaining(), "La clave más reciente conserva su bucket");
+    }
+
+    @Test
+    @DisplayName("Consumo concurrente - No debe conceder más tokens que la capacidad")
+    void consume_WhenConcurrent_ShouldNotOverAdmit() throws InterruptedException {
+        // Arrange
+        RateLimitPolicy policy = new RateLimitPolicy("default", 1000, 1000, Duration.ofHours(1), "");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger allowed = new AtomicInteger();
+
+        // Act
+        for (int thread = 0; thread < 8; thread++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 500; i++) {
+                    if (!table.consume(policy, KEY, 1).isRateLimited()) {
+                        allowed.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Assert
+        assertEquals(1000, allowed.get());
+        assertEquals(0L, table.available(policy, KEY));
+    }
+}
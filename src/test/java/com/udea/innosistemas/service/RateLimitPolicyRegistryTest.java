@@ -0,0 +1,147 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.config.properties.RateLimitPolicyProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitario para RateLimitPolicyRegistry utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica la resolución por rol y por operación, y la recarga en caliente desde Redis.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RateLimitPolicyRegistry - Test unitario con patrón AAA")
+class RateLimitPolicyRegistryTest {
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Spy
+    private RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker();
+
+    @Spy
+    private RateLimitPolicyProperties properties = new RateLimitPolicyProperties();
+
+    @InjectMocks
+    private RateLimitPolicyRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(registry, "defaultCapacity", 100L);
+        ReflectionTestUtils.setField(registry, "defaultRefillTokens", 100L);
+        ReflectionTestUtils.setField(registry, "defaultRefillPeriodMinutes", 1L);
+        ReflectionTestUtils.setField(registry, "authCapacity", 10L);
+        ReflectionTestUtils.setField(registry, "authRefillTokens", 10L);
+        ReflectionTestUtils.setField(registry, "authRefillPeriodMinutes", 1L);
+        properties.getDefinitions().put("professor", "500:500:1m");
+        properties.getRoles().put("PROFESSOR", "professor");
+        registry.init();
+    }
+
+    @Test
+    @DisplayName("Resolver por rol - Debe aplicar la política del rol y default a los demás y a anónimos")
+    void resolve_WhenRole_ShouldUseRolePolicy() {
+        // Act
+        RateLimitPolicy professor = registry.resolve("PROFESSOR", null);
+        RateLimitPolicy student = registry.resolve("STUDENT", "getTeamMembers");
+        RateLimitPolicy anonymous = registry.resolve(null, null);
+
+        // Assert
+        assertEquals(500, professor.getCapacity());
+        assertEquals("professor", professor.getName());
+        assertEquals("user:profesor@udea.edu.co", professor.bucketKey("user:profesor@udea.edu.co"));
+        assertEquals(100, student.getCapacity());
+        assertSame(registry.getDefaultPolicy(), anonymous);
+    }
+
+    @Test
+    @DisplayName("Resolver por operación - Debe usar un bucket propio y preferir la política del rol en esa operación")
+    void resolve_WhenOperation_ShouldPreferRoleSpecificPolicy() {
+        // Arrange
+        properties.getDefinitions().put("bulk", "2000:2000:1m");
+        properties.getOperations().put("PROFESSOR:getTeamMembers", "bulk");
+        registry.init();
+
+        // Act
+        RateLimitPolicy login = registry.resolve("STUDENT", "login");
+        RateLimitPolicy restLogin = registry.resolve(null, "/auth/login");
+        RateLimitPolicy professorBulk = registry.resolve("PROFESSOR", "getTeamMembers");
+        RateLimitPolicy studentBulk = registry.resolve("STUDENT", "getTeamMembers");
+
+        // Assert
+        assertEquals("auth", login.getName());
+        assertEquals("auth:ip:203.0.113.7", restLogin.bucketKey("ip:203.0.113.7"));
+        assertEquals(2000, professorBulk.getCapacity());
+        assertEquals("bulk:user:profesor@udea.edu.co", professorBulk.bucketKey("user:profesor@udea.edu.co"));
+        assertEquals("default", studentBulk.getName());
+    }
+
+    @Test
+    @DisplayName("Recargar desde Redis - Debe reemplazar la tabla con los overrides")
+    void reload_WhenRedisOverrides_ShouldReplacePolicies() {
+        // Arrange
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries(RateLimitPolicyRegistry.POLICIES_KEY)).thenReturn(Map.of(
+                "definition:professor", "800:800:30s",
+                "role:TA", "professor"));
+
+        // Act
+        registry.reload();
+
+        // Assert
+        RateLimitPolicy professor = registry.resolve("PROFESSOR", null);
+        assertEquals(800, professor.getCapacity());
+        assertEquals(Duration.ofSeconds(30), professor.getRefillPeriod());
+        assertEquals("professor", registry.resolve("TA", null).getName());
+    }
+
+    @Test
+    @DisplayName("Recargar con errores - Debe conservar la tabla anterior")
+    void reload_WhenInvalidOverride_ShouldKeepCurrentPolicies() {
+        // Arrange
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries(RateLimitPolicyRegistry.POLICIES_KEY)).thenReturn(Map.of(
+                "definition:professor", "800:0:1m",
+                "role:TA", "professor"));
+
+        // Act
+        registry.reload();
+
+        // Assert
+        assertEquals(500, registry.resolve("PROFESSOR", null).getCapacity());
+        assertEquals("default", registry.resolve("TA", null).getName());
+    }
+
+    @Test
+    @DisplayName("Redis no disponible - Debe conservar la tabla actual")
+    void reload_WhenRedisFails_ShouldKeepCurrentPolicies() {
+        // Arrange
+        when(redisTemplate.opsForHash()).thenThrow(new RuntimeException("Redis down"));
+
+        // Act
+        registry.reload();
+
+        // Assert
+        assertEquals(500, registry.resolve("PROFESSOR", null).getCapacity());
+    }
+}
@@ -0,0 +1,113 @@
+package com.udea.innosistemas.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmark JMH de RateLimitingService.consume bajo contención, con los motores locales bucket4j y packed:
+ * todos los hilos sobre la misma clave, una clave por hilo y claves repartidas entre muchos usuarios,
+ * con 1, 8 y 64 hilos (subclases OneThread, EightThreads y SixtyFourThreads).
+ * La política se rellena cada milisegundo con la capacidad máxima del motor packed, así que se mide
+ * el camino "permitido" sin registrar advertencias.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public abstract class RateLimitingServiceBenchmark {
+
+    private static final int USER_KEYS = 10000;
+    private static final RateLimitPolicy POLICY = new RateLimitPolicy("benchmark", PackedTokenBucketTable.MAX_TOKENS,
+            PackedTokenBucketTable.MAX_TOKENS, Duration.ofMillis(1), "");
+
+    @Param({RateLimitingService.ENGINE_BUCKET4J, RateLimitingService.ENGINE_PACKED})
+    public String engine;
+
+    private RateLimitingService rateLimitingService;
+    private String[] userKeys;
+
+    @Threads(1)
+    public static class OneThread extends RateLimitingServiceBenchmark {
+    }
+
+    @Threads(8)
+    public static class EightThreads extends RateLimitingServiceBenchmark {
+    }
+
+    @Threads(64)
+    public static class SixtyFourThreads extends RateLimitingServiceBenchmark {
+    }
+
+    @Setup
+    public void setUp() {
+        rateLimitingService = new RateLimitingService();
+        ReflectionTestUtils.setField(rateLimitingService, "rateLimitEnabled", true);
+        ReflectionTestUtils.setField(rateLimitingService, "defaultCapacity", 100L);
+        ReflectionTestUtils.setField(rateLimitingService, "defaultRefillTokens", 100L);
+        ReflectionTestUtils.setField(rateLimitingService, "defaultRefillPeriodMinutes", 1L);
+        ReflectionTestUtils.setField(rateLimitingService, "authCapacity", 10L);
+        ReflectionTestUtils.setField(rateLimitingService, "authRefillTokens", 10L);
+        ReflectionTestUtils.setField(rateLimitingService, "authRefillPeriodMinutes", 1L);
+        ReflectionTestUtils.setField(rateLimitingService, "maxActiveBuckets", 100000L);
+        ReflectionTestUtils.setField(rateLimitingService, "activeIdleSeconds", 60L);
+        ReflectionTestUtils.setField(rateLimitingService, "maxIdleBuckets", 100000L);
+        ReflectionTestUtils.setField(rateLimitingService, "engine", engine);
+        ReflectionTestUtils.setField(rateLimitingService, "packedSlots", 131072);
+        ReflectionTestUtils.setField(rateLimitingService, "packedStripes", 64);
+        rateLimitingService.init();
+
+        userKeys = new String[USER_KEYS];
+        for (int i = 0; i < USER_KEYS; i++) {
+            userKeys[i] = "user:estudiante" + i + "@udea.edu.co";
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadKey {
+        private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+        private String key;
+
+        @Setup
+        public void setUp() {
+            key = "user:thread" + SEQUENCE.incrementAndGet() + "@udea.edu.co";
+        }
+    }
+
+    @Benchmark
+    public boolean sharedKey() {
+        return rateLimitingService.consume("ip:203.0.113.7", POLICY, 1).isRateLimited();
+    }
+
+    @Benchmark
+    public boolean keyPerThread(ThreadKey threadKey) {
+        return rateLimitingService.consume(threadKey.key, POLICY, 1).isRateLimited();
+    }
+
+    @Benchmark
+    public boolean manyUsers() {
+        return rateLimitingService.consume(userKeys[ThreadLocalRandom.current().nextInt(USER_KEYS)], POLICY, 1)
+                .isRateLimited();
+    }
+}
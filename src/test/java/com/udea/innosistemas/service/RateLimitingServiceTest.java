@@ -1,5 +1,6 @@
 package com.udea.innosistemas.service;
 
+import com.udea.innosistemas.security.AdmissionVerdict;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -7,7 +8,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
 
 /**
  * Test unitario para RateLimitingService utilizando el patrón AAA (Arrange-Act-Assert).
@@ -34,6 +39,10 @@ class RateLimitingServiceTest {
         ReflectionTestUtils.setField(rateLimitingService, "authCapacity", 10L);
         ReflectionTestUtils.setField(rateLimitingService, "authRefillTokens", 10L);
         ReflectionTestUtils.setField(rateLimitingService, "authRefillPeriodMinutes", 1L);
+        ReflectionTestUtils.setField(rateLimitingService, "maxActiveBuckets", 100000L);
+        ReflectionTestUtils.setField(rateLimitingService, "activeIdleSeconds", 60L);
+        ReflectionTestUtils.setField(rateLimitingService, "maxIdleBuckets", 100000L);
+        rateLimitingService.init();
     }
 
     // ==================== ALLOW REQUEST TESTS ====================
@@ -474,5 +483,248 @@ class RateLimitingServiceTest {
         boolean lastAttempt = rateLimitingService.allowRequest(key);
         assertFalse(lastAttempt, "No debe permitir requests cuando no hay tokens");
     }
-}
 
+    // ==================== CONSUME TESTS ====================
+
+    @Test
+    @DisplayName("Consumir con estado del bucket - Debe reportar capacidad y tokens restantes")
+    void consume_WhenTokensAvailable_ShouldReportRemaining() {
+        // Arrange
+        String key = "user30";
+
+        // Act
+        AdmissionVerdict verdict = rateLimitingService.consume(key, false, 5);
+
+        // Assert
+        assertEquals(AdmissionVerdict.Outcome.ALLOWED, verdict.getOutcome());
+        assertEquals(100L, verdict.getLimit());
+        assertEquals(95L, verdict.getRemaining());
+        assertEquals(95L, rateLimitingService.getAvailableTokens(key));
+    }
+
+    @Test
+    @DisplayName("Consumir en bucket de auth agotado - Debe indicar cuánto esperar")
+    void consume_WhenAuthBucketEmpty_ShouldReturnRetryAfter() {
+        // Arrange
+        String key = "user31";
+        for (int i = 0; i < 10; i++) {
+            rateLimitingService.consume(key, true, 1);
+        }
+
+        // Act
+        AdmissionVerdict verdict = rateLimitingService.consume(key, true, 1);
+
+        // Assert
+        assertTrue(verdict.isRateLimited());
+        assertEquals(10L, verdict.getLimit());
+        assertTrue(verdict.getRetryAfterMillis() > 0, "Debe esperar al siguiente relleno");
+        assertFalse(rateLimitingService.allowAuthRequest(key), "Comparte el bucket con allowAuthRequest");
+    }
+
+    // ==================== BUCKET REGISTRY TESTS ====================
+
+    @Test
+    @DisplayName("Registro activo lleno - Debe conservar los tokens del bucket expulsado en forma compacta")
+    void registry_WhenActiveFull_ShouldKeepEvictedBucketStateIdle() {
+        // Arrange
+        ReflectionTestUtils.setField(rateLimitingService, "maxActiveBuckets", 1L);
+        rateLimitingService.init();
+        rateLimitingService.consume("ip:203.0.113.7", false, 5);
+        rateLimitingService.consume("ip:203.0.113.8", false, 3);
+
+        // Act
+        rateLimitingService.cleanUp();
+
+        // Assert
+        assertEquals(1L, rateLimitingService.getActiveBucketCount());
+        assertEquals(1L, rateLimitingService.getIdleBucketCount());
+        assertEquals(95L, rateLimitingService.getAvailableTokens("ip:203.0.113.7"));
+        assertEquals(97L, rateLimitingService.getAvailableTokens("ip:203.0.113.8"));
+        assertEquals(94L, rateLimitingService.consume("ip:203.0.113.7", false, 1).getRemaining());
+        assertEquals(96L, rateLimitingService.consume("ip:203.0.113.8", false, 1).getRemaining());
+    }
+
+    @Test
+    @DisplayName("Resetear bucket inactivo - Debe eliminarlo de ambos registros")
+    void resetBucket_WhenIdle_ShouldRemoveCompactState() {
+        // Arrange
+        ReflectionTestUtils.setField(rateLimitingService, "maxActiveBuckets", 0L);
+        rateLimitingService.init();
+        String key = "ip:198.51.100.4";
+        rateLimitingService.allowRequest(key, 40);
+        rateLimitingService.cleanUp();
+        assertEquals(1L, rateLimitingService.getIdleBucketCount(), "El bucket expulsado queda inactivo");
+
+        // Act
+        rateLimitingService.resetBucket(key);
+        rateLimitingService.cleanUp();
+
+        // Assert
+        assertEquals(0L, rateLimitingService.getActiveBucketCount());
+        assertEquals(0L, rateLimitingService.getIdleBucketCount());
+        assertEquals(100L, rateLimitingService.getAvailableTokens(key));
+    }
+
+    // ==================== POLICY TESTS ====================
+
+    @Test
+    @DisplayName("Cambio de política - El bucket debe adoptarla conservando sus tokens")
+    void consume_WhenPolicyChanges_ShouldKeepBucketTokens() {
+        // Arrange
+        String key = "user:profesor@udea.edu.co";
+        RateLimitPolicy before = new RateLimitPolicy("default", 100, 100, Duration.ofMinutes(1), "");
+        RateLimitPolicy after = new RateLimitPolicy("professor", 500, 500, Duration.ofMinutes(1), "");
+        rateLimitingService.consume(key, before, 40);
+
+        // Act
+        AdmissionVerdict verdict = rateLimitingService.consume(key, after, 1);
+
+        // Assert
+        assertEquals(500L, verdict.getLimit());
+        assertEquals(59L, verdict.getRemaining(), "La recarga no debe regalar ni quitar tokens");
+    }
+
+    @Test
+    @DisplayName("Política de operación - Debe usar un bucket propio separado del general")
+    void consume_WhenOperationPolicy_ShouldUseSeparateBucket() {
+        // Arrange
+        String key = "user:estudiante@udea.edu.co";
+        RateLimitPolicy operation = new RateLimitPolicy("bulk", 5, 5, Duration.ofMinutes(1), "bulk:");
+        rateLimitingService.consume(key, false, 10);
+
+        // Act
+        AdmissionVerdict verdict = rateLimitingService.consume(key, operation, 1);
+
+        // Assert
+        assertEquals(4L, verdict.getRemaining());
+        assertEquals(90L, rateLimitingService.getAvailableTokens(key));
+    }
+
+    // ==================== PACKED ENGINE TESTS ====================
+
+    private void usePackedEngine() {
+        ReflectionTestUtils.setField(rateLimitingService, "engine", RateLimitingService.ENGINE_PACKED);
+        ReflectionTestUtils.setField(rateLimitingService, "packedSlots", 1024);
+        ReflectionTestUtils.setField(rateLimitingService, "packedStripes", 4);
+        rateLimitingService.init();
+    }
+
+    @Test
+    @DisplayName("Motor packed - Debe aplicar los mismos límites sin crear buckets de bucket4j")
+    void consume_WhenPackedEngine_ShouldLimitWithoutBucketObjects() {
+        // Arrange
+        usePackedEngine();
+        String key = "ip:203.0.113.20";
+        for (int i = 0; i < 10; i++) {
+            rateLimitingService.allowAuthRequest(key);
+        }
+
+        // Act
+        AdmissionVerdict verdict = rateLimitingService.consume(key, true, 1);
+        AdmissionVerdict general = rateLimitingService.consume(key, false, 1);
+
+        // Assert
+        assertTrue(verdict.isRateLimited());
+        assertTrue(verdict.getRetryAfterMillis() > 0);
+        assertEquals(99L, general.getRemaining(), "El bucket de autenticación es independiente");
+        assertEquals(2L, rateLimitingService.getActiveBucketCount());
+        assertEquals(0L, rateLimitingService.getIdleBucketCount());
+    }
+
+    @Test
+    @DisplayName("Motor packed - Debe consultar y reiniciar buckets por su clave completa")
+    void resetBucket_WhenPackedEngine_ShouldRefillBucket() {
+        // Arrange
+        usePackedEngine();
+        String key = "user:estudiante@udea.edu.co";
+        rateLimitingService.consume(key, true, 4);
+
+        // Act
+        long before = rateLimitingService.getAvailableTokens(RateLimitingService.AUTH_KEY_PREFIX + key);
+        String stats = rateLimitingService.getBucketStats(RateLimitingService.AUTH_KEY_PREFIX + key);
+        rateLimitingService.resetBucket(RateLimitingService.AUTH_KEY_PREFIX + key);
+
+        // Assert
+        assertEquals(6L, before);
+        assertTrue(stats.contains("6/10"));
+        assertEquals(10L, rateLimitingService.getAvailableTokens(RateLimitingService.AUTH_KEY_PREFIX + key));
+        assertTrue(rateLimitingService.getBucketStats("user:nadie@udea.edu.co").contains("No data"));
+    }
+
+    @Test
+    @DisplayName("Política de operación - Debe consultar y reiniciar el bucket con el prefijo de la política")
+    void resetBucket_WhenOperationPolicy_ShouldUsePolicyBucketKey() {
+        // Arrange
+        String key = "user:estudiante@udea.edu.co";
+        RateLimitPolicy policy = new RateLimitPolicy("export", 5, 5, Duration.ofMinutes(1), "export:");
+        rateLimitingService.consume(key, policy, 3);
+
+        // Act
+        long before = rateLimitingService.getAvailableTokens(key, policy);
+        String stats = rateLimitingService.getBucketStats(key, policy);
+        rateLimitingService.resetBucket(key, policy);
+
+        // Assert
+        assertEquals(2L, before);
+        assertTrue(stats.contains("export:" + key) && stats.contains("2/5"));
+        assertEquals(5L, rateLimitingService.getAvailableTokens(key, policy));
+        assertEquals(100L, rateLimitingService.getAvailableTokens(key), "El bucket general no se toca");
+    }
+
+    // ==================== DISTRIBUTED MODE TESTS ====================
+
+    @Test
+    @DisplayName("Modo distribuido - Debe consultar el lote global y reiniciar también el bucket en Redis")
+    void resetBucket_WhenDistributed_ShouldResetGlobalBucket() {
+        // Arrange
+        DistributedRateLimiter distributedRateLimiter = mock(DistributedRateLimiter.class);
+        ReflectionTestUtils.setField(rateLimitingService, "mode", "distributed");
+        ReflectionTestUtils.setField(rateLimitingService, "distributedRateLimiter", distributedRateLimiter);
+        RateLimitPolicy policy = rateLimitingService.getPolicy(true);
+        when(distributedRateLimiter.getAvailableTokens("ip:203.0.113.7", policy)).thenReturn(4L);
+
+        // Act
+        long available = rateLimitingService.getAvailableTokens("ip:203.0.113.7", policy);
+        rateLimitingService.resetBucket(RateLimitingService.AUTH_KEY_PREFIX + "ip:203.0.113.7");
+
+        // Assert
+        assertEquals(4L, available);
+        verify(distributedRateLimiter).reset("ip:203.0.113.7", policy);
+    }
+
+    @Test
+    @DisplayName("Modo distribuido - Debe aplicar el límite global con la clave del nivel")
+    void consume_WhenDistributed_ShouldUseGlobalLimit() {
+        // Arrange
+        DistributedRateLimiter distributedRateLimiter = mock(DistributedRateLimiter.class);
+        ReflectionTestUtils.setField(rateLimitingService, "mode", "distributed");
+        ReflectionTestUtils.setField(rateLimitingService, "distributedRateLimiter", distributedRateLimiter);
+        when(distributedRateLimiter.consume("ip:203.0.113.7", rateLimitingService.getPolicy(true), 1))
+                .thenReturn(new AdmissionVerdict(AdmissionVerdict.Outcome.RATE_LIMITED, 10, 0, 20000));
+
+        // Act
+        boolean allowed = rateLimitingService.allowAuthRequest("ip:203.0.113.7");
+
+        // Assert
+        assertFalse(allowed, "El límite global decide aunque el bucket local tenga tokens");
+        assertEquals(0L, rateLimitingService.getActiveBucketCount());
+    }
+
+    @Test
+    @DisplayName("Modo distribuido sin Redis - Debe caer al bucket local del nodo")
+    void consume_WhenDistributedAndRedisDown_ShouldUseLocalBucket() {
+        // Arrange
+        DistributedRateLimiter distributedRateLimiter = mock(DistributedRateLimiter.class);
+        ReflectionTestUtils.setField(rateLimitingService, "mode", "distributed");
+        ReflectionTestUtils.setField(rateLimitingService, "distributedRateLimiter", distributedRateLimiter);
+        when(distributedRateLimiter.consume(anyString(), any(RateLimitPolicy.class), anyLong()))
+                .thenReturn(null);
+
+        // Act
+        AdmissionVerdict verdict = rateLimitingService.consume("ip:203.0.113.9", false, 1);
+
+        // Assert
+        assertEquals(AdmissionVerdict.Outcome.ALLOWED, verdict.getOutcome());
+        assertEquals(99L, verdict.getRemaining());
+    }
+}
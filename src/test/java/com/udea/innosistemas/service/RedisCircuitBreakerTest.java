@@ -0,0 +1,187 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.event.RedisCircuitStateEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitario para RedisCircuitBreaker utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica la apertura por fallos y llamadas lentas, la llamada de prueba y los eventos de transición.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RedisCircuitBreaker - Test unitario con patrón AAA")
+class RedisCircuitBreakerTest {
+
+    private static final Supplier<String> FAILING_CALL = () -> {
+        throw new RuntimeException("Connection refused");
+    };
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private RedisCircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 3);
+        ReflectionTestUtils.setField(circuitBreaker, "slowCallThresholdMs", 0L);
+        ReflectionTestUtils.setField(circuitBreaker, "openDurationMs", 60000L);
+    }
+
+    @Test
+    @DisplayName("Fallos consecutivos - Debe abrir el circuito y dejar de llamar a Redis")
+    void execute_WhenFailuresReachThreshold_ShouldOpenAndShortCircuit() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.execute("test", FAILING_CALL, () -> "degradado");
+        }
+        AtomicInteger calls = new AtomicInteger();
+
+        // Act
+        String result = circuitBreaker.execute("test", () -> {
+            calls.incrementAndGet();
+            return "redis";
+        }, () -> "degradado");
+
+        // Assert
+        assertEquals("degradado", result);
+        assertEquals(0, calls.get());
+        assertEquals(RedisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        ArgumentCaptor<RedisCircuitStateEvent> event = ArgumentCaptor.forClass(RedisCircuitStateEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(RedisCircuitBreaker.State.CLOSED, event.getValue().getPreviousState());
+        assertFalse(event.getValue().isRecovered());
+    }
+
+    @Test
+    @DisplayName("Éxito entre fallos - Debe reiniciar la cuenta de fallos consecutivos")
+    void execute_WhenSuccessBetweenFailures_ShouldStayClosed() {
+        // Act
+        circuitBreaker.execute("test", FAILING_CALL, () -> "degradado");
+        circuitBreaker.execute("test", FAILING_CALL, () -> "degradado");
+        circuitBreaker.execute("test", () -> "redis", () -> "degradado");
+        circuitBreaker.execute("test", FAILING_CALL, () -> "degradado");
+        circuitBreaker.execute("test", FAILING_CALL, () -> "degradado");
+
+        // Assert
+        assertEquals(RedisCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Llamadas lentas - Deben contar como fallos aunque respondan")
+    void execute_WhenCallsAreSlow_ShouldOpen() {
+        // Arrange
+        ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 1);
+        ReflectionTestUtils.setField(circuitBreaker, "slowCallThresholdMs", 5L);
+
+        // Act
+        String result = circuitBreaker.execute("test", () -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "redis";
+        }, () -> "degradado");
+
+        // Assert
+        assertEquals("redis", result);
+        assertTrue(circuitBreaker.isDegraded());
+    }
+
+    @Test
+    @DisplayName("Ventana vencida y prueba exitosa - Debe cerrar el circuito y publicar la recuperación")
+    void execute_WhenProbeSucceeds_ShouldCloseAndPublishRecovery() {
+        // Arrange
+        ReflectionTestUtils.setField(circuitBreaker, "openDurationMs", 0L);
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.execute("test", FAILING_CALL, () -> "degradado");
+        }
+
+        // Act
+        String result = circuitBreaker.execute("test", () -> "redis", () -> "degradado");
+
+        // Assert
+        assertEquals("redis", result);
+        assertEquals(RedisCircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        ArgumentCaptor<RedisCircuitStateEvent> events = ArgumentCaptor.forClass(RedisCircuitStateEvent.class);
+        verify(eventPublisher, times(3)).publishEvent(events.capture());
+        List<RedisCircuitStateEvent> transitions = events.getAllValues();
+        assertEquals(RedisCircuitBreaker.State.OPEN, transitions.get(0).getState());
+        assertEquals(RedisCircuitBreaker.State.HALF_OPEN, transitions.get(1).getState());
+        assertTrue(transitions.get(2).isRecovered());
+    }
+
+    @Test
+    @DisplayName("Prueba fallida - Debe volver a abrir el circuito")
+    void execute_WhenProbeFails_ShouldReopen() {
+        // Arrange
+        ReflectionTestUtils.setField(circuitBreaker, "openDurationMs", 0L);
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.execute("test", FAILING_CALL, () -> "degradado");
+        }
+
+        // Act
+        String result = circuitBreaker.execute("test", FAILING_CALL, () -> "degradado");
+
+        // Assert
+        assertEquals("degradado", result);
+        assertEquals(RedisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    @DisplayName("Umbral en cero - El circuito nunca debe abrirse")
+    void execute_WhenThresholdZero_ShouldNeverOpen() {
+        // Arrange
+        ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 0);
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            assertEquals("degradado", circuitBreaker.execute("test", FAILING_CALL, () -> "degradado"));
+        }
+
+        // Assert
+        assertFalse(circuitBreaker.isDegraded());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    @DisplayName("Umbral en cero - Un éxito tras fallos debe publicar la recuperación una sola vez")
+    void execute_WhenThresholdZeroAndRedisRecovers_ShouldPublishRecovery() {
+        // Arrange
+        ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 0);
+        circuitBreaker.execute("test", FAILING_CALL, () -> "degradado");
+        circuitBreaker.execute("test", FAILING_CALL, () -> "degradado");
+
+        // Act
+        circuitBreaker.execute("test", () -> "redis", () -> "degradado");
+        circuitBreaker.execute("test", () -> "redis", () -> "degradado");
+
+        // Assert
+        ArgumentCaptor<RedisCircuitStateEvent> event = ArgumentCaptor.forClass(RedisCircuitStateEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertTrue(event.getValue().isRecovered());
+        assertEquals(RedisCircuitBreaker.State.CLOSED, event.getValue().getPreviousState());
+        assertFalse(circuitBreaker.isDegraded());
+    }
+}
@@ -0,0 +1,159 @@
+package com.udea.innosistemas.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitario para RedisKeySweeper utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica el recorrido por páginas de SCAN, el presupuesto de tiempo y la reanudación desde el cursor guardado.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RedisKeySweeper - Test unitario con patrón AAA")
+class RedisKeySweeperTest {
+
+    private static final String SWEEP = "expired-sessions";
+    private static final String PATTERN = "session:expiry:*";
+    private static final String CURSOR_KEY = "maintenance:sweep-cursor:" + SWEEP;
+    private static final String LOCK_KEY = "maintenance:sweep-lock:" + SWEEP;
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @InjectMocks
+    private RedisKeySweeper keySweeper;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(keySweeper, "timeBudgetMs", 200L);
+        ReflectionTestUtils.setField(keySweeper, "scanCount", 100L);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void scanReturns(List<?> firstPage, List<?>... nextPages) {
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of()), any(Object[].class)))
+                .thenReturn(firstPage, (Object[]) nextPages);
+    }
+
+    private void lockAvailable(boolean available) {
+        when(valueOperations.setIfAbsent(eq(LOCK_KEY), anyString(), anyLong(), eq(TimeUnit.MILLISECONDS)))
+                .thenReturn(available);
+    }
+
+    @Test
+    @DisplayName("Recorrido completo - Debe procesar cada página y borrar el cursor guardado")
+    void sweep_WhenScanFinishes_ShouldCompleteAndClearCursor() {
+        // Arrange
+        lockAvailable(true);
+        scanReturns(List.of("42", List.of("session:expiry:a", "session:expiry:b")),
+                List.of("0", List.of("session:expiry:c")));
+        List<String> processed = new ArrayList<>();
+
+        // Act
+        RedisKeySweeper.SweepResult result = keySweeper.sweep(SWEEP, PATTERN, keys -> {
+            processed.addAll(keys);
+            return keys.size();
+        });
+
+        // Assert
+        assertEquals(RedisKeySweeper.Outcome.COMPLETED, result.getOutcome());
+        assertEquals(3, result.getScanned());
+        assertEquals(3, result.getRemoved());
+        assertEquals(2, result.getPages());
+        assertEquals(List.of("session:expiry:a", "session:expiry:b", "session:expiry:c"), processed);
+        verify(redisTemplate).delete(CURSOR_KEY);
+        verify(redisTemplate, never()).keys(anyString());
+        assertSame(result, keySweeper.getLastResult(SWEEP));
+    }
+
+    @Test
+    @DisplayName("Presupuesto agotado - Debe pausar y guardar el cursor para la siguiente ejecución")
+    void sweep_WhenBudgetExhausted_ShouldPauseAndStoreCursor() {
+        // Arrange
+        lockAvailable(true);
+        scanReturns(List.of("17", List.of("session:expiry:a")));
+
+        // Act
+        RedisKeySweeper.SweepResult result = keySweeper.sweep(SWEEP, PATTERN, keys -> 0, Duration.ZERO);
+
+        // Assert
+        assertEquals(RedisKeySweeper.Outcome.PAUSED, result.getOutcome());
+        assertFalse(result.isComplete());
+        verify(valueOperations).set(CURSOR_KEY, "17", 24, TimeUnit.HOURS);
+        verify(redisTemplate, never()).delete(CURSOR_KEY);
+    }
+
+    @Test
+    @DisplayName("Cursor guardado - Debe reanudar el SCAN desde donde quedó")
+    @SuppressWarnings("unchecked")
+    void sweep_WhenCursorStored_ShouldResumeFromIt() {
+        // Arrange
+        lockAvailable(true);
+        when(valueOperations.get(CURSOR_KEY)).thenReturn("17");
+        scanReturns(List.of("0", List.of()));
+
+        // Act
+        RedisKeySweeper.SweepResult result = keySweeper.sweep(SWEEP, PATTERN, keys -> 0);
+
+        // Assert
+        assertTrue(result.isComplete());
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of()), eq("17"), eq(PATTERN), eq("100"));
+    }
+
+    @Test
+    @DisplayName("Lock tomado por otro nodo - Debe omitir el barrido sin escanear")
+    @SuppressWarnings("unchecked")
+    void sweep_WhenLockHeld_ShouldSkip() {
+        // Arrange
+        lockAvailable(false);
+
+        // Act
+        RedisKeySweeper.SweepResult result = keySweeper.sweep(SWEEP, PATTERN, keys -> 0);
+
+        // Assert
+        assertEquals(RedisKeySweeper.Outcome.SKIPPED, result.getOutcome());
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Error de Redis a mitad del barrido - Debe conservar el cursor anterior y liberar el lock")
+    @SuppressWarnings("unchecked")
+    void sweep_WhenScanFails_ShouldKeepCursorAndReleaseLock() {
+        // Arrange
+        lockAvailable(true);
+        when(redisTemplate.execute(any(RedisScript.class), eq(List.of()), any(Object[].class)))
+                .thenThrow(new RuntimeException("Connection reset"));
+
+        // Act
+        RedisKeySweeper.SweepResult result = keySweeper.sweep(SWEEP, PATTERN, keys -> 0);
+
+        // Assert
+        assertEquals(RedisKeySweeper.Outcome.FAILED, result.getOutcome());
+        verify(valueOperations, never()).set(eq(CURSOR_KEY), anyString(), anyLong(), any(TimeUnit.class));
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(LOCK_KEY)), any(Object[].class));
+    }
+}
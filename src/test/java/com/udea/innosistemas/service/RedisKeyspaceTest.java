@@ -0,0 +1,94 @@
+package com.udea.innosistemas.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test unitario para RedisKeyspace utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica los nombres sin hash tag con una partición y que las claves de un usuario compartan
+ * el hash tag de su partición.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@DisplayName("RedisKeyspace - Test unitario con patrón AAA")
+class RedisKeyspaceTest {
+
+    private static final String USERNAME = "estudiante@udea.edu.co";
+
+    private RedisKeyspace keyspace(String topology, int shards) {
+        RedisKeyspace keyspace = new RedisKeyspace();
+        ReflectionTestUtils.setField(keyspace, "topology", topology);
+        ReflectionTestUtils.setField(keyspace, "shards", shards);
+        keyspace.init();
+        return keyspace;
+    }
+
+    private static String hashTag(String key) {
+        return key.substring(key.indexOf('{'), key.indexOf('}') + 1);
+    }
+
+    @Test
+    @DisplayName("Standalone - Debe conservar los nombres de clave sin hash tag")
+    void keys_WhenSingleShard_ShouldKeepLegacyNames() {
+        // Arrange
+        RedisKeyspace keyspace = keyspace("standalone", 0);
+
+        // Act & Assert
+        assertFalse(keyspace.isSharded());
+        assertTrue(keyspace.isScannable());
+        assertEquals("session:data:" + USERNAME, keyspace.userKey("session:data:", USERNAME));
+        assertEquals("token:blacklist:jti-1", keyspace.key("token:blacklist:", USERNAME, "jti-1"));
+        assertEquals("session:active-users", keyspace.indexKey("session:active-users", USERNAME));
+        assertEquals(List.of("session:active-users"), keyspace.indexKeys("session:active-users"));
+    }
+
+    @Test
+    @DisplayName("Cluster - Debe particionar por defecto y no permitir SCAN global")
+    void init_WhenCluster_ShouldShardByDefault() {
+        // Act
+        RedisKeyspace keyspace = keyspace("cluster", 0);
+
+        // Assert
+        assertTrue(keyspace.isSharded());
+        assertEquals(64, keyspace.getShards());
+        assertFalse(keyspace.isScannable());
+        assertEquals(64, keyspace.indexKeys("session:active-users").size());
+    }
+
+    @Test
+    @DisplayName("Claves de un usuario - Deben compartir el hash tag con su partición de los índices")
+    void keys_WhenSharded_ShouldShareUserHashTag() {
+        // Arrange
+        RedisKeyspace keyspace = keyspace("cluster", 16);
+
+        // Act
+        String tag = hashTag(keyspace.userKey("session:data:", USERNAME));
+
+        // Assert
+        assertEquals(tag, hashTag(keyspace.userKey("session:expiry:", USERNAME)));
+        assertEquals(tag, hashTag(keyspace.userKey("login:failures:", USERNAME.toUpperCase())));
+        assertEquals(tag, hashTag(keyspace.key("token:blacklist:", USERNAME, "jti-1")));
+        assertEquals(tag, hashTag(keyspace.indexKey("session:active-users", USERNAME)));
+        assertEquals(tag, hashTag(keyspace.indexKey("token:blacklist-index", USERNAME)));
+        assertEquals("{" + keyspace.shardOf(USERNAME) + "}", tag);
+    }
+
+    @Test
+    @DisplayName("Identificador - Debe recuperarse sin prefijo ni hash tag")
+    void idOf_ShouldStripPrefixAndHashTag() {
+        // Arrange
+        RedisKeyspace sharded = keyspace("cluster", 16);
+        RedisKeyspace standalone = keyspace("standalone", 0);
+
+        // Act & Assert
+        assertEquals(USERNAME, sharded.idOf("session:expiry:", sharded.userKey("session:expiry:", USERNAME)));
+        assertEquals("jti-1", sharded.idOf("token:blacklist:", sharded.key("token:blacklist:", 3, "jti-1")));
+        assertEquals(USERNAME, standalone.idOf("session:expiry:", "session:expiry:" + USERNAME));
+    }
+}
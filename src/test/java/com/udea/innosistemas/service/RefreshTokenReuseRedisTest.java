@@ -0,0 +1,129 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.security.VerifiedToken;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test de integración de la detección de reutilización de refresh tokens contra un Redis real
+ * (Testcontainers; se omite si no hay Docker) utilizando el patrón AAA (Arrange-Act-Assert).
+ * Ejecuta el script de rotación y verifica que la sesión de la familia termine y que un access
+ * token de esa sesión quede rechazado por la blacklist.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DisplayName("RefreshTokenRotationService - Test de integración con Redis")
+class RefreshTokenReuseRedisTest {
+
+    private static final String USERNAME = "estudiante@udea.edu.co";
+    private static final String FAMILY_ID = "jti-1";
+
+    @Container
+    private static final GenericContainer<?> REDIS =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private RefreshTokenRotationService refreshTokenRotationService;
+    private TokenBlacklistService tokenBlacklistService;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        RedisKeyspace keyspace = new RedisKeyspace();
+        RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker();
+        DegradedModeStore degradedStore = new DegradedModeStore();
+        ReflectionTestUtils.setField(degradedStore, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(degradedStore, "maxEntries", 100L);
+        ReflectionTestUtils.setField(degradedStore, "maxPendingWrites", 100);
+        degradedStore.init();
+
+        refreshTokenRotationService = new RefreshTokenRotationService();
+        ReflectionTestUtils.setField(refreshTokenRotationService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(refreshTokenRotationService, "keyspace", keyspace);
+        ReflectionTestUtils.setField(refreshTokenRotationService, "refreshExpirationInSeconds", 604800L);
+        ReflectionTestUtils.setField(refreshTokenRotationService, "sessionTtlSeconds", 86400L);
+
+        tokenBlacklistService = new TokenBlacklistService();
+        ReflectionTestUtils.setField(tokenBlacklistService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(tokenBlacklistService, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(tokenBlacklistService, "degradedStore", degradedStore);
+        ReflectionTestUtils.setField(tokenBlacklistService, "keyspace", keyspace);
+    }
+
+    private static VerifiedToken refreshToken(String tokenId) {
+        return new VerifiedToken("refresh." + tokenId, Jwts.claims()
+                .id(tokenId)
+                .subject(USERNAME)
+                .add("type", "refresh")
+                .add("fam", FAMILY_ID)
+                .build());
+    }
+
+    @Test
+    @DisplayName("Refresh token reutilizado - Debe terminar la sesión y rechazar los access tokens con su sid")
+    void rotate_WhenTokenReused_ShouldEndSessionAndRevokeAccessTokens() {
+        // Arrange
+        long now = System.currentTimeMillis();
+        redisTemplate.opsForZSet().add("session:expiry:" + USERNAME, FAMILY_ID, now + 86400000);
+        redisTemplate.opsForHash().put("session:data:" + USERNAME, FAMILY_ID, now + ";" + now + ";Firefox");
+        redisTemplate.opsForZSet().add("session:active-users", USERNAME, now + 86400000);
+        // La familia ya rotó a jti-3: presentar jti-2 es una reutilización
+        redisTemplate.opsForValue().set("token:refresh-family:" + FAMILY_ID, "jti-3", 604800, TimeUnit.SECONDS);
+        VerifiedToken accessToken = new VerifiedToken("access.jti-9", Jwts.claims()
+                .id("jti-9")
+                .subject(USERNAME)
+                .add("sid", FAMILY_ID)
+                .build());
+        assertFalse(tokenBlacklistService.isTokenBlacklisted(accessToken));
+
+        // Act
+        RefreshTokenRotationService.Result result = refreshTokenRotationService.rotate(refreshToken("jti-2"), "jti-4");
+
+        // Assert
+        assertEquals(RefreshTokenRotationService.Result.REUSE_DETECTED, result);
+        assertTrue(tokenBlacklistService.isTokenBlacklisted(accessToken),
+                "Un access token de la sesión de la familia debe quedar revocado");
+        assertTrue(tokenBlacklistService.isTokenBlacklisted(refreshToken("jti-3")),
+                "El refresh token vigente de la familia también");
+        assertNull(redisTemplate.opsForZSet().score("session:expiry:" + USERNAME, FAMILY_ID));
+        assertFalse(redisTemplate.opsForHash().hasKey("session:data:" + USERNAME, FAMILY_ID));
+        assertNull(redisTemplate.opsForZSet().score("session:active-users", USERNAME));
+        assertNotNull(redisTemplate.opsForZSet().score("token:blacklist-index", FAMILY_ID));
+    }
+}
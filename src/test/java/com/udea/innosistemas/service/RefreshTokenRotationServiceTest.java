@@ -0,0 +1,126 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.security.VerifiedToken;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitario para RefreshTokenRotationService utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica las claves y argumentos del script de rotación y la traducción de su resultado.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RefreshTokenRotationService - Test unitario con patrón AAA")
+class RefreshTokenRotationServiceTest {
+
+    private static final String USERNAME = "estudiante@udea.edu.co";
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Spy
+    private RedisKeyspace keyspace = new RedisKeyspace();
+
+    @InjectMocks
+    private RefreshTokenRotationService refreshTokenRotationService;
+
+    private VerifiedToken refreshToken;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(refreshTokenRotationService, "refreshExpirationInSeconds", 604800L);
+        ReflectionTestUtils.setField(refreshTokenRotationService, "sessionTtlSeconds", 86400L);
+        refreshToken = new VerifiedToken("header.payload.signature", Jwts.claims()
+                .id("jti-2")
+                .subject(USERNAME)
+                .add("type", "refresh")
+                .add("fam", "jti-1")
+                .build());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void scriptReturns(Long code) {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(code);
+    }
+
+    @Test
+    @DisplayName("Rotación exitosa - Debe usar la familia, su sesión y la blacklist del token")
+    @SuppressWarnings("unchecked")
+    void rotate_WhenScriptRotates_ShouldReturnRotated() {
+        // Arrange
+        scriptReturns(1L);
+
+        // Act
+        RefreshTokenRotationService.Result result = refreshTokenRotationService.rotate(refreshToken, "jti-3");
+
+        // Assert
+        assertEquals(RefreshTokenRotationService.Result.ROTATED, result);
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of("token:refresh-family:jti-1", "session:expiry:" + USERNAME,
+                        "token:blacklist:jti-2", "session:data:" + USERNAME, "session:active-users",
+                        "token:blacklist:jti-1", "token:blacklist-index")),
+                eq("jti-2"), eq("jti-3"), eq("604800000"), eq("jti-1"), anyString(), eq("86400000"), eq(USERNAME),
+                eq(TokenBlacklistService.BLACKLIST_CHANNEL));
+    }
+
+    @Test
+    @DisplayName("Token ya rotado - Debe reportar reutilización")
+    void rotate_WhenTokenReused_ShouldReturnReuseDetected() {
+        // Arrange
+        scriptReturns(-1L);
+
+        // Act & Assert
+        assertEquals(RefreshTokenRotationService.Result.REUSE_DETECTED,
+                refreshTokenRotationService.rotate(refreshToken, "jti-3"));
+    }
+
+    @Test
+    @DisplayName("Sesión de la familia inactiva - Debe reportar que no hay sesiones activas")
+    void rotate_WhenNoSessions_ShouldReturnNoActiveSessions() {
+        // Arrange
+        scriptReturns(-2L);
+
+        // Act & Assert
+        assertEquals(RefreshTokenRotationService.Result.NO_ACTIVE_SESSIONS,
+                refreshTokenRotationService.rotate(refreshToken, "jti-3"));
+    }
+
+    @Test
+    @DisplayName("Token en blacklist - Debe reportar token revocado")
+    void rotate_WhenBlacklisted_ShouldReturnRevoked() {
+        // Arrange
+        scriptReturns(0L);
+
+        // Act & Assert
+        assertEquals(RefreshTokenRotationService.Result.REVOKED,
+                refreshTokenRotationService.rotate(refreshToken, "jti-3"));
+    }
+
+    @Test
+    @DisplayName("Script sin resultado - Debe lanzar excepción")
+    void rotate_WhenScriptReturnsNull_ShouldThrow() {
+        // Arrange
+        scriptReturns(null);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> refreshTokenRotationService.rotate(refreshToken, "jti-3"));
+    }
+}
@@ -0,0 +1,218 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.security.AdmissionVerdict;
+import com.udea.innosistemas.security.VerifiedToken;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitario para RequestAdmissionService utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica las claves y argumentos del script de admisión, la traducción de su veredicto
+ * y el camino local cuando la admisión en Redis está deshabilitada o Redis no responde.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RequestAdmissionService - Test unitario con patrón AAA")
+class RequestAdmissionServiceTest {
+
+    private static final String USERNAME = "estudiante@udea.edu.co";
+    private static final long ISSUED_AT = 1_700_000_000L;
+    private static final RateLimitPolicy DEFAULT = new RateLimitPolicy("default", 100, 100, Duration.ofMinutes(1), "");
+    private static final RateLimitPolicy AUTH = new RateLimitPolicy("auth", 10, 10, Duration.ofMinutes(1), "auth:");
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private TokenBlacklistService tokenBlacklistService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    @Mock
+    private RateLimitingService rateLimitingService;
+
+    @Spy
+    private RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker();
+
+    @Spy
+    private RedisKeyspace keyspace = new RedisKeyspace();
+
+    @InjectMocks
+    private RequestAdmissionService requestAdmissionService;
+
+    private VerifiedToken accessToken;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(requestAdmissionService, "admissionEnabled", true);
+        accessToken = new VerifiedToken("header.payload.signature", Jwts.claims()
+                .id("jti-1")
+                .subject(USERNAME)
+                .issuedAt(new Date(ISSUED_AT * 1000))
+                .add("sid", "session-1")
+                .build());
+    }
+
+    private void rateLimitEnabled() {
+        when(rateLimitingService.isRateLimitEnabled()).thenReturn(true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void scriptReturns(Long... result) {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of(result));
+    }
+
+    @Test
+    @DisplayName("Admitir token vigente - Debe evaluar blacklist, época y bucket en un solo script")
+    @SuppressWarnings("unchecked")
+    void admit_WhenTokenValid_ShouldRunSingleScript() {
+        // Arrange
+        rateLimitEnabled();
+        scriptReturns(1L, 99L, 0L);
+
+        // Act
+        AdmissionVerdict verdict = requestAdmissionService.admit(accessToken, DEFAULT);
+
+        // Assert
+        assertEquals(AdmissionVerdict.Outcome.ALLOWED, verdict.getOutcome());
+        assertEquals(100L, verdict.getLimit());
+        assertEquals(99L, verdict.getRemaining());
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class),
+                eq(List.of("token:blacklist:jti-1", "token:blacklist:session-1",
+                        "token:revoked-before:" + USERNAME, "ratelimit:bucket:user:" + USERNAME)),
+                eq(String.valueOf(ISSUED_AT * 1000)), eq("100"), eq("100"), eq("60000"), eq("1"));
+        verifyNoInteractions(tokenBlacklistService, tokenRevocationService);
+    }
+
+    @Test
+    @DisplayName("Bucket agotado - Debe devolver el tiempo de espera calculado por el script")
+    void admit_WhenBucketEmpty_ShouldReturnRetryAfter() {
+        // Arrange
+        rateLimitEnabled();
+        scriptReturns(0L, 0L, 1500L);
+
+        // Act
+        AdmissionVerdict verdict = requestAdmissionService.admit(accessToken, DEFAULT);
+
+        // Assert
+        assertTrue(verdict.isRateLimited());
+        assertFalse(verdict.isTokenRejected());
+        assertEquals(2L, verdict.getRetryAfterSeconds());
+    }
+
+    @Test
+    @DisplayName("Token revocado - Debe rechazarse por blacklist o por época de revocación")
+    void admit_WhenTokenRevoked_ShouldRejectToken() {
+        // Arrange
+        rateLimitEnabled();
+        scriptReturns(-1L, 0L, 0L);
+
+        // Act
+        AdmissionVerdict blacklisted = requestAdmissionService.admit(accessToken, DEFAULT);
+        scriptReturns(-2L, 0L, 0L);
+        AdmissionVerdict revoked = requestAdmissionService.admit(accessToken, DEFAULT);
+
+        // Assert
+        assertEquals(AdmissionVerdict.Outcome.BLACKLISTED, blacklisted.getOutcome());
+        assertEquals(AdmissionVerdict.Outcome.REVOKED, revoked.getOutcome());
+        assertTrue(revoked.isTokenRejected());
+    }
+
+    @Test
+    @DisplayName("Redis Cluster - Todas las claves del script deben compartir el hash tag del usuario")
+    @SuppressWarnings("unchecked")
+    void admit_WhenSharded_ShouldKeepScriptKeysOnOneSlot() {
+        // Arrange
+        ReflectionTestUtils.setField(keyspace, "topology", "cluster");
+        ReflectionTestUtils.setField(keyspace, "shards", 16);
+        String tag = "{" + keyspace.shardOf(USERNAME) + "}";
+        rateLimitEnabled();
+        scriptReturns(1L, 9L, 0L);
+
+        // Act
+        requestAdmissionService.admit(accessToken, AUTH);
+
+        // Assert
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of("token:blacklist:" + tag + "jti-1", "token:blacklist:" + tag + "session-1",
+                        "token:revoked-before:" + tag + USERNAME, "ratelimit:bucket:" + tag + "auth:user:" + USERNAME)),
+                any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Admisión en Redis deshabilitada - Debe usar los servicios locales sin script")
+    @SuppressWarnings("unchecked")
+    void admit_WhenDisabled_ShouldUseLocalChecks() {
+        // Arrange
+        ReflectionTestUtils.setField(requestAdmissionService, "admissionEnabled", false);
+        AdmissionVerdict local = new AdmissionVerdict(AdmissionVerdict.Outcome.ALLOWED, 100, 42, 0);
+        when(rateLimitingService.consume("user:" + USERNAME, DEFAULT, 1)).thenReturn(local);
+
+        // Act
+        AdmissionVerdict verdict = requestAdmissionService.admit(accessToken, DEFAULT);
+
+        // Assert
+        assertSame(local, verdict);
+        verify(tokenBlacklistService).isTokenBlacklisted(accessToken);
+        verify(tokenRevocationService).isRevoked(accessToken);
+        verify(redisTemplate, never()).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Operación GraphQL - Debe validar el token sin consumir el bucket")
+    @SuppressWarnings("unchecked")
+    void admit_WhenNoTokensRequested_ShouldOnlyValidateToken() {
+        // Arrange
+        rateLimitEnabled();
+        scriptReturns(1L, -1L, 0L);
+
+        // Act
+        AdmissionVerdict verdict = requestAdmissionService.admit(accessToken, DEFAULT, 0);
+
+        // Assert
+        assertEquals(AdmissionVerdict.Outcome.ALLOWED, verdict.getOutcome());
+        assertEquals(-1L, verdict.getLimit());
+        verify(redisTemplate).execute(any(RedisScript.class), anyList(),
+                eq(String.valueOf(ISSUED_AT * 1000)), eq("0"), eq("100"), eq("60000"), eq("0"));
+    }
+
+    @Test
+    @DisplayName("Redis caído - Debe caer a las comprobaciones locales")
+    @SuppressWarnings("unchecked")
+    void admit_WhenRedisFails_ShouldFallBackToLocalChecks() {
+        // Arrange
+        rateLimitEnabled();
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RuntimeException("Connection refused"));
+        when(tokenBlacklistService.isTokenBlacklisted(accessToken)).thenReturn(true);
+
+        // Act
+        AdmissionVerdict verdict = requestAdmissionService.admit(accessToken, DEFAULT);
+
+        // Assert
+        assertEquals(AdmissionVerdict.Outcome.BLACKLISTED, verdict.getOutcome());
+        verify(rateLimitingService, never()).consume(anyString(), any(RateLimitPolicy.class), anyLong());
+    }
+}
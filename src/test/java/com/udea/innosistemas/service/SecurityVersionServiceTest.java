@@ -0,0 +1,90 @@
+package com.udea.innosistemas.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitario para SecurityVersionService utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica la lectura, el incremento y la caché local de la versión de seguridad.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SecurityVersionService - Test unitario con patrón AAA")
+class SecurityVersionServiceTest {
+
+    private static final String VERSION_PREFIX = "user:security-version:";
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @InjectMocks
+    private SecurityVersionService securityVersionService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(securityVersionService, "versionCacheTtlSeconds", 60L);
+        ReflectionTestUtils.setField(securityVersionService, "versionCacheMaxSize", 100L);
+        securityVersionService.init();
+    }
+
+    @Test
+    @DisplayName("Obtener versión sin clave en Redis - Debe retornar 0 y cachearla")
+    void getVersion_WhenKeyMissing_ShouldReturnZeroAndCache() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(VERSION_PREFIX + 7L)).thenReturn(null);
+
+        // Act
+        Long first = securityVersionService.getVersion(7L);
+        Long second = securityVersionService.getVersion(7L);
+
+        // Assert
+        assertEquals(0L, first);
+        assertEquals(0L, second);
+        verify(valueOperations, times(1)).get(VERSION_PREFIX + 7L);
+    }
+
+    @Test
+    @DisplayName("Incrementar versión - Debe actualizar la caché local")
+    void bumpVersion_ShouldIncrementAndUpdateCache() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.increment(VERSION_PREFIX + 7L)).thenReturn(3L);
+
+        // Act
+        securityVersionService.bumpVersion(7L);
+        Long version = securityVersionService.getVersion(7L);
+
+        // Assert
+        assertEquals(3L, version);
+        verify(valueOperations, never()).get(anyString());
+    }
+
+    @Test
+    @DisplayName("Obtener versión con Redis caído - Debe retornar null")
+    void getVersion_WhenRedisFails_ShouldReturnNull() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenThrow(new RuntimeException("Redis connection failed"));
+
+        // Act & Assert
+        assertNull(securityVersionService.getVersion(7L));
+        assertNull(securityVersionService.getVersion(null));
+    }
+}
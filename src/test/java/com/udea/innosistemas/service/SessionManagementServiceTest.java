@@ -0,0 +1,463 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.dto.SessionInfo;
+import com.udea.innosistemas.security.VerifiedToken;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitario para SessionManagementService utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica el índice de sesiones por usuario (hash por sessionId + sorted set por expiración).
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SessionManagementService - Test unitario con patrón AAA")
+class SessionManagementServiceTest {
+
+    private static final String USERNAME = "estudiante@udea.edu.co";
+    private static final String DATA_KEY = "session:data:" + USERNAME;
+    private static final String EXPIRY_KEY = "session:expiry:" + USERNAME;
+    private static final String ACTIVE_USERS_KEY = "session:active-users";
+    private static final String BLACKLIST_INDEX = "token:blacklist-index";
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private RedisKeySweeper keySweeper;
+
+    @Mock
+    private TokenBlacklistService tokenBlacklistService;
+
+    @Spy
+    private RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker();
+
+    @Spy
+    private DegradedModeStore degradedStore = new DegradedModeStore();
+
+    @Spy
+    private RedisKeyspace keyspace = new RedisKeyspace();
+
+    @InjectMocks
+    private SessionManagementService sessionManagementService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(sessionManagementService, "jwtExpirationInMs", 86400L);
+        ReflectionTestUtils.setField(sessionManagementService, "maxDevices", 5);
+        ReflectionTestUtils.setField(degradedStore, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(degradedStore, "maxEntries", 100L);
+        ReflectionTestUtils.setField(degradedStore, "maxPendingWrites", 100);
+        degradedStore.init();
+    }
+
+    @Test
+    @DisplayName("Registrar sesión - Debe ejecutar el script con el hash, el sorted set, el índice global y el dispositivo")
+    @SuppressWarnings("unchecked")
+    void registerSession_ShouldRunScriptWithBothKeys() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(List.of(1L));
+
+        // Act
+        boolean result = sessionManagementService.registerSession(USERNAME, "session-1", "  Firefox en Linux ");
+
+        // Assert
+        assertTrue(result);
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of(DATA_KEY, EXPIRY_KEY, ACTIVE_USERS_KEY, BLACKLIST_INDEX)),
+                eq("session-1"), anyString(), eq("86400000"), eq("Firefox en Linux"), eq(USERNAME),
+                eq("5"), eq("token:blacklist:"), eq(TokenBlacklistService.BLACKLIST_CHANNEL));
+    }
+
+    @Test
+    @DisplayName("Registrar sesión sobre el límite - Debe aceptar el registro con las sesiones desalojadas por el script")
+    @SuppressWarnings("unchecked")
+    void registerSession_WhenDeviceLimitReached_ShouldReportEvictedSessions() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of(5L, "session-old"));
+
+        // Act
+        boolean result = sessionManagementService.registerSession(USERNAME, "session-6", "Chrome en Android");
+
+        // Assert
+        assertTrue(result);
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+        verifyNoInteractions(tokenBlacklistService);
+    }
+
+    @Test
+    @DisplayName("Límite de dispositivos en cero - Debe enviarse como sin límite")
+    @SuppressWarnings("unchecked")
+    void registerSession_WhenLimitDisabled_ShouldPassZero() {
+        // Arrange
+        ReflectionTestUtils.setField(sessionManagementService, "maxDevices", 0);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(List.of(12L));
+
+        // Act
+        sessionManagementService.registerSession(USERNAME, "session-1");
+
+        // Assert
+        verify(redisTemplate).execute(any(RedisScript.class), anyList(),
+                eq("session-1"), anyString(), eq("86400000"), eq(""), eq(USERNAME),
+                eq("0"), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Registrar sesión del login - Debe borrar los intentos fallidos en el mismo script")
+    @SuppressWarnings("unchecked")
+    void registerSession_WithKeysToClear_ShouldAppendThemToTheScriptKeys() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(List.of(1L));
+        List<String> resetKeys = List.of("login:failures:" + USERNAME, "login:backoff:" + USERNAME);
+
+        // Act
+        boolean result = sessionManagementService.registerSession(USERNAME, "session-1", null, resetKeys);
+
+        // Assert
+        assertTrue(result);
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class),
+                eq(List.of(DATA_KEY, EXPIRY_KEY, ACTIVE_USERS_KEY, BLACKLIST_INDEX,
+                        "login:failures:" + USERNAME, "login:backoff:" + USERNAME)),
+                eq("session-1"), anyString(), eq("86400000"), eq(""), eq(USERNAME),
+                eq("5"), anyString(), anyString());
+        verifyNoMoreInteractions(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Redis Cluster - Todas las claves del script deben compartir el hash tag del usuario")
+    @SuppressWarnings("unchecked")
+    void registerSession_WhenSharded_ShouldKeepScriptKeysOnOneSlot() {
+        // Arrange
+        ReflectionTestUtils.setField(keyspace, "topology", "cluster");
+        ReflectionTestUtils.setField(keyspace, "shards", 16);
+        String tag = "{" + keyspace.shardOf(USERNAME) + "}";
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(List.of(1L));
+
+        // Act
+        sessionManagementService.registerSession(USERNAME, "session-1", null,
+                List.of("login:failures:" + tag + USERNAME));
+
+        // Assert
+        verify(redisTemplate).execute(any(RedisScript.class),
+                eq(List.of("session:data:" + tag + USERNAME, "session:expiry:" + tag + USERNAME,
+                        ACTIVE_USERS_KEY + ":" + tag, BLACKLIST_INDEX + ":" + tag,
+                        "login:failures:" + tag + USERNAME)),
+                eq("session-1"), anyString(), eq("86400000"), eq(""), eq(USERNAME),
+                eq("5"), eq("token:blacklist:" + tag), anyString());
+    }
+
+    @Test
+    @DisplayName("Registrar sesión con Redis caído - Debe aceptar el login y reproducir el registro al recuperarse")
+    @SuppressWarnings("unchecked")
+    void registerSession_WhenRedisFails_ShouldQueueRegistration() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RuntimeException("Connection refused"))
+                .thenReturn(List.of(1L));
+        List<String> resetKeys = List.of("login:failures:" + USERNAME, "login:backoff:" + USERNAME);
+        degradedStore.increment("login:failures:" + USERNAME, 60000);
+
+        // Act
+        boolean result = sessionManagementService.registerSession(USERNAME, "session-1", null, resetKeys);
+        int reconciled = degradedStore.reconcile();
+
+        // Assert
+        assertTrue(result);
+        assertNull(degradedStore.get("login:failures:" + USERNAME));
+        assertEquals(1, reconciled);
+        assertEquals(0, degradedStore.getPendingWriteCount());
+        verify(redisTemplate, times(2)).execute(any(RedisScript.class),
+                eq(List.of(DATA_KEY, EXPIRY_KEY, ACTIVE_USERS_KEY, BLACKLIST_INDEX,
+                        "login:failures:" + USERNAME, "login:backoff:" + USERNAME)),
+                eq("session-1"), anyString(), eq("86400000"), eq(""), eq(USERNAME),
+                eq("5"), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Circuito abierto - Debe encolar el registro sin esperar a Redis")
+    @SuppressWarnings("unchecked")
+    void registerSession_WhenCircuitOpen_ShouldNotCallRedis() {
+        // Arrange
+        ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 1);
+        ReflectionTestUtils.setField(circuitBreaker, "openDurationMs", 60000L);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RuntimeException("Read timed out"));
+        sessionManagementService.registerSession(USERNAME, "session-1");
+
+        // Act
+        boolean result = sessionManagementService.registerSession(USERNAME, "session-2");
+
+        // Assert
+        assertTrue(result);
+        assertEquals(RedisCircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(2, degradedStore.getPendingWriteCount());
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Sesión con expiración futura - Debe estar activa con un solo ZSCORE")
+    void isSessionActive_WhenNotExpired_ShouldReturnTrue() {
+        // Arrange
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.score(EXPIRY_KEY, "session-1")).thenReturn((double) (System.currentTimeMillis() + 60000));
+
+        // Act & Assert
+        assertTrue(sessionManagementService.isSessionActive(USERNAME, "session-1"));
+    }
+
+    @Test
+    @DisplayName("Sesión expirada o inexistente - No debe estar activa")
+    void isSessionActive_WhenExpiredOrMissing_ShouldReturnFalse() {
+        // Arrange
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.score(EXPIRY_KEY, "expired")).thenReturn((double) (System.currentTimeMillis() - 1000));
+        when(zSetOperations.score(EXPIRY_KEY, "missing")).thenReturn(null);
+
+        // Act & Assert
+        assertFalse(sessionManagementService.isSessionActive(USERNAME, "expired"));
+        assertFalse(sessionManagementService.isSessionActive(USERNAME, "missing"));
+    }
+
+    @Test
+    @DisplayName("Remover sesión - Debe borrar solo esa entrada y actualizar el índice global en un script")
+    @SuppressWarnings("unchecked")
+    void removeSession_ShouldRemoveSingleEntry() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(1L);
+
+        // Act
+        boolean result = sessionManagementService.removeSession(USERNAME, "session-1");
+
+        // Assert
+        assertTrue(result);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(DATA_KEY, EXPIRY_KEY, ACTIVE_USERS_KEY)),
+                eq("session-1"), eq(USERNAME));
+    }
+
+    @Test
+    @DisplayName("Remover sesión inexistente - Debe retornar false")
+    @SuppressWarnings("unchecked")
+    void removeSession_WhenMissing_ShouldReturnFalse() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(0L);
+
+        // Act & Assert
+        assertFalse(sessionManagementService.removeSession(USERNAME, "missing"));
+    }
+
+    @Test
+    @DisplayName("Contar sesiones - Debe contar solo las no expiradas en el servidor")
+    void getActiveSessionCount_ShouldCountUnexpiredEntries() {
+        // Arrange
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.count(eq(EXPIRY_KEY), anyDouble(), eq(Double.POSITIVE_INFINITY))).thenReturn(2L);
+
+        // Act & Assert
+        assertEquals(2L, sessionManagementService.getActiveSessionCount(USERNAME));
+        assertTrue(sessionManagementService.hasActiveSessions(USERNAME));
+    }
+
+    @Test
+    @DisplayName("Invalidar todas las sesiones - Debe borrarlas con un script y retornar las activas")
+    @SuppressWarnings("unchecked")
+    void invalidateAllUserSessions_ShouldRunEndSessionsScript() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(3L);
+
+        // Act
+        long count = sessionManagementService.invalidateAllUserSessions(USERNAME);
+
+        // Assert
+        assertEquals(3L, count);
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(DATA_KEY, EXPIRY_KEY, ACTIVE_USERS_KEY)),
+                eq(USERNAME), anyString(), eq(""), eq("0"), eq(TokenBlacklistService.BLACKLIST_CHANNEL));
+        verifyNoInteractions(tokenBlacklistService);
+    }
+
+    @Test
+    @DisplayName("Logout - Debe revocar el token y cerrar las sesiones en un solo round trip")
+    @SuppressWarnings("unchecked")
+    void invalidateAllUserSessions_WithToken_ShouldBlacklistInSameScript() {
+        // Arrange
+        // Los claims JWT guardan la expiración con precisión de segundos
+        Date expiration = new Date((System.currentTimeMillis() / 1000 + 60) * 1000);
+        VerifiedToken token = new VerifiedToken("header.payload.signature", Jwts.claims()
+                .subject(USERNAME)
+                .id("jti-1")
+                .expiration(expiration)
+                .build());
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(2L);
+
+        // Act
+        long count = sessionManagementService.invalidateAllUserSessions(USERNAME, token);
+
+        // Assert
+        assertEquals(2L, count);
+        verify(redisTemplate, times(1)).execute(any(RedisScript.class),
+                eq(List.of(DATA_KEY, EXPIRY_KEY, ACTIVE_USERS_KEY, "token:blacklist:jti-1", "token:blacklist-index")),
+                eq(USERNAME), anyString(), eq("jti-1"), eq(String.valueOf(expiration.getTime())),
+                eq(TokenBlacklistService.BLACKLIST_CHANNEL));
+        verify(tokenBlacklistService).onTokenRevoked(token);
+        verifyNoMoreInteractions(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Logout con Redis caído - Debe revocar el token en el nodo y encolar el cierre de sesiones")
+    @SuppressWarnings("unchecked")
+    void invalidateAllUserSessions_WithTokenWhenRedisFails_ShouldRevokeLocallyAndQueue() {
+        // Arrange
+        VerifiedToken token = new VerifiedToken("header.payload.signature", Jwts.claims()
+                .subject(USERNAME)
+                .id("jti-1")
+                .expiration(new Date(System.currentTimeMillis() + 60000))
+                .build());
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RuntimeException("Connection refused"));
+
+        // Act
+        long count = sessionManagementService.invalidateAllUserSessions(USERNAME, token);
+
+        // Assert
+        assertEquals(0L, count);
+        assertEquals("revoked", degradedStore.get("token:blacklist:jti-1"));
+        assertEquals(1, degradedStore.getPendingWriteCount());
+        verify(tokenBlacklistService).onTokenRevoked(token);
+    }
+
+    @Test
+    @DisplayName("Usuarios activos - Debe contar desde el índice global sin recorrer el keyspace")
+    void getTotalActiveUsers_ShouldCountFromIndex() {
+        // Arrange
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.count(eq(ACTIVE_USERS_KEY), anyDouble(), eq(Double.POSITIVE_INFINITY))).thenReturn(42L);
+
+        // Act & Assert
+        assertEquals(42L, sessionManagementService.getTotalActiveUsers());
+        verify(redisTemplate, never()).keys(anyString());
+    }
+
+    @Test
+    @DisplayName("Limpieza de sesiones - Debe podar cada usuario encontrado por el barrido SCAN")
+    @SuppressWarnings("unchecked")
+    void cleanupExpiredSessions_ShouldPruneEachSweptUser() {
+        // Arrange
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(2L);
+        RedisKeySweeper.SweepResult completed = new RedisKeySweeper.SweepResult(
+                RedisKeySweeper.Outcome.COMPLETED, 1, 2, 1);
+        when(keySweeper.sweep(eq(SessionManagementService.EXPIRED_SESSIONS_SWEEP), eq("session:expiry:*"), any()))
+                .thenAnswer(invocation -> {
+                    RedisKeySweeper.KeyBatchProcessor processor = invocation.getArgument(2);
+                    assertEquals(2L, processor.process(List.of(EXPIRY_KEY)));
+                    return completed;
+                });
+        when(keySweeper.sweep(eq(SessionManagementService.LEGACY_COUNTERS_SWEEP), eq("session:count:*"), any()))
+                .thenReturn(new RedisKeySweeper.SweepResult(RedisKeySweeper.Outcome.COMPLETED, 0, 0, 1));
+
+        // Act
+        RedisKeySweeper.SweepResult result = sessionManagementService.cleanupExpiredSessions();
+
+        // Assert
+        assertSame(completed, result);
+        verify(zSetOperations).removeRangeByScore(eq(ACTIVE_USERS_KEY), eq(Double.NEGATIVE_INFINITY), anyDouble());
+        verify(redisTemplate).execute(any(RedisScript.class), eq(List.of(DATA_KEY, EXPIRY_KEY, ACTIVE_USERS_KEY)),
+                anyString(), eq(USERNAME));
+        verify(redisTemplate, never()).keys(anyString());
+    }
+
+    @Test
+    @DisplayName("Contadores heredados - Deben dejar de barrerse tras un recorrido completo sin hallazgos")
+    void cleanupExpiredSessions_WhenNoLegacyCounters_ShouldStopLegacySweep() {
+        // Arrange
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        RedisKeySweeper.SweepResult empty = new RedisKeySweeper.SweepResult(RedisKeySweeper.Outcome.COMPLETED, 0, 0, 1);
+        when(keySweeper.sweep(anyString(), anyString(), any())).thenReturn(empty);
+
+        // Act
+        sessionManagementService.cleanupExpiredSessions();
+        sessionManagementService.cleanupExpiredSessions();
+
+        // Assert
+        verify(keySweeper, times(1)).sweep(eq(SessionManagementService.LEGACY_COUNTERS_SWEEP), anyString(), any());
+        verify(keySweeper, times(2)).sweep(eq(SessionManagementService.EXPIRED_SESSIONS_SWEEP), anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Limpieza en Redis Cluster - Debe podar cada partición del índice sin barrer con SCAN")
+    void cleanupExpiredSessions_WhenCluster_ShouldSkipScanSweep() {
+        // Arrange
+        ReflectionTestUtils.setField(keyspace, "topology", "cluster");
+        ReflectionTestUtils.setField(keyspace, "shards", 4);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+
+        // Act
+        RedisKeySweeper.SweepResult result = sessionManagementService.cleanupExpiredSessions();
+
+        // Assert
+        assertEquals(RedisKeySweeper.Outcome.SKIPPED, result.getOutcome());
+        verify(zSetOperations, times(4)).removeRangeByScore(
+                startsWith(ACTIVE_USERS_KEY + ":{"), eq(Double.NEGATIVE_INFINITY), anyDouble());
+        verifyNoInteractions(keySweeper);
+    }
+
+    @Test
+    @DisplayName("Detalle de sesiones - Debe exponer dispositivo, último uso y expiración")
+    void getSessionDetails_ShouldDecodeMetadata() {
+        // Arrange
+        long now = System.currentTimeMillis();
+        Set<ZSetOperations.TypedTuple<String>> expirations = new LinkedHashSet<>();
+        expirations.add(new DefaultTypedTuple<>("old", (double) (now + 1000)));
+        expirations.add(new DefaultTypedTuple<>("recent", (double) (now + 5000)));
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(zSetOperations.rangeByScoreWithScores(eq(EXPIRY_KEY), anyDouble(), eq(Double.POSITIVE_INFINITY)))
+                .thenReturn(expirations);
+        when(hashOperations.entries(DATA_KEY)).thenReturn(Map.of(
+                "old", "1000;2000;",
+                "recent", "1000;3000;Chrome; Windows"));
+
+        // Act
+        List<SessionInfo> sessions = sessionManagementService.getSessionDetails(USERNAME);
+
+        // Assert
+        assertEquals(2, sessions.size());
+        assertEquals("recent", sessions.get(0).getSessionId());
+        assertEquals("Chrome; Windows", sessions.get(0).getDevice());
+        assertEquals(3000L, sessions.get(0).getLastSeenAt().toEpochMilli());
+        assertEquals(now + 5000, sessions.get(0).getExpiresAt().toEpochMilli());
+        assertEquals("old", sessions.get(1).getSessionId());
+        assertNull(sessions.get(1).getDevice());
+    }
+}
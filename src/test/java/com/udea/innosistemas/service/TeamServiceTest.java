@@ -0,0 +1,129 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.entity.Team;
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.entity.UserRole;
+import com.udea.innosistemas.repository.TeamRepository;
+import com.udea.innosistemas.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitario para TeamService utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica que la versión de seguridad y la caché cercana de los usuarios se invaliden solo
+ * cuando la transacción confirma.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TeamService - Test unitario con patrón AAA")
+class TeamServiceTest {
+
+    private static final String EMAIL = "estudiante@udea.edu.co";
+
+    @Mock
+    private TeamRepository teamRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private TeamEventService teamEventService;
+
+    @Mock
+    private SecurityVersionService securityVersionService;
+
+    @Mock
+    private UserLookupService userLookupService;
+
+    @InjectMocks
+    private TeamService teamService;
+
+    private Team team;
+    private User usuario;
+
+    @BeforeEach
+    void setUp() {
+        team = new Team();
+        team.setId(5L);
+        team.setNombre("Equipo 5");
+        team.setActivo(true);
+
+        usuario = new User(EMAIL, "password123", UserRole.STUDENT);
+        usuario.setId(7L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Unirse a un equipo en una transacción - Debe invalidar al usuario solo tras el commit")
+    void unirseAEquipo_WhenTransactionActive_ShouldInvalidateAfterCommit() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        when(teamRepository.findById(5L)).thenReturn(Optional.of(team));
+        when(userRepository.findById(7L)).thenReturn(Optional.of(usuario));
+
+        // Act
+        teamService.unirseAEquipo(5L, 7L);
+
+        // Assert
+        verify(securityVersionService, never()).bumpVersion(anyLong());
+        verify(userLookupService, never()).evict(anyString());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(securityVersionService).bumpVersion(7L);
+        verify(userLookupService).evict(EMAIL);
+    }
+
+    @Test
+    @DisplayName("Transacción revertida - No debe invalidar al usuario")
+    void abandonarEquipo_WhenRolledBack_ShouldNotInvalidate() {
+        // Arrange
+        TransactionSynchronizationManager.initSynchronization();
+        usuario.setTeamId(5L);
+        when(teamRepository.findById(5L)).thenReturn(Optional.of(team));
+        when(userRepository.findById(7L)).thenReturn(Optional.of(usuario));
+
+        // Act
+        teamService.abandonarEquipo(5L, 7L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // Assert
+        verifyNoInteractions(securityVersionService, userLookupService);
+    }
+
+    @Test
+    @DisplayName("Sin transacción activa - Debe invalidar al usuario de inmediato")
+    void unirseAEquipo_WhenNoTransaction_ShouldInvalidateImmediately() {
+        // Arrange
+        when(teamRepository.findById(5L)).thenReturn(Optional.of(team));
+        when(userRepository.findById(7L)).thenReturn(Optional.of(usuario));
+
+        // Act
+        teamService.unirseAEquipo(5L, 7L);
+
+        // Assert
+        verify(securityVersionService).bumpVersion(7L);
+        verify(userLookupService).evict(EMAIL);
+    }
+}
@@ -1,16 +1,24 @@
 package com.udea.innosistemas.service;
 
+import com.udea.innosistemas.security.VerifiedToken;
+import com.udea.innosistemas.security.VerifiedTokenCache;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -35,19 +43,43 @@ class TokenBlacklistServiceTest {
     @Mock
     private ValueOperations<String, String> valueOperations;
 
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Spy
+    private RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker();
+
+    @Spy
+    private DegradedModeStore degradedStore = new DegradedModeStore();
+
+    @Spy
+    private RedisKeyspace keyspace = new RedisKeyspace();
+
     @InjectMocks
     private TokenBlacklistService tokenBlacklistService;
 
     private String testToken;
     private Date futureExpirationDate;
     private Date pastExpirationDate;
+    private static final String USERNAME = "estudiante@udea.edu.co";
     private static final String BLACKLIST_PREFIX = "token:blacklist:";
+    private static final String BLACKLIST_INDEX = "token:blacklist-index";
 
     @BeforeEach
     void setUp() {
         testToken = "eyJhbGciOiJIUzUxMiJ9.test.token";
         futureExpirationDate = new Date(System.currentTimeMillis() + 86400000); // +24 horas
         pastExpirationDate = new Date(System.currentTimeMillis() - 3600000); // -1 hora
+        lenient().when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        ReflectionTestUtils.setField(tokenBlacklistService, "bloomExpectedInsertions", 1000L);
+        ReflectionTestUtils.setField(tokenBlacklistService, "bloomFalsePositiveRate", 0.001);
+        ReflectionTestUtils.setField(degradedStore, "circuitBreaker", circuitBreaker);
+        ReflectionTestUtils.setField(degradedStore, "maxEntries", 100L);
+        ReflectionTestUtils.setField(degradedStore, "maxPendingWrites", 100);
+        degradedStore.init();
     }
 
     // ==================== BLACKLIST TOKEN TESTS ====================
@@ -60,7 +92,7 @@ class TokenBlacklistServiceTest {
         doNothing().when(valueOperations).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
 
         // Act
-        tokenBlacklistService.blacklistToken(testToken, futureExpirationDate);
+        tokenBlacklistService.blacklistToken(USERNAME, testToken, futureExpirationDate);
 
         // Assert
         verify(valueOperations).set(
@@ -69,6 +101,42 @@ class TokenBlacklistServiceTest {
                 anyLong(),
                 eq(TimeUnit.MILLISECONDS)
         );
+        verify(zSetOperations).add(eq(BLACKLIST_INDEX), eq(testToken), anyDouble());
+        verify(redisTemplate).convertAndSend("token:blacklist:events", testToken);
+    }
+
+    @Test
+    @DisplayName("Blacklist token verificado - Debe usar el jti e invalidar la caché local")
+    void blacklistToken_WhenVerifiedToken_ShouldUseJtiAndInvalidateCache() {
+        // Arrange
+        VerifiedToken verifiedToken = new VerifiedToken(testToken, Jwts.claims()
+                .id("jti-123")
+                .expiration(futureExpirationDate)
+                .build());
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        // Act
+        tokenBlacklistService.blacklistToken(verifiedToken);
+
+        // Assert
+        verify(verifiedTokenCache).invalidate(testToken);
+        verify(valueOperations).set(eq(BLACKLIST_PREFIX + "jti-123"), eq("revoked"), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    @DisplayName("Token de una sesión desalojada - Debe estar revocado por su sid")
+    void isTokenBlacklisted_WhenSessionRevoked_ShouldReturnTrue() {
+        // Arrange
+        VerifiedToken verifiedToken = new VerifiedToken(testToken, Jwts.claims()
+                .id("jti-123")
+                .add("sid", "session-1")
+                .expiration(futureExpirationDate)
+                .build());
+        when(redisTemplate.hasKey(BLACKLIST_PREFIX + "jti-123")).thenReturn(false);
+        when(redisTemplate.hasKey(BLACKLIST_PREFIX + "session-1")).thenReturn(true);
+
+        // Act & Assert
+        assertTrue(tokenBlacklistService.isTokenBlacklisted(verifiedToken));
     }
 
     @Test
@@ -78,7 +146,7 @@ class TokenBlacklistServiceTest {
         // No mock needed - token is already expired
 
         // Act
-        tokenBlacklistService.blacklistToken(testToken, pastExpirationDate);
+        tokenBlacklistService.blacklistToken(USERNAME, testToken, pastExpirationDate);
 
         // Assert
         // Verify no interaction with Redis since token is expired
@@ -94,7 +162,7 @@ class TokenBlacklistServiceTest {
                 .when(valueOperations).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
 
         // Act & Assert - No debe lanzar excepción
-        assertDoesNotThrow(() -> tokenBlacklistService.blacklistToken(testToken, futureExpirationDate));
+        assertDoesNotThrow(() -> tokenBlacklistService.blacklistToken(USERNAME, testToken, futureExpirationDate));
     }
 
     @Test
@@ -105,7 +173,7 @@ class TokenBlacklistServiceTest {
         doNothing().when(valueOperations).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
 
         // Act & Assert
-        assertDoesNotThrow(() -> tokenBlacklistService.blacklistToken(null, futureExpirationDate));
+        assertDoesNotThrow(() -> tokenBlacklistService.blacklistToken(USERNAME, null, futureExpirationDate));
     }
 
     @Test
@@ -118,7 +186,7 @@ class TokenBlacklistServiceTest {
 
         // Verify no interaction with Redis since there was an error
         verify(redisTemplate, never()).opsForValue();
-        assertDoesNotThrow(() -> tokenBlacklistService.blacklistToken(testToken, null));
+        assertDoesNotThrow(() -> tokenBlacklistService.blacklistToken(USERNAME, testToken, null));
     }
 
     // ==================== IS TOKEN BLACKLISTED TESTS ====================
@@ -130,7 +198,7 @@ class TokenBlacklistServiceTest {
         when(redisTemplate.hasKey(BLACKLIST_PREFIX + testToken)).thenReturn(true);
 
         // Act
-        boolean result = tokenBlacklistService.isTokenBlacklisted(testToken);
+        boolean result = tokenBlacklistService.isTokenBlacklisted(USERNAME, testToken);
 
         // Assert
         assertTrue(result, "Debe retornar true para token en blacklist");
@@ -144,7 +212,7 @@ class TokenBlacklistServiceTest {
         when(redisTemplate.hasKey(BLACKLIST_PREFIX + testToken)).thenReturn(false);
 
         // Act
-        boolean result = tokenBlacklistService.isTokenBlacklisted(testToken);
+        boolean result = tokenBlacklistService.isTokenBlacklisted(USERNAME, testToken);
 
         // Assert
         assertFalse(result, "Debe retornar false para token no en blacklist");
@@ -158,23 +226,26 @@ class TokenBlacklistServiceTest {
         when(redisTemplate.hasKey(BLACKLIST_PREFIX + testToken)).thenReturn(null);
 
         // Act
-        boolean result = tokenBlacklistService.isTokenBlacklisted(testToken);
+        boolean result = tokenBlacklistService.isTokenBlacklisted(USERNAME, testToken);
 
         // Assert
         assertFalse(result, "Debe retornar false cuando Redis retorna null");
     }
 
     @Test
-    @DisplayName("Verificar token con excepción Redis - Debe retornar true por seguridad")
-    void isTokenBlacklisted_WhenRedisException_ShouldReturnTrueForSecurity() {
+    @DisplayName("Verificar token con excepción Redis - Debe rechazar solo las revocaciones guardadas localmente")
+    void isTokenBlacklisted_WhenRedisException_ShouldUseDegradedStore() {
         // Arrange
         when(redisTemplate.hasKey(anyString())).thenThrow(new RuntimeException("Redis error"));
+        degradedStore.set(BLACKLIST_PREFIX + testToken, "revoked", 60000);
 
         // Act
-        boolean result = tokenBlacklistService.isTokenBlacklisted(testToken);
+        boolean revoked = tokenBlacklistService.isTokenBlacklisted(USERNAME, testToken);
+        boolean unknown = tokenBlacklistService.isTokenBlacklisted(USERNAME, "otro-token");
 
         // Assert
-        assertTrue(result, "Debe retornar true por seguridad en caso de error Redis");
+        assertTrue(revoked, "Una revocación hecha en modo degradado debe rechazarse");
+        assertFalse(unknown, "Un token sin revocación conocida debe admitirse");
     }
 
     @Test
@@ -184,7 +255,7 @@ class TokenBlacklistServiceTest {
         when(redisTemplate.hasKey(BLACKLIST_PREFIX + null)).thenReturn(false);
 
         // Act
-        boolean result = tokenBlacklistService.isTokenBlacklisted(null);
+        boolean result = tokenBlacklistService.isTokenBlacklisted(USERNAME, null);
 
         // Assert
         assertFalse(result);
@@ -198,7 +269,7 @@ class TokenBlacklistServiceTest {
         when(redisTemplate.hasKey(BLACKLIST_PREFIX + emptyToken)).thenReturn(false);
 
         // Act
-        boolean result = tokenBlacklistService.isTokenBlacklisted(emptyToken);
+        boolean result = tokenBlacklistService.isTokenBlacklisted(USERNAME, emptyToken);
 
         // Assert
         assertFalse(result);
@@ -253,56 +324,53 @@ class TokenBlacklistServiceTest {
     // ==================== CLEAR BLACKLIST TESTS ====================
 
     @Test
-    @DisplayName("Limpiar blacklist con tokens - Debe eliminar todos los tokens")
+    @DisplayName("Limpiar blacklist con tokens - Debe eliminar todos los tokens desde el índice")
     void clearBlacklist_WhenTokensExist_ShouldRemoveAll() {
         // Arrange
-        Set<String> keys = Set.of(
-                BLACKLIST_PREFIX + "token1",
-                BLACKLIST_PREFIX + "token2",
-                BLACKLIST_PREFIX + "token3"
-        );
-        when(redisTemplate.keys(BLACKLIST_PREFIX + "*")).thenReturn(keys);
-        when(redisTemplate.delete(keys)).thenReturn(3L);
+        Set<String> tokenIds = new LinkedHashSet<>(List.of("token1", "token2", "token3"));
+        when(zSetOperations.range(BLACKLIST_INDEX, 0, 499)).thenReturn(tokenIds, Set.of());
 
         // Act
         tokenBlacklistService.clearBlacklist();
 
         // Assert
-        verify(redisTemplate).keys(BLACKLIST_PREFIX + "*");
-        verify(redisTemplate).delete(keys);
+        verify(redisTemplate).unlink(List.of(
+                BLACKLIST_PREFIX + "token1",
+                BLACKLIST_PREFIX + "token2",
+                BLACKLIST_PREFIX + "token3"));
+        verify(zSetOperations).remove(BLACKLIST_INDEX, "token1", "token2", "token3");
+        verify(redisTemplate, never()).keys(anyString());
     }
 
     @Test
     @DisplayName("Limpiar blacklist vacía - Debe ejecutar sin error")
     void clearBlacklist_WhenNoTokens_ShouldExecuteWithoutError() {
         // Arrange
-        Set<String> emptyKeys = Set.of();
-        when(redisTemplate.keys(BLACKLIST_PREFIX + "*")).thenReturn(emptyKeys);
+        when(zSetOperations.range(BLACKLIST_INDEX, 0, 499)).thenReturn(Set.of());
 
         // Act
         tokenBlacklistService.clearBlacklist();
 
         // Assert
-        verify(redisTemplate).keys(BLACKLIST_PREFIX + "*");
-        verify(redisTemplate, never()).delete(anySet());
+        verify(redisTemplate, never()).unlink(anyCollection());
     }
 
     @Test
-    @DisplayName("Limpiar blacklist con keys null - Debe manejar gracefully")
-    void clearBlacklist_WhenKeysNull_ShouldHandleGracefully() {
+    @DisplayName("Limpiar blacklist con índice null - Debe manejar gracefully")
+    void clearBlacklist_WhenIndexNull_ShouldHandleGracefully() {
         // Arrange
-        when(redisTemplate.keys(BLACKLIST_PREFIX + "*")).thenReturn(null);
+        when(zSetOperations.range(BLACKLIST_INDEX, 0, 499)).thenReturn(null);
 
         // Act & Assert
         assertDoesNotThrow(() -> tokenBlacklistService.clearBlacklist());
-        verify(redisTemplate, never()).delete(anySet());
+        verify(redisTemplate, never()).unlink(anyCollection());
     }
 
     @Test
     @DisplayName("Limpiar blacklist con excepción Redis - Debe manejar error")
     void clearBlacklist_WhenRedisException_ShouldHandleError() {
         // Arrange
-        when(redisTemplate.keys(anyString())).thenThrow(new RuntimeException("Redis error"));
+        when(zSetOperations.range(anyString(), anyLong(), anyLong())).thenThrow(new RuntimeException("Redis error"));
 
         // Act & Assert
         assertDoesNotThrow(() -> tokenBlacklistService.clearBlacklist());
@@ -321,10 +389,10 @@ class TokenBlacklistServiceTest {
 
         // Act
         // 1. Blacklist token
-        tokenBlacklistService.blacklistToken(testToken, futureExpirationDate);
+        tokenBlacklistService.blacklistToken(USERNAME, testToken, futureExpirationDate);
 
         // 2. Verificar que está en blacklist
-        boolean isBlacklisted = tokenBlacklistService.isTokenBlacklisted(testToken);
+        boolean isBlacklisted = tokenBlacklistService.isTokenBlacklisted(USERNAME, testToken);
 
         // 3. Remover token
         tokenBlacklistService.removeTokenFromBlacklist(testToken);
@@ -347,9 +415,9 @@ class TokenBlacklistServiceTest {
         doNothing().when(valueOperations).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
 
         // Act
-        tokenBlacklistService.blacklistToken(token1, futureExpirationDate);
-        tokenBlacklistService.blacklistToken(token2, futureExpirationDate);
-        tokenBlacklistService.blacklistToken(token3, futureExpirationDate);
+        tokenBlacklistService.blacklistToken(USERNAME, token1, futureExpirationDate);
+        tokenBlacklistService.blacklistToken(USERNAME, token2, futureExpirationDate);
+        tokenBlacklistService.blacklistToken(USERNAME, token3, futureExpirationDate);
 
         // Assert
         verify(valueOperations, times(3)).set(anyString(), eq("revoked"), anyLong(), eq(TimeUnit.MILLISECONDS));
@@ -363,7 +431,7 @@ class TokenBlacklistServiceTest {
         when(redisTemplate.hasKey(BLACKLIST_PREFIX + specialToken)).thenReturn(true);
 
         // Act
-        boolean result = tokenBlacklistService.isTokenBlacklisted(specialToken);
+        boolean result = tokenBlacklistService.isTokenBlacklisted(USERNAME, specialToken);
 
         // Assert
         assertTrue(result);
@@ -379,7 +447,7 @@ class TokenBlacklistServiceTest {
         doNothing().when(valueOperations).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
 
         // Act
-        tokenBlacklistService.blacklistToken(testToken, nearFutureDate);
+        tokenBlacklistService.blacklistToken(USERNAME, testToken, nearFutureDate);
 
         // Assert
         verify(valueOperations).set(
@@ -391,24 +459,120 @@ class TokenBlacklistServiceTest {
     }
 
     @Test
-    @DisplayName("Limpiar blacklist con muchos tokens - Debe eliminar todos")
-    void clearBlacklist_WhenManyTokens_ShouldRemoveAll() {
+    @DisplayName("Limpiar blacklist con muchos tokens - Debe eliminar por lotes hasta vaciar el índice")
+    void clearBlacklist_WhenManyTokens_ShouldRemoveInBatches() {
         // Arrange
-        Set<String> manyKeys = Set.of(
-                BLACKLIST_PREFIX + "token1",
-                BLACKLIST_PREFIX + "token2",
-                BLACKLIST_PREFIX + "token3",
-                BLACKLIST_PREFIX + "token4",
-                BLACKLIST_PREFIX + "token5"
-        );
-        when(redisTemplate.keys(BLACKLIST_PREFIX + "*")).thenReturn(manyKeys);
-        when(redisTemplate.delete(manyKeys)).thenReturn(5L);
+        Set<String> firstBatch = new LinkedHashSet<>();
+        for (int i = 0; i < 500; i++) {
+            firstBatch.add("token" + i);
+        }
+        Set<String> secondBatch = new LinkedHashSet<>(List.of("token500", "token501"));
+        when(zSetOperations.range(BLACKLIST_INDEX, 0, 499)).thenReturn(firstBatch, secondBatch, Set.of());
 
         // Act
         tokenBlacklistService.clearBlacklist();
 
         // Assert
-        verify(redisTemplate).delete(manyKeys);
+        verify(redisTemplate, times(2)).unlink(anyCollection());
+        verify(redisTemplate).unlink(List.of(BLACKLIST_PREFIX + "token500", BLACKLIST_PREFIX + "token501"));
+        verify(zSetOperations, times(3)).range(BLACKLIST_INDEX, 0, 499);
+    }
+
+    // ==================== BLOOM FILTER TESTS ====================
+
+    @Test
+    @DisplayName("Filtro de Bloom cargado - Un jti no revocado no debe consultar Redis")
+    void isTokenBlacklisted_WhenBloomFilterMiss_ShouldSkipRedis() {
+        // Arrange
+        when(zSetOperations.rangeByScore(eq(BLACKLIST_INDEX), anyDouble(), anyDouble()))
+                .thenReturn(Set.of("jti-revocado"));
+        tokenBlacklistService.rebuildBloomFilter();
+
+        // Act
+        boolean result = tokenBlacklistService.isTokenBlacklisted(USERNAME, "jti-vigente");
+
+        // Assert
+        assertFalse(result);
+        verify(redisTemplate, never()).hasKey(anyString());
     }
-}
 
+    @Test
+    @DisplayName("Filtro de Bloom cargado - Un positivo debe confirmarse en Redis")
+    void isTokenBlacklisted_WhenBloomFilterHit_ShouldConfirmInRedis() {
+        // Arrange
+        when(zSetOperations.rangeByScore(eq(BLACKLIST_INDEX), anyDouble(), anyDouble()))
+                .thenReturn(Set.of("jti-revocado"));
+        when(redisTemplate.hasKey(BLACKLIST_PREFIX + "jti-revocado")).thenReturn(true);
+        tokenBlacklistService.rebuildBloomFilter();
+
+        // Act
+        boolean result = tokenBlacklistService.isTokenBlacklisted(USERNAME, "jti-revocado");
+
+        // Assert
+        assertTrue(result);
+        verify(zSetOperations).removeRangeByScore(eq(BLACKLIST_INDEX), eq(0.0), anyDouble());
+    }
+
+    @Test
+    @DisplayName("Reconstrucción con Redis caído - Debe seguir consultando Redis")
+    void rebuildBloomFilter_WhenRedisFails_ShouldFallBackToRedisLookup() {
+        // Arrange
+        when(zSetOperations.removeRangeByScore(anyString(), anyDouble(), anyDouble()))
+                .thenThrow(new RuntimeException("Redis error"));
+        when(redisTemplate.hasKey(BLACKLIST_PREFIX + testToken)).thenReturn(false);
+
+        // Act
+        assertDoesNotThrow(() -> tokenBlacklistService.rebuildBloomFilter());
+        boolean result = tokenBlacklistService.isTokenBlacklisted(USERNAME, testToken);
+
+        // Assert
+        assertFalse(result);
+        verify(redisTemplate).hasKey(BLACKLIST_PREFIX + testToken);
+    }
+
+    // ==================== DEGRADED MODE TESTS ====================
+
+    @Test
+    @DisplayName("Revocar con Redis caído - Debe seguir revocado tras reconstruir el filtro y escribirse al reconciliar")
+    void blacklistToken_WhenRedisFails_ShouldKeepLocalRevocationAndReconcile() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        doThrow(new RuntimeException("Read timed out")).doNothing()
+                .when(valueOperations).set(anyString(), anyString(), anyLong(), any(TimeUnit.class));
+        when(zSetOperations.rangeByScore(eq(BLACKLIST_INDEX), anyDouble(), anyDouble())).thenReturn(Set.of());
+        when(redisTemplate.hasKey(BLACKLIST_PREFIX + "jti-local")).thenThrow(new RuntimeException("Read timed out"));
+
+        // Act
+        tokenBlacklistService.blacklistToken(USERNAME, "jti-local", futureExpirationDate);
+        tokenBlacklistService.rebuildBloomFilter();
+        boolean revoked = tokenBlacklistService.isTokenBlacklisted(USERNAME, "jti-local");
+        int reconciled = degradedStore.reconcile();
+
+        // Assert
+        assertTrue(revoked);
+        assertEquals(1, reconciled);
+        verify(valueOperations, times(2)).set(eq(BLACKLIST_PREFIX + "jti-local"), eq("revoked"), anyLong(),
+                eq(TimeUnit.MILLISECONDS));
+        verify(zSetOperations).add(BLACKLIST_INDEX, "jti-local", futureExpirationDate.getTime());
+        verify(redisTemplate).convertAndSend(TokenBlacklistService.BLACKLIST_CHANNEL, "jti-local");
+    }
+
+    @Test
+    @DisplayName("Circuito abierto - Una revocación local debe rechazarse sin esperar a Redis")
+    void isTokenBlacklisted_WhenCircuitOpen_ShouldRejectWithoutCallingRedis() {
+        // Arrange
+        ReflectionTestUtils.setField(circuitBreaker, "failureThreshold", 1);
+        ReflectionTestUtils.setField(circuitBreaker, "openDurationMs", 60000L);
+        when(redisTemplate.hasKey(anyString())).thenThrow(new RuntimeException("Read timed out"));
+        degradedStore.set(BLACKLIST_PREFIX + testToken, "revoked", 60000);
+        tokenBlacklistService.isTokenBlacklisted(USERNAME, testToken);
+
+        // Act
+        boolean result = tokenBlacklistService.isTokenBlacklisted(USERNAME, testToken);
+
+        // Assert
+        assertTrue(result);
+        assertTrue(circuitBreaker.isDegraded());
+        verify(redisTemplate, times(1)).hasKey(anyString());
+    }
+}
@@ -0,0 +1,58 @@
+package com.udea.innosistemas.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test unitario para TokenBloomFilter utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica que no haya falsos negativos y que la tasa de falsos positivos sea acotada.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@DisplayName("TokenBloomFilter - Test unitario con patrón AAA")
+class TokenBloomFilterTest {
+
+    @Test
+    @DisplayName("Agregar identificadores - Nunca debe haber falsos negativos")
+    void mightContain_WhenIdAdded_ShouldAlwaysReturnTrue() {
+        // Arrange
+        TokenBloomFilter filter = new TokenBloomFilter(1000, 0.001);
+        String[] ids = new String[1000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = UUID.randomUUID().toString();
+            filter.put(ids[i]);
+        }
+
+        // Act & Assert
+        for (String id : ids) {
+            assertTrue(filter.mightContain(id));
+        }
+    }
+
+    @Test
+    @DisplayName("Identificadores no agregados - La tasa de falsos positivos debe ser baja")
+    void mightContain_WhenIdNotAdded_ShouldRarelyReturnTrue() {
+        // Arrange
+        TokenBloomFilter filter = new TokenBloomFilter(1000, 0.001);
+        for (int i = 0; i < 1000; i++) {
+            filter.put(UUID.randomUUID().toString());
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        assertTrue(falsePositives < 100, "Falsos positivos: " + falsePositives);
+        assertTrue(filter.getHashFunctions() > 1);
+    }
+}
@@ -0,0 +1,186 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.security.VerifiedToken;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitario para TokenRevocationService utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica la escritura de la época de revocación, su comparación con el "iat" y la caché local.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TokenRevocationService - Test unitario con patrón AAA")
+class TokenRevocationServiceTest {
+
+    private static final String REVOKED_BEFORE_PREFIX = "token:revoked-before:";
+    private static final String USERNAME = "estudiante@udea.edu.co";
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Spy
+    private RedisKeyspace keyspace = new RedisKeyspace();
+
+    @Spy
+    private RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker();
+
+    @Mock
+    private DegradedModeStore degradedStore;
+
+    @InjectMocks
+    private TokenRevocationService tokenRevocationService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(tokenRevocationService, "refreshExpirationInSeconds", 604800L);
+        ReflectionTestUtils.setField(tokenRevocationService, "cacheTtlSeconds", 60L);
+        ReflectionTestUtils.setField(tokenRevocationService, "cacheMaxSize", 100L);
+        tokenRevocationService.init();
+    }
+
+    private VerifiedToken tokenIssuedAt(long epochSeconds) {
+        return new VerifiedToken("header.payload.signature", Jwts.claims()
+                .subject(USERNAME)
+                .issuedAt(new Date(epochSeconds * 1000))
+                .build());
+    }
+
+    @Test
+    @DisplayName("Revocar todos los tokens - Debe escribir una sola clave y publicar el evento")
+    void revokeAllTokens_ShouldWriteSingleKeyAndPublish() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        // Act
+        boolean result = tokenRevocationService.revokeAllTokens(USERNAME);
+
+        // Assert
+        assertTrue(result);
+        verify(valueOperations).set(eq(REVOKED_BEFORE_PREFIX + USERNAME), anyString(), eq(604800L), eq(TimeUnit.SECONDS));
+        verify(redisTemplate).convertAndSend(TokenRevocationService.REVOCATION_CHANNEL, USERNAME);
+    }
+
+    @Test
+    @DisplayName("Token emitido antes de la revocación - Debe considerarse revocado sin volver a Redis")
+    void isRevoked_WhenIssuedBeforeEpoch_ShouldReturnTrue() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        long now = System.currentTimeMillis() / 1000;
+        tokenRevocationService.revokeAllTokens(USERNAME);
+
+        // Act
+        boolean result = tokenRevocationService.isRevoked(tokenIssuedAt(now - 60));
+
+        // Assert
+        assertTrue(result);
+        verify(valueOperations, never()).get(anyString());
+    }
+
+    @Test
+    @DisplayName("Nuevo inicio de sesión en el mismo segundo de la revocación - No debe considerarse revocado")
+    void isRevoked_WhenIssuedSameSecondAfterEpoch_ShouldReturnFalse() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        tokenRevocationService.revokeAllTokens(USERNAME);
+        long revokedBefore = tokenRevocationService.getRevokedBefore(USERNAME);
+        long issuedAtMillis = revokedBefore + 1;
+        VerifiedToken token = new VerifiedToken("header.payload.signature", Jwts.claims()
+                .subject(USERNAME)
+                .issuedAt(new Date(issuedAtMillis / 1000 * 1000))
+                .add("iatMs", issuedAtMillis)
+                .build());
+
+        // Act & Assert
+        assertFalse(tokenRevocationService.isRevoked(token));
+        assertTrue(tokenRevocationService.isRevoked(tokenIssuedAt(revokedBefore / 1000)),
+                "Un token sin iatMs del mismo segundo sigue revocado");
+    }
+
+    @Test
+    @DisplayName("Redis caído al revocar - Debe encolar la escritura, mantener la época local y reportar el fallo")
+    void revokeAllTokens_WhenRedisFails_ShouldEnqueueAndReturnFalse() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenThrow(new RuntimeException("Redis connection failed"));
+
+        // Act
+        boolean result = tokenRevocationService.revokeAllTokens(USERNAME);
+
+        // Assert
+        assertFalse(result);
+        verify(degradedStore).set(eq(REVOKED_BEFORE_PREFIX + USERNAME), anyString(), eq(604800_000L));
+        verify(degradedStore).enqueue(eq("revocation.revoke-all"), any(Runnable.class));
+        assertTrue(tokenRevocationService.isRevoked(tokenIssuedAt(System.currentTimeMillis() / 1000 - 60)));
+    }
+
+    @Test
+    @DisplayName("Token emitido después de la revocación - No debe considerarse revocado")
+    void isRevoked_WhenIssuedAfterEpoch_ShouldReturnFalse() {
+        // Arrange
+        long revokedBefore = System.currentTimeMillis() - 120000;
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(REVOKED_BEFORE_PREFIX + USERNAME)).thenReturn(String.valueOf(revokedBefore));
+
+        // Act
+        boolean first = tokenRevocationService.isRevoked(tokenIssuedAt(revokedBefore / 1000 + 60));
+        boolean second = tokenRevocationService.isRevoked(tokenIssuedAt(revokedBefore / 1000 + 60));
+
+        // Assert
+        assertFalse(first);
+        assertFalse(second);
+        verify(valueOperations, times(1)).get(REVOKED_BEFORE_PREFIX + USERNAME);
+    }
+
+    @Test
+    @DisplayName("Evento de otro nodo - Debe descartar la época cacheada")
+    void onMessage_ShouldInvalidateLocalEpoch() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(REVOKED_BEFORE_PREFIX + USERNAME)).thenReturn(null);
+        tokenRevocationService.getRevokedBefore(USERNAME);
+
+        // Act
+        tokenRevocationService.onMessage(new DefaultMessage(
+                TokenRevocationService.REVOCATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                USERNAME.getBytes(StandardCharsets.UTF_8)), null);
+        tokenRevocationService.getRevokedBefore(USERNAME);
+
+        // Assert
+        verify(valueOperations, times(2)).get(REVOKED_BEFORE_PREFIX + USERNAME);
+    }
+
+    @Test
+    @DisplayName("Redis caído - No debe revocar el token")
+    void isRevoked_WhenRedisFails_ShouldReturnFalse() {
+        // Arrange
+        when(redisTemplate.opsForValue()).thenThrow(new RuntimeException("Redis connection failed"));
+
+        // Act & Assert
+        assertFalse(tokenRevocationService.isRevoked(tokenIssuedAt(System.currentTimeMillis() / 1000)));
+        assertEquals(0L, tokenRevocationService.getRevokedBefore(null));
+    }
+}
@@ -0,0 +1,188 @@
+package com.udea.innosistemas.service;
+
+import com.udea.innosistemas.entity.User;
+import com.udea.innosistemas.entity.UserRole;
+import com.udea.innosistemas.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Test unitario para UserLookupService utilizando el patrón AAA (Arrange-Act-Assert).
+ * Verifica la coalescencia de consultas concurrentes y la caché cercana de copias inmutables de usuarios.
+ *
+ * Autor: Fábrica-Escuela de Software UdeA
+ * Versión: 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserLookupService - Test unitario con patrón AAA")
+class UserLookupServiceTest {
+
+    private static final String EMAIL = "estudiante@udea.edu.co";
+
+    @Mock
+    private UserRepository userRepository;
+
+    @InjectMocks
+    private UserLookupService userLookupService;
+
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userLookupService, "nearCacheTtlMs", 60000L);
+        ReflectionTestUtils.setField(userLookupService, "nearCacheMaxSize", 100L);
+        userLookupService.init();
+
+        testUser = new User(EMAIL, "password123", UserRole.STUDENT);
+        testUser.setId(7L);
+    }
+
+    @Test
+    @DisplayName("Búsquedas repetidas - Deben servirse desde la caché cercana")
+    void findByEmail_WhenRepeated_ShouldHitDatabaseOnce() {
+        // Arrange
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(testUser));
+
+        // Act
+        Optional<User> first = userLookupService.findByEmail(EMAIL);
+        Optional<User> second = userLookupService.findByEmail(EMAIL);
+
+        // Assert
+        assertEquals(testUser.getId(), first.orElseThrow().getId());
+        assertEquals(EMAIL, second.orElseThrow().getEmail());
+        assertNotSame(testUser, first.orElseThrow(), "La caché no debe entregar la entidad JPA");
+        assertNotSame(first.orElseThrow(), second.orElseThrow());
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+    }
+
+    @Test
+    @DisplayName("Usuario modificado por quien lo recibe - No debe alterar la copia cacheada")
+    void findByEmail_WhenCallerMutatesResult_ShouldNotAffectCache() {
+        // Arrange
+        testUser.setTeamId(3L);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(testUser));
+        User first = userLookupService.findByEmail(EMAIL).orElseThrow();
+
+        // Act
+        first.setRole(UserRole.ADMIN);
+        first.setTeamId(99L);
+        testUser.setTeamId(42L);
+        User second = userLookupService.findByEmail(EMAIL).orElseThrow();
+
+        // Assert
+        assertEquals(UserRole.STUDENT, second.getRole());
+        assertEquals(3L, second.getTeamId());
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+    }
+
+    @Test
+    @DisplayName("Usuario inexistente - No debe cachearse")
+    void findByEmail_WhenNotFound_ShouldNotCache() {
+        // Arrange
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.empty());
+
+        // Act
+        Optional<User> first = userLookupService.findByEmail(EMAIL);
+        Optional<User> second = userLookupService.findByEmail(EMAIL);
+
+        // Assert
+        assertTrue(first.isEmpty());
+        assertTrue(second.isEmpty());
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    @DisplayName("Evict - Debe forzar una nueva consulta a la BD")
+    void evict_ShouldReloadFromDatabase() {
+        // Arrange
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(testUser));
+        userLookupService.findByEmail(EMAIL);
+
+        // Act
+        userLookupService.evict(EMAIL);
+        userLookupService.findByEmail(EMAIL);
+
+        // Assert
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    @DisplayName("Email nulo - Debe retornar vacío sin consultar la BD")
+    void findByEmail_WhenNull_ShouldReturnEmpty() {
+        // Act
+        Optional<User> result = userLookupService.findByEmail(null);
+
+        // Assert
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @DisplayName("Búsquedas concurrentes - Deben compartir una sola consulta en vuelo")
+    void findByEmail_WhenConcurrent_ShouldCoalesceIntoOneQuery() throws Exception {
+        // Arrange
+        int callers = 8;
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+        when(userRepository.findByEmail(EMAIL)).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            assertTrue(releaseQuery.await(5, TimeUnit.SECONDS));
+            return Optional.of(testUser);
+        });
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) Executors.newFixedThreadPool(callers);
+
+        try {
+            // Act
+            List<Future<Optional<User>>> results = new ArrayList<>();
+            results.add(executor.submit(() -> userLookupService.findByEmail(EMAIL)));
+            assertTrue(queryStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < callers; i++) {
+                results.add(executor.submit(() -> userLookupService.findByEmail(EMAIL)));
+            }
+            // Espera a que los demás hilos se unan a la consulta en vuelo
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (executor.getActiveCount() < callers && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            releaseQuery.countDown();
+
+            // Assert
+            for (Future<Optional<User>> result : results) {
+                assertEquals(testUser.getId(), result.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+            }
+            verify(userRepository, times(1)).findByEmail(EMAIL);
+            assertEquals(0, userLookupService.getInFlightCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Error en la consulta - Debe propagarse y no dejar la consulta en vuelo")
+    void findByEmail_WhenRepositoryFails_ShouldPropagateAndClearFlight() {
+        // Arrange
+        when(userRepository.findByEmail(EMAIL)).thenThrow(new RuntimeException("Database error"));
+
+        // Act & Assert
+        assertThrows(RuntimeException.class, () -> userLookupService.findByEmail(EMAIL));
+        assertEquals(0, userLookupService.getInFlightCount());
+    }
+}
@@ -42,6 +42,9 @@ class UserQueryServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private UserLookupService userLookupService;
+
     @Mock
     private SecurityContext securityContext;
 
@@ -123,7 +126,7 @@ class UserQueryServiceTest {
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                 testStudent.getEmail(), null);
         when(securityContext.getAuthentication()).thenReturn(auth);
-        when(userRepository.findByEmail(testStudent.getEmail())).thenReturn(Optional.of(testStudent));
+        when(userLookupService.findByEmail(testStudent.getEmail())).thenReturn(Optional.of(testStudent));
 
         // Act
         UserInfo result = userQueryService.getCurrentUser();
@@ -137,7 +140,7 @@ class UserQueryServiceTest {
         assertEquals(testStudent.getLastName(), result.getLastName());
         assertEquals(testStudent.getTeamId(), result.getTeamId());
         assertEquals(testStudent.getCourseId(), result.getCourseId());
-        verify(userRepository).findByEmail(testStudent.getEmail());
+        verify(userLookupService).findByEmail(testStudent.getEmail());
     }
 
     @Test
@@ -154,7 +157,7 @@ class UserQueryServiceTest {
         });
 
         assertEquals("Error al obtener información del usuario", exception.getMessage());
-        verify(userRepository, never()).findByEmail(anyString());
+        verify(userLookupService, never()).findByEmail(anyString());
     }
 
     @Test
@@ -164,7 +167,7 @@ class UserQueryServiceTest {
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                 "noexiste@udea.edu.co", null);
         when(securityContext.getAuthentication()).thenReturn(auth);
-        when(userRepository.findByEmail("noexiste@udea.edu.co")).thenReturn(Optional.empty());
+        when(userLookupService.findByEmail("noexiste@udea.edu.co")).thenReturn(Optional.empty());
 
         // Act & Assert
         AuthenticationException exception = assertThrows(AuthenticationException.class, () -> {
@@ -172,7 +175,7 @@ class UserQueryServiceTest {
         });
 
         assertEquals("Usuario no encontrado", exception.getMessage());
-        verify(userRepository).findByEmail("noexiste@udea.edu.co");
+        verify(userLookupService).findByEmail("noexiste@udea.edu.co");
     }
 
     @Test
@@ -195,7 +198,7 @@ class UserQueryServiceTest {
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                 testProfessor.getEmail(), null);
         when(securityContext.getAuthentication()).thenReturn(auth);
-        when(userRepository.findByEmail(testProfessor.getEmail())).thenReturn(Optional.of(testProfessor));
+        when(userLookupService.findByEmail(testProfessor.getEmail())).thenReturn(Optional.of(testProfessor));
 
         // Act
         UserInfo result = userQueryService.getCurrentUser();
@@ -215,7 +218,7 @@ class UserQueryServiceTest {
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                 testStudent.getEmail(), null);
         when(securityContext.getAuthentication()).thenReturn(auth);
-        when(userRepository.findByEmail(testStudent.getEmail())).thenReturn(Optional.of(testStudent));
+        when(userLookupService.findByEmail(testStudent.getEmail())).thenReturn(Optional.of(testStudent));
 
         // Act
         UserPermissions result = userQueryService.getUserPermissions();
@@ -242,7 +245,7 @@ class UserQueryServiceTest {
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                 testProfessor.getEmail(), null);
         when(securityContext.getAuthentication()).thenReturn(auth);
-        when(userRepository.findByEmail(testProfessor.getEmail())).thenReturn(Optional.of(testProfessor));
+        when(userLookupService.findByEmail(testProfessor.getEmail())).thenReturn(Optional.of(testProfessor));
 
         // Act
         UserPermissions result = userQueryService.getUserPermissions();
@@ -270,7 +273,7 @@ class UserQueryServiceTest {
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                 testAdmin.getEmail(), null);
         when(securityContext.getAuthentication()).thenReturn(auth);
-        when(userRepository.findByEmail(testAdmin.getEmail())).thenReturn(Optional.of(testAdmin));
+        when(userLookupService.findByEmail(testAdmin.getEmail())).thenReturn(Optional.of(testAdmin));
 
         // Act
         UserPermissions result = userQueryService.getUserPermissions();
@@ -299,7 +302,7 @@ class UserQueryServiceTest {
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                 testTA.getEmail(), null);
         when(securityContext.getAuthentication()).thenReturn(auth);
-        when(userRepository.findByEmail(testTA.getEmail())).thenReturn(Optional.of(testTA));
+        when(userLookupService.findByEmail(testTA.getEmail())).thenReturn(Optional.of(testTA));
 
         // Act
         UserPermissions result = userQueryService.getUserPermissions();
@@ -359,7 +362,7 @@ class UserQueryServiceTest {
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                 testStudent.getEmail(), null);
         when(securityContext.getAuthentication()).thenReturn(auth);
-        when(userRepository.findByEmail(testStudent.getEmail())).thenReturn(Optional.of(testStudent));
+        when(userLookupService.findByEmail(testStudent.getEmail())).thenReturn(Optional.of(testStudent));
         when(userRepository.findByTeamId(teamId)).thenReturn(Arrays.asList(testStudent, teammate1, teammate2));
 
         // Act
@@ -379,7 +382,7 @@ class UserQueryServiceTest {
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                 testStudent.getEmail(), null);
         when(securityContext.getAuthentication()).thenReturn(auth);
-        when(userRepository.findByEmail(testStudent.getEmail())).thenReturn(Optional.of(testStudent));
+        when(userLookupService.findByEmail(testStudent.getEmail())).thenReturn(Optional.of(testStudent));
 
         // Act & Assert
         AuthenticationException exception = assertThrows(AuthenticationException.class, () -> {
@@ -398,7 +401,7 @@ class UserQueryServiceTest {
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                 testStudent.getEmail(), null);
         when(securityContext.getAuthentication()).thenReturn(auth);
-        when(userRepository.findByEmail(testStudent.getEmail())).thenReturn(Optional.of(testStudent));
+        when(userLookupService.findByEmail(testStudent.getEmail())).thenReturn(Optional.of(testStudent));
 
         // Act & Assert
         AuthenticationException exception = assertThrows(AuthenticationException.class, () -> {
@@ -418,7 +421,7 @@ class UserQueryServiceTest {
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                 testProfessor.getEmail(), null);
         when(securityContext.getAuthentication()).thenReturn(auth);
-        when(userRepository.findByEmail(testProfessor.getEmail())).thenReturn(Optional.of(testProfessor));
+        when(userLookupService.findByEmail(testProfessor.getEmail())).thenReturn(Optional.of(testProfessor));
         when(userRepository.findByTeamId(teamId)).thenReturn(members);
 
         // Act
@@ -440,7 +443,7 @@ class UserQueryServiceTest {
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                 testAdmin.getEmail(), null);
         when(securityContext.getAuthentication()).thenReturn(auth);
-        when(userRepository.findByEmail(testAdmin.getEmail())).thenReturn(Optional.of(testAdmin));
+        when(userLookupService.findByEmail(testAdmin.getEmail())).thenReturn(Optional.of(testAdmin));
         when(userRepository.findByTeamId(teamId)).thenReturn(members);
 
         // Act
@@ -460,7 +463,7 @@ class UserQueryServiceTest {
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                 testProfessor.getEmail(), null);
         when(securityContext.getAuthentication()).thenReturn(auth);
-        when(userRepository.findByEmail(testProfessor.getEmail())).thenReturn(Optional.of(testProfessor));
+        when(userLookupService.findByEmail(testProfessor.getEmail())).thenReturn(Optional.of(testProfessor));
         when(userRepository.findByTeamId(teamId)).thenReturn(Arrays.asList());
 
         // Act
@@ -497,7 +500,7 @@ class UserQueryServiceTest {
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                 testTA.getEmail(), null);
         when(securityContext.getAuthentication()).thenReturn(auth);
-        when(userRepository.findByEmail(testTA.getEmail())).thenReturn(Optional.of(testTA));
+        when(userLookupService.findByEmail(testTA.getEmail())).thenReturn(Optional.of(testTA));
         when(userRepository.findByTeamId(teamId)).thenReturn(members);
 
         // Act
@@ -515,7 +518,7 @@ class UserQueryServiceTest {
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                 "noexiste@udea.edu.co", null);
         when(securityContext.getAuthentication()).thenReturn(auth);
-        when(userRepository.findByEmail("noexiste@udea.edu.co")).thenReturn(Optional.empty());
+        when(userLookupService.findByEmail("noexiste@udea.edu.co")).thenReturn(Optional.empty());
 
         // Act & Assert
         AuthenticationException exception = assertThrows(AuthenticationException.class, () -> {
@@ -533,7 +536,7 @@ class UserQueryServiceTest {
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
                 testProfessor.getEmail(), null);
         when(securityContext.getAuthentication()).thenReturn(auth);
-        when(userRepository.findByEmail(testProfessor.getEmail())).thenReturn(Optional.of(testProfessor));
+        when(userLookupService.findByEmail(testProfessor.getEmail())).thenReturn(Optional.of(testProfessor));
         when(userRepository.findByTeamId(teamId)).thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert